@@ -8,8 +8,10 @@
 package org.mule.runtime.core.agent.registry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.mule.runtime.api.metadata.DataType;
@@ -17,11 +19,14 @@ import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.registry.TransformerResolver;
 import org.mule.runtime.core.api.transformer.Converter;
 import org.mule.runtime.core.api.transformer.Transformer;
+import org.mule.runtime.core.api.transformer.TransformerException;
 import org.mule.runtime.core.registry.DefaultRegistryBroker;
 import org.mule.runtime.core.registry.MuleRegistryHelper;
 import org.mule.runtime.core.transformer.builder.MockConverterBuilder;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
+import org.mule.tck.testmodels.fruit.Apple;
+import org.mule.tck.testmodels.fruit.Banana;
 import org.mule.tck.testmodels.fruit.Orange;
 
 import java.util.List;
@@ -41,11 +46,11 @@ public class MuleRegistryHelperTransformerLookupTestCase extends AbstractMuleTes
     private final MuleRegistryHelper muleRegistryHelper = new MuleRegistryHelper(registry, muleContext);
     private final Converter stringToOrange = new MockConverterBuilder().from(DataType.STRING).to(ORANGE_DATA_TYPE).build();
     private final Converter orangeToString = new MockConverterBuilder().from(ORANGE_DATA_TYPE).to(DataType.STRING).build();
+    private final TransformerResolver transformerResolver = mock(TransformerResolver.class);
 
     @Before
     public void setUp() throws Exception
     {
-        TransformerResolver transformerResolver = mock(TransformerResolver.class);
         when(transformerResolver.resolve(DataType.STRING, ORANGE_DATA_TYPE)).thenReturn(stringToOrange);
         when(transformerResolver.resolve(ORANGE_DATA_TYPE, DataType.STRING)).thenReturn(orangeToString);
 
@@ -75,4 +80,81 @@ public class MuleRegistryHelperTransformerLookupTestCase extends AbstractMuleTes
         assertEquals(1, transformers.size());
         assertEquals(stringToOrange, transformers.get(0));
     }
+
+    @Test
+    public void cachesMissingTransformers() throws Exception
+    {
+        assertNoTransformerFound(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+        assertNoTransformerFound(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+
+        verify(transformerResolver, times(1)).resolve(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+    }
+
+    @Test
+    public void keepsUnaffectedTransformersWhenConverterIsRegistered() throws Exception
+    {
+        muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE);
+        muleRegistryHelper.lookupTransformers(DataType.STRING, ORANGE_DATA_TYPE);
+
+        Converter appleToBanana = new MockConverterBuilder().from(DataType.fromType(Apple.class)).to(DataType.fromType(Banana.class)).build();
+        muleRegistryHelper.registerTransformer(appleToBanana);
+
+        assertEquals(stringToOrange, muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE));
+        verify(transformerResolver, times(1)).resolve(DataType.STRING, ORANGE_DATA_TYPE);
+        assertEquals(1, muleRegistryHelper.lookupTransformers(DataType.STRING, ORANGE_DATA_TYPE).size());
+    }
+
+    @Test
+    public void invalidatesAffectedTransformersWhenConverterIsRegistered() throws Exception
+    {
+        muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE);
+        muleRegistryHelper.lookupTransformers(DataType.STRING, ORANGE_DATA_TYPE);
+
+        Converter otherStringToOrange = new MockConverterBuilder().named("otherStringToOrange").from(DataType.STRING).to(ORANGE_DATA_TYPE).build();
+        muleRegistryHelper.registerTransformer(otherStringToOrange);
+
+        muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE);
+        verify(transformerResolver, times(2)).resolve(DataType.STRING, ORANGE_DATA_TYPE);
+        assertEquals(2, muleRegistryHelper.lookupTransformers(DataType.STRING, ORANGE_DATA_TYPE).size());
+    }
+
+    @Test
+    public void invalidatesMissingTransformersWhenConverterIsRegistered() throws Exception
+    {
+        assertNoTransformerFound(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+
+        Converter appleToBanana = new MockConverterBuilder().from(DataType.fromType(Apple.class)).to(DataType.fromType(Banana.class)).build();
+        muleRegistryHelper.registerTransformer(appleToBanana);
+
+        assertNoTransformerFound(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+        verify(transformerResolver, times(2)).resolve(ORANGE_DATA_TYPE, DataType.BYTE_ARRAY);
+    }
+
+    @Test
+    public void invalidatesTransformersUsingRemovedConverter() throws Exception
+    {
+        muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE);
+        muleRegistryHelper.lookupTransformer(ORANGE_DATA_TYPE, DataType.STRING);
+
+        muleRegistryHelper.notifyTransformerResolvers(stringToOrange, TransformerResolver.RegistryAction.REMOVED);
+
+        muleRegistryHelper.lookupTransformer(DataType.STRING, ORANGE_DATA_TYPE);
+        muleRegistryHelper.lookupTransformer(ORANGE_DATA_TYPE, DataType.STRING);
+        verify(transformerResolver, times(2)).resolve(DataType.STRING, ORANGE_DATA_TYPE);
+        verify(transformerResolver, times(1)).resolve(ORANGE_DATA_TYPE, DataType.STRING);
+        assertEquals(0, muleRegistryHelper.lookupTransformers(DataType.STRING, ORANGE_DATA_TYPE).size());
+    }
+
+    private void assertNoTransformerFound(DataType<?> source, DataType<?> result)
+    {
+        try
+        {
+            muleRegistryHelper.lookupTransformer(source, result);
+            fail("Expected no transformer to be found");
+        }
+        catch (TransformerException e)
+        {
+            // Expected
+        }
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.context.notification;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.context.WorkManager;
+import org.mule.runtime.core.api.context.notification.ServerNotification;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.resource.spi.work.WorkListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ListenerQueuesNotificationManagerTestCase extends AbstractMuleTestCase
+{
+
+    private final LinkedList<Runnable> scheduled = new LinkedList<>();
+    private final RecordingListener slowListener = new RecordingListener();
+    private final RecordingListener fastListener = new RecordingListener();
+    private ServerNotificationManager manager;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        manager = new ServerNotificationManager();
+        manager.setMuleContext(mock(MuleContext.class, RETURNS_DEEP_STUBS));
+        manager.setDispatchMode(NotificationDispatchMode.LISTENER_QUEUES);
+        manager.setListenerQueueCapacity(2);
+        manager.setBatchSize(2);
+        manager.addInterfaceToType(Listener2.class, Event2.class);
+        manager.addListener(slowListener);
+        manager.addListener(fastListener);
+
+        WorkManager workManager = mock(WorkManager.class);
+        doAnswer(invocation -> scheduled.add((Runnable) invocation.getArguments()[0])).when(workManager).execute(any(Runnable.class));
+        manager.start(workManager, mock(WorkListener.class));
+    }
+
+    @Test
+    public void deliversInBatches()
+    {
+        ServerNotification first = new Event2("first");
+        ServerNotification second = new Event2("second");
+        manager.fireNotification(first);
+        manager.fireNotification(second);
+
+        assertThat(slowListener.notifications, is(empty()));
+        assertThat(scheduled, hasSize(2));
+        runScheduled();
+
+        assertThat(slowListener.notifications, contains(first, second));
+        assertThat(fastListener.notifications, contains(first, second));
+        assertThat(manager.getDroppedNotifications(), is(0L));
+    }
+
+    @Test
+    public void slowListenerDoesNotDelayOthers()
+    {
+        manager.fireNotification(new Event2("first"));
+        manager.fireNotification(new Event2("second"));
+
+        // Only deliver to the fast listener, as if the slow one was still busy with its previous batch
+        Runnable slowListenerDelivery = findScheduledFor(slowListener);
+        findScheduledFor(fastListener).run();
+
+        assertThat(fastListener.notifications, hasSize(2));
+        assertThat(slowListener.notifications, is(empty()));
+        slowListenerDelivery.run();
+        assertThat(slowListener.notifications, hasSize(2));
+    }
+
+    @Test
+    public void dropsWhenListenerQueueIsFull()
+    {
+        ServerNotification first = new Event2("first");
+        ServerNotification second = new Event2("second");
+        manager.fireNotification(first);
+        manager.fireNotification(second);
+        manager.fireNotification(new Event2("third"));
+
+        runScheduled();
+
+        assertThat(slowListener.notifications, contains(first, second));
+        assertThat(manager.getDroppedNotifications(slowListener), is(1L));
+        assertThat(manager.getDroppedNotifications(), is(2L));
+    }
+
+    @Test
+    public void coalescesWhenListenerQueueIsFull()
+    {
+        manager.setOverflowPolicy(NotificationOverflowPolicy.COALESCE);
+        ServerNotification first = new Event2("first");
+        ServerNotification second = new Event2("second");
+        ServerNotification newerSecond = new Event2("second");
+        ServerNotification third = new Event2("third");
+        manager.fireNotification(first);
+        manager.fireNotification(second);
+        manager.fireNotification(newerSecond);
+        manager.fireNotification(third);
+
+        runScheduled();
+
+        assertThat(slowListener.notifications, contains(newerSecond, third));
+        assertThat(manager.getDroppedNotifications(slowListener), is(2L));
+    }
+
+    @Test
+    public void removedListenerIsNotNotified()
+    {
+        manager.fireNotification(new Event2("first"));
+        manager.removeListener(slowListener);
+        manager.fireNotification(new Event2("second"));
+
+        runScheduled();
+
+        assertThat(slowListener.notifications, is(empty()));
+        assertThat(fastListener.notifications, hasSize(2));
+    }
+
+    private Runnable findScheduledFor(RecordingListener listener)
+    {
+        for (Runnable runnable : scheduled)
+        {
+            if (((ListenerNotificationQueue) runnable).getListener() == listener)
+            {
+                return runnable;
+            }
+        }
+        throw new AssertionError("No delivery scheduled for listener");
+    }
+
+    private void runScheduled()
+    {
+        while (!scheduled.isEmpty())
+        {
+            scheduled.removeFirst().run();
+        }
+    }
+
+    private static class RecordingListener extends Listener2
+    {
+
+        private final List<ServerNotification> notifications = new ArrayList<>();
+
+        @Override
+        public void onNotification(ServerNotification notification)
+        {
+            notifications.add(notification);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.mule.runtime.api.metadata.AbstractDataTypeBuilderFactory;
 import org.mule.runtime.core.api.MuleEvent;
 import org.mule.runtime.core.api.MuleMessage;
 import org.mule.runtime.core.api.construct.FlowConstruct;
+import org.mule.runtime.core.api.el.CompiledExpression;
 import org.mule.runtime.core.api.el.ExpressionLanguageContext;
 import org.mule.runtime.core.api.el.ExpressionLanguageExtension;
 import org.mule.runtime.core.api.expression.ExpressionRuntimeException;
@@ -58,6 +59,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -245,6 +247,51 @@ public class MVELExpressionLanguageTestCase extends AbstractMuleContextTestCase
         validate("2*'2");
     }
 
+    @Test
+    public void compiledExpressionIsEvaluatedAgainstEachEvent()
+    {
+        CompiledExpression expression = compile("flow.name + ':' + message.payload");
+
+        assertEquals("myFlow:foo", expression.evaluate(createMockEvent("foo", DataType.STRING)));
+        assertEquals("myFlow:bar", expression.evaluate(createMockEvent("bar", DataType.STRING)));
+        assertEquals(MuleManifest.getProductVersion(), compile("mule.version").evaluate(null));
+    }
+
+    @Test
+    public void compiledExpressionWithVariables()
+    {
+        CompiledExpression expression = compile("foo + message.payload");
+
+        assertEquals("1foo", expression.evaluate(createMockEvent(), Collections.<String, Object> singletonMap("foo", "1")));
+        assertEquals("2foo", expression.evaluate(createMockEvent(), Collections.<String, Object> singletonMap("foo", "2")));
+    }
+
+    @Test
+    public void compiledExpressionLocalVariablesAreNotShared() throws Exception
+    {
+        compile("localVar = 'value'").evaluate(getTestEvent(TEST_MESSAGE));
+
+        assertEquals(false, compile("isdef localVar").evaluate(getTestEvent(TEST_MESSAGE)));
+    }
+
+    @Test
+    public void nestedCompiledExpressionEvaluation()
+    {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("inner", compile("message.payload"));
+        vars.put("innerEvent", createMockEvent("bar", DataType.STRING));
+
+        CompiledExpression outer = compile("inner.evaluate(innerEvent) + message.payload");
+
+        assertEquals("barfoo", outer.evaluate(createMockEvent(), vars));
+    }
+
+    @Test(expected = InvalidExpressionException.class)
+    public void compileInvalid()
+    {
+        compile("2*'2");
+    }
+
     @Test
     public void regexFunction() throws Exception
     {
@@ -552,6 +599,18 @@ public class MVELExpressionLanguageTestCase extends AbstractMuleContextTestCase
         }
     }
 
+    protected CompiledExpression compile(String expression)
+    {
+        if (variant.equals(Variant.EXPRESSION_WITH_DELIMITER))
+        {
+            return mvel.compile("#[" + expression + "]");
+        }
+        else
+        {
+            return mvel.compile(expression);
+        }
+    }
+
     protected void validate(String expression)
     {
         if (variant.equals(Variant.EXPRESSION_WITH_DELIMITER))
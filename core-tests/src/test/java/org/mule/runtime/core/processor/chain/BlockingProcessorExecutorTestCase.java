@@ -21,6 +21,7 @@ import org.mule.runtime.core.DefaultMuleMessage;
 import org.mule.runtime.core.MessageExchangePattern;
 import org.mule.runtime.core.OptimizedRequestContext;
 import org.mule.runtime.core.RequestContext;
+import org.mule.runtime.core.VoidMuleEvent;
 import org.mule.runtime.core.TransformationService;
 import org.mule.runtime.core.api.MessagingException;
 import org.mule.runtime.core.api.MuleContext;
@@ -122,6 +123,24 @@ public class BlockingProcessorExecutorTestCase extends AbstractMuleTestCase
         assertThat(createProcessorExecutor(processors).execute(), is(nullValue()));
     }
 
+    @Test
+    public void executeVoidEventResponseContinuesWithMessageBeforeProcessor() throws MuleException
+    {
+        processors.add(0, new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                event.getMessage().setOutboundProperty("key", "value");
+                return VoidMuleEvent.getInstance();
+            }
+        });
+        setupRequestResponseEvent();
+        MuleEvent result = createProcessorExecutor(processors).execute();
+        assertThat(result.getMessageAsString(), equalTo(RESULT));
+        assertThat(result.getMessage().getOutboundProperty("key"), is(nullValue()));
+    }
+
     @Test
     public void executeOneWay() throws MuleException, InterruptedException
     {
@@ -43,6 +43,7 @@ import org.mule.runtime.core.api.processor.MessageProcessorBuilder;
 import org.mule.runtime.core.api.processor.MessageProcessorChain;
 import org.mule.runtime.core.construct.Flow;
 import org.mule.runtime.core.construct.flow.DefaultFlowProcessingStrategy;
+import org.mule.runtime.core.context.notification.ServerNotificationManager;
 import org.mule.runtime.core.processor.AbstractInterceptingMessageProcessor;
 import org.mule.runtime.core.processor.NonBlockingMessageProcessor;
 import org.mule.runtime.core.processor.ResponseMessageProcessorAdapter;
@@ -504,6 +505,31 @@ public class DefaultMessageProcessorChainTestCase extends AbstractMuleTestCase
         assertEquals(isMultipleThreadsUsed() ? 5 : 1, threads);
     }
 
+    @Test
+    public void testNestedMPChainWithVoidReturnAndNotificationsDisabled() throws MuleException, Exception
+    {
+        when(muleContext.getNotificationManager()).thenReturn(mock(ServerNotificationManager.class));
+        DefaultMessageProcessorChainBuilder builder = new DefaultMessageProcessorChainBuilder();
+        builder.chain(
+                getAppendingMP("1"),
+                new DefaultMessageProcessorChainBuilder().chain(getAppendingMP("a"), new ReturnVoidMP(),
+                                                                getAppendingMP("b")).build(), new ReturnVoidMP(),
+                getAppendingMP("2"));
+        assertEquals("01ab2", process(builder.build(), getTestEventUsingFlow("0")).getMessage().getPayload());
+    }
+
+    @Test
+    public void testNestedMPChainWithNullReturnAndNotificationsDisabled() throws MuleException, Exception
+    {
+        when(muleContext.getNotificationManager()).thenReturn(mock(ServerNotificationManager.class));
+        DefaultMessageProcessorChainBuilder builder = new DefaultMessageProcessorChainBuilder();
+        builder.chain(
+                getAppendingMP("1"),
+                new DefaultMessageProcessorChainBuilder().chain(getAppendingMP("a"), getAppendingMP("b"),
+                                                                new ReturnNullMP()).build(), getAppendingMP("2"));
+        assertNull(process(builder.build(), getTestEventUsingFlow("0")));
+    }
+
     @Test
     public void testNestedMPChainWithNullReturnAtEndOfNestedChain() throws MuleException, Exception
     {
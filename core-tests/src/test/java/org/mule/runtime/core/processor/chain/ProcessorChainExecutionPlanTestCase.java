@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.processor.chain;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.context.notification.MessageProcessorNotification;
+import org.mule.runtime.core.context.notification.ServerNotificationManager;
+import org.mule.runtime.core.execution.MessageProcessorExecutionTemplate;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class ProcessorChainExecutionPlanTestCase extends AbstractMuleTestCase
+{
+
+    private final ServerNotificationManager notificationManager = mock(ServerNotificationManager.class);
+    private final MessageProcessor mp1 = event -> event;
+    private final MessageProcessor mp2 = event -> event;
+    private final MessageProcessor mp3 = event -> event;
+    private final MessageProcessor mp4 = event -> event;
+
+    @Test
+    public void nestedChainsAreFlattenedWithoutNotifications() throws MuleException
+    {
+        MessageProcessor nested = new DefaultMessageProcessorChainBuilder().chain(mp2, new DefaultMessageProcessorChainBuilder().chain(mp3).build()).build();
+
+        assertThat(compile(asList(mp1, nested, mp4)).getProcessors(), equalTo(asList(mp1, mp2, mp3, mp4)));
+    }
+
+    @Test
+    public void nestedChainsAreKeptWithNotifications() throws MuleException
+    {
+        when(notificationManager.isNotificationEnabled(MessageProcessorNotification.class)).thenReturn(true);
+        List<MessageProcessor> processors = asList(mp1, new DefaultMessageProcessorChainBuilder().chain(mp2).build());
+
+        assertThat(compile(processors).getProcessors(), sameInstance(processors));
+    }
+
+    @Test
+    public void nestedChainsAreKeptWithDynamicNotifications() throws MuleException
+    {
+        when(notificationManager.isNotificationDynamic()).thenReturn(true);
+        List<MessageProcessor> processors = asList(mp1, new DefaultMessageProcessorChainBuilder().chain(mp2).build());
+
+        assertThat(compile(processors).getProcessors(), sameInstance(processors));
+    }
+
+    @Test
+    public void subFlowsAreNotFlattened() throws MuleException
+    {
+        MessageProcessor subFlow = new SubflowMessageProcessorChainBuilder().chain(mp2).build();
+        MessageProcessor simpleChain = new SimpleMessageProcessorChain(mp3);
+
+        assertThat(compile(asList(mp1, subFlow, simpleChain)).getProcessors(), equalTo(asList(mp1, subFlow, simpleChain)));
+    }
+
+    private ProcessorChainExecutionPlan compile(List<MessageProcessor> processors)
+    {
+        return ProcessorChainExecutionPlan.compile(processors, MessageProcessorExecutionTemplate.createExecutionTemplate(), notificationManager);
+    }
+}
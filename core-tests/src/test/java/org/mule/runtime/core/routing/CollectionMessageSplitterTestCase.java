@@ -6,11 +6,14 @@
  */
 package org.mule.runtime.core.routing;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -19,12 +22,14 @@ import static org.mockito.Mockito.when;
 import org.mule.runtime.core.DefaultMuleEvent;
 import org.mule.runtime.core.DefaultMuleMessage;
 import org.mule.runtime.core.VoidMuleEvent;
+import org.mule.runtime.core.api.DefaultMuleException;
 import org.mule.runtime.core.api.MuleEvent;
 import org.mule.runtime.core.api.MuleException;
 import org.mule.runtime.core.api.MuleMessage;
 import org.mule.runtime.core.api.MuleSession;
 import org.mule.runtime.core.api.config.MuleProperties;
 import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.config.i18n.MessageFactory;
 import org.mule.runtime.core.construct.Flow;
 import org.mule.runtime.core.routing.outbound.IteratorMessageSequence;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
@@ -38,6 +43,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -144,6 +150,102 @@ public class CollectionMessageSplitterTestCase extends AbstractMuleContextTestCa
         assertRouted(new IteratorMessageSequence<String>(TEST_LIST_SINGLE.iterator()), 1, false);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentSplitPreservesOrder() throws Exception
+    {
+        CollectionSplitter splitter = createConcurrentSplitter(3);
+        splitter.setListener(event -> {
+            // complete the parts in the reverse order they were sent
+            sleep(100 * (4 - event.getMessage().getCorrelationSequence()));
+            return event;
+        });
+
+        MuleEvent result = splitter.process(createEvent(TEST_LIST_MULTIPLE));
+
+        List<MuleMessage> results = (List<MuleMessage>) result.getMessage().getPayload();
+        assertThat(results.size(), is(3));
+        for (int i = 0; i < results.size(); i++)
+        {
+            assertThat(results.get(i).getPayload(), equalTo((Object) TEST_LIST_MULTIPLE.get(i)));
+        }
+    }
+
+    @Test
+    public void testConcurrentSplitBoundsConcurrency() throws Exception
+    {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        CollectionSplitter splitter = createConcurrentSplitter(2);
+        splitter.setListener(event -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return event;
+        });
+
+        List<String> payload = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            payload.add("item" + i);
+        }
+        splitter.process(createEvent(new IteratorMessageSequence<>(payload.iterator())));
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testConcurrentSplitIsolatesFailures() throws Exception
+    {
+        final AtomicInteger processed = new AtomicInteger();
+        CollectionSplitter splitter = createConcurrentSplitter(3);
+        splitter.setListener(event -> {
+            if ("def".equals(event.getMessage().getPayload()))
+            {
+                throw new DefaultMuleException(MessageFactory.createStaticMessage("part failed"));
+            }
+            processed.incrementAndGet();
+            return event;
+        });
+
+        try
+        {
+            splitter.process(createEvent(TEST_LIST_MULTIPLE));
+            fail("Expected the failure of the second part");
+        }
+        catch (CompositeRoutingException e)
+        {
+            assertThat(e.getExceptions().keySet(), equalTo(Collections.singleton(1)));
+        }
+        assertThat(processed.get(), is(2));
+    }
+
+    private CollectionSplitter createConcurrentSplitter(int maxConcurrency)
+    {
+        CollectionSplitter splitter = new CollectionSplitter();
+        splitter.setMuleContext(muleContext);
+        splitter.setMaxConcurrency(maxConcurrency);
+        return splitter;
+    }
+
+    private MuleEvent createEvent(Object payload) throws Exception
+    {
+        Flow fc = getTestFlow();
+        return new DefaultMuleEvent(new DefaultMuleMessage(payload, muleContext), fc, getTestSession(fc, muleContext));
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void assertRouted(Object payload, int count, boolean counted) throws Exception, MuleException
     {
         Flow fc = getTestFlow();
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.routing;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.runtime.core.api.DefaultMuleException;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.config.ThreadingProfile;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.api.routing.ResponseTimeoutException;
+import org.mule.runtime.core.config.ChainedThreadingProfile;
+import org.mule.runtime.core.config.i18n.MessageFactory;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ScatterGatherRouterTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final long RECEIVE_TIMEOUT = 5000;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private ScatterGatherRouter router;
+
+    @After
+    public void after() throws Exception
+    {
+        release.countDown();
+        if (router != null)
+        {
+            router.stop();
+            router.dispose();
+        }
+    }
+
+    @Test
+    public void slowRouteTimesOutWithoutDelayingOthers() throws Exception
+    {
+        router = createRouter(blockingRoute(), payloadRoute("b"));
+        router.setRouteTimeouts(asList(100L, 0L));
+        initialise();
+
+        try
+        {
+            router.process(getTestEvent(""));
+            fail("Expected the first route to time out");
+        }
+        catch (CompositeRoutingException e)
+        {
+            assertThat(e.getExceptions().size(), is(1));
+            assertThat(e.getExceptionForRouteIndex(0), instanceOf(ResponseTimeoutException.class));
+        }
+
+        release.countDown();
+        assertThat(finished.await(RECEIVE_TIMEOUT, MILLISECONDS), is(true));
+        assertThat(interrupted.getCount(), is(1L));
+        assertThat(router.getRouteStatistics().get(0).getTimeouts(), is(1L));
+        assertThat(router.getRouteStatistics().get(1).getCompletions(), is(1L));
+    }
+
+    @Test
+    public void quorumReturnsWithoutWaitingForSlowRoute() throws Exception
+    {
+        router = createRouter(blockingRoute(), payloadRoute("b"));
+        router.setMinSuccessfulRoutes(1);
+        router.setInterruptCancelledRoutes(true);
+        initialise();
+
+        MuleEvent result = router.process(getTestEvent(""));
+
+        assertThat(result.getMessage().getPayload(), equalTo((Object) "b"));
+        assertThat(interrupted.await(RECEIVE_TIMEOUT, MILLISECONDS), is(true));
+        assertThat(router.getRouteStatistics().get(0).getCancellations(), is(1L));
+    }
+
+    @Test
+    public void failedRouteIgnoredWhenQuorumReached() throws Exception
+    {
+        router = createRouter(failingRoute(), payloadRoute("b"), payloadRoute("c"));
+        router.setMinSuccessfulRoutes(2);
+        initialise();
+
+        MuleEvent result = router.process(getTestEvent(""));
+
+        assertThat(result.getMessage().getPayload(), instanceOf(List.class));
+        assertThat(router.getRouteStatistics().get(0).getFailures(), is(1L));
+    }
+
+    @Test(expected = CompositeRoutingException.class)
+    public void unreachableQuorumFails() throws Exception
+    {
+        router = createRouter(failingRoute(), failingRoute(), blockingRoute());
+        router.setMinSuccessfulRoutes(2);
+        initialise();
+
+        router.process(getTestEvent(""));
+    }
+
+    private ScatterGatherRouter createRouter(MessageProcessor... routes) throws Exception
+    {
+        ScatterGatherRouter router = new ScatterGatherRouter();
+        for (MessageProcessor route : routes)
+        {
+            router.addRoute(route);
+        }
+        ThreadingProfile threadingProfile = new ChainedThreadingProfile(ThreadingProfile.DEFAULT_THREADING_PROFILE);
+        threadingProfile.setMuleContext(muleContext);
+        router.setThreadingProfile(threadingProfile);
+        router.setMuleContext(muleContext);
+        return router;
+    }
+
+    private void initialise() throws Exception
+    {
+        router.initialise();
+        router.start();
+    }
+
+    private MessageProcessor blockingRoute()
+    {
+        return event -> {
+            try
+            {
+                release.await(RECEIVE_TIMEOUT, MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+            }
+            finished.countDown();
+            return event;
+        };
+    }
+
+    private MessageProcessor payloadRoute(String payload)
+    {
+        return event -> {
+            event.setMessage(event.getMessage().transform(msg -> {
+                msg.setPayload(payload);
+                return msg;
+            }));
+            return event;
+        };
+    }
+
+    private MessageProcessor failingRoute()
+    {
+        return event -> {
+            throw new DefaultMuleException(MessageFactory.createStaticMessage("route failed"));
+        };
+    }
+}
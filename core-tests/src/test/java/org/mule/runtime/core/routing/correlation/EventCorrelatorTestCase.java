@@ -29,13 +29,18 @@ import org.mule.runtime.core.api.store.PartitionableObjectStore;
 import org.mule.runtime.core.routing.EventGroup;
 import org.mule.runtime.core.util.store.PartitionedInMemoryObjectStore;
 import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.junit4.rule.SystemProperty;
 import org.mule.tck.probe.PollingProber;
 import org.mule.tck.probe.Probe;
 import org.mule.tck.probe.Prober;
 import org.mule.tck.size.SmallTest;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
@@ -51,10 +56,14 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
 
     public static final String OBJECT_STOR_NAME_PREFIX = "prefix";
     public static final String TEST_GROUP_ID = "groupId";
+    public static final String OTHER_GROUP_ID = "otherGroupId";
     public static final boolean USE_PERSISTENT_STORE = false;
 
     private static final Logger logger = LoggerFactory.getLogger(EventCorrelatorTestCase.class);
 
+    @Rule
+    public SystemProperty reconciliationInterval = new SystemProperty(EventCorrelator.RECONCILIATION_INTERVAL_PROPERTY_KEY, "3600000");
+
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private EventCorrelatorCallback mockEventCorrelatorCallback;
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
@@ -141,6 +150,99 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
         }
     }
 
+    @Test
+    public void expiresGroupAddedAfterStartWithoutScanningStore() throws Exception
+    {
+        when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(true);
+        EventCorrelator eventCorrelator = createEventCorrelator();
+        eventCorrelator.setTimeout(100);
+        eventCorrelator.start();
+
+        try
+        {
+            // the group stored before starting is found by the first scan of the store
+            assertEventGroupExpired(TEST_GROUP_ID);
+
+            // the next scan is an hour away, so this one can only be expired through its scheduled expiration
+            EventGroup otherGroup = mock(EventGroup.class, Answers.RETURNS_DEEP_STUBS.get());
+            when(otherGroup.getGroupId()).thenReturn(OTHER_GROUP_ID);
+            when(otherGroup.getCreated()).thenReturn(System.currentTimeMillis());
+            when(otherGroup.getMessageCollectionEvent()).thenReturn(mock(MuleEvent.class));
+            eventCorrelator.addEventGroup(otherGroup);
+
+            assertEventGroupExpired(OTHER_GROUP_ID);
+        }
+        finally
+        {
+            eventCorrelator.stop();
+            eventCorrelator.dispose();
+        }
+    }
+
+    @Test
+    public void retriesExpiryAfterStoreFailure() throws Exception
+    {
+        final AtomicInteger retrievals = new AtomicInteger();
+        memoryObjectStore = new PartitionedInMemoryObjectStore<Serializable>()
+        {
+            @Override
+            public Serializable retrieve(Serializable key, String partitionName) throws ObjectStoreException
+            {
+                // the first retrieval is the scan of the store, the second one the scheduled expiration
+                if (TEST_GROUP_ID.equals(key) && retrievals.incrementAndGet() == 2)
+                {
+                    throw new ObjectStoreException();
+                }
+                return super.retrieve(key, partitionName);
+            }
+        };
+        when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(true);
+        EventCorrelator eventCorrelator = createEventCorrelator();
+        eventCorrelator.setTimeout(100);
+        eventCorrelator.start();
+
+        try
+        {
+            // the next scan is an hour away, so the group can only be expired by retrying its expiration
+            assertEventGroupExpired(TEST_GROUP_ID, 5000);
+        }
+        finally
+        {
+            eventCorrelator.stop();
+            eventCorrelator.dispose();
+        }
+    }
+
+    private void assertEventGroupExpired(final String groupId)
+    {
+        assertEventGroupExpired(groupId, 1000);
+    }
+
+    private void assertEventGroupExpired(final String groupId, long timeoutMillis)
+    {
+        new PollingProber(timeoutMillis, 50).check(new Probe()
+        {
+            @Override
+            public boolean isSatisfied()
+            {
+                try
+                {
+                    return !memoryObjectStore.contains(groupId, "prefix.eventGroups");
+                }
+                catch (ObjectStoreException e)
+                {
+                    return false;
+                }
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "Event group " + groupId + " not expired.";
+            }
+        });
+    }
+
     private void doExpiredGroupMonitoringTest(boolean primaryNode) throws Exception
     {
         when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(primaryNode);
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+@SmallTest
+public class PersistentCaseInsensitiveMapTestCase extends AbstractMuleTestCase
+{
+
+    // Keys whose case folded hashes collide
+    private static final String COLLIDING_KEY1 = "a~";
+    private static final String COLLIDING_KEY2 = "b_";
+
+    @Test
+    public void caseInsensitiveLookups()
+    {
+        PersistentCaseInsensitiveMap<String, Object> map = PersistentCaseInsensitiveMap.<String, Object> empty()
+                .plus("Content-Type", "text/plain")
+                .plus("X-Count", 3);
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get("content-type"), equalTo((Object) "text/plain"));
+        assertThat(map.get("CONTENT-TYPE"), equalTo((Object) "text/plain"));
+        assertThat(map.get("x-count"), equalTo((Object) 3));
+        assertThat(map.containsKey("other"), is(false));
+    }
+
+    @Test
+    public void replacingKeepsOriginalKeyCase()
+    {
+        PersistentCaseInsensitiveMap<String, String> map = PersistentCaseInsensitiveMap.<String, String> empty()
+                .plus("Content-Type", "text/plain")
+                .plus("content-type", "application/json");
+
+        assertThat(map.size(), is(1));
+        assertThat(map.getEntry("CONTENT-TYPE").getKey(), is("Content-Type"));
+        assertThat(map.get("Content-Type"), is("application/json"));
+    }
+
+    @Test
+    public void updatesDoNotModifyPreviousVersions()
+    {
+        PersistentCaseInsensitiveMap<String, String> original = PersistentCaseInsensitiveMap.<String, String> empty()
+                .plus("foo", "bar");
+        PersistentCaseInsensitiveMap<String, String> added = original.plus("doo", "baz");
+        PersistentCaseInsensitiveMap<String, String> removed = added.minus("FOO");
+
+        assertThat(original.size(), is(1));
+        assertThat(original.get("doo"), is(nullValue()));
+        assertThat(added.size(), is(2));
+        assertThat(added.get("foo"), is("bar"));
+        assertThat(removed.size(), is(1));
+        assertThat(removed.get("foo"), is(nullValue()));
+        assertThat(removed.get("doo"), is("baz"));
+    }
+
+    @Test
+    public void noChangeReturnsSameMap()
+    {
+        String value = "bar";
+        PersistentCaseInsensitiveMap<String, String> map = PersistentCaseInsensitiveMap.<String, String> empty()
+                .plus("foo", value);
+
+        assertThat(map.plus("FOO", value), is(sameInstance(map)));
+        assertThat(map.minus("other"), is(sameInstance(map)));
+    }
+
+    @Test
+    public void collidingKeys()
+    {
+        assertThat(PersistentCaseInsensitiveMap.hash(COLLIDING_KEY1), is(PersistentCaseInsensitiveMap.hash(COLLIDING_KEY2)));
+
+        PersistentCaseInsensitiveMap<String, Integer> map = PersistentCaseInsensitiveMap.<String, Integer> empty()
+                .plus(COLLIDING_KEY1, 1)
+                .plus(COLLIDING_KEY2.toUpperCase(), 2);
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get(COLLIDING_KEY1.toUpperCase()), is(1));
+        assertThat(map.get(COLLIDING_KEY2), is(2));
+
+        map = map.minus(COLLIDING_KEY1);
+        assertThat(map.size(), is(1));
+        assertThat(map.get(COLLIDING_KEY1), is(nullValue()));
+        assertThat(map.get(COLLIDING_KEY2), is(2));
+    }
+
+    @Test
+    public void behavesAsCaseInsensitiveMap()
+    {
+        Random random = new Random(0);
+        Map<String, Integer> expected = new HashMap<>();
+        PersistentCaseInsensitiveMap<String, Integer> map = PersistentCaseInsensitiveMap.empty();
+
+        for (int i = 0; i < 20000; i++)
+        {
+            String key = "key" + random.nextInt(2000);
+            key = random.nextBoolean() ? key.toUpperCase() : key;
+            if (random.nextInt(3) == 0)
+            {
+                map = map.minus(key);
+                expected.remove(key.toLowerCase());
+            }
+            else
+            {
+                map = map.plus(key, i);
+                expected.put(key.toLowerCase(), i);
+            }
+        }
+
+        assertThat(map.size(), is(expected.size()));
+        Set<String> iterated = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : map)
+        {
+            assertThat(iterated.add(entry.getKey().toLowerCase()), is(true));
+            assertThat(entry.getValue(), is(expected.get(entry.getKey().toLowerCase())));
+        }
+        assertThat(iterated, equalTo(expected.keySet()));
+
+        for (String key : expected.keySet())
+        {
+            map = map.minus(key.toUpperCase());
+        }
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.iterator().hasNext(), is(false));
+    }
+}
@@ -16,7 +16,10 @@ import org.mule.runtime.core.util.journal.queue.LocalTxQueueTransactionJournal;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.lang.RandomStringUtils;
 import org.junit.Rule;
@@ -53,12 +56,66 @@ public class TransactionJournalFileTestCase extends AbstractMuleContextTestCase
         assertThat(entry.getValue(), equalTo(payload));
     }
 
+    @Test
+    public void groupCommitWritesAllConcurrentEntries() throws Exception
+    {
+        final int numberOfThreads = 8;
+        final int entriesPerThread = 50;
+        final TransactionJournalFile<Integer, LocalQueueTxJournalEntry> journal = openJournal(new JournalGroupCommitConfiguration(5, 16));
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++)
+        {
+            final int txId = i;
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        startLatch.await();
+                        for (int j = 0; j < entriesPerThread; j++)
+                        {
+                            journal.awaitWritten(journal.logOperation(new LocalQueueTxJournalEntry(txId, (byte) 6, "queue", "value" + j)));
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        journal.close();
+
+        TransactionJournalFile<Integer, LocalQueueTxJournalEntry> reopenedJournal = openJournal();
+        assertThat(reopenedJournal.getAllLogEntries().size(), is(numberOfThreads * entriesPerThread));
+        for (int i = 0; i < numberOfThreads; i++)
+        {
+            assertThat(reopenedJournal.getLogEntries(i).size(), is(entriesPerThread));
+        }
+        reopenedJournal.close();
+    }
+
     private TransactionJournalFile<Integer, LocalQueueTxJournalEntry> openJournal()
+    {
+        return openJournal(null);
+    }
+
+    private TransactionJournalFile<Integer, LocalQueueTxJournalEntry> openJournal(JournalGroupCommitConfiguration groupCommitConfiguration)
     {
         File journalFile = new File(temporaryFolder.getRoot(), "journal");
         JournalEntrySerializer serializer = LocalTxQueueTransactionJournal.createLocalTxQueueJournalEntrySerializer(muleContext);
 
-        return new TransactionJournalFile(journalFile, serializer, KB_500);
+        return new TransactionJournalFile(journalFile, serializer, KB_500, groupCommitConfiguration);
     }
 
 }
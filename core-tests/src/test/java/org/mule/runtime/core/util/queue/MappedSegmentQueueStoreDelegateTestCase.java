@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.tck.MuleTestUtils;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class MappedSegmentQueueStoreDelegateTestCase extends AbstractMuleTestCase
+{
+
+    private static final String TEST_QUEUE_NAME = "test-queue";
+    private static final int SEGMENT_SIZE = 256;
+    private static final int NUMBER_OF_ITEMS = 100;
+    private static final long POLL_TIMEOUT = 10;
+
+    @Rule
+    public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+    private MuleContext mockMuleContext;
+
+    @Before
+    public void before()
+    {
+        mockMuleContext = mock(MuleContext.class);
+        when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        addJavaSerializerToMockMuleContext(mockMuleContext);
+    }
+
+    @Test
+    public void nameWithInvalidCharacters()
+    {
+        String[] testNames = new String[] {
+                "test-test",
+                "test:/test",
+                "test?test",
+                "test:\\test",
+                "test&test",
+                "test|test",
+                "seda.queue(post:\\Customer:ApiTest-config.1)"
+        };
+
+        for (String testName : testNames)
+        {
+            MappedSegmentQueueStoreDelegate queue = new MappedSegmentQueueStoreDelegate(testName, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 0);
+            queue.putNow(testName);
+            queue.dispose();
+        }
+    }
+
+    @Test
+    public void recoversPendingItemsInOrder() throws Exception
+    {
+        withSmallSegments(new MuleTestUtils.TestCallback()
+        {
+            @Override
+            public void run() throws Exception
+            {
+                MappedSegmentQueueStoreDelegate queue = createTestQueueStore();
+                for (int i = 0; i < NUMBER_OF_ITEMS; i++)
+                {
+                    queue.putNow(createTestDataForIndex(i));
+                }
+                for (int i = 0; i < NUMBER_OF_ITEMS / 2; i++)
+                {
+                    queue.poll(POLL_TIMEOUT);
+                }
+                queue.close();
+
+                queue = createTestQueueStore();
+                assertThat(queue.getSize(), is(NUMBER_OF_ITEMS / 2));
+                for (int i = NUMBER_OF_ITEMS / 2; i < NUMBER_OF_ITEMS; i++)
+                {
+                    assertThat((String) queue.poll(POLL_TIMEOUT), is(createTestDataForIndex(i)));
+                }
+                assertThat(queue.poll(POLL_TIMEOUT), nullValue());
+                queue.close();
+            }
+        });
+    }
+
+    @Test
+    public void consumedSegmentsAreDeleted() throws Exception
+    {
+        withSmallSegments(new MuleTestUtils.TestCallback()
+        {
+            @Override
+            public void run() throws Exception
+            {
+                MappedSegmentQueueStoreDelegate queue = createTestQueueStore();
+                for (int i = 0; i < NUMBER_OF_ITEMS; i++)
+                {
+                    queue.putNow(createTestDataForIndex(i));
+                }
+                assertThat(queue.getSegmentsDirectory().listFiles().length > 1, is(true));
+                for (int i = 0; i < NUMBER_OF_ITEMS; i++)
+                {
+                    queue.poll(POLL_TIMEOUT);
+                }
+                assertThat(queue.getSegmentsDirectory().listFiles().length, is(1));
+                queue.close();
+            }
+        });
+    }
+
+    @Test
+    public void removeAndContainsAfterRecovery() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createTestQueueStore();
+        for (int i = 0; i < NUMBER_OF_ITEMS; i++)
+        {
+            queue.putNow(createTestDataForIndex(i));
+        }
+        queue.close();
+
+        queue = createTestQueueStore();
+        Serializable value = createTestDataForIndex(NUMBER_OF_ITEMS / 2);
+        assertThat(queue.contains(value), is(true));
+        queue.remove(value);
+        assertThat(queue.contains(value), is(false));
+        assertThat(queue.getSize(), is(NUMBER_OF_ITEMS - 1));
+        queue.close();
+
+        queue = createTestQueueStore();
+        assertThat(queue.contains(value), is(false));
+        assertThat(queue.getSize(), is(NUMBER_OF_ITEMS - 1));
+        queue.close();
+    }
+
+    @Test
+    public void untakenItemsKeepHeadPositionAfterRecovery() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createTestQueueStore();
+        for (int i = 0; i < 3; i++)
+        {
+            queue.putNow(createTestDataForIndex(i));
+        }
+        Serializable first = queue.poll(POLL_TIMEOUT);
+        Serializable second = queue.poll(POLL_TIMEOUT);
+        queue.untake(second);
+        queue.untake(first);
+        queue.close();
+
+        queue = createTestQueueStore();
+        assertThat(queue.getSize(), is(3));
+        for (int i = 0; i < 3; i++)
+        {
+            assertThat((String) queue.poll(POLL_TIMEOUT), is(createTestDataForIndex(i)));
+        }
+        queue.close();
+    }
+
+    @Test
+    public void consumerIsNotBlockedByWaitingProducer() throws Exception
+    {
+        final MappedSegmentQueueStoreDelegate queue = new MappedSegmentQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 1);
+        queue.putNow(createTestDataForIndex(0));
+        final CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if (queue.offer(createTestDataForIndex(1), 0, 10000))
+                    {
+                        offered.countDown();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // nothing to do
+                }
+            }
+        };
+        producer.start();
+        assertThat((String) queue.poll(POLL_TIMEOUT), is(createTestDataForIndex(0)));
+        assertThat(offered.await(5, TimeUnit.SECONDS), is(true));
+        assertThat((String) queue.poll(POLL_TIMEOUT), is(createTestDataForIndex(1)));
+        queue.dispose();
+    }
+
+    @Test
+    public void allFilesDeletedAfterDispose()
+    {
+        MappedSegmentQueueStoreDelegate queue = createTestQueueStore();
+        queue.putNow("item");
+        File segmentsDirectory = queue.getSegmentsDirectory();
+        assertThat(segmentsDirectory.exists(), is(true));
+
+        queue.dispose();
+        assertThat(segmentsDirectory.exists(), is(false));
+    }
+
+    private void withSmallSegments(MuleTestUtils.TestCallback callback) throws Exception
+    {
+        MuleTestUtils.testWithSystemProperty(MappedSegmentQueueStoreDelegate.SEGMENT_SIZE_PROPERTY_KEY, String.valueOf(SEGMENT_SIZE), callback);
+    }
+
+    private String createTestDataForIndex(int index)
+    {
+        return "some value " + index;
+    }
+
+    private MappedSegmentQueueStoreDelegate createTestQueueStore()
+    {
+        return new MappedSegmentQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 0);
+    }
+}
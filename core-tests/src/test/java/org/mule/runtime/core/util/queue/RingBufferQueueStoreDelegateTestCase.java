@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+@SmallTest
+public class RingBufferQueueStoreDelegateTestCase extends AbstractMuleTestCase
+{
+
+    private static final long POLL_TIMEOUT = 10;
+
+    @Test
+    public void keepsInsertionOrder() throws Exception
+    {
+        RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(10);
+        for (int i = 0; i < 10; i++)
+        {
+            queue.putNow(i);
+        }
+
+        assertThat(queue.getSize(), is(10));
+        assertThat(queue.peek(), equalTo((Serializable) 0));
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(queue.poll(POLL_TIMEOUT), equalTo((Serializable) i));
+        }
+        assertThat(queue.poll(POLL_TIMEOUT), nullValue());
+    }
+
+    @Test
+    public void offerRespectsCapacity() throws Exception
+    {
+        RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(3);
+        assertThat(queue.offer("a", 0, POLL_TIMEOUT), is(true));
+        assertThat(queue.offer("b", 0, POLL_TIMEOUT), is(true));
+        assertThat(queue.offer("c", 1, POLL_TIMEOUT), is(false));
+        assertThat(queue.offer("c", 0, POLL_TIMEOUT), is(true));
+        assertThat(queue.offer("d", 0, POLL_TIMEOUT), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offerFailsIfRoomExceedsCapacity() throws Exception
+    {
+        new RingBufferQueueStoreDelegate(3).offer("a", 3, POLL_TIMEOUT);
+    }
+
+    @Test
+    public void untakenItemsComeFirst() throws Exception
+    {
+        RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(4);
+        queue.putNow("a");
+        queue.putNow("b");
+        Serializable taken = queue.poll(POLL_TIMEOUT);
+        queue.untake(taken);
+
+        assertThat(queue.getSize(), is(2));
+        assertThat(queue.peek(), equalTo((Serializable) "a"));
+        assertThat(queue.poll(POLL_TIMEOUT), equalTo((Serializable) "a"));
+        assertThat(queue.poll(POLL_TIMEOUT), equalTo((Serializable) "b"));
+    }
+
+    @Test
+    public void drainsUpToMaxItems() throws Exception
+    {
+        RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(8);
+        queue.addAll(Arrays.<Serializable> asList("a", "b", "c"));
+
+        List<Serializable> drained = new ArrayList<>();
+        assertThat(queue.drainTo(drained, 2), is(2));
+        assertThat(drained, equalTo(Arrays.<Serializable> asList("a", "b")));
+        assertThat(queue.drainTo(drained, 2), is(1));
+        assertThat(queue.drainTo(drained, 2), is(0));
+        assertThat(queue.getSize(), is(0));
+    }
+
+    @Test
+    public void pollWaitsForProducer() throws Exception
+    {
+        final RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(2);
+        final CountDownLatch polling = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try
+            {
+                polling.await();
+                queue.putNow("a");
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        polling.countDown();
+        assertThat(queue.poll(TimeUnit.SECONDS.toMillis(5)), equalTo((Serializable) "a"));
+        producer.join();
+    }
+
+    @Test
+    public void deliversEveryItemWithConcurrentProducersAndConsumers() throws Exception
+    {
+        final int producers = 4;
+        final int itemsPerProducer = 1000;
+        final RingBufferQueueStoreDelegate queue = new RingBufferQueueStoreDelegate(16);
+        final Set<Serializable> consumed = new HashSet<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < itemsPerProducer; i++)
+                {
+                    queue.putNow(producer * itemsPerProducer + i);
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try
+                {
+                    for (int i = 0; i < itemsPerProducer; i++)
+                    {
+                        Serializable item = queue.poll(TimeUnit.SECONDS.toMillis(5));
+                        synchronized (consumed)
+                        {
+                            consumed.add(item);
+                        }
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertThat(consumed.size(), is(producers * itemsPerProducer));
+        assertThat(consumed.contains(null), is(false));
+        assertThat(queue.getSize(), is(0));
+    }
+}
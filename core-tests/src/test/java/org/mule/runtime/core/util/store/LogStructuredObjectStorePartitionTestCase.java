@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.runtime.core.util.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.core.api.store.ObjectStoreManager.UNBOUNDED;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.core.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.core.api.store.ObjectStoreException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class LogStructuredObjectStorePartitionTestCase extends AbstractMuleTestCase
+{
+
+    private static final int NUMBER_OF_ENTRIES = 100;
+
+    @Rule
+    public TemporaryFolder objectStoreFolder = new TemporaryFolder();
+
+    @Mock
+    private MuleContext muleContext;
+
+    private LogStructuredObjectStorePartition<String> partition;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when(muleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        addJavaSerializerToMockMuleContext(muleContext);
+        partition = openPartition();
+    }
+
+    @Test
+    public void indicatesUnexistentKeyOnRetrieveError() throws ObjectStoreException
+    {
+        final String nonExistentKey = "nonExistentKey";
+
+        try
+        {
+            partition.retrieve(nonExistentKey);
+            fail("Supposed to thrown an exception as key is not valid");
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            assertTrue(e.getMessage().contains(nonExistentKey));
+        }
+    }
+
+    @Test(expected = ObjectAlreadyExistsException.class)
+    public void storeSameKeyThrowsException() throws Exception
+    {
+        partition.store("key", "value");
+        partition.store("key", "value");
+    }
+
+    @Test
+    public void storeRetrieveAndRemove() throws Exception
+    {
+        partition.store("key", "value");
+        assertThat(partition.contains("key"), is(true));
+        assertThat(partition.retrieve("key"), is("value"));
+        assertThat(partition.remove("key"), is("value"));
+        assertThat(partition.contains("key"), is(false));
+    }
+
+    @Test
+    public void restoresEntriesFromHintFile() throws Exception
+    {
+        storeEntries();
+        partition.remove(keyFor(0));
+        partition.close();
+        assertThat(new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.HINT_FILE).exists(), is(true));
+
+        partition = openPartition();
+        assertRemainingEntries(1);
+    }
+
+    @Test
+    public void restoresEntriesWrittenAfterHintFile() throws Exception
+    {
+        storeEntries();
+        partition.close();
+        partition = openPartition();
+        partition.remove(keyFor(0));
+        partition.store("another key", "another value");
+
+        // simulates a crash, the hint file does not cover the last operations
+        partition = openPartition();
+        assertRemainingEntries(1);
+        assertThat(partition.retrieve("another key"), is("another value"));
+    }
+
+    @Test
+    public void restoresEntriesWithoutHintFile() throws Exception
+    {
+        storeEntries();
+        partition.remove(keyFor(0));
+        partition.close();
+        assertThat(new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.HINT_FILE).delete(), is(true));
+
+        partition = openPartition();
+        assertRemainingEntries(1);
+    }
+
+    @Test
+    public void compactionKeepsLiveEntries() throws Exception
+    {
+        File dataFile = new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.DATA_FILE);
+        storeEntries();
+        for (int i = 0; i < NUMBER_OF_ENTRIES / 2; i++)
+        {
+            partition.remove(keyFor(i));
+        }
+        long lengthBeforeCompaction = dataFile.length();
+
+        partition.compact();
+
+        assertThat(dataFile.length() < lengthBeforeCompaction, is(true));
+        assertRemainingEntries(NUMBER_OF_ENTRIES / 2);
+        partition.store("another key", "another value");
+        partition.close();
+
+        partition = openPartition();
+        assertRemainingEntries(NUMBER_OF_ENTRIES / 2);
+        assertThat(partition.retrieve("another key"), is("another value"));
+    }
+
+    @Test
+    public void expireTrimsOldestEntries() throws Exception
+    {
+        storeEntries();
+        partition.expire(UNBOUNDED, NUMBER_OF_ENTRIES / 2);
+        assertRemainingEntries(NUMBER_OF_ENTRIES / 2);
+    }
+
+    @Test
+    public void clear() throws Exception
+    {
+        storeEntries();
+        partition.clear();
+        assertThat(partition.allKeys().size(), is(0));
+        partition.close();
+
+        partition = openPartition();
+        assertThat(partition.allKeys().size(), is(0));
+    }
+
+    private LogStructuredObjectStorePartition<String> openPartition() throws ObjectStoreException
+    {
+        LogStructuredObjectStorePartition<String> partition = new LogStructuredObjectStorePartition<>(muleContext, "test", objectStoreFolder.getRoot());
+        partition.open();
+        return partition;
+    }
+
+    private void storeEntries() throws ObjectStoreException
+    {
+        for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+        {
+            partition.store(keyFor(i), valueFor(i));
+        }
+    }
+
+    private void assertRemainingEntries(int firstRemainingEntry) throws ObjectStoreException
+    {
+        for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+        {
+            assertThat(partition.contains(keyFor(i)), is(i >= firstRemainingEntry));
+            if (i >= firstRemainingEntry)
+            {
+                assertThat(partition.retrieve(keyFor(i)), is(valueFor(i)));
+            }
+        }
+    }
+
+    private String keyFor(int index)
+    {
+        return "key" + index;
+    }
+
+    private String valueFor(int index)
+    {
+        return "value" + index;
+    }
+}
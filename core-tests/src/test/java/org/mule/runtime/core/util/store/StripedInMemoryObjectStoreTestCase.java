@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.store;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.core.api.store.ObjectStoreException;
+import org.mule.runtime.core.management.stats.AllStatistics;
+import org.mule.runtime.core.management.stats.ObjectStoreStatistics;
+import org.mule.runtime.core.util.store.StripedInMemoryObjectStore.EvictionPolicy;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class StripedInMemoryObjectStoreTestCase extends AbstractMuleTestCase
+{
+
+    private static final String TEST_PARTITION = "testPartition";
+    private static final String TEST_VALUE = "testValue";
+    private static final String TEST_KEY1 = "testKey1";
+    private static final String TEST_KEY2 = "testKey2";
+    private static final String TEST_KEY3 = "testKey3";
+
+    private StripedInMemoryObjectStore<String> store;
+    private AllStatistics allStatistics;
+    private MuleContext muleContext;
+
+    private long currentNanoTime = MILLISECONDS.toNanos(1);
+
+    @Before
+    public void setup()
+    {
+        allStatistics = new AllStatistics();
+        allStatistics.setEnabled(true);
+        muleContext = mock(MuleContext.class);
+        when(muleContext.getStatistics()).thenReturn(allStatistics);
+        store = createStore(1);
+    }
+
+    private StripedInMemoryObjectStore<String> createStore(int concurrencyLevel)
+    {
+        StripedInMemoryObjectStore<String> objectStore = new StripedInMemoryObjectStore<String>(concurrencyLevel, 1)
+        {
+            @Override
+            protected long getCurrentNanoTime()
+            {
+                return currentNanoTime;
+            }
+
+            @Override
+            protected long estimateSize(Serializable key, String value)
+            {
+                return value.length();
+            }
+        };
+        objectStore.setMuleContext(muleContext);
+        return objectStore;
+    }
+
+    @Test
+    public void expireByTtlMultipleKeysInsertedInTheSameNanoSecond() throws ObjectStoreException
+    {
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+
+        currentNanoTime = MILLISECONDS.toNanos(2);
+
+        store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+        store.expire(1, 100, TEST_PARTITION);
+
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+        assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+        assertThat(store.retrieve(TEST_KEY3, TEST_PARTITION), equalTo(TEST_VALUE));
+        assertThat(store.getStatistics(TEST_PARTITION).getExpirations(), is(2L));
+    }
+
+    @Test
+    public void expiresLazilyWhenAccessed() throws ObjectStoreException
+    {
+        store.setEntryTTL(10);
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+
+        currentNanoTime = MILLISECONDS.toNanos(10);
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(true));
+
+        currentNanoTime = MILLISECONDS.toNanos(11);
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+        assertThat(store.getStatistics(TEST_PARTITION).getExpirations(), is(1L));
+    }
+
+    @Test
+    public void expiresEntriesFarInTheFuture() throws ObjectStoreException
+    {
+        store.setEntryTTL((int) HOURS.toMillis(3));
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+
+        currentNanoTime += MILLISECONDS.toNanos(store.getEntryTTL() - 1);
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(true));
+
+        currentNanoTime += MILLISECONDS.toNanos(1);
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+    }
+
+    @Test
+    public void removedEntryIsNotExpired() throws ObjectStoreException
+    {
+        store.setEntryTTL(1);
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.remove(TEST_KEY1, TEST_PARTITION);
+
+        currentNanoTime = MILLISECONDS.toNanos(5);
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.expire(1, 0, TEST_PARTITION);
+
+        assertThat(store.retrieve(TEST_KEY1, TEST_PARTITION), equalTo(TEST_VALUE));
+        assertThat(store.getStatistics(TEST_PARTITION).getExpirations(), is(0L));
+    }
+
+    @Test
+    public void expireByNumberOfEntries() throws ObjectStoreException
+    {
+        store = createStore(4);
+        for (int i = 0; i < 100; i++)
+        {
+            store.store("key" + i, TEST_VALUE, TEST_PARTITION);
+        }
+
+        store.expire(0, 10, TEST_PARTITION);
+
+        assertThat(store.allKeys(TEST_PARTITION).size(), is(10));
+        assertThat(store.getStatistics(TEST_PARTITION).getEvictions(), is(90L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() throws ObjectStoreException
+    {
+        store.setMaxEntries(2);
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+
+        store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(true));
+        assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+        assertThat(store.contains(TEST_KEY3, TEST_PARTITION), is(true));
+        assertThat(store.getStatistics(TEST_PARTITION).getEvictions(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastFrequentlyUsedEntry() throws ObjectStoreException
+    {
+        store.setMaxEntries(2);
+        store.setEvictionPolicy(EvictionPolicy.LFU);
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+        store.retrieve(TEST_KEY2, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+
+        store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+
+        assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(true));
+        assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+        assertThat(store.contains(TEST_KEY3, TEST_PARTITION), is(true));
+    }
+
+    @Test
+    public void evictsWhenMaxBytesExceeded() throws ObjectStoreException
+    {
+        store.setMaxBytes(2 * TEST_VALUE.length());
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+        store.store(TEST_KEY3, TEST_VALUE + TEST_VALUE, TEST_PARTITION);
+
+        assertThat(store.allKeys(TEST_PARTITION).size(), is(1));
+        assertThat(store.retrieve(TEST_KEY3, TEST_PARTITION), equalTo(TEST_VALUE + TEST_VALUE));
+    }
+
+    @Test
+    public void countsHitsAndMisses() throws ObjectStoreException
+    {
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+        try
+        {
+            store.retrieve(TEST_KEY2, TEST_PARTITION);
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            // expected
+        }
+
+        ObjectStoreStatistics statistics = store.getStatistics(TEST_PARTITION);
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+    }
+
+    @Test
+    public void registersStatisticsUntilPartitionIsDisposed() throws ObjectStoreException
+    {
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        assertThat(allStatistics.getObjectStoreStatistics(), hasItem(store.getStatistics(TEST_PARTITION)));
+
+        store.disposePartition(TEST_PARTITION);
+        assertThat(allStatistics.getObjectStoreStatistics().isEmpty(), is(true));
+    }
+
+    @Test
+    public void keepsStatisticsOfEachStore() throws ObjectStoreException
+    {
+        StripedInMemoryObjectStore<String> otherStore = createStore(1);
+
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        otherStore.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        assertThat(allStatistics.getObjectStoreStatistics().size(), is(2));
+
+        otherStore.disposePartition(TEST_PARTITION);
+        assertThat(allStatistics.getObjectStoreStatistics(), hasItem(store.getStatistics(TEST_PARTITION)));
+        assertThat(allStatistics.getObjectStoreStatistics().size(), is(1));
+    }
+
+    @Test
+    public void doesNotCountWhileStatisticsAreDisabled() throws ObjectStoreException
+    {
+        allStatistics.setEnabled(false);
+
+        store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+        store.retrieve(TEST_KEY1, TEST_PARTITION);
+
+        assertThat(store.getStatistics(TEST_PARTITION).getHits(), is(0L));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.api.el;
+
+import org.mule.runtime.core.api.MuleEvent;
+
+import java.util.Map;
+
+/**
+ * An expression that has already been validated and compiled by an {@link ExpressionLanguage}.
+ * <p/>
+ * Components that evaluate the same expression for every event they process should obtain a
+ * {@link CompiledExpression} once, using {@link ExpressionLanguage#compile(String)}, and evaluate
+ * it for each event, avoiding parsing and validating the expression text each time.
+ * <p/>
+ * Implementations must be thread safe.
+ *
+ * @since 4.0
+ */
+public interface CompiledExpression
+{
+
+    /**
+     * @return the expression this was compiled from, including the expression markers if it had any
+     */
+    String getExpression();
+
+    /**
+     * Execute the expression returning the result. The expression will be executed with MuleEvent context,
+     * meaning the expression language implementation should provided access to the message.
+     *
+     * @param <T> the return type expected
+     * @param event the current event being processed, or null to execute the expression without event context
+     * @return the result of execution of the expression.
+     */
+    <T> T evaluate(MuleEvent event);
+
+    /**
+     * Execute the expression returning the result. The expression will be executed with MuleEvent context,
+     * meaning the expression language implementation should provided access to the message. A Map of
+     * variables can be provided that will be able to the expression when executed. Variable provided in the
+     * map will only be available if there are no conflict with context variables provided by the expression
+     * language implementation.
+     *
+     * @param <T> the return type expected
+     * @param event the current event being processed, or null to execute the expression without event context
+     * @param vars a map of expression variables
+     * @return the result of execution of the expression.
+     */
+    <T> T evaluate(MuleEvent event, Map<String, Object> vars);
+}
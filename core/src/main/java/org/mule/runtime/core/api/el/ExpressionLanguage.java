@@ -75,6 +75,18 @@ public interface ExpressionLanguage
      */
     <T> T evaluate(String expression, MuleEvent event, Map<String, Object> vars);
 
+    /**
+     * Validates and compiles the expression so that it can be executed many times without processing the
+     * expression text again. Compiled expressions should be obtained once, when configuring the component
+     * that uses them, and then be evaluated for each event.
+     *
+     * @param expression the expression to be compiled
+     * @return the compiled expression
+     * @throws InvalidExpressionException if the expression is not valid
+     * @since 4.0
+     */
+    CompiledExpression compile(String expression) throws InvalidExpressionException;
+
     /**
      * Validates the expression returning true is the expression is valid, false otherwise.. All implementors
      * should should validate expression syntactically. Semantic validation is optional.
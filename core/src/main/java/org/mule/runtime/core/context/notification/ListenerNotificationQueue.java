@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.context.notification;
+
+import org.mule.runtime.core.api.context.notification.ServerNotification;
+import org.mule.runtime.core.api.context.notification.ServerNotificationListener;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded ring buffer of the notifications pending delivery to a single listener, used by
+ * {@link NotificationDispatchMode#LISTENER_QUEUES}.
+ * <p/>
+ * The queue schedules itself in an {@link Executor} when it receives a notification and is not already
+ * scheduled. Each execution delivers up to a batch of notifications and schedules the queue again if there
+ * are more, so a queue never takes more than one thread and listeners with pending notifications share
+ * the threads fairly.
+ */
+class ListenerNotificationQueue implements Runnable
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerNotificationQueue.class);
+
+    private final ServerNotificationListener listener;
+    private final NotificationOverflowPolicy overflowPolicy;
+    private final ServerNotification[] buffer;
+    private final ServerNotification[] batch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final LongAdder dropped = new LongAdder();
+    private int head;
+    private int count;
+    private boolean closed;
+    private volatile Executor executor;
+
+    ListenerNotificationQueue(ServerNotificationListener listener, int capacity, int batchSize,
+                              NotificationOverflowPolicy overflowPolicy)
+    {
+        this.listener = listener;
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = new ServerNotification[capacity];
+        this.batch = new ServerNotification[Math.min(batchSize, capacity)];
+    }
+
+    /**
+     * Sets the executor used to deliver notifications and schedules the delivery of the ones received
+     * until now.
+     */
+    void start(Executor executor)
+    {
+        this.executor = executor;
+        scheduleIfPending();
+    }
+
+    /**
+     * Adds a notification to the queue, applying the overflow policy if it is full.
+     *
+     * @return whether the notification was queued
+     */
+    boolean offer(ServerNotification notification) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            if (closed)
+            {
+                return false;
+            }
+            if (count == buffer.length)
+            {
+                switch (overflowPolicy)
+                {
+                    case BLOCK:
+                        while (count == buffer.length && !closed)
+                        {
+                            notFull.await();
+                        }
+                        if (closed)
+                        {
+                            return false;
+                        }
+                        break;
+                    case COALESCE:
+                        dropped.increment();
+                        if (replaceMatching(notification))
+                        {
+                            return true;
+                        }
+                        head = next(head);
+                        count--;
+                        break;
+                    default:
+                        dropped.increment();
+                        return false;
+                }
+            }
+            buffer[(head + count) % buffer.length] = notification;
+            count++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        if (!scheduled.get())
+        {
+            schedule();
+        }
+        return true;
+    }
+
+    private boolean replaceMatching(ServerNotification notification)
+    {
+        for (int i = 0, index = head; i < count; i++, index = next(index))
+        {
+            ServerNotification queued = buffer[index];
+            if (queued.getClass() == notification.getClass()
+                && queued.getAction() == notification.getAction()
+                && Objects.equals(queued.getResourceIdentifier(), notification.getResourceIdentifier()))
+            {
+                buffer[index] = notification;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int index)
+    {
+        return index + 1 == buffer.length ? 0 : index + 1;
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            int drained = drainBatch();
+            for (int i = 0; i < drained; i++)
+            {
+                try
+                {
+                    listener.onNotification(batch[i]);
+                }
+                catch (Exception e)
+                {
+                    // Exceptions from listeners do not affect the notification processing
+                }
+                batch[i] = null;
+            }
+        }
+        finally
+        {
+            scheduled.set(false);
+            scheduleIfPending();
+        }
+    }
+
+    private int drainBatch()
+    {
+        lock.lock();
+        try
+        {
+            int drained = Math.min(count, batch.length);
+            for (int i = 0; i < drained; i++)
+            {
+                batch[i] = buffer[head];
+                buffer[head] = null;
+                head = next(head);
+            }
+            count -= drained;
+            if (drained > 0)
+            {
+                notFull.signalAll();
+            }
+            return drained;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleIfPending()
+    {
+        if (size() > 0)
+        {
+            schedule();
+        }
+    }
+
+    private void schedule()
+    {
+        Executor currentExecutor = executor;
+        if (currentExecutor != null && scheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                currentExecutor.execute(this);
+            }
+            catch (Exception e)
+            {
+                scheduled.set(false);
+                logger.warn("Could not schedule the delivery of notifications to listener " + listener, e);
+            }
+        }
+    }
+
+    /**
+     * Discards the pending notifications and releases the threads waiting for room in the queue.
+     */
+    void close()
+    {
+        lock.lock();
+        try
+        {
+            closed = true;
+            for (int i = 0; i < buffer.length; i++)
+            {
+                buffer[i] = null;
+            }
+            count = 0;
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    int size()
+    {
+        lock.lock();
+        try
+        {
+            return count;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of notifications discarded or replaced because the queue was full
+     */
+    long getDroppedNotifications()
+    {
+        return dropped.sum();
+    }
+
+    ServerNotificationListener getListener()
+    {
+        return listener;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.context.notification;
+
+/**
+ * Defines how a {@link ServerNotificationManager} delivers the notifications that are not
+ * {@link org.mule.runtime.core.api.context.notification.BlockingServerEvent}s.
+ *
+ * @since 4.0
+ */
+public enum NotificationDispatchMode
+{
+    /**
+     * All notifications go to a single queue, drained by one thread that delivers each notification to
+     * every listener in turn. A slow listener delays the delivery to all the others.
+     */
+    SHARED_QUEUE,
+
+    /**
+     * Each listener has its own bounded queue, drained in batches by the work manager, so a slow listener
+     * only delays its own notifications. What happens when a queue is full is defined by the
+     * {@link NotificationOverflowPolicy}.
+     */
+    LISTENER_QUEUES
+}
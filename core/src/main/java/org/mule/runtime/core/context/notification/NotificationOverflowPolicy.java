@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.context.notification;
+
+/**
+ * Defines what is done with a notification for a listener whose queue is full when using
+ * {@link NotificationDispatchMode#LISTENER_QUEUES}.
+ *
+ * @since 4.0
+ */
+public enum NotificationOverflowPolicy
+{
+    /**
+     * The new notification is discarded.
+     */
+    DROP,
+
+    /**
+     * The new notification replaces a queued one of the same type, action and resource, keeping only the
+     * latest. If there is none, the oldest queued notification is discarded.
+     */
+    COALESCE,
+
+    /**
+     * The thread firing the notification waits until there is room in the queue.
+     */
+    BLOCK
+}
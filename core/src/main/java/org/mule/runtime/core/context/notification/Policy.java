@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 
 /**
  * For a particular configuration, this describes what events should be delivered where.
@@ -99,6 +100,17 @@ class Policy
     }
 
     void dispatch(ServerNotification notification)
+    {
+        dispatch(notification, Sender::dispatch);
+    }
+
+    /**
+     * Hands the notification to each of the senders that handle it.
+     *
+     * @param notification the notification to dispatch
+     * @param senderDispatch delivers the notification through a sender
+     */
+    void dispatch(ServerNotification notification, BiConsumer<Sender, ServerNotification> senderDispatch)
     {
         if (null != notification)
         {
@@ -106,12 +118,12 @@ class Policy
             // search if we don't know about this event, or if we do know it is used
             if (!knownEventsExact.containsKey(notfnClass))
             {
-                boolean found = doDispatch(notification, notfnClass);
+                boolean found = doDispatch(notification, notfnClass, senderDispatch);
                 knownEventsExact.put(notfnClass, Boolean.valueOf(found));
             }
             else if (((Boolean) knownEventsExact.get(notfnClass)).booleanValue())
             {
-                boolean found = doDispatch(notification, notfnClass);
+                boolean found = doDispatch(notification, notfnClass, senderDispatch);
                 // reduce contention on the map by not writing the same value over and over again.
                 if (!found)
                 {
@@ -122,6 +134,12 @@ class Policy
     }
 
     protected boolean doDispatch(ServerNotification notification, Class<? extends ServerNotification> notfnClass)
+    {
+        return doDispatch(notification, notfnClass, Sender::dispatch);
+    }
+
+    private boolean doDispatch(ServerNotification notification, Class<? extends ServerNotification> notfnClass,
+                               BiConsumer<Sender, ServerNotification> senderDispatch)
     {
         boolean found = false;
         for (Class<? extends ServerNotification> event : eventToSenders.keySet())
@@ -131,7 +149,7 @@ class Policy
                 found = true;
                 for (Sender sender : eventToSenders.get(event))
                 {
-                    sender.dispatch(notification);
+                    senderDispatch.accept(sender, notification);
                 }
             }
         }
@@ -7,6 +7,7 @@
 package org.mule.runtime.core.context.notification;
 
 import org.mule.runtime.core.api.context.notification.ServerNotification;
+import org.mule.runtime.core.api.context.notification.ServerNotificationListener;
 import org.mule.runtime.core.routing.filters.WildcardFilter;
 
 /**
@@ -29,9 +30,7 @@ class Sender
 
     public void dispatch(ServerNotification notification)
     {
-        if (pair.isNullSubscription() ||
-                (null != notification.getResourceIdentifier() &&
-                        subscriptionFilter.accept(notification.getResourceIdentifier())))
+        if (accepts(notification))
         {
             try
             {
@@ -44,5 +43,19 @@ class Sender
         }
     }
 
-}
+    /**
+     * @return whether the notification matches the subscription of the listener
+     */
+    boolean accepts(ServerNotification notification)
+    {
+        return pair.isNullSubscription() ||
+                (null != notification.getResourceIdentifier() &&
+                        subscriptionFilter.accept(notification.getResourceIdentifier()));
+    }
 
+    ServerNotificationListener getListener()
+    {
+        return pair.getListener();
+    }
+
+}
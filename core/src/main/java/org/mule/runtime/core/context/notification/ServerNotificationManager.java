@@ -7,6 +7,7 @@
 package org.mule.runtime.core.context.notification;
 
 import static java.lang.Thread.currentThread;
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
 
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.context.MuleContextAware;
@@ -24,9 +25,13 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
@@ -60,10 +65,41 @@ import org.slf4j.LoggerFactory;
  * <li>Disabling an event or interface disables all uses of that class or any subclass.</li>
  * <li>Enquiring whether an event is enabled returns true if any subclass is enabled.</li>
  * </ul>
+ *
+ * <p>Notifications that are not {@link BlockingServerEvent}s are delivered asynchronously as defined by
+ * the {@link NotificationDispatchMode}. By default all of them go through a single queue, but each listener
+ * may have its own bounded queue instead so that a slow listener doesn't delay the others. The defaults for
+ * the dispatch mode, the capacity of the listener queues, the size of the batches delivered from them and the
+ * {@link NotificationOverflowPolicy} can be set with system properties.</p>
  */
 public class ServerNotificationManager implements Work, Disposable, ServerNotificationHandler, MuleContextAware
 {
     public static final String NULL_SUBSCRIPTION = "NULL";
+
+    /**
+     * System property to set the default {@link NotificationDispatchMode}.
+     */
+    public static final String DISPATCH_MODE_PROPERTY_KEY = "mule.notifications.dispatchMode";
+
+    /**
+     * System property to set the default capacity of each listener queue.
+     */
+    public static final String LISTENER_QUEUE_CAPACITY_PROPERTY_KEY = "mule.notifications.listenerQueueCapacity";
+
+    /**
+     * System property to set the default maximum number of notifications delivered from a listener queue at
+     * once.
+     */
+    public static final String BATCH_SIZE_PROPERTY_KEY = "mule.notifications.batchSize";
+
+    /**
+     * System property to set the default {@link NotificationOverflowPolicy}.
+     */
+    public static final String OVERFLOW_POLICY_PROPERTY_KEY = "mule.notifications.overflowPolicy";
+
+    private static final int DEFAULT_LISTENER_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
     protected Logger logger = LoggerFactory.getLogger(getClass());
     private boolean dynamic = false;
     private Configuration configuration = new Configuration();
@@ -72,6 +108,14 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     private BlockingDeque<ServerNotification> eventQueue = new LinkedBlockingDeque<ServerNotification>();
     private MuleContext muleContext;
 
+    private NotificationDispatchMode dispatchMode = getDefaultDispatchMode();
+    private int listenerQueueCapacity = Integer.getInteger(LISTENER_QUEUE_CAPACITY_PROPERTY_KEY, DEFAULT_LISTENER_QUEUE_CAPACITY);
+    private int batchSize = Integer.getInteger(BATCH_SIZE_PROPERTY_KEY, DEFAULT_BATCH_SIZE);
+    private NotificationOverflowPolicy overflowPolicy = getDefaultOverflowPolicy();
+    private final ConcurrentMap<ServerNotificationListener, ListenerNotificationQueue> listenerQueues = new ConcurrentHashMap<>();
+    private final BiConsumer<Sender, ServerNotification> listenerQueueDispatch = this::enqueue;
+    private volatile Executor listenerQueuesExecutor;
+
     @Override
     public boolean isNotificationDynamic()
     {
@@ -91,6 +135,16 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
 
     public void start(WorkManager workManager, WorkListener workListener) throws LifecycleException
     {
+        if (dispatchMode == NotificationDispatchMode.LISTENER_QUEUES)
+        {
+            listenerQueuesExecutor = workManager;
+            for (ListenerNotificationQueue queue : listenerQueues.values())
+            {
+                queue.start(workManager);
+            }
+            return;
+        }
+
         try
         {
             workManager.scheduleWork(this, WorkManager.INDEFINITE, null, workListener);
@@ -132,6 +186,11 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     public void removeListener(ServerNotificationListener<?> listener)
     {
         configuration.removeListener(listener);
+        ListenerNotificationQueue queue = listenerQueues.remove(listener);
+        if (queue != null)
+        {
+            queue.close();
+        }
     }
 
     public void disableInterface(Class<? extends ServerNotificationListener> iface) throws ClassNotFoundException
@@ -172,6 +231,10 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
             {
                 notifyListeners(notification);
             }
+            else if (dispatchMode == NotificationDispatchMode.LISTENER_QUEUES)
+            {
+                configuration.getPolicy().dispatch(notification, listenerQueueDispatch);
+            }
             else
             {
                 try
@@ -193,6 +256,42 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         }
     }
 
+    private void enqueue(Sender sender, ServerNotification notification)
+    {
+        if (!sender.accepts(notification))
+        {
+            return;
+        }
+
+        ListenerNotificationQueue queue = listenerQueues.get(sender.getListener());
+        if (queue == null)
+        {
+            queue = new ListenerNotificationQueue(sender.getListener(), listenerQueueCapacity, batchSize, overflowPolicy);
+            ListenerNotificationQueue existing = listenerQueues.putIfAbsent(sender.getListener(), queue);
+            if (existing != null)
+            {
+                queue = existing;
+            }
+            else if (listenerQueuesExecutor != null)
+            {
+                queue.start(listenerQueuesExecutor);
+            }
+        }
+
+        try
+        {
+            queue.offer(notification);
+        }
+        catch (InterruptedException e)
+        {
+            currentThread().interrupt();
+            if (!disposed.get())
+            {
+                logger.error("Failed to queue notification: " + notification, e);
+            }
+        }
+    }
+
     @Override
     public boolean isNotificationEnabled(Class<? extends ServerNotification> type)
     {
@@ -217,6 +316,11 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         {
             runningThread.interrupt();
         }
+        for (ListenerNotificationQueue queue : listenerQueues.values())
+        {
+            queue.close();
+        }
+        listenerQueues.clear();
     }
 
     protected void notifyListeners(ServerNotification notification)
@@ -259,6 +363,102 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         }
     }
 
+    public NotificationDispatchMode getDispatchMode()
+    {
+        return dispatchMode;
+    }
+
+    /**
+     * Sets how notifications are delivered. It must be set before the manager is started.
+     */
+    public void setDispatchMode(NotificationDispatchMode dispatchMode)
+    {
+        this.dispatchMode = dispatchMode;
+    }
+
+    public int getListenerQueueCapacity()
+    {
+        return listenerQueueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of notifications pending delivery to each listener when using
+     * {@link NotificationDispatchMode#LISTENER_QUEUES}. It must be set before any notification is fired.
+     */
+    public void setListenerQueueCapacity(int listenerQueueCapacity)
+    {
+        checkArgument(listenerQueueCapacity > 0, "listenerQueueCapacity must be greater than 0");
+        this.listenerQueueCapacity = listenerQueueCapacity;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of notifications delivered from a listener queue before letting other
+     * listeners use the thread when using {@link NotificationDispatchMode#LISTENER_QUEUES}. It must be set
+     * before any notification is fired.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        checkArgument(batchSize > 0, "batchSize must be greater than 0");
+        this.batchSize = batchSize;
+    }
+
+    public NotificationOverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets what to do with notifications for a listener whose queue is full when using
+     * {@link NotificationDispatchMode#LISTENER_QUEUES}. It must be set before any notification is fired.
+     */
+    public void setOverflowPolicy(NotificationOverflowPolicy overflowPolicy)
+    {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @return the number of notifications that were discarded, or replaced by a newer one, because the queue
+     *         of the listener was full
+     */
+    public long getDroppedNotifications()
+    {
+        long dropped = 0;
+        for (ListenerNotificationQueue queue : listenerQueues.values())
+        {
+            dropped += queue.getDroppedNotifications();
+        }
+        return dropped;
+    }
+
+    /**
+     * @return the number of notifications for the given listener that were discarded, or replaced by a newer
+     *         one, because its queue was full
+     */
+    public long getDroppedNotifications(ServerNotificationListener<?> listener)
+    {
+        ListenerNotificationQueue queue = listenerQueues.get(listener);
+        return queue == null ? 0 : queue.getDroppedNotifications();
+    }
+
+    private static NotificationDispatchMode getDefaultDispatchMode()
+    {
+        String dispatchMode = System.getProperty(DISPATCH_MODE_PROPERTY_KEY);
+        return dispatchMode == null ? NotificationDispatchMode.SHARED_QUEUE
+                                    : NotificationDispatchMode.valueOf(dispatchMode.trim().toUpperCase());
+    }
+
+    private static NotificationOverflowPolicy getDefaultOverflowPolicy()
+    {
+        String overflowPolicy = System.getProperty(OVERFLOW_POLICY_PROPERTY_KEY);
+        return overflowPolicy == null ? NotificationOverflowPolicy.DROP
+                                      : NotificationOverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase());
+    }
+
     /**
      * Support string or class parameters
      */
@@ -45,6 +45,13 @@ public class EventVariableResolverFactory extends MessageVariableResolverFactory
         setNextFactory(next);
     }
 
+    @Override
+    protected void setEvent(MuleEvent event)
+    {
+        super.setEvent(event);
+        this.event = event;
+    }
+
     @Override
     public VariableResolver getVariableResolver(String name)
     {
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.el.mvel;
+
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.el.CompiledExpression;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * {@link CompiledExpression} that holds the output of the MVEL compiler, so it is executed against each
+ * event without processing the expression text again.
+ */
+public class MVELCompiledExpression implements CompiledExpression
+{
+
+    private final MVELExpressionLanguage expressionLanguage;
+    private final String expression;
+    private final String unwrappedExpression;
+    private final Serializable compiledExpression;
+
+    MVELCompiledExpression(MVELExpressionLanguage expressionLanguage,
+                           String expression,
+                           String unwrappedExpression,
+                           Serializable compiledExpression)
+    {
+        this.expressionLanguage = expressionLanguage;
+        this.expression = expression;
+        this.unwrappedExpression = unwrappedExpression;
+        this.compiledExpression = compiledExpression;
+    }
+
+    @Override
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    @Override
+    public <T> T evaluate(MuleEvent event)
+    {
+        return expressionLanguage.evaluate(this, event, null);
+    }
+
+    @Override
+    public <T> T evaluate(MuleEvent event, Map<String, Object> vars)
+    {
+        return expressionLanguage.evaluate(this, event, vars);
+    }
+
+    /**
+     * @return the expression without the expression markers
+     */
+    String getUnwrappedExpression()
+    {
+        return unwrappedExpression;
+    }
+
+    /**
+     * @return the output of the MVEL compiler
+     */
+    Serializable getCompiledExpression()
+    {
+        return compiledExpression;
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression;
+    }
+}
@@ -87,6 +87,18 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
         return MVEL.executeExpression(getCompiledExpression(expression), context);
     }
 
+    /**
+     * Executes an expression previously compiled with {@link #getCompiledExpression(String)}.
+     *
+     * @param compiledExpression the compiled expression
+     * @param context the context to execute the expression with
+     * @return the result of the expression
+     */
+    public Object execute(Serializable compiledExpression, MVELExpressionLanguageContext context)
+    {
+        return MVEL.executeExpression(compiledExpression, context);
+    }
+
     @Override
     public void validate(String expression) throws InvalidExpressionException
     {
@@ -10,6 +10,7 @@ import static org.mule.runtime.core.expression.DefaultExpressionManager.OBJECT_F
 import static org.mule.runtime.core.expression.DefaultExpressionManager.removeExpressionMarker;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.el.CompiledExpression;
 import org.mule.runtime.core.api.el.ExpressionLanguage;
 import org.mule.runtime.core.api.expression.ExpressionManager;
 import org.mule.runtime.core.api.expression.ExpressionRuntimeException;
@@ -40,6 +41,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.regex.Pattern;
 
 import javax.activation.DataHandler;
@@ -57,6 +60,12 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     protected VariableResolverFactory staticContext;
     protected VariableResolverFactory globalContext;
 
+    private static final int MAX_POOLED_RESOLVER_FACTORY_CHAINS = 4 * Runtime.getRuntime().availableProcessors();
+
+    // Resolver factory chains used to evaluate compiled expressions, reused by the following evaluations. They are
+    // pooled by this instance instead of per thread, so pooled threads don't keep them once the application is gone
+    private volatile Queue<ReusableVariableResolverFactoryChain> resolverFactoryChains = createResolverFactoryChainsPool();
+
     // Configuration
     protected String globalFunctionsString;
     protected String globalFunctionsFile;
@@ -80,6 +89,7 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
 
         loadGlobalFunctions();
         createStaticContext();
+        resolverFactoryChains = createResolverFactoryChainsPool();
     }
 
     protected void createStaticContext()
@@ -166,6 +176,59 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
         return evaluateInternal(expression, context);
     }
 
+    @Override
+    public CompiledExpression compile(String expression) throws InvalidExpressionException
+    {
+        validate(expression);
+
+        String unwrappedExpression = removeExpressionMarker(expression);
+        return new MVELCompiledExpression(this, expression, unwrappedExpression,
+            expressionExecutor.getCompiledExpression(unwrappedExpression));
+    }
+
+    /**
+     * Evaluates a compiled expression. A pooled resolver factory chain is bound to the event instead of creating
+     * a new chain, unless the pool is empty.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T evaluate(MVELCompiledExpression expression, MuleEvent event, Map<String, Object> vars)
+    {
+        // the chain goes back to the pool it was taken from, so chains of a replaced pool are discarded
+        Queue<ReusableVariableResolverFactoryChain> chains = resolverFactoryChains;
+        ReusableVariableResolverFactoryChain chain = chains.poll();
+        if (chain == null)
+        {
+            chain = createResolverFactoryChain();
+        }
+
+        MVELExpressionLanguageContext context = chain.bind(event, vars);
+        try
+        {
+            return (T) expressionExecutor.execute(expression.getCompiledExpression(), context);
+        }
+        catch (Exception e)
+        {
+            throw new ExpressionRuntimeException(
+                CoreMessages.expressionEvaluationFailed(expression.getUnwrappedExpression()), e);
+        }
+        finally
+        {
+            chain.release();
+            chains.offer(chain);
+        }
+    }
+
+    private static Queue<ReusableVariableResolverFactoryChain> createResolverFactoryChainsPool()
+    {
+        return new ArrayBlockingQueue<>(MAX_POOLED_RESOLVER_FACTORY_CHAINS);
+    }
+
+    private ReusableVariableResolverFactoryChain createResolverFactoryChain()
+    {
+        return new ReusableVariableResolverFactoryChain(createExpressionLanguageContext(), staticContext,
+            globalContext, parserConfiguration, muleContext, autoResolveVariables);
+    }
+
     @Override
     public void enrich(String expression, MuleEvent event, TypedValue typedValue)
     {
@@ -302,6 +365,7 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     public void setAutoResolveVariables(boolean autoResolveVariables)
     {
         this.autoResolveVariables = autoResolveVariables;
+        resolverFactoryChains = createResolverFactoryChainsPool();
     }
 
     public void setDataTypeResolver(MvelDataTypeResolver dataTypeResolver)
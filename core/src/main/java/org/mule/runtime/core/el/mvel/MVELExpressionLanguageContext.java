@@ -46,6 +46,15 @@ public class MVELExpressionLanguageContext extends MuleBaseVariableResolverFacto
         this.variableResolvers = context.variableResolvers;
     }
 
+    /**
+     * Discards the variables declared by a previous evaluation so the context can be reused.
+     */
+    void reset()
+    {
+        variableResolvers.clear();
+        setTiltFlag(false);
+    }
+
     @Override
     public VariableResolver getVariableResolver(String name)
     {
@@ -58,6 +58,17 @@ public class MessageVariableResolverFactory extends MuleBaseVariableResolverFact
         setNextFactory(next);
     }
 
+    /**
+     * Binds this factory to another event, so the same factory chain can be reused to evaluate
+     * expressions against different events.
+     *
+     * @param event the event variables are resolved from
+     */
+    protected void setEvent(MuleEvent event)
+    {
+        this.event = event;
+    }
+
     @Override
     public boolean isTarget(String name)
     {
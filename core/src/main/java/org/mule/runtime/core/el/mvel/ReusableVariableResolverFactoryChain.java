@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.el.mvel;
+
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.mvel2.ParserConfiguration;
+import org.mule.mvel2.integration.VariableResolverFactory;
+import org.mule.mvel2.integration.impl.CachedMapVariableResolverFactory;
+
+import java.util.Map;
+
+/**
+ * The chain of {@link VariableResolverFactory} used to evaluate expressions against an event, built once
+ * and bound to a different event for each evaluation.
+ * <p/>
+ * The chain has the same structure as the one {@link MVELExpressionLanguage#evaluate(String, MuleEvent, Map)}
+ * builds on each evaluation, but only the factory for the provided variables, if any, is created per
+ * evaluation. A chain must not be used by more than one evaluation at the same time.
+ */
+final class ReusableVariableResolverFactoryChain
+{
+
+    private final MVELExpressionLanguageContext context;
+    private final EventVariableResolverFactory eventFactory;
+    private final VariableVariableResolverFactory variableFactory;
+    private final VariableResolverFactory eventChain;
+    private final VariableResolverFactory noEventChain;
+
+    ReusableVariableResolverFactoryChain(MVELExpressionLanguageContext context,
+                                         VariableResolverFactory staticContext,
+                                         VariableResolverFactory globalContext,
+                                         ParserConfiguration parserConfiguration,
+                                         MuleContext muleContext,
+                                         boolean autoResolveVariables)
+    {
+        this.context = context;
+        this.variableFactory = autoResolveVariables
+                               ? new VariableVariableResolverFactory(parserConfiguration, muleContext, null)
+                               : null;
+        this.eventFactory = new EventVariableResolverFactory(parserConfiguration, muleContext, null,
+            new DelegateVariableResolverFactory(globalContext,
+                variableFactory != null ? variableFactory : new NullVariableResolverFactory()));
+        this.eventChain = new DelegateVariableResolverFactory(staticContext, eventFactory);
+        this.noEventChain = new DelegateVariableResolverFactory(staticContext, globalContext);
+    }
+
+    /**
+     * Binds the chain to an event and returns the context to evaluate expressions with. The chain must not be
+     * bound again until {@link #release()} is invoked.
+     *
+     * @param event the event to evaluate against, may be null
+     * @param vars additional variables, may be null
+     * @return the context to evaluate expressions with
+     */
+    MVELExpressionLanguageContext bind(MuleEvent event, Map<String, Object> vars)
+    {
+        VariableResolverFactory next = noEventChain;
+        if (event != null)
+        {
+            eventFactory.setEvent(event);
+            if (variableFactory != null)
+            {
+                variableFactory.setEvent(event);
+            }
+            next = eventChain;
+        }
+        context.setNextFactory(vars != null ? new CachedMapVariableResolverFactory(vars, next) : next);
+        return context;
+    }
+
+    /**
+     * Releases the references to the last bound event and the variables declared by the last evaluation.
+     */
+    void release()
+    {
+        eventFactory.setEvent(null);
+        if (variableFactory != null)
+        {
+            variableFactory.setEvent(null);
+        }
+        context.reset();
+    }
+}
@@ -25,6 +25,17 @@ public class VariableVariableResolverFactory extends MuleBaseVariableResolverFac
         this.event = event;
     }
 
+    /**
+     * Binds this factory to another event, so the same factory chain can be reused to evaluate
+     * expressions against different events.
+     *
+     * @param event the event variables are resolved from
+     */
+    protected void setEvent(MuleEvent event)
+    {
+        this.event = event;
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public boolean isTarget(String name)
@@ -8,7 +8,9 @@ package org.mule.runtime.core.execution;
 
 import org.mule.runtime.core.api.MessagingException;
 import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.context.notification.ServerNotificationHandler;
 import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.context.notification.MessageProcessorNotification;
 
 /**
  * Template for executing a MessageProcessor.
@@ -34,6 +36,29 @@ public class MessageProcessorExecutionTemplate
         return new MessageProcessorExecutionTemplate(new MessageProcessorNotificationExecutionInterceptor(new ExceptionToMessagingExceptionExecutionInterceptor()));
     }
 
+    /**
+     * Same as {@link #createExecutionTemplate()}, but leaves the {@link MessageProcessorNotification} handling out
+     * when the given handler can't fire them.
+     */
+    public static MessageProcessorExecutionTemplate createExecutionTemplate(ServerNotificationHandler notificationHandler)
+    {
+        if (isMessageProcessorNotificationEnabled(notificationHandler))
+        {
+            return createExecutionTemplate();
+        }
+        return new MessageProcessorExecutionTemplate(new RequestContextExecutionInterceptor(new ExceptionToMessagingExceptionExecutionInterceptor()));
+    }
+
+    /**
+     * @return whether the given handler may fire {@link MessageProcessorNotification}s, now or after its configuration
+     * changes.
+     */
+    public static boolean isMessageProcessorNotificationEnabled(ServerNotificationHandler notificationHandler)
+    {
+        return notificationHandler == null || notificationHandler.isNotificationDynamic()
+               || notificationHandler.isNotificationEnabled(MessageProcessorNotification.class);
+    }
+
     public static MessageProcessorExecutionTemplate createNotificationExecutionTemplate()
     {
         return new MessageProcessorExecutionTemplate(new MessageProcessorNotificationExecutionInterceptor());
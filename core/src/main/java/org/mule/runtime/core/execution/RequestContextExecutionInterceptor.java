@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.execution;
+
+import org.mule.runtime.core.OptimizedRequestContext;
+import org.mule.runtime.core.api.MessagingException;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+
+/**
+ * Intercepts MessageProcessor execution to update the RequestContext, as
+ * {@link MessageProcessorNotificationExecutionInterceptor} does, when no notification can be fired.
+ */
+class RequestContextExecutionInterceptor implements MessageProcessorExecutionInterceptor
+{
+
+    private final MessageProcessorExecutionInterceptor next;
+
+    RequestContextExecutionInterceptor(MessageProcessorExecutionInterceptor next)
+    {
+        this.next = next;
+    }
+
+    @Override
+    public MuleEvent execute(MessageProcessor messageProcessor, MuleEvent event) throws MessagingException
+    {
+        // Update RequestContext ThreadLocal in case if previous processor modified it
+        // also for backwards compatibility
+        OptimizedRequestContext.unsafeSetEvent(event);
+        return next.execute(messageProcessor, event);
+    }
+}
@@ -23,6 +23,7 @@ public class AllStatistics
     private long startTime;
     private ApplicationStatistics appStats;
     private Map<String, FlowConstructStatistics> flowConstructStats = new HashMap<String, FlowConstructStatistics>();
+    private Map<String, ObjectStoreStatistics> objectStoreStats = new HashMap<String, ObjectStoreStatistics>();
 
     /**
      * 
@@ -65,6 +66,10 @@ public class AllStatistics
         {
             statistics.clear();
         }
+        for (ObjectStoreStatistics statistics : objectStoreStats.values())
+        {
+            statistics.clear();
+        }
         startTime = System.currentTimeMillis();
     }
 
@@ -87,6 +92,10 @@ public class AllStatistics
         {
             statistics.setEnabled(b);
         }
+        for (ObjectStoreStatistics statistics : objectStoreStats.values())
+        {
+            statistics.setEnabled(b);
+        }
     }
 
     public synchronized long getStartTime()
@@ -120,6 +129,32 @@ public class AllStatistics
         return flowConstructStats.values();
     }
 
+    public synchronized void add(ObjectStoreStatistics stat)
+    {
+        if (stat != null)
+        {
+            objectStoreStats.put(getKey(stat), stat);
+        }
+    }
+
+    public synchronized void remove(ObjectStoreStatistics stat)
+    {
+        if (stat != null)
+        {
+            objectStoreStats.remove(getKey(stat), stat);
+        }
+    }
+
+    public synchronized Collection<ObjectStoreStatistics> getObjectStoreStatistics()
+    {
+        return objectStoreStats.values();
+    }
+
+    private static String getKey(ObjectStoreStatistics stat)
+    {
+        return stat.getStoreName() + "/" + stat.getName();
+    }
+
     public FlowConstructStatistics getApplicationStatistics()
     {
         return appStats;
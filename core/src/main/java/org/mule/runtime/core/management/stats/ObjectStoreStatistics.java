@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.management.stats;
+
+import org.mule.runtime.core.api.management.stats.Statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage statistics of an object store partition: lookups that found (hits) or missed
+ * the requested key, entries evicted to honour the size bounds and entries expired
+ * because their time to live elapsed. Nothing is counted while they are disabled.
+ * <p/>
+ * Partitions of different stores may have the same name, so statistics are identified by
+ * both the store name and the partition name.
+ */
+public class ObjectStoreStatistics implements Statistics
+{
+    private static final long serialVersionUID = -2947320173612839574L;
+
+    private final String storeName;
+    private final String name;
+    private volatile boolean enabled = false;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ObjectStoreStatistics(String storeName, String name)
+    {
+        this.storeName = storeName;
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the store the partition belongs to
+     */
+    public String getStoreName()
+    {
+        return storeName;
+    }
+
+    /**
+     * @return the name of the partition
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Enable statistics logs (this is a dynamic parameter)
+     */
+    public synchronized void setEnabled(boolean b)
+    {
+        enabled = b;
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public synchronized void clear()
+    {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    public void incHits()
+    {
+        if (enabled)
+        {
+            hits.increment();
+        }
+    }
+
+    public void incMisses()
+    {
+        if (enabled)
+        {
+            misses.increment();
+        }
+    }
+
+    public void incEvictions(int count)
+    {
+        if (enabled)
+        {
+            evictions.add(count);
+        }
+    }
+
+    public void incExpirations(int count)
+    {
+        if (enabled)
+        {
+            expirations.add(count);
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    public long getExpirations()
+    {
+        return expirations.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ObjectStoreStatistics{storeName=%s, name=%s, hits=%s, misses=%s, evictions=%s, expirations=%s}",
+                             storeName, name, getHits(), getMisses(), getEvictions(), getExpirations());
+    }
+}
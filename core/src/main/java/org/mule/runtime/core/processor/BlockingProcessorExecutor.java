@@ -12,6 +12,7 @@ import org.mule.runtime.core.OptimizedRequestContext;
 import org.mule.runtime.core.VoidMuleEvent;
 import org.mule.runtime.core.api.MessagingException;
 import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleMessage;
 import org.mule.runtime.core.api.component.Component;
 import org.mule.runtime.core.api.processor.MessageProcessor;
 import org.mule.runtime.core.api.processor.ProcessorExecutor;
@@ -27,6 +28,11 @@ import java.util.List;
  * in sucession in the same thread until or processors have been invoked or one of the following is returned by a processor:
  * <li>{@link org.mule.runtime.core.VoidMuleEvent}</li>
  * <li><code>null</code></li>
+ * <p/>
+ * When {@code copyOnVoidEvent} is set, the message is copied before invoking each processor that may return
+ * {@link org.mule.runtime.core.VoidMuleEvent}, so that processing can continue with the message as it was before the
+ * invocation. The event for that copy is only created if the processor actually returns
+ * {@link org.mule.runtime.core.VoidMuleEvent}.
  */
 public class BlockingProcessorExecutor implements ProcessorExecutor
 {
@@ -34,6 +40,7 @@ public class BlockingProcessorExecutor implements ProcessorExecutor
     protected final MessageProcessorExecutionTemplate messageProcessorExecutionTemplate;
     protected final boolean copyOnVoidEvent;
     protected final List<MessageProcessor> processors;
+    private final boolean[] mayReturnVoidEvent;
 
     protected MuleEvent event;
     private int index;
@@ -41,13 +48,45 @@ public class BlockingProcessorExecutor implements ProcessorExecutor
     public BlockingProcessorExecutor(MuleEvent event, List<MessageProcessor> processors,
                                      MessageProcessorExecutionTemplate messageProcessorExecutionTemplate, boolean
             copyOnVoidEvent)
+    {
+        this(event, processors, messageProcessorExecutionTemplate, copyOnVoidEvent ? mayReturnVoidEvent(processors) : null);
+    }
+
+    /**
+     * @param mayReturnVoidEvent whether each of the {@code processors} may return {@link VoidMuleEvent}, as resolved by
+     *                           {@link #mayReturnVoidEvent(List)}, or {@code null} to never copy the event.
+     */
+    public BlockingProcessorExecutor(MuleEvent event, List<MessageProcessor> processors,
+                                     MessageProcessorExecutionTemplate messageProcessorExecutionTemplate, boolean[]
+            mayReturnVoidEvent)
     {
         this.event = event;
         this.processors = processors;
-        this.copyOnVoidEvent = copyOnVoidEvent;
+        this.copyOnVoidEvent = mayReturnVoidEvent != null;
+        this.mayReturnVoidEvent = mayReturnVoidEvent;
         this.messageProcessorExecutionTemplate = messageProcessorExecutionTemplate;
     }
 
+    /**
+     * Resolves which of the given processors may return {@link VoidMuleEvent}, so it can be done once for a chain
+     * rather than for every event processed by it.
+     */
+    public static boolean[] mayReturnVoidEvent(List<MessageProcessor> processors)
+    {
+        boolean[] mayReturnVoidEvent = new boolean[processors.size()];
+        for (int i = 0; i < mayReturnVoidEvent.length; i++)
+        {
+            mayReturnVoidEvent[i] = mayReturnVoidEvent(processors.get(i));
+        }
+        return mayReturnVoidEvent;
+    }
+
+    private static boolean mayReturnVoidEvent(MessageProcessor processor)
+    {
+        return !(processor instanceof Transformer || processor instanceof MessageFilter || processor instanceof Component
+                 || (processor instanceof LegacyOutboundEndpoint && !((LegacyOutboundEndpoint) processor).mayReturnVoidEvent()));
+    }
+
     @Override
     public final MuleEvent execute() throws MessagingException
     {
@@ -76,18 +115,21 @@ public class BlockingProcessorExecutor implements ProcessorExecutor
 
     protected MuleEvent executeNext() throws MessagingException
     {
+        boolean copyEvent = copyOnVoidEvent && (index >= mayReturnVoidEvent.length || mayReturnVoidEvent[index]);
         MessageProcessor processor = nextProcessor();
 
         preProcess(processor);
 
-        if (copyOnVoidEvent
-            && !(processor instanceof Transformer || processor instanceof MessageFilter || processor instanceof Component
-                 || (processor instanceof LegacyOutboundEndpoint && !((LegacyOutboundEndpoint) processor).mayReturnVoidEvent())))
+        if (copyEvent)
         {
-            MuleEvent copy = new DefaultMuleEvent(new DefaultMuleMessage(event.getMessage()), event);
-            MuleEvent result = messageProcessorExecutionTemplate.execute(processor, event);
+            // The message has to be copied up front since the processor may modify it before returning VoidMuleEvent,
+            // but the event itself is only needed when that happens.
+            MuleEvent originalEvent = event;
+            MuleMessage messageCopy = new DefaultMuleMessage(originalEvent.getMessage());
+            MuleEvent result = messageProcessorExecutionTemplate.execute(processor, originalEvent);
             if (isUseEventCopy(result))
             {
+                MuleEvent copy = new DefaultMuleEvent(messageCopy, originalEvent);
                 OptimizedRequestContext.unsafeSetEvent(copy);
                 result = copy;
             }
@@ -54,6 +54,14 @@ public class NonBlockingProcessorExecutor extends BlockingProcessorExecutor
         this.messageExchangePattern = event.getExchangePattern();
     }
 
+    public NonBlockingProcessorExecutor(MuleEvent event, List<MessageProcessor> processors,
+                                        MessageProcessorExecutionTemplate executionTemplate, boolean[] mayReturnVoidEvent)
+    {
+        super(event, processors, executionTemplate, mayReturnVoidEvent);
+        this.replyToHandler = event.getReplyToHandler();
+        this.messageExchangePattern = event.getExchangePattern();
+    }
+
     @Override
     protected void preProcess(MessageProcessor processor)
     {
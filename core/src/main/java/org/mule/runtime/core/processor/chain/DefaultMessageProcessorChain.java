@@ -20,6 +20,7 @@ import java.util.List;
 public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
 {
     protected MessageProcessorExecutionTemplate messageProcessorExecutionTemplate = MessageProcessorExecutionTemplate.createExecutionTemplate();
+    private volatile ProcessorChainExecutionPlan executionPlan;
 
     protected DefaultMessageProcessorChain(List<MessageProcessor> processors)
     {
@@ -59,7 +60,22 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
     @Override
     protected MuleEvent doProcess(MuleEvent event) throws MuleException
     {
-        return new ProcessorExecutorFactory().createProcessorExecutor(event, processors, messageProcessorExecutionTemplate, true).execute();
+        return resolveExecutionPlan(event).execute(event);
+    }
+
+    private ProcessorChainExecutionPlan resolveExecutionPlan(MuleEvent event)
+    {
+        ProcessorChainExecutionPlan plan = executionPlan;
+        // Compiled for the first event, since chains built by a builder don't get the mule context. It is only
+        // compiled again if the processors were changed after that.
+        if (plan == null || !plan.isCompiledFor(processors))
+        {
+            MuleContext muleContext = event.getMuleContext();
+            plan = ProcessorChainExecutionPlan.compile(processors, messageProcessorExecutionTemplate,
+                                                       muleContext != null ? muleContext.getNotificationManager() : null);
+            executionPlan = plan;
+        }
+        return plan;
     }
 
     @Override
@@ -38,6 +38,11 @@ public class InterceptingChainLifecycleWrapper extends AbstractMessageProcessorC
         return chain.getMessageProcessors();
     }
 
+    MessageProcessorChain getChain()
+    {
+        return chain;
+    }
+
     @Override
     public String getName()
     {
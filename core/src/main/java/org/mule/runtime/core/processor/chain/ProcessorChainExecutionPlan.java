@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.processor.chain;
+
+import static java.util.Collections.unmodifiableList;
+import static org.mule.runtime.core.execution.MessageProcessorExecutionTemplate.createExecutionTemplate;
+import static org.mule.runtime.core.execution.MessageProcessorExecutionTemplate.isMessageProcessorNotificationEnabled;
+import org.mule.runtime.core.api.MessagingException;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.context.notification.ServerNotificationHandler;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.api.processor.MessageProcessorChain;
+import org.mule.runtime.core.execution.MessageProcessorExecutionTemplate;
+import org.mule.runtime.core.processor.BlockingProcessorExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The processors of a {@link DefaultMessageProcessorChain} as they are actually executed, resolved once for the
+ * chain rather than for every event it processes.
+ * <p/>
+ * When no {@link org.mule.runtime.core.context.notification.MessageProcessorNotification} can be fired, the
+ * notification handling is left out of the execution template and nested chains are flattened into this plan,
+ * since going through them would only add the notifications for the nested chain itself. Only the exact
+ * {@link DefaultMessageProcessorChain} and {@link InterceptingChainLifecycleWrapper} classes are flattened, so
+ * sub-flows and any other chain with its own behaviour are still invoked as a single processor.
+ */
+final class ProcessorChainExecutionPlan
+{
+
+    private final List<MessageProcessor> chainProcessors;
+    private final int chainSize;
+    private final List<MessageProcessor> processors;
+    private final boolean[] mayReturnVoidEvent;
+    private final MessageProcessorExecutionTemplate executionTemplate;
+
+    private ProcessorChainExecutionPlan(List<MessageProcessor> chainProcessors, List<MessageProcessor> processors,
+                                        MessageProcessorExecutionTemplate executionTemplate)
+    {
+        this.chainProcessors = chainProcessors;
+        this.chainSize = chainProcessors.size();
+        this.processors = processors;
+        this.mayReturnVoidEvent = BlockingProcessorExecutor.mayReturnVoidEvent(processors);
+        this.executionTemplate = executionTemplate;
+    }
+
+    /**
+     * @param chainProcessors the processors of the chain
+     * @param defaultExecutionTemplate the template of the chain, used when notifications may be fired
+     * @param notificationHandler the handler the notifications would be fired through
+     */
+    static ProcessorChainExecutionPlan compile(List<MessageProcessor> chainProcessors,
+                                               MessageProcessorExecutionTemplate defaultExecutionTemplate,
+                                               ServerNotificationHandler notificationHandler)
+    {
+        if (isMessageProcessorNotificationEnabled(notificationHandler))
+        {
+            return new ProcessorChainExecutionPlan(chainProcessors, chainProcessors, defaultExecutionTemplate);
+        }
+
+        List<MessageProcessor> flattened = new ArrayList<>(chainProcessors.size());
+        flatten(chainProcessors, flattened);
+        return new ProcessorChainExecutionPlan(chainProcessors, unmodifiableList(flattened),
+                                               createExecutionTemplate(notificationHandler));
+    }
+
+    private static void flatten(List<MessageProcessor> processors, List<MessageProcessor> flattened)
+    {
+        for (MessageProcessor processor : processors)
+        {
+            List<MessageProcessor> nestedProcessors = getFlattenableProcessors(processor);
+            if (nestedProcessors != null)
+            {
+                flatten(nestedProcessors, flattened);
+            }
+            else
+            {
+                flattened.add(processor);
+            }
+        }
+    }
+
+    private static List<MessageProcessor> getFlattenableProcessors(MessageProcessor processor)
+    {
+        if (processor != null && processor.getClass() == InterceptingChainLifecycleWrapper.class)
+        {
+            MessageProcessorChain chain = ((InterceptingChainLifecycleWrapper) processor).getChain();
+            return chain != null && chain.getClass() == DefaultMessageProcessorChain.class ? ((DefaultMessageProcessorChain) chain).processors : null;
+        }
+        if (processor != null && processor.getClass() == DefaultMessageProcessorChain.class)
+        {
+            return ((DefaultMessageProcessorChain) processor).processors;
+        }
+        return null;
+    }
+
+    /**
+     * @return whether this plan is still valid for the given processors of the chain
+     */
+    boolean isCompiledFor(List<MessageProcessor> chainProcessors)
+    {
+        return this.chainProcessors == chainProcessors && chainSize == chainProcessors.size();
+    }
+
+    MuleEvent execute(MuleEvent event) throws MessagingException
+    {
+        return new ProcessorExecutorFactory().createProcessorExecutor(event, processors, executionTemplate, mayReturnVoidEvent).execute();
+    }
+
+    List<MessageProcessor> getProcessors()
+    {
+        return processors;
+    }
+}
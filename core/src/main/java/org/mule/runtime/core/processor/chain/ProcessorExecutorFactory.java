@@ -37,4 +37,24 @@ public class ProcessorExecutorFactory
         }
     }
 
+    /**
+     * Same as {@link #createProcessorExecutor(MuleEvent, List, MessageProcessorExecutionTemplate, boolean)}, but with
+     * the processors that may return a {@link org.mule.runtime.core.VoidMuleEvent} already resolved by
+     * {@link BlockingProcessorExecutor#mayReturnVoidEvent(List)}.
+     */
+    public ProcessorExecutor createProcessorExecutor(MuleEvent event,
+                                                     List<MessageProcessor> processors,
+                                                     MessageProcessorExecutionTemplate executionTemplate,
+                                                     boolean[] mayReturnVoidEvent)
+    {
+        if (event.isAllowNonBlocking())
+        {
+            return new NonBlockingProcessorExecutor(event, processors, executionTemplate, mayReturnVoidEvent);
+        }
+        else
+        {
+            return new BlockingProcessorExecutor(event, processors, executionTemplate, mayReturnVoidEvent);
+        }
+    }
+
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.registry;
+
+import org.mule.runtime.api.metadata.DataType;
+
+/**
+ * Immutable pair of source and result {@link DataType}s used as the key of transformer lookups. The hash
+ * is computed once, so using instances as map keys doesn't build any intermediate string.
+ * <p/>
+ * Two pairs are equal when both data types are equal and of the same class.
+ *
+ * @since 4.0
+ */
+public final class DataTypePair
+{
+
+    private final DataType<?> source;
+    private final DataType<?> result;
+    private final int hash;
+
+    public DataTypePair(DataType<?> source, DataType<?> result)
+    {
+        this.source = source;
+        this.result = result;
+        this.hash = 31 * (31 * source.getClass().hashCode() + source.hashCode())
+                    + 31 * result.getClass().hashCode() + result.hashCode();
+    }
+
+    public DataType<?> getSource()
+    {
+        return source;
+    }
+
+    public DataType<?> getResult()
+    {
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof DataTypePair))
+        {
+            return false;
+        }
+        DataTypePair other = (DataTypePair) obj;
+        return hash == other.hash
+               && source.getClass() == other.source.getClass()
+               && result.getClass() == other.result.getClass()
+               && source.equals(other.source)
+               && result.equals(other.result);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return source + " -> " + result;
+    }
+}
@@ -40,7 +40,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -64,10 +64,10 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     private DefaultRegistryBroker registry;
 
     /**
-     * We cache transformer searches so that we only search once
+     * We cache transformer searches so that we only search once, including the ones that don't find a
+     * transformer
      */
-    protected ConcurrentHashMap/*<String, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
-    protected ConcurrentHashMap/*Map<String, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<String, List<Transformer>>*/(8);
+    private final TransformerResolutionCache transformerCache = new TransformerResolutionCache();
 
     private MuleContext muleContext;
 
@@ -109,8 +109,7 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     @Override
     public void dispose()
     {
-        transformerListCache.clear();
-        exactTransformerCache.clear();
+        transformerCache.clear();
     }
 
     @Override
@@ -150,27 +149,18 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     @Override
     public Transformer lookupTransformer(DataType source, DataType result) throws TransformerException
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
-        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePairHash);
-        if (cachedTransformer != null)
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
+        Optional<Transformer> cachedTransformer = transformerCache.getResolution(dataTypePair);
+        if (cachedTransformer == null)
         {
-            return cachedTransformer;
+            long version = transformerCache.getResolutionsVersion();
+            Transformer trans = resolveTransformer(source, result);
+            cachedTransformer = Optional.ofNullable(transformerCache.putResolution(dataTypePair, trans, version));
         }
 
-        Transformer trans = resolveTransformer(source, result);
-
-        if (trans != null)
+        if (cachedTransformer.isPresent())
         {
-            Transformer concurrentlyAddedTransformer = (Transformer) exactTransformerCache.putIfAbsent(
-                    dataTypePairHash, trans);
-            if (concurrentlyAddedTransformer != null)
-            {
-                return concurrentlyAddedTransformer;
-            }
-            else
-            {
-                return trans;
-            }
+            return cachedTransformer.get();
         }
         else
         {
@@ -215,14 +205,15 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     @Override
     public List<Transformer> lookupTransformers(DataType source, DataType result)
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
 
-        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePairHash);
+        List<Transformer> results = transformerCache.getCandidates(dataTypePair);
         if (results != null)
         {
             return results;
         }
 
+        long version = transformerCache.getCandidatesVersion();
         results = new ArrayList<>(2);
 
         Lock readLock = transformersLock.readLock();
@@ -248,16 +239,7 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
             readLock.unlock();
         }
 
-        List<Transformer> concurrentlyAddedTransformers = (List<Transformer>) transformerListCache.putIfAbsent(
-                dataTypePairHash, results);
-        if (concurrentlyAddedTransformers != null)
-        {
-            return concurrentlyAddedTransformers;
-        }
-        else
-        {
-            return results;
-        }
+        return transformerCache.putCandidates(dataTypePair, results, version);
     }
 
     /**
@@ -300,41 +282,44 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     {
         if (t instanceof Converter)
         {
-            Lock transformerResolversReadLock = transformerResolversLock.readLock();
-            transformerResolversReadLock.lock();
+            Lock transformersWriteLock = transformersLock.writeLock();
+            transformersWriteLock.lock();
             try
             {
-
-                for (TransformerResolver resolver : transformerResolvers)
+                if (action == TransformerResolver.RegistryAction.ADDED)
                 {
-                    resolver.transformerChange(t, action);
+                    transformers.add(t);
+                }
+                else
+                {
+                    transformers.remove(t);
                 }
             }
             finally
             {
-                transformerResolversReadLock.unlock();
+                transformersWriteLock.unlock();
             }
 
-            transformerListCache.clear();
-            exactTransformerCache.clear();
+            // Resolvers look up the candidates, so these must be updated before notifying them, while the
+            // resolutions depend on the resolvers so they are updated after
+            transformerCache.invalidateCandidates(t, action);
 
-            Lock transformersWriteLock = transformersLock.writeLock();
-            transformersWriteLock.lock();
+            Lock transformerResolversReadLock = transformerResolversLock.readLock();
+            transformerResolversReadLock.lock();
             try
             {
-                if (action == TransformerResolver.RegistryAction.ADDED)
-                {
-                    transformers.add(t);
-                }
-                else
+
+                for (TransformerResolver resolver : transformerResolvers)
                 {
-                    transformers.remove(t);
+                    resolver.transformerChange(t, action);
                 }
             }
             finally
             {
-                transformersWriteLock.unlock();
+                transformerResolversReadLock.unlock();
             }
+
+            transformerCache.invalidateResolutions(t, action);
         }
     }
 
@@ -587,6 +572,7 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
         {
             lock.unlock();
         }
+        transformerCache.clear();
     }
 
     /**
@@ -684,12 +670,6 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
         return false;
     }
 
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        return source.getClass().getName() + source.hashCode() + ":" + result.getClass().getName()
-               + result.hashCode();
-    }
-
     private class TransformerResolverComparator implements Comparator<TransformerResolver>
     {
 
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.registry;
+
+import org.mule.runtime.core.api.registry.TransformerResolver.RegistryAction;
+import org.mule.runtime.core.api.transformer.Transformer;
+import org.mule.runtime.core.transformer.CompositeConverter;
+import org.mule.runtime.core.transformer.TransformerChain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the outcome of transformer lookups keyed by {@link DataTypePair}. Two kinds of outcomes are kept:
+ * <ul>
+ * <li>resolutions: the transformer resolved for a pair of data types, or the fact that there is none, so
+ * failed lookups are not repeated</li>
+ * <li>candidates: the list of registered converters that can transform between a pair of data types</li>
+ * </ul>
+ * When a converter is added or removed only the entries it may affect are invalidated, so a registry change
+ * doesn't discard the whole cache.
+ * <p/>
+ * A value computed concurrently with an invalidation could be stale. To avoid keeping it, callers take
+ * the version with {@link #getResolutionsVersion()} or {@link #getCandidatesVersion()} before computing
+ * the value and pass it when adding it to the cache, which drops values computed before an invalidation.
+ */
+final class TransformerResolutionCache
+{
+
+    private static final Optional<Transformer> NO_TRANSFORMER = Optional.empty();
+
+    private final Map<DataTypePair, Optional<Transformer>> resolutions = new ConcurrentHashMap<>(16);
+    private final Map<DataTypePair, List<Transformer>> candidates = new ConcurrentHashMap<>(16);
+    private final AtomicLong resolutionsVersion = new AtomicLong();
+    private final AtomicLong candidatesVersion = new AtomicLong();
+
+    /**
+     * @return the cached resolution for the pair, an empty {@link Optional} if it is known that there is no
+     *         transformer for it, or null if the pair was not resolved yet
+     */
+    Optional<Transformer> getResolution(DataTypePair key)
+    {
+        return resolutions.get(key);
+    }
+
+    long getResolutionsVersion()
+    {
+        return resolutionsVersion.get();
+    }
+
+    /**
+     * Caches the resolution of a pair, unless the cache was invalidated after {@code version} was taken.
+     *
+     * @param key the resolved pair
+     * @param transformer the resolved transformer, null if there is none
+     * @param version the value of {@link #getResolutionsVersion()} before the pair was resolved
+     * @return the cached transformer, that is the one resolved concurrently by another thread if any
+     */
+    Transformer putResolution(DataTypePair key, Transformer transformer, long version)
+    {
+        Optional<Transformer> value = transformer == null ? NO_TRANSFORMER : Optional.of(transformer);
+        Optional<Transformer> previous = resolutions.putIfAbsent(key, value);
+        if (previous != null)
+        {
+            return previous.orElse(transformer);
+        }
+        if (resolutionsVersion.get() != version)
+        {
+            resolutions.remove(key, value);
+        }
+        return transformer;
+    }
+
+    /**
+     * @return the cached candidates for the pair or null if there are none
+     */
+    List<Transformer> getCandidates(DataTypePair key)
+    {
+        return candidates.get(key);
+    }
+
+    long getCandidatesVersion()
+    {
+        return candidatesVersion.get();
+    }
+
+    /**
+     * Caches the candidates of a pair, unless the cache was invalidated after {@code version} was taken.
+     *
+     * @param key the pair
+     * @param transformers the candidates found
+     * @param version the value of {@link #getCandidatesVersion()} before the candidates were looked up
+     * @return the cached candidates, that is the ones found concurrently by another thread if any
+     */
+    List<Transformer> putCandidates(DataTypePair key, List<Transformer> transformers, long version)
+    {
+        List<Transformer> previous = candidates.putIfAbsent(key, transformers);
+        if (previous != null)
+        {
+            return previous;
+        }
+        if (candidatesVersion.get() != version)
+        {
+            candidates.remove(key, transformers);
+        }
+        return transformers;
+    }
+
+    /**
+     * Removes the resolutions that may change because of a converter being added or removed:
+     * <ul>
+     * <li>when a converter is added, failed resolutions, resolutions to composed transformers, and
+     * resolutions in which the converter could be the first or the last step</li>
+     * <li>when a converter is removed, resolutions to the converter or to transformers composed with it</li>
+     * </ul>
+     */
+    void invalidateResolutions(Transformer converter, RegistryAction action)
+    {
+        resolutionsVersion.incrementAndGet();
+        if (action == RegistryAction.ADDED)
+        {
+            resolutions.entrySet().removeIf(entry -> !entry.getValue().isPresent()
+                                                     || isComposite(entry.getValue().get())
+                                                     || isFirstOrLastStep(converter, entry.getKey()));
+        }
+        else
+        {
+            resolutions.entrySet().removeIf(entry -> entry.getValue().isPresent()
+                                                     && uses(entry.getValue().get(), converter));
+        }
+    }
+
+    /**
+     * Removes the candidate lists that may change because of a converter being added or removed, that is
+     * the ones the converter belongs to.
+     */
+    void invalidateCandidates(Transformer converter, RegistryAction action)
+    {
+        candidatesVersion.incrementAndGet();
+        if (action == RegistryAction.ADDED)
+        {
+            candidates.keySet().removeIf(key -> isCandidate(converter, key));
+        }
+        else
+        {
+            candidates.values().removeIf(transformers -> transformers.contains(converter));
+        }
+    }
+
+    void clear()
+    {
+        resolutionsVersion.incrementAndGet();
+        candidatesVersion.incrementAndGet();
+        resolutions.clear();
+        candidates.clear();
+    }
+
+    private static boolean isCandidate(Transformer converter, DataTypePair key)
+    {
+        return key.getResult().isCompatibleWith(converter.getReturnDataType())
+               && converter.isSourceDataTypeSupported(key.getSource());
+    }
+
+    private static boolean isFirstOrLastStep(Transformer converter, DataTypePair key)
+    {
+        return converter.isSourceDataTypeSupported(key.getSource())
+               || key.getResult().isCompatibleWith(converter.getReturnDataType());
+    }
+
+    private static boolean isComposite(Transformer transformer)
+    {
+        return transformer instanceof CompositeConverter || transformer instanceof TransformerChain;
+    }
+
+    private static boolean uses(Transformer transformer, Transformer converter)
+    {
+        if (transformer == converter)
+        {
+            return true;
+        }
+        if (transformer instanceof CompositeConverter)
+        {
+            return ((CompositeConverter) transformer).getConverters().contains(converter);
+        }
+        if (transformer instanceof TransformerChain)
+        {
+            return ((TransformerChain) transformer).getTransformers().contains(converter);
+        }
+        return false;
+    }
+}
@@ -31,8 +31,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,7 +53,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
     private MuleContext muleContext;
 
-    protected Map<String, Transformer> exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
+    private final TransformerResolutionCache transformerCache = new TransformerResolutionCache();
 
     protected TransformerResolver graphTransformerResolver = new GraphTransformerResolver();
 
@@ -86,12 +85,20 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
     @Override
     public Transformer resolve(DataType source, DataType result) throws ResolverException
     {
-        Transformer transformer = exactTransformerCache.get(source.toString() + result.toString());
-        if (transformer != null)
+        DataTypePair dataTypePair = new DataTypePair(source, result);
+        Optional<Transformer> cachedTransformer = transformerCache.getResolution(dataTypePair);
+        if (cachedTransformer != null)
         {
-            return transformer;
+            return cachedTransformer.orElse(null);
         }
 
+        long version = transformerCache.getResolutionsVersion();
+        Transformer transformer = doResolve(source, result);
+        return transformerCache.putResolution(dataTypePair, transformer, version);
+    }
+
+    private Transformer doResolve(DataType source, DataType result) throws ResolverException
+    {
         List<Transformer> trans = muleContext.getRegistry().lookupTransformers(source, result);
 
         Transformer compositeTransformer = graphTransformerResolver.resolve(source, result);
@@ -102,7 +109,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
             trans.add(compositeTransformer);
         }
 
-        transformer = getNearestTransformerMatch(trans, source.getType(), result.getType());
+        Transformer transformer = getNearestTransformerMatch(trans, source.getType(), result.getType());
         //If an exact mach is not found, we have a 'second pass' transformer that can be used to converting to String or
         //byte[]
         Transformer secondPass;
@@ -141,10 +148,6 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
             }
         }
 
-        if (transformer != null)
-        {
-            exactTransformerCache.put(source.toString() + result.toString(), transformer);
-        }
         return transformer;
     }
 
@@ -202,7 +205,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
     @Override
     public void dispose()
     {
-        exactTransformerCache.clear();
+        transformerCache.clear();
     }
 
     @Override
@@ -211,7 +214,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
         if (transformer instanceof Converter)
         {
             graphTransformerResolver.transformerChange(transformer, registryAction);
-            exactTransformerCache.clear();
+            transformerCache.invalidateResolutions(transformer, registryAction);
         }
     }
 }
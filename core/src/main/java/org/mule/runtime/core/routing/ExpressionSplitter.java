@@ -14,11 +14,16 @@ import org.mule.runtime.core.api.expression.ExpressionManager;
 import org.mule.runtime.core.api.lifecycle.Initialisable;
 import org.mule.runtime.core.api.lifecycle.InitialisationException;
 import org.mule.runtime.core.expression.ExpressionConfig;
+import org.mule.runtime.core.routing.outbound.CollectionMessageSequence;
+import org.mule.runtime.core.util.IOUtils;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +36,10 @@ import org.w3c.dom.NodeList;
  * Splits a message using the expression provided invoking the next message processor
  * one for each split part.
  * <p>
+ * When the expression evaluates to an {@link Iterator}, a {@link MessageSequence} or an
+ * {@link Iterable} that is not a {@link Collection}, its elements are only read as each
+ * part is processed, so the result is never held in memory as a whole.
+ * <p>
  * <b>EIP Reference:</b> <a href="http://www.eaipatterns.com/Sequencer.html">http://www.eaipatterns.com/Sequencer.html</a>
  */
 public class ExpressionSplitter extends AbstractSplitter
@@ -56,12 +65,37 @@ public class ExpressionSplitter extends AbstractSplitter
         config.validate(expressionManager);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event)
+    {
+        Object result = evaluate(event);
+        if (result instanceof Iterable<?> && !(result instanceof Collection<?>))
+        {
+            result = ((Iterable<?>) result).iterator();
+        }
+        if (result instanceof Iterator<?>)
+        {
+            return new LazySplitSequence((Iterator<?>) result, event);
+        }
+        return new CollectionMessageSequence(split(result, event));
+    }
+
     @Override
     protected List<MuleEvent> splitMessage(MuleEvent event)
     {
-        Object result = event.getMuleContext()
+        return split(evaluate(event), event);
+    }
+
+    private Object evaluate(MuleEvent event)
+    {
+        return event.getMuleContext()
             .getExpressionManager()
             .evaluate(config.getFullExpression(expressionManager), event);
+    }
+
+    private List<MuleEvent> split(Object result, MuleEvent event)
+    {
         if (result instanceof Object[])
         {
             result = Arrays.asList((Object[]) result);
@@ -113,6 +147,54 @@ public class ExpressionSplitter extends AbstractSplitter
         }
     }
 
+    /**
+     * Creates the event of each part as it is read from the evaluated {@link Iterator}.
+     */
+    private class LazySplitSequence extends AbstractMessageSequence<MuleEvent> implements Closeable
+    {
+
+        private final Iterator<?> iterator;
+        private final MuleEvent event;
+
+        LazySplitSequence(Iterator<?> iterator, MuleEvent event)
+        {
+            this.iterator = iterator;
+            this.event = event;
+        }
+
+        @Override
+        public int size()
+        {
+            return iterator instanceof MessageSequence<?> ? ((MessageSequence<?>) iterator).size() : UNKNOWN_SIZE;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public MuleEvent next()
+        {
+            Object part = iterator.next();
+            if (part instanceof MuleMessage)
+            {
+                return new DefaultMuleEvent((MuleMessage) part, event);
+            }
+            return new DefaultMuleEvent(new DefaultMuleMessage(part, muleContext), event);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (iterator instanceof Closeable)
+            {
+                IOUtils.closeQuietly((Closeable) iterator);
+            }
+        }
+    }
+
     public String getExpression()
     {
         return config.getExpression();
@@ -48,6 +48,9 @@ import org.w3c.dom.Document;
  * <p/>
  * Defining a groupSize greater than one, allows iterating over collections of elements of the specified size.
  * <p/>
+ * Defining a maxConcurrency greater than one, allows processing up to that number of elements at the same time
+ * (see {@link AbstractMessageSequenceSplitter#setMaxConcurrency(int)}).
+ * <p/>
  * The {@link MuleEvent} sent to the next message processor is the same that arrived to foreach.
  */
 public class Foreach extends AbstractMessageProcessorOwner implements Initialisable, MessageProcessor, NonBlockingSupported
@@ -66,6 +69,7 @@ public class Foreach extends AbstractMessageProcessorOwner implements Initialisa
     private String collectionExpression;
     private ExpressionConfig expressionConfig = new ExpressionConfig();
     private int batchSize;
+    private int maxConcurrency;
     private String rootMessageVariableName;
     private String counterVariableName;
     private boolean xpathCollection;
@@ -208,6 +212,7 @@ public class Foreach extends AbstractMessageProcessorOwner implements Initialisa
             splitter = new CollectionMapSplitter();
         }
         splitter.setBatchSize(batchSize);
+        splitter.setMaxConcurrency(maxConcurrency);
         splitter.setCounterVariableName(counterVariableName);
         splitter.setMuleContext(muleContext);
         messageProcessors.add(0, splitter);
@@ -243,6 +248,11 @@ public class Foreach extends AbstractMessageProcessorOwner implements Initialisa
         this.batchSize = batchSize;
     }
 
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        this.maxConcurrency = maxConcurrency;
+    }
+
     public void setRootMessageVariableName(String rootMessageVariableName)
     {
         this.rootMessageVariableName = rootMessageVariableName;
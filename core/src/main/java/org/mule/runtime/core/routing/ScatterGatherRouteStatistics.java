@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.routing;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a single route of a {@link ScatterGatherRouter}.
+ * <p/>
+ * The latency of a route is the time from the moment the router dispatched the event to all its routes
+ * until the router collected the result of that route, so it includes the time the route waited for a
+ * thread to run on. Only the routes that completed, either successfully or with an exception, are
+ * accounted for in the latency.
+ *
+ * @since 4.0
+ */
+public class ScatterGatherRouteStatistics
+{
+
+    private final LongAdder completions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Registers a completed execution of the route.
+     *
+     * @param latencyNanos the latency of the route
+     * @param failed whether the route finished with an exception
+     */
+    public void routeCompleted(long latencyNanos, boolean failed)
+    {
+        completions.increment();
+        if (failed)
+        {
+            failures.increment();
+        }
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public void routeTimedOut()
+    {
+        timeouts.increment();
+    }
+
+    public void routeCancelled()
+    {
+        cancellations.increment();
+    }
+
+    /**
+     * @return the number of executions of the route that completed, either successfully or with an exception
+     */
+    public long getCompletions()
+    {
+        return completions.sum();
+    }
+
+    /**
+     * @return the number of executions of the route that completed with an exception
+     */
+    public long getFailures()
+    {
+        return failures.sum();
+    }
+
+    /**
+     * @return the number of executions of the route that did not complete within the route timeout
+     */
+    public long getTimeouts()
+    {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return the number of executions of the route that were cancelled because the router did not need
+     *         their result anymore
+     */
+    public long getCancellations()
+    {
+        return cancellations.sum();
+    }
+
+    public long getAverageLatencyMillis()
+    {
+        long completed = getCompletions();
+        return completed == 0 ? 0 : NANOSECONDS.toMillis(totalLatencyNanos.sum() / completed);
+    }
+
+    public long getMaxLatencyMillis()
+    {
+        return NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ScatterGatherRouteStatistics{completions=%d, failures=%d, timeouts=%d, cancellations=%d, averageLatency=%dms, maxLatency=%dms}",
+                             getCompletions(), getFailures(), getTimeouts(), getCancellations(), getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+}
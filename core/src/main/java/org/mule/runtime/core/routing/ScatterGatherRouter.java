@@ -7,6 +7,8 @@
 
 package org.mule.runtime.core.routing;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import org.mule.runtime.core.DefaultMuleEvent;
 import org.mule.runtime.core.OptimizedRequestContext;
 import org.mule.runtime.core.api.DefaultMuleException;
@@ -39,8 +41,11 @@ import org.mule.runtime.core.work.ProcessingMuleEventWork;
 import org.mule.runtime.core.work.SerialWorkManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.resource.spi.work.WorkException;
 
@@ -76,6 +81,17 @@ import org.slf4j.LoggerFactory;
  * For advanced use cases, a custom {@link AggregationStrategy} can be applied to
  * customize the logic used to aggregate the route responses back into one single
  * element or to throw exception
+ * </p>
+ * <p>
+ * The results of the routes are collected in the order they complete, each route
+ * being bound by its own timeout (see {@link #setRouteTimeouts(List)}). Routes that
+ * time out are cancelled. When {@link #setMinSuccessfulRoutes(int)} is set, the
+ * router stops waiting as soon as that many routes succeeded, cancelling the rest,
+ * and the positions of the routes which did not succeed are left <code>null</code>
+ * in the events handed to the {@link AggregationStrategy}. Cancelled routes that
+ * already started are left to finish and their results are discarded, unless
+ * {@link #setInterruptCancelledRoutes(boolean)} is enabled.
+ * </p>
  * <p>
  * <b>EIP Reference:</b> <a
  * href="http://www.eaipatterns.com/BroadcastAggregate.html"<a/>
@@ -94,6 +110,30 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
      */
     private long timeout = 0;
 
+    /**
+     * Timeouts in milliseconds for each route, by position. Values lower or equal to
+     * zero, as well as missing ones, mean {@link #timeout} is applied
+     */
+    private List<Long> routeTimeouts;
+
+    /**
+     * Number of routes that have to succeed for the router to stop waiting for the
+     * rest. Zero means all the routes are waited for
+     */
+    private int minSuccessfulRoutes = 0;
+
+    /**
+     * Whether the threads running the routes that are cancelled are interrupted
+     */
+    private boolean interruptCancelledRoutes = false;
+
+    /**
+     * {@link #routeTimeouts} resolved for each route, in nanoseconds
+     */
+    private long[] routeTimeoutsNanos;
+
+    private List<ScatterGatherRouteStatistics> routeStatistics;
+
     /**
      * The routes that the message will be sent to
      */
@@ -135,8 +175,10 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
         MuleMessage message = event.getMessage();
         AbstractRoutingStrategy.validateMessageIsNotConsumable(event, message);
 
-        List<ProcessingMuleEventWork> works = executeWork(event);
-        MuleEvent response = processResponses(event, works);
+        BlockingQueue<ProcessingMuleEventWork> completedWorks = new LinkedBlockingQueue<>();
+        long startedAt = System.nanoTime();
+        List<ProcessingMuleEventWork> works = executeWork(event, completedWorks);
+        MuleEvent response = processResponses(event, works, completedWorks, startedAt);
 
         if (response instanceof DefaultMuleEvent)
         {
@@ -150,85 +192,213 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
         return response;
     }
 
-    private MuleEvent processResponses(MuleEvent event, List<ProcessingMuleEventWork> works)
+    private MuleEvent processResponses(MuleEvent event, List<ProcessingMuleEventWork> works,
+                                       BlockingQueue<ProcessingMuleEventWork> completedWorks, long startedAt)
         throws MuleException
     {
-        List<MuleEvent> responses = new ArrayList<MuleEvent>(works.size());
-
-        long remainingTimeout = timeout;
-        for (int routeIndex = 0; routeIndex < works.size(); routeIndex++)
+        final int routesCount = works.size();
+        MuleEvent[] responses = new MuleEvent[routesCount];
+        boolean[] collected = new boolean[routesCount];
+        int pending = routesCount;
+        int successful = 0;
+        int failed = 0;
+
+        while (pending > 0 && !isQuorumReached(successful) && !isQuorumUnreachable(failed))
         {
-            MuleEvent response = null;
-            Exception exception = null;
+            ProcessingMuleEventWork work = completedWorks.poll();
+            if (work == null)
+            {
+                long now = System.nanoTime();
+                long nextDeadline = Long.MAX_VALUE;
+                for (int routeIndex = 0; routeIndex < routesCount; routeIndex++)
+                {
+                    if (collected[routeIndex])
+                    {
+                        continue;
+                    }
+
+                    long remaining = routeTimeoutsNanos[routeIndex] - (now - startedAt);
+                    if (remaining <= 0)
+                    {
+                        works.get(routeIndex).cancel(interruptCancelledRoutes);
+                        routeStatistics.get(routeIndex).routeTimedOut();
+                        responses[routeIndex] = createFailedResponse(event, routeIndex, new ResponseTimeoutException(
+                                MessageFactory.createStaticMessage("Processing did not completed in time"), event, routes.get(routeIndex)));
+                        collected[routeIndex] = true;
+                        pending--;
+                        failed++;
+                    }
+                    else
+                    {
+                        nextDeadline = Math.min(nextDeadline, remaining);
+                    }
+                }
 
-            ProcessingMuleEventWork work = works.get(routeIndex);
-            MessageProcessor route = routes.get(routeIndex);
+                if (pending == 0 || isQuorumUnreachable(failed))
+                {
+                    break;
+                }
 
-            long startedAt = System.currentTimeMillis();
-            try
-            {
-                response = work.getResult(remainingTimeout, TimeUnit.MILLISECONDS);
+                try
+                {
+                    work = completedWorks.poll(nextDeadline, NANOSECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    cancelPending(works, collected);
+                    throw new DefaultMuleException(MessageFactory.createStaticMessage(String.format(
+                        "Was interrupted while waiting for %d routes", pending)), e);
+                }
+
+                if (work == null)
+                {
+                    continue;
+                }
             }
-            catch (ResponseTimeoutException e)
+
+            int routeIndex = indexOf(works, work);
+            if (collected[routeIndex])
             {
-                exception = e;
+                // already timed out
+                continue;
             }
-            catch (InterruptedException e)
+            collected[routeIndex] = true;
+            pending--;
+
+            responses[routeIndex] = collectResponse(event, routeIndex, work);
+            boolean routeFailed = isFailed(responses[routeIndex]);
+            routeStatistics.get(routeIndex).routeCompleted(System.nanoTime() - startedAt, routeFailed);
+            if (routeFailed)
             {
-                throw new DefaultMuleException(MessageFactory.createStaticMessage(String.format(
-                    "Was interrupted while waiting for route %d", routeIndex)), e);
+                failed++;
             }
-            catch (MessagingException e)
+            else
             {
-                exception = wrapInDispatchException(e.getEvent(), routeIndex, route, e);
+                successful++;
             }
-            catch (Exception e)
+        }
+
+        if (pending > 0)
+        {
+            if (logger.isDebugEnabled())
             {
-                exception = wrapInDispatchException(event, routeIndex, route, e);
+                logger.debug(String.format("cancelling %d routes for MuleEvent %s", pending, event.getId()));
             }
+            cancelPending(works, collected);
+        }
 
-            remainingTimeout -= System.currentTimeMillis() - startedAt;
+        if (isQuorumReached(successful))
+        {
+            discardFailedResponses(responses);
+        }
+
+        return aggregationStrategy.aggregate(new AggregationContext(event, Arrays.asList(responses)));
+    }
 
-            if (exception != null)
+    private MuleEvent collectResponse(MuleEvent event, int routeIndex, ProcessingMuleEventWork work)
+    {
+        MessageProcessor route = routes.get(routeIndex);
+        Exception exception;
+        try
+        {
+            MuleEvent response = work.getResult(0, MILLISECONDS);
+            if (logger.isDebugEnabled())
             {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug(
-                        String.format("route %d generated exception for MuleEvent %s", routeIndex,
-                            event.getId()), exception);
-                }
+                logger.debug(String.format("route %d executed successfully for event %s", routeIndex,
+                    event.getId()));
+            }
+            return response;
+        }
+        catch (MessagingException e)
+        {
+            exception = wrapInDispatchException(e.getEvent(), routeIndex, route, e);
+        }
+        catch (Exception e)
+        {
+            exception = wrapInDispatchException(event, routeIndex, route, e);
+        }
 
-                if (exception instanceof MessagingException)
-                {
-                    response = DefaultMuleEvent.copy(((MessagingException) exception).getEvent());
-                }
-                else
-                {
-                    response = DefaultMuleEvent.copy(event);
-                }
+        return createFailedResponse(event, routeIndex, exception);
+    }
 
-                if (response.getMessage().getExceptionPayload() == null)
-                {
-                    Exception finalException = exception;
-                    event.setMessage(event.getMessage().transform(msg -> {
-                        msg.setExceptionPayload(new DefaultExceptionPayload(finalException));
-                        return msg;
-                    }));
-                }
-            }
-            else
+    private MuleEvent createFailedResponse(MuleEvent event, int routeIndex, Exception exception)
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(
+                String.format("route %d generated exception for MuleEvent %s", routeIndex,
+                    event.getId()), exception);
+        }
+
+        MuleEvent response;
+        if (exception instanceof MessagingException)
+        {
+            response = DefaultMuleEvent.copy(((MessagingException) exception).getEvent());
+        }
+        else
+        {
+            response = DefaultMuleEvent.copy(event);
+        }
+
+        if (response.getMessage().getExceptionPayload() == null)
+        {
+            response.setMessage(response.getMessage().transform(msg -> {
+                msg.setExceptionPayload(new DefaultExceptionPayload(exception));
+                return msg;
+            }));
+        }
+
+        return response;
+    }
+
+    private boolean isQuorumReached(int successful)
+    {
+        return minSuccessfulRoutes > 0 && successful >= minSuccessfulRoutes;
+    }
+
+    private boolean isQuorumUnreachable(int failed)
+    {
+        return minSuccessfulRoutes > 0 && routes.size() - failed < minSuccessfulRoutes;
+    }
+
+    private void cancelPending(List<ProcessingMuleEventWork> works, boolean[] collected)
+    {
+        for (int routeIndex = 0; routeIndex < works.size(); routeIndex++)
+        {
+            if (!collected[routeIndex])
             {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug(String.format("route %d executed successfully for event %s", routeIndex,
-                        event.getId()));
-                }
+                works.get(routeIndex).cancel(interruptCancelledRoutes);
+                routeStatistics.get(routeIndex).routeCancelled();
             }
+        }
+    }
 
-            responses.add(response);
+    private void discardFailedResponses(MuleEvent[] responses)
+    {
+        for (int routeIndex = 0; routeIndex < responses.length; routeIndex++)
+        {
+            if (isFailed(responses[routeIndex]))
+            {
+                responses[routeIndex] = null;
+            }
         }
+    }
 
-        return aggregationStrategy.aggregate(new AggregationContext(event, responses));
+    private boolean isFailed(MuleEvent response)
+    {
+        return response != null && response.getMessage().getExceptionPayload() != null;
+    }
+
+    private int indexOf(List<ProcessingMuleEventWork> works, ProcessingMuleEventWork work)
+    {
+        for (int routeIndex = 0; routeIndex < works.size(); routeIndex++)
+        {
+            if (works.get(routeIndex) == work)
+            {
+                return routeIndex;
+            }
+        }
+        throw new IllegalStateException("Completed work does not belong to this router");
     }
 
     private Exception wrapInDispatchException(MuleEvent event, int routeIndex, MessageProcessor route, Exception e)
@@ -237,20 +407,25 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
                 "route number %d failed to be executed", routeIndex)), event, route, e);
     }
 
-    private List<ProcessingMuleEventWork> executeWork(MuleEvent event) throws MuleException
+    private List<ProcessingMuleEventWork> executeWork(MuleEvent event, BlockingQueue<ProcessingMuleEventWork> completedWorks)
+        throws MuleException
     {
         List<ProcessingMuleEventWork> works = new ArrayList<ProcessingMuleEventWork>(routes.size());
         try
         {
             for (final MessageProcessor route : routes)
             {
-                ProcessingMuleEventWork work = new ProcessingMuleEventWork(route, event);
-                workManager.scheduleWork(work);
+                ProcessingMuleEventWork work = new ProcessingMuleEventWork(route, event, completedWorks);
                 works.add(work);
+                workManager.scheduleWork(work);
             }
         }
         catch (WorkException e)
         {
+            for (ProcessingMuleEventWork work : works)
+            {
+                work.cancel();
+            }
             throw new DefaultMuleException(
                 MessageFactory.createStaticMessage("Could not schedule work for route"), e);
         }
@@ -280,6 +455,19 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
                 timeout = Long.MAX_VALUE;
             }
 
+            Preconditions.checkState(minSuccessfulRoutes <= routes.size(),
+                "minSuccessfulRoutes cannot be greater than the number of routes");
+            routeTimeoutsNanos = new long[routes.size()];
+            List<ScatterGatherRouteStatistics> statistics = new ArrayList<>(routes.size());
+            for (int routeIndex = 0; routeIndex < routes.size(); routeIndex++)
+            {
+                long routeTimeout = routeTimeouts != null && routeIndex < routeTimeouts.size() && routeTimeouts.get(routeIndex) != null
+                                    && routeTimeouts.get(routeIndex) > 0 ? routeTimeouts.get(routeIndex) : timeout;
+                routeTimeoutsNanos[routeIndex] = MILLISECONDS.toNanos(routeTimeout);
+                statistics.add(new ScatterGatherRouteStatistics());
+            }
+            routeStatistics = Collections.unmodifiableList(statistics);
+
             if (threadingProfile.isDoThreading())
             {
                 workManager = threadingProfile.createWorkManager(
@@ -395,8 +583,47 @@ public class ScatterGatherRouter extends AbstractMessageProcessorOwner implement
         this.timeout = timeout;
     }
 
+    /**
+     * Sets a timeout in milliseconds for each route, by position. Routes without
+     * a positive timeout use the one set with {@link #setTimeout(long)}
+     */
+    public void setRouteTimeouts(List<Long> routeTimeouts)
+    {
+        this.routeTimeouts = routeTimeouts;
+    }
+
+    /**
+     * Sets the number of routes that have to succeed for the router to stop waiting
+     * for the remaining ones. Values lower or equal to zero mean all the routes are
+     * waited for
+     */
+    public void setMinSuccessfulRoutes(int minSuccessfulRoutes)
+    {
+        this.minSuccessfulRoutes = minSuccessfulRoutes;
+    }
+
+    /**
+     * Sets whether the threads running the routes that time out or are no longer
+     * waited for are interrupted. Routes run on pooled threads, so this should only
+     * be enabled when all of them handle interruption. Defaults to <code>false</code>,
+     * in which case those routes are left to finish and their results are discarded
+     */
+    public void setInterruptCancelledRoutes(boolean interruptCancelledRoutes)
+    {
+        this.interruptCancelledRoutes = interruptCancelledRoutes;
+    }
+
     public void setRoutes(List<MessageProcessor> routes)
     {
         this.routes = routes;
     }
+
+    /**
+     * @return the statistics of each route, by position. Only available once this
+     *         router is initialised
+     */
+    public List<ScatterGatherRouteStatistics> getRouteStatistics()
+    {
+        return routeStatistics;
+    }
 }
@@ -34,19 +34,53 @@ import org.mule.runtime.core.util.concurrent.ThreadNameHelper;
 import org.mule.runtime.core.util.monitor.Expirable;
 import org.mule.runtime.core.util.monitor.ExpiryMonitor;
 import org.mule.runtime.core.util.store.DeserializationPostInitialisable;
+import org.mule.runtime.core.util.timer.HierarchicalTimingWheel;
+import org.mule.runtime.core.util.timer.HierarchicalTimingWheel.Timeout;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Correlates events in {@link EventGroup}s, handing each group to the {@link EventCorrelatorCallback} to be
+ * aggregated once it is complete, or expiring it once its timeout is reached.
+ * <p/>
+ * Groups are partitioned in shards by the hash of their correlation id. Each shard has its own lock, so
+ * events of different groups are only serialised when their groups fall in the same shard. The number of
+ * shards can be set with the {@value #SHARDS_PROPERTY_KEY} system property.
+ * <p/>
+ * The expiration of each group is scheduled in a {@link HierarchicalTimingWheel} of its shard when the group
+ * is created and cancelled when it is removed, so finding the expired groups doesn't require visiting all
+ * of them. Groups that were not created by this correlator, like the ones in a persistent store when the
+ * application starts or the ones created by other nodes of a cluster, are found by scanning the store
+ * periodically, every minute unless set with the {@value #RECONCILIATION_INTERVAL_PROPERTY_KEY} system
+ * property.
+ */
 public class EventCorrelator implements Startable, Stoppable, Disposable
 {
 
+    /**
+     * System property to set the number of shards the groups are partitioned in, rounded up to a power of 2.
+     */
+    public static final String SHARDS_PROPERTY_KEY = "mule.correlator.shards";
+
+    /**
+     * System property to set the milliseconds between the scans of the store looking for groups whose
+     * expiration is not scheduled yet.
+     */
+    public static final String RECONCILIATION_INTERVAL_PROPERTY_KEY = "mule.correlator.reconciliationInterval";
+
+    private static final int DEFAULT_SHARDS = 16;
+    private static final long DEFAULT_RECONCILIATION_INTERVAL_MILLIS = 60 * 1000;
+    private static final long EXPIRY_RETRY_DELAY_MILLIS = 1000;
+
     /**
      * logger used by this class
      */
@@ -58,9 +92,11 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     protected long groupTimeToLive = ONE_DAY_IN_MILLI;
 
-    protected final Object groupsLock = new Object();
+    private final GroupShard[] shards;
+    private final long reconciliationIntervalMillis = Long.getLong(RECONCILIATION_INTERVAL_PROPERTY_KEY,
+                                                                   DEFAULT_RECONCILIATION_INTERVAL_MILLIS);
 
-    // @GuardedBy groupsLock
+    // @GuardedBy the lock of the shard of each group
     protected ObjectStore<Long> processedGroups = null;
 
     private long timeout = -1; // undefined
@@ -120,6 +156,14 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         this.correlatorStore = correlatorStore;
         this.storePrefix = storePrefix;
         this.processedGroups = processedGroups;
+
+        int shardCount = Integer.highestOneBit(Math.max(1, Integer.getInteger(SHARDS_PROPERTY_KEY, DEFAULT_SHARDS)) * 2 - 1);
+        this.shards = new GroupShard[shardCount];
+        long now = System.nanoTime();
+        for (int i = 0; i < shardCount; i++)
+        {
+            shards[i] = new GroupShard(now);
+        }
     }
 
     public void forceGroupExpiry(String groupId) throws MessagingException
@@ -219,7 +263,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             }
 
             // ensure that only one thread at a time evaluates this EventGroup
-            synchronized (groupsLock)
+            synchronized (getShard(groupId).lock)
             {
                 if (logger.isDebugEnabled())
                 {
@@ -304,6 +348,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         try
         {
             correlatorStore.store((Serializable) group.getGroupId(), group, getEventGroupsPartitionKey());
+            scheduleExpiry((Serializable) group.getGroupId(), group.getCreated());
             return group;
         }
         catch (ObjectAlreadyExistsException e)
@@ -315,7 +360,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
     protected void removeEventGroup(EventGroup group) throws ObjectStoreException
     {
         final Object groupId = group.getGroupId();
-        synchronized (groupsLock)
+        synchronized (getShard(groupId).lock)
         {
             if (!isGroupAlreadyProcessed(groupId))
             {
@@ -323,11 +368,12 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 addProcessedGroup(groupId);
             }
         }
+        cancelExpiry((Serializable) groupId);
     }
 
     protected void addProcessedGroup(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
+        synchronized (getShard(id).lock)
         {
             processedGroups.store((Serializable) id, System.currentTimeMillis());
         }
@@ -335,12 +381,73 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     protected boolean isGroupAlreadyProcessed(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
+        synchronized (getShard(id).lock)
         {
             return processedGroups.contains((Serializable) id);
         }
     }
 
+    private GroupShard getShard(Object groupId)
+    {
+        int hash = groupId.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    /**
+     * Schedules the expiration of a group, unless it is already scheduled or groups never expire.
+     */
+    private void scheduleExpiry(Serializable groupId, long createdMillis)
+    {
+        if (timeout == 0)
+        {
+            return;
+        }
+        scheduleExpiryAt(groupId, System.nanoTime()
+                                  + TimeUnit.MILLISECONDS.toNanos(createdMillis + timeout - System.currentTimeMillis()));
+    }
+
+    /**
+     * Schedules the expiration of a group again after it failed, so it doesn't wait for the next scan of the store.
+     */
+    private void retryExpiry(Serializable groupId)
+    {
+        scheduleExpiryAt(groupId, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXPIRY_RETRY_DELAY_MILLIS));
+    }
+
+    private void scheduleExpiryAt(Serializable groupId, long deadlineNanos)
+    {
+        GroupShard shard = getShard(groupId);
+        synchronized (shard.expirations)
+        {
+            if (!shard.scheduledExpirations.containsKey(groupId))
+            {
+                shard.scheduledExpirations.put(groupId, shard.expirations.schedule(groupId, deadlineNanos));
+            }
+        }
+    }
+
+    private void cancelExpiry(Serializable groupId)
+    {
+        GroupShard shard = getShard(groupId);
+        synchronized (shard.expirations)
+        {
+            Timeout<Serializable> expiration = shard.scheduledExpirations.remove(groupId);
+            if (expiration != null)
+            {
+                shard.expirations.cancel(expiration);
+            }
+        }
+    }
+
+    private boolean isExpiryScheduled(Serializable groupId)
+    {
+        GroupShard shard = getShard(groupId);
+        synchronized (shard.expirations)
+        {
+            return shard.scheduledExpirations.containsKey(groupId);
+        }
+    }
+
     public boolean isFailOnTimeout()
     {
         return failOnTimeout;
@@ -470,6 +577,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
         private ExpiryMonitor expiryMonitor;
         public static final long DELAY_TIME = 10;
+        private long lastReconciliation = Long.MIN_VALUE;
 
         public ExpiringGroupMonitoringThread()
         {
@@ -518,22 +626,58 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 return;
             }
 
-            List<EventGroup> expired = new ArrayList<EventGroup>(1);
-            try
+            long now = System.currentTimeMillis();
+            if (lastReconciliation == Long.MIN_VALUE || now - lastReconciliation >= reconciliationIntervalMillis)
+            {
+                lastReconciliation = now;
+                scheduleUntrackedGroups();
+            }
+
+            List<Serializable> expiredIds = new ArrayList<>();
+            long nowNanos = System.nanoTime();
+            for (GroupShard shard : shards)
             {
-                for (Serializable o : (List<Serializable>) correlatorStore.allKeys(getEventGroupsPartitionKey()))
+                synchronized (shard.expirations)
                 {
-                    EventGroup group = getEventGroup(o);
-                    // group may have been removed by another thread right after eventGroups.allKeys()
-                    if (group != null && group.getCreated() + getTimeout() < System.currentTimeMillis())
-                    {
-                        expired.add(group);
-                    }
+                    shard.expirations.advance(nowNanos, groupId -> {
+                        shard.scheduledExpirations.remove(groupId);
+                        expiredIds.add(groupId);
+                    });
                 }
             }
-            catch (ObjectStoreException e)
+            if (expiredIds.isEmpty())
             {
-                logger.warn("expiry failed dues to ObjectStoreException " + e);
+                return;
+            }
+
+            List<EventGroup> expired = new ArrayList<EventGroup>(expiredIds.size());
+            for (Serializable groupId : expiredIds)
+            {
+                EventGroup group;
+                try
+                {
+                    group = getEventGroup(groupId);
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.warn("expiry failed dues to ObjectStoreException " + e);
+                    retryExpiry(groupId);
+                    continue;
+                }
+                // group may have been removed by another thread after it expired
+                if (group == null)
+                {
+                    continue;
+                }
+                if (group.getCreated() + getTimeout() < System.currentTimeMillis())
+                {
+                    expired.add(group);
+                }
+                else
+                {
+                    // the wheel may expire a group slightly before its deadline in milliseconds
+                    scheduleExpiry(groupId, group.getCreated());
+                }
             }
             for (final EventGroup group : expired)
             {
@@ -553,12 +697,58 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 catch (MessagingException e)
                 {
                     // Already handled by TransactionTemplate
+                    retryExpiryIfStored((Serializable) group.getGroupId());
                 }
                 catch (Exception e)
                 {
                     muleContext.getExceptionListener().handleException(e);
+                    retryExpiryIfStored((Serializable) group.getGroupId());
+                }
+            }
+        }
+
+        /**
+         * Retries the expiration of a group that failed before it could be removed from the store.
+         */
+        private void retryExpiryIfStored(Serializable groupId)
+        {
+            try
+            {
+                if (!correlatorStore.contains(groupId, getEventGroupsPartitionKey()))
+                {
+                    return;
+                }
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Could not check whether the expired group " + groupId + " is still stored due to ObjectStoreException " + e);
+            }
+            retryExpiry(groupId);
+        }
+
+        /**
+         * Schedules the expiration of the groups in the store that are not tracked yet.
+         */
+        private void scheduleUntrackedGroups()
+        {
+            try
+            {
+                for (Serializable groupId : (List<Serializable>) correlatorStore.allKeys(getEventGroupsPartitionKey()))
+                {
+                    if (!isExpiryScheduled(groupId))
+                    {
+                        EventGroup group = getEventGroup(groupId);
+                        if (group != null)
+                        {
+                            scheduleExpiry(groupId, group.getCreated());
+                        }
+                    }
                 }
             }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Scheduling the expiration of stored groups failed due to ObjectStoreException " + e);
+            }
         }
 
         @Override
@@ -571,6 +761,24 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         }
     }
 
+    /**
+     * Partition of the correlation groups. Groups are processed under the shard lock while their expiration
+     * is guarded by the wheel, so the expiry thread doesn't wait for groups being aggregated.
+     */
+    private static final class GroupShard
+    {
+
+        private final Object lock = new Object();
+        private final HierarchicalTimingWheel<Serializable> expirations;
+        // @GuardedBy expirations
+        private final Map<Serializable, Timeout<Serializable>> scheduledExpirations = new HashMap<>();
+
+        private GroupShard(long startNanos)
+        {
+            expirations = new HierarchicalTimingWheel<>(ExpiringGroupMonitoringThread.DELAY_TIME, TimeUnit.MILLISECONDS, startNanos);
+        }
+    }
+
     protected String getExpiredAndDispatchedPartitionKey()
     {
         return storePrefix + ".expiredAndDispatchedGroups";
@@ -6,10 +6,12 @@
  */
 package org.mule.runtime.core.routing.outbound;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import org.mule.runtime.core.DefaultMuleEvent;
 import org.mule.runtime.core.DefaultMuleMessage;
 import org.mule.runtime.core.RequestContext;
 import org.mule.runtime.core.VoidMuleEvent;
+import org.mule.runtime.core.api.MessagingException;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.MuleEvent;
 import org.mule.runtime.core.api.MuleException;
@@ -17,20 +19,33 @@ import org.mule.runtime.core.api.MuleMessage;
 import org.mule.runtime.core.api.context.MuleContextAware;
 import org.mule.runtime.core.api.routing.MessageInfoMapping;
 import org.mule.runtime.core.api.routing.RouterResultsHandler;
+import org.mule.runtime.core.config.i18n.MessageFactory;
 import org.mule.runtime.core.processor.AbstractInterceptingMessageProcessor;
 import org.mule.runtime.core.routing.AbstractSplitter;
+import org.mule.runtime.core.routing.CompositeRoutingException;
 import org.mule.runtime.core.routing.CorrelationMode;
 import org.mule.runtime.core.routing.DefaultRouterResultsHandler;
 import org.mule.runtime.core.routing.MessageSequence;
+import org.mule.runtime.core.util.IOUtils;
+import org.mule.runtime.core.work.ProcessingMuleEventWork;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.resource.spi.work.WorkException;
 
 /**
  * Base implementation of a {@link MuleMessage} splitter, that converts its payload 
  * in a {@link MessageSequence}, and process each element of it.     
  * Implementations must implement {@link #splitMessageIntoSequence(MuleEvent)} and determine how 
- * the message is split.
+ * the message is split. Sequences that are {@link Closeable} are closed once the split is processed.
  * <p>
  * <b>EIP Reference:</b> <a
  * href="http://www.eaipatterns.com/Sequencer.html">http://www
@@ -48,6 +63,8 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
     protected MessageInfoMapping messageInfoMapping;
     protected int batchSize;
     protected String counterVariableName;
+    protected int maxConcurrency = 1;
+    protected boolean preserveOrder = true;
 
     @Override
     public final MuleEvent process(MuleEvent event) throws MuleException
@@ -55,22 +72,32 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
         if (isSplitRequired(event))
         {
             MessageSequence<?> seq = splitMessageIntoSequence(event);
-            if (!seq.isEmpty())
+            try
             {
-                MuleEvent aggregatedResults = resultsHandler.aggregateResults(processParts(seq, event), event, muleContext);
-                if (aggregatedResults instanceof VoidMuleEvent)
+                if (!seq.isEmpty())
                 {
-                    return null;
+                    MuleEvent aggregatedResults = resultsHandler.aggregateResults(processParts(seq, event), event, muleContext);
+                    if (aggregatedResults instanceof VoidMuleEvent)
+                    {
+                        return null;
+                    }
+                    else
+                    {
+                        return aggregatedResults;
+                    }
                 }
                 else
                 {
-                    return aggregatedResults;
+                    logger.warn("Splitter returned no results. If this is not expected, please check your split expression");
+                    return VoidMuleEvent.getInstance();
                 }
             }
-            else
+            finally
             {
-                logger.warn("Splitter returned no results. If this is not expected, please check your split expression");
-                return VoidMuleEvent.getInstance();
+                if (seq instanceof Closeable)
+                {
+                    IOUtils.closeQuietly((Closeable) seq);
+                }
             }
         }
         else
@@ -109,48 +136,150 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
             messageSequence = new PartitionedMessageSequence(seq, batchSize);
         }
         int count = messageSequence.size();
-        for (; messageSequence.hasNext();)
+        if (maxConcurrency > 1)
         {
-            MuleEvent event = createEvent(messageSequence.next(), originalEvent);
+            return processPartsConcurrently(messageSequence, originalEvent, correlationId, count);
+        }
 
+        for (; messageSequence.hasNext();)
+        {
             correlationSequence++;
-            if (counterVariableName != null)
+            MuleEvent event = createPartEvent(messageSequence.next(), originalEvent, correlationId, count, correlationSequence);
+
+            MuleEvent resultEvent = processNext(RequestContext.setEvent(event));
+            if (resultEvent != null && !VoidMuleEvent.getInstance().equals(resultEvent))
             {
-                originalEvent.setFlowVariable(counterVariableName, correlationSequence);
+                resultEvents.add(resultEvent);
             }
+        }
+        if (correlationSequence == 1)
+        {
+            logger.debug("Splitter only returned a single result. If this is not expected, please check your split expression");
+        }
+        return resultEvents;
+    }
 
-            int finalCorrelationSequence = correlationSequence;
-            event.setMessage(event.getMessage().transform(msg -> {
-                if (enableCorrelation != CorrelationMode.NEVER)
+    private List<MuleEvent> processPartsConcurrently(MessageSequence<?> messageSequence, MuleEvent originalEvent,
+                                                     String correlationId, int count) throws MuleException
+    {
+        BlockingQueue<ProcessingMuleEventWork> completedWorks = new LinkedBlockingQueue<>();
+        Map<ProcessingMuleEventWork, Integer> workSequences = new IdentityHashMap<>();
+        NavigableMap<Integer, MuleEvent> orderedResults = new TreeMap<>();
+        List<MuleEvent> resultEvents = new ArrayList<>();
+        NavigableMap<Integer, Throwable> failures = new TreeMap<>();
+        int correlationSequence = 0;
+        int inFlight = 0;
+
+        try
+        {
+            for (; messageSequence.hasNext();)
+            {
+                if (inFlight == maxConcurrency)
                 {
-                    boolean correlationSet = event.getMessage().getCorrelationId() != null;
-                    if ((!correlationSet && (enableCorrelation == CorrelationMode.IF_NOT_SET))
-                        || (enableCorrelation == CorrelationMode.ALWAYS))
-                    {
-                        msg.setCorrelationId(correlationId);
-                    }
+                    collectPart(completedWorks.take(), workSequences, preserveOrder ? orderedResults : null, resultEvents, failures);
+                    inFlight--;
+                }
 
-                    // take correlation group size from the message properties, set by
-                    // concrete
-                    // message splitter implementations
-                    msg.setCorrelationGroupSize(count);
-                    msg.setCorrelationSequence(finalCorrelationSequence);
+                correlationSequence++;
+                MuleEvent event = createPartEvent(messageSequence.next(), originalEvent, correlationId, count, correlationSequence);
+                ProcessingMuleEventWork work = new ProcessingMuleEventWork(this::processNext, event, completedWorks);
+                workSequences.put(work, correlationSequence);
+                try
+                {
+                    muleContext.getWorkManager().scheduleWork(work);
                 }
-                msg.propagateRootId(originalEvent.getMessage());
-                return msg;
-            }));
+                catch (WorkException e)
+                {
+                    workSequences.remove(work);
+                    failures.put(correlationSequence - 1, e);
+                    continue;
+                }
+                inFlight++;
+            }
 
-            MuleEvent resultEvent = processNext(RequestContext.setEvent(event));
+            for (; inFlight > 0; inFlight--)
+            {
+                collectPart(completedWorks.take(), workSequences, preserveOrder ? orderedResults : null, resultEvents, failures);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            for (ProcessingMuleEventWork work : workSequences.keySet())
+            {
+                work.cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new MessagingException(MessageFactory.createStaticMessage(String.format(
+                    "Was interrupted while waiting for %d parts", inFlight)), originalEvent, e, this);
+        }
+
+        if (!failures.isEmpty())
+        {
+            throw new CompositeRoutingException(originalEvent, failures);
+        }
+        return preserveOrder ? new ArrayList<>(orderedResults.values()) : resultEvents;
+    }
+
+    private void collectPart(ProcessingMuleEventWork work, Map<ProcessingMuleEventWork, Integer> workSequences,
+                             NavigableMap<Integer, MuleEvent> orderedResults, List<MuleEvent> resultEvents,
+                             NavigableMap<Integer, Throwable> failures)
+    {
+        int sequence = workSequences.remove(work);
+        try
+        {
+            MuleEvent resultEvent = work.getResult(0, MILLISECONDS);
             if (resultEvent != null && !VoidMuleEvent.getInstance().equals(resultEvent))
             {
-                resultEvents.add(resultEvent);
+                if (orderedResults != null)
+                {
+                    orderedResults.put(sequence, resultEvent);
+                }
+                else
+                {
+                    resultEvents.add(resultEvent);
+                }
             }
         }
-        if (correlationSequence == 1)
+        catch (Exception e)
         {
-            logger.debug("Splitter only returned a single result. If this is not expected, please check your split expression");
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(String.format("part %d generated exception for MuleEvent %s", sequence, work.getEvent().getId()), e);
+            }
+            failures.put(sequence - 1, e);
         }
-        return resultEvents;
+    }
+
+    private MuleEvent createPartEvent(Object part, MuleEvent originalEvent, String correlationId, int count,
+                                      int correlationSequence)
+    {
+        MuleEvent event = createEvent(part, originalEvent);
+
+        if (counterVariableName != null)
+        {
+            originalEvent.setFlowVariable(counterVariableName, correlationSequence);
+        }
+
+        event.setMessage(event.getMessage().transform(msg -> {
+            if (enableCorrelation != CorrelationMode.NEVER)
+            {
+                boolean correlationSet = event.getMessage().getCorrelationId() != null;
+                if ((!correlationSet && (enableCorrelation == CorrelationMode.IF_NOT_SET))
+                    || (enableCorrelation == CorrelationMode.ALWAYS))
+                {
+                    msg.setCorrelationId(correlationId);
+                }
+
+                // take correlation group size from the message properties, set by
+                // concrete
+                // message splitter implementations
+                msg.setCorrelationGroupSize(count);
+                msg.setCorrelationSequence(correlationSequence);
+            }
+            msg.propagateRootId(originalEvent.getMessage());
+            return msg;
+        }));
+        return event;
     }
 
     private MuleEvent createEvent(Object payload, MuleEvent originalEvent)
@@ -198,4 +327,22 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
     {
         this.counterVariableName = counterVariableName;
     }
+
+    /**
+     * Maximum number of parts processed at the same time. Values lower or equal to one
+     * mean the parts are processed sequentially in the calling thread
+     */
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Whether the results of parts processed concurrently are returned in the order of
+     * the sequence or in the order they completed. Defaults to <code>true</code>
+     */
+    public void setPreserveOrder(boolean preserveOrder)
+    {
+        this.preserveOrder = preserveOrder;
+    }
 }
@@ -36,6 +36,10 @@ public class PartitionedMessageSequence<Q> implements MessageSequence<Collection
     @Override
     public int size()
     {
+        if (delegate.size() == UNKNOWN_SIZE)
+        {
+            return UNKNOWN_SIZE;
+        }
         return (delegate.size() / groupSize) + ((delegate.size() % groupSize) > 0 ? 1 : 0);
     }
 
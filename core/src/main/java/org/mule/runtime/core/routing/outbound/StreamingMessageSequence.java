@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.routing.outbound;
+
+import org.mule.runtime.core.api.MuleRuntimeException;
+import org.mule.runtime.core.config.i18n.MessageFactory;
+import org.mule.runtime.core.routing.AbstractMessageSequence;
+import org.mule.runtime.core.routing.MessageSequence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link MessageSequence} that reads its elements one at a time from a source, such
+ * as a stream, that is only read as the sequence is consumed. Its size is unknown.
+ * <p/>
+ * The source is closed once the last element is read, or when the sequence is
+ * {@link #close() closed} before that.
+ *
+ * @param <T> the type of the elements
+ * @since 4.0
+ */
+public abstract class StreamingMessageSequence<T> extends AbstractMessageSequence<T> implements Closeable
+{
+
+    private T nextElement;
+    private boolean finished;
+
+    @Override
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (nextElement == null && !finished)
+        {
+            try
+            {
+                nextElement = readNext();
+            }
+            catch (Exception e)
+            {
+                closeQuietly();
+                throw new MuleRuntimeException(MessageFactory.createStaticMessage("Could not read the next element of the sequence"), e);
+            }
+
+            if (nextElement == null)
+            {
+                closeQuietly();
+            }
+        }
+        return nextElement != null;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        T element = nextElement;
+        nextElement = null;
+        return element;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!finished)
+        {
+            finished = true;
+            nextElement = null;
+            closeSource();
+        }
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            close();
+        }
+        catch (IOException e)
+        {
+            // the source is not needed anymore
+        }
+    }
+
+    /**
+     * @return the next element read from the source, or <code>null</code> if there are no more
+     * @throws Exception if the source could not be read
+     */
+    protected abstract T readNext() throws Exception;
+
+    /**
+     * Releases the source this sequence reads from.
+     */
+    protected abstract void closeSource() throws IOException;
+}
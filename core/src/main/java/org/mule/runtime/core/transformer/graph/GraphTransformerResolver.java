@@ -12,6 +12,7 @@ import org.mule.runtime.core.api.transformer.Converter;
 import org.mule.runtime.api.metadata.DataType;
 import org.mule.runtime.core.api.transformer.Transformer;
 import org.mule.runtime.core.config.i18n.CoreMessages;
+import org.mule.runtime.core.registry.DataTypePair;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -39,7 +40,7 @@ public class GraphTransformerResolver implements TransformerResolver
     @Override
     public Transformer resolve(DataType<?> source, DataType<?> result) throws ResolverException
     {
-        String cacheKey = getDataTypeSourceResultPairHash(source, result);
+        DataTypePair cacheKey = new DataTypePair(source, result);
 
         readWriteLock.readLock().lock();
         try
@@ -77,18 +78,6 @@ public class GraphTransformerResolver implements TransformerResolver
         return converter;
     }
 
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        StringBuilder builder = new StringBuilder();
-        builder.append(source.getClass().getName());
-        builder.append(source.hashCode());
-        builder.append(":");
-        builder.append(result.getClass().getName());
-        builder.append(result.hashCode());
-
-        return builder.toString();
-    }
-
     @Override
     public void transformerChange(Transformer transformer, RegistryAction registryAction)
     {
@@ -8,10 +8,12 @@ package org.mule.runtime.core.util;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractCollection;
 import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -21,6 +23,8 @@ import java.util.Set;
 /**
  * Implementation of {@link Map} that provides copy on write semantics while providing the case-insensitivity
  * of {@link CaseInsensitiveHashMap}. <br>
+ * The entries are kept in a {@link PersistentCaseInsensitiveMap}, so copying this map with {@link #clone()}
+ * takes constant time and writes only copy the path to the updated entry instead of the whole map.<br>
  * <b>Note:</b> In this {@link Map} implementation {@link #values()} and {@link #entrySet()} return
  * unmodifiable {@link Collection}'s.<br>
  * This implementation is not thread-safe.
@@ -30,110 +34,115 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
 
     private static final long serialVersionUID = -2753436627413265538L;
 
-    private Map<K, V> core;
-    private transient Map<K, V> view;
-    private transient boolean requiresCopy;
+    /**
+     * The map is serialized as a {@link CaseInsensitiveHashMap} in the {@code core} field, as it was before
+     * using a {@link PersistentCaseInsensitiveMap}.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {new ObjectStreamField("core", Map.class)};
+
+    private transient PersistentCaseInsensitiveMap<K, V> entries;
     private transient Set<K> keyset = new KeySet();
 
-    @SuppressWarnings("unchecked")
     public CopyOnWriteCaseInsensitiveMap()
     {
-        updateCore(new CaseInsensitiveHashMap());
+        entries = PersistentCaseInsensitiveMap.empty();
     }
 
+    @SuppressWarnings("unchecked")
     public CopyOnWriteCaseInsensitiveMap(Map<K, V> that)
     {
         if (that instanceof CopyOnWriteCaseInsensitiveMap)
         {
-            updateCore(((CopyOnWriteCaseInsensitiveMap) that).core);
+            entries = ((CopyOnWriteCaseInsensitiveMap) that).entries;
         }
         else
         {
-            updateCore(that);
+            entries = PersistentCaseInsensitiveMap.empty();
+            putAll(that);
         }
-        this.requiresCopy = true;
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public CopyOnWriteCaseInsensitiveMap<K, V> clone()
     {
-        try
-        {
-            return new CopyOnWriteCaseInsensitiveMap(this);
-        }
-        finally
-        {
-            requiresCopy = true;
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private void copy()
-    {
-        if (requiresCopy)
-        {
-            updateCore(new CaseInsensitiveHashMap(core));
-            requiresCopy = false;
-        }
+        return new CopyOnWriteCaseInsensitiveMap<>(this);
     }
 
     @Override
     public int size()
     {
-        return core.size();
+        return entries.size();
     }
 
     @Override
     public boolean isEmpty()
     {
-        return core.isEmpty();
+        return entries.isEmpty();
     }
 
     @Override
     public boolean containsKey(Object key)
     {
-        return core.containsKey(key);
+        return entries.containsKey(key);
     }
 
     @Override
     public boolean containsValue(Object value)
     {
-        return core.containsValue(value);
+        for (Entry<K, V> entry : entries)
+        {
+            if (value == null ? entry.getValue() == null : value.equals(entry.getValue()))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public V get(Object key)
     {
-        return core.get(key);
+        return entries.get(key);
     }
 
     @Override
     public V put(K key, V value)
     {
-        copy();
-        return core.put(key, value);
+        V previous = entries.get(key);
+        entries = entries.plus(key, value);
+        return previous;
     }
 
     @Override
     public V remove(Object key)
     {
-        copy();
-        return core.remove(key);
+        V previous = entries.get(key);
+        entries = entries.minus(key);
+        return previous;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public void putAll(Map<? extends K, ? extends V> t)
     {
-        copy();
-        core.putAll(t);
+        if (entries.isEmpty() && t instanceof CopyOnWriteCaseInsensitiveMap)
+        {
+            entries = ((CopyOnWriteCaseInsensitiveMap<K, V>) t).entries;
+            return;
+        }
+
+        PersistentCaseInsensitiveMap<K, V> updated = entries;
+        for (Entry<? extends K, ? extends V> entry : t.entrySet())
+        {
+            updated = updated.plus(entry.getKey(), entry.getValue());
+        }
+        entries = updated;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void clear()
     {
-        updateCore(new CaseInsensitiveHashMap());
+        entries = PersistentCaseInsensitiveMap.empty();
     }
 
     public Set<K> keySet()
@@ -156,7 +165,12 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
      */
     public Map<K, V> asHashMap()
     {
-        return new HashMap<>(view);
+        Map<K, V> map = new HashMap<>();
+        for (Entry<K, V> entry : entries)
+        {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
     }
 
     private final class KeySet extends AbstractSet<K>
@@ -187,84 +201,131 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
         }
     }
 
+    /**
+     * Iterates the keys of the entries the map had when the iterator was created, so removing keys while
+     * iterating doesn't affect the iteration.
+     */
     private final class KeyIterator implements Iterator<K>
     {
-        private int current = -1;
-        private int lastRemovalIndex = current;
-        private K[] keyArray;
-
-        @SuppressWarnings("unchecked")
-        public KeyIterator()
-        {
-            keyArray = (K[]) core.keySet().toArray();
-        }
+        private final Iterator<Entry<K, V>> snapshot = entries.iterator();
+        private K current;
+        private boolean started;
+        private boolean removable;
 
         public boolean hasNext()
         {
-            return current < keyArray.length -1;
+            return snapshot.hasNext();
         }
 
         public K next()
         {
-            try
-            {
-                return keyArray[++current];
-            }
-            catch (ArrayIndexOutOfBoundsException e)
-            {
-                throw new NoSuchElementException();
-            }
+            current = snapshot.next().getKey();
+            started = true;
+            removable = true;
+            return current;
         }
 
         public void remove()
         {
-            if (current == -1)
+            if (!started)
             {
                 throw new IllegalStateException("Cannot remove element before first invoking next()");
             }
 
-            if (current == lastRemovalIndex)
+            if (!removable)
             {
                 throw new IllegalStateException("Remove can only be called once per call to next()");
             }
 
-            CopyOnWriteCaseInsensitiveMap.this.remove(keyArray[current]);
-            lastRemovalIndex = current;
+            CopyOnWriteCaseInsensitiveMap.this.remove(current);
+            removable = false;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>>
+    {
+        @Override
+        public Iterator<Entry<K, V>> iterator()
+        {
+            return entries.iterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return CopyOnWriteCaseInsensitiveMap.this.size();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V>
+    {
+        @Override
+        public Iterator<V> iterator()
+        {
+            final Iterator<Entry<K, V>> iterator = entries.iterator();
+            return new Iterator<V>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public V next()
+                {
+                    return iterator.next().getValue();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return CopyOnWriteCaseInsensitiveMap.this.size();
         }
     }
 
     @Override
     public Collection<V> values()
     {
-        return view.values();
+        return new Values();
     }
 
     @Override
     public Set<Entry<K, V>> entrySet()
     {
-        return view.entrySet();
+        return new EntrySet();
     }
 
     @Override
     public String toString()
     {
-        return core.toString();
+        return entries.toString();
     }
 
-    private void updateCore(Map<K, V> core)
+    @SuppressWarnings("unchecked")
+    private void writeObject(ObjectOutputStream out) throws IOException
     {
-        this.core = core;
-        this.view = Collections.unmodifiableMap(core);
+        Map<K, V> core = new CaseInsensitiveHashMap();
+        for (Entry<K, V> entry : entries)
+        {
+            core.put(entry.getKey(), entry.getValue());
+        }
+        out.putFields().put("core", core);
+        out.writeFields();
     }
 
-    /**
-     * After deserialization we can just use unserialized original map directly.
-     */
+    @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
     {
-        in.defaultReadObject();
-        this.view = Collections.unmodifiableMap(core);
+        Map<K, V> core = (Map<K, V>) in.readFields().get("core", null);
+        this.entries = PersistentCaseInsensitiveMap.empty();
         this.keyset = new KeySet();
+        if (core != null)
+        {
+            putAll(core);
+        }
     }
 
 }
@@ -0,0 +1,575 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable map with case-insensitive {@link String} keys, implemented as a hash array mapped trie.
+ * <p/>
+ * Updates don't modify the map but return a new one which shares with it all the trie nodes except the
+ * ones in the path to the updated entry, so updates take O(log n) time and space, and copying the map is
+ * never needed. This makes it suitable for maps which are copied much more often than they are updated,
+ * such as the ones holding message properties or flow variables.
+ * <p/>
+ * The hash of each key is computed once, folding the case of its characters, and kept in the entry, so
+ * neither lookups nor updates create lowercase copies of the keys. When a key is replaced its original
+ * case is preserved. Keys which are not {@link String}s are compared with {@link Object#equals(Object)}.
+ * <p/>
+ * This class is thread-safe.
+ *
+ * @since 4.0
+ */
+public final class PersistentCaseInsensitiveMap<K, V> implements Iterable<Map.Entry<K, V>>
+{
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Depth of a trie of 32 bit hashes plus one level of collision nodes
+    private static final int MAX_DEPTH = 32 / BITS + 2;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentCaseInsensitiveMap EMPTY = new PersistentCaseInsensitiveMap(new BitmapNode(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentCaseInsensitiveMap(Node root, int size)
+    {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentCaseInsensitiveMap<K, V> empty()
+    {
+        return EMPTY;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public V get(Object key)
+    {
+        Leaf<K, V> leaf = getEntry(key);
+        return leaf == null ? null : leaf.value;
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return getEntry(key) != null;
+    }
+
+    /**
+     * @return the entry for the key or {@code null} if there is none. The key of the entry has the case it
+     *         was added with
+     */
+    @SuppressWarnings("unchecked")
+    public Leaf<K, V> getEntry(Object key)
+    {
+        return root.find(hash(key), key, 0);
+    }
+
+    /**
+     * @return a map with the entries of this one plus the given one. If the map has the key already, the
+     *         returned map keeps it with its original case
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentCaseInsensitiveMap<K, V> plus(K key, V value)
+    {
+        int hash = hash(key);
+        boolean replaces = root.find(hash, key, 0) != null;
+        Node newRoot = root.put(new Leaf<>(key, value, hash), 0);
+        if (newRoot == root)
+        {
+            return this;
+        }
+        return new PersistentCaseInsensitiveMap<>(newRoot, replaces ? size : size + 1);
+    }
+
+    /**
+     * @return a map with the entries of this one except the one for the given key
+     */
+    public PersistentCaseInsensitiveMap<K, V> minus(Object key)
+    {
+        Node newRoot = root.remove(hash(key), key, 0);
+        if (newRoot == root)
+        {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentCaseInsensitiveMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Iterates the entries of the map. The iterator doesn't support removal, and the entries it returns
+     * don't support {@link Map.Entry#setValue(Object)}.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator()
+    {
+        return new EntryIterator<>(root);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder(32 * size);
+        buf.append('{');
+        for (Iterator<Map.Entry<K, V>> it = iterator(); it.hasNext(); )
+        {
+            Map.Entry<K, V> entry = it.next();
+            buf.append(entry.getKey()).append('=').append(entry.getValue());
+            if (it.hasNext())
+            {
+                buf.append(", ");
+            }
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Hashes the key, folding the case of its characters if it's a {@link String}, consistently with
+     * {@link String#equalsIgnoreCase(String)}.
+     */
+    static int hash(Object key)
+    {
+        int h;
+        if (key instanceof String)
+        {
+            String string = (String) key;
+            h = 0;
+            for (int i = 0; i < string.length(); i++)
+            {
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(string.charAt(i)));
+            }
+        }
+        else
+        {
+            h = key == null ? 0 : key.hashCode();
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isEqualKey(Object key1, Object key2)
+    {
+        if (key1 instanceof String && key2 instanceof String)
+        {
+            return ((String) key1).equalsIgnoreCase((String) key2);
+        }
+        return Objects.equals(key1, key2);
+    }
+
+    private static int fragment(int hash, int shift)
+    {
+        return (hash >>> shift) & MASK;
+    }
+
+    /**
+     * An entry of the map, which is also a leaf of the trie.
+     */
+    public static final class Leaf<K, V> implements Map.Entry<K, V>
+    {
+
+        private final K key;
+        private final V value;
+        private final int hash;
+
+        private Leaf(K key, V value, int hash)
+        {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public K getKey()
+        {
+            return key;
+        }
+
+        @Override
+        public V getValue()
+        {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value)
+        {
+            throw new UnsupportedOperationException("Entries of a persistent map can't be modified");
+        }
+
+        private boolean matches(int hash, Object key)
+        {
+            return this.hash == hash && isEqualKey(this.key, key);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return Objects.equals(key, other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString()
+        {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * A node of the trie. Its slots hold {@link Leaf}s or other nodes.
+     */
+    private static abstract class Node
+    {
+
+        protected final Object[] slots;
+
+        protected Node(Object[] slots)
+        {
+            this.slots = slots;
+        }
+
+        abstract Leaf find(int hash, Object key, int shift);
+
+        /**
+         * @return the node with the leaf added, or this same node if it already had an identical one
+         */
+        abstract Node put(Leaf leaf, int shift);
+
+        /**
+         * @return the node without the key, this same node if it doesn't have the key, or {@code null} if
+         *         it becomes empty
+         */
+        abstract Node remove(int hash, Object key, int shift);
+
+        /**
+         * @return the only leaf of the node if it has no other slots, so it can be inlined in its parent
+         */
+        Leaf singleLeaf()
+        {
+            return slots.length == 1 && slots[0] instanceof Leaf ? (Leaf) slots[0] : null;
+        }
+    }
+
+    /**
+     * Node indexed by 5 bits of the hash of the keys. The bitmap tells which of the 32 possible slots are
+     * present, so only those are allocated.
+     */
+    private static final class BitmapNode extends Node
+    {
+
+        private final int bitmap;
+
+        private BitmapNode(int bitmap, Object[] slots)
+        {
+            super(slots);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit)
+        {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf find(int hash, Object key, int shift)
+        {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0)
+            {
+                return null;
+            }
+            Object slot = slots[index(bit)];
+            if (slot instanceof Leaf)
+            {
+                Leaf leaf = (Leaf) slot;
+                return leaf.matches(hash, key) ? leaf : null;
+            }
+            return ((Node) slot).find(hash, key, shift + BITS);
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift)
+        {
+            int bit = 1 << fragment(leaf.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0)
+            {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = leaf;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Leaf)
+            {
+                Leaf current = (Leaf) slot;
+                if (current.matches(leaf.hash, leaf.key))
+                {
+                    if (current.value == leaf.value)
+                    {
+                        return this;
+                    }
+                    newSlot = new Leaf<>(current.key, leaf.value, current.hash);
+                }
+                else
+                {
+                    newSlot = merge(current, leaf, shift + BITS);
+                }
+            }
+            else
+            {
+                Node child = (Node) slot;
+                newSlot = child.put(leaf, shift + BITS);
+                if (newSlot == child)
+                {
+                    return this;
+                }
+            }
+            return withSlot(index, newSlot);
+        }
+
+        @Override
+        Node remove(int hash, Object key, int shift)
+        {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0)
+            {
+                return this;
+            }
+
+            int index = index(bit);
+            Object slot = slots[index];
+            if (slot instanceof Leaf)
+            {
+                return ((Leaf) slot).matches(hash, key) ? withoutSlot(bit, index) : this;
+            }
+
+            Node child = (Node) slot;
+            Node newChild = child.remove(hash, key, shift + BITS);
+            if (newChild == child)
+            {
+                return this;
+            }
+            if (newChild == null)
+            {
+                return withoutSlot(bit, index);
+            }
+            Leaf single = newChild.singleLeaf();
+            return withSlot(index, single != null ? single : newChild);
+        }
+
+        private Node withSlot(int index, Object slot)
+        {
+            Object[] newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private Node withoutSlot(int bit, int index)
+        {
+            if (slots.length == 1)
+            {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        /**
+         * Creates the node holding two leaves whose keys have the same hash fragments up to {@code shift}.
+         */
+        private static Node merge(Leaf leaf1, Leaf leaf2, int shift)
+        {
+            if (leaf1.hash == leaf2.hash)
+            {
+                return new CollisionNode(leaf1.hash, new Object[] {leaf1, leaf2});
+            }
+
+            int fragment1 = fragment(leaf1.hash, shift);
+            int fragment2 = fragment(leaf2.hash, shift);
+            if (fragment1 == fragment2)
+            {
+                return new BitmapNode(1 << fragment1, new Object[] {merge(leaf1, leaf2, shift + BITS)});
+            }
+            Object[] slots = fragment1 < fragment2 ? new Object[] {leaf1, leaf2} : new Object[] {leaf2, leaf1};
+            return new BitmapNode((1 << fragment1) | (1 << fragment2), slots);
+        }
+    }
+
+    /**
+     * Node holding the leaves of different keys with the same hash.
+     */
+    private static final class CollisionNode extends Node
+    {
+
+        private final int hash;
+
+        private CollisionNode(int hash, Object[] leaves)
+        {
+            super(leaves);
+            this.hash = hash;
+        }
+
+        @Override
+        Leaf find(int hash, Object key, int shift)
+        {
+            int index = indexOf(hash, key);
+            return index < 0 ? null : (Leaf) slots[index];
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift)
+        {
+            if (leaf.hash != hash)
+            {
+                // A key with a different hash reached this level, so this node becomes a child of a new one
+                BitmapNode node = new BitmapNode(1 << fragment(hash, shift), new Object[] {this});
+                return node.put(leaf, shift);
+            }
+
+            int index = indexOf(leaf.hash, leaf.key);
+            if (index < 0)
+            {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, slots.length);
+                newSlots[slots.length] = leaf;
+                return new CollisionNode(hash, newSlots);
+            }
+
+            Leaf current = (Leaf) slots[index];
+            if (current.value == leaf.value)
+            {
+                return this;
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = new Leaf<>(current.key, leaf.value, hash);
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        Node remove(int hash, Object key, int shift)
+        {
+            int index = indexOf(hash, key);
+            if (index < 0)
+            {
+                return this;
+            }
+            if (slots.length == 1)
+            {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new CollisionNode(this.hash, newSlots);
+        }
+
+        private int indexOf(int hash, Object key)
+        {
+            if (hash == this.hash)
+            {
+                for (int i = 0; i < slots.length; i++)
+                {
+                    if (((Leaf) slots[i]).matches(hash, key))
+                    {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth-first iterator over the leaves of the trie.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>>
+    {
+
+        private final Object[][] stack = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf<K, V> next;
+
+        private EntryIterator(Node root)
+        {
+            stack[0] = root.slots;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance()
+        {
+            next = null;
+            while (depth >= 0)
+            {
+                Object[] slots = stack[depth];
+                if (positions[depth] == slots.length)
+                {
+                    depth--;
+                    continue;
+                }
+
+                Object slot = slots[positions[depth]++];
+                if (slot instanceof Leaf)
+                {
+                    next = (Leaf<K, V>) slot;
+                    return;
+                }
+                depth++;
+                stack[depth] = ((Node) slot).slots;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            Leaf<K, V> current = next;
+            advance();
+            return current;
+        }
+    }
+}
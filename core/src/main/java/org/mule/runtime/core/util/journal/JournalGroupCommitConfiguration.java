@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.journal;
+
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
+
+/**
+ * Configuration for the group commit mode of a {@link TransactionJournal}.
+ * <p/>
+ * When group commit is enabled, entries logged concurrently are written to the journal file
+ * in a single write followed by a single sync to disk. A batch is written as soon as it reaches
+ * the maximum batch size or once the maximum latency has elapsed since the first caller
+ * started waiting for it.
+ */
+public class JournalGroupCommitConfiguration
+{
+
+    public static final String GROUP_COMMIT_PROPERTY_KEY = "mule.queue.journal.groupCommit";
+    public static final String MAX_LATENCY_PROPERTY_KEY = "mule.queue.journal.groupCommit.maxLatency";
+    public static final String MAX_BATCH_SIZE_PROPERTY_KEY = "mule.queue.journal.groupCommit.maxBatchSize";
+
+    public static final long DEFAULT_MAX_LATENCY_MILLIS = 2;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private final long maxLatencyMillis;
+    private final int maxBatchSize;
+
+    /**
+     * @param maxLatencyMillis maximum time in milliseconds an entry waits for other entries to join its batch
+     * @param maxBatchSize maximum number of entries written in a single batch
+     */
+    public JournalGroupCommitConfiguration(long maxLatencyMillis, int maxBatchSize)
+    {
+        checkArgument(maxLatencyMillis >= 0, "Group commit maximum latency cannot be negative");
+        checkArgument(maxBatchSize > 0, "Group commit maximum batch size needs to be greater than zero");
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the group commit configuration defined through system properties, or {@code null}
+     * if group commit has not been enabled
+     */
+    public static JournalGroupCommitConfiguration fromSystemProperties()
+    {
+        if (!Boolean.getBoolean(GROUP_COMMIT_PROPERTY_KEY))
+        {
+            return null;
+        }
+        return new JournalGroupCommitConfiguration(Long.getLong(MAX_LATENCY_PROPERTY_KEY, DEFAULT_MAX_LATENCY_MILLIS),
+                                                   Integer.getInteger(MAX_BATCH_SIZE_PROPERTY_KEY, DEFAULT_MAX_BATCH_SIZE));
+    }
+
+    public long getMaxLatencyMillis()
+    {
+        return maxLatencyMillis;
+    }
+
+    public int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("JournalGroupCommitConfiguration{maxLatencyMillis=%s, maxBatchSize=%s}", maxLatencyMillis, maxBatchSize);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.journal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.mule.runtime.core.api.MuleRuntimeException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces the journal entries logged by concurrent callers into batches that are
+ * written to the journal file with a single write and a single sync to disk.
+ * <p/>
+ * Entries are serialized into an in memory buffer as they are logged. The first caller that
+ * waits for a pending entry becomes the leader of the batch: it waits until the batch is full
+ * or the maximum latency elapses and then writes the whole batch, while the rest of the callers
+ * just wait for the batch to be written. New entries keep being buffered while a batch is being
+ * written, so they are picked up by the next batch.
+ *
+ * @param <T> type of the transaction identifier
+ * @param <K> type of the journal entry
+ */
+class JournalGroupCommitter<T, K extends JournalEntry<T>>
+{
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private final JournalEntrySerializer<T, K> journalEntrySerializer;
+    private final long maxLatencyNanos;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    private final Condition batchWritten = lock.newCondition();
+
+    private ByteArrayOutputStream pendingBuffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    private DataOutputStream pendingOutputStream = new DataOutputStream(pendingBuffer);
+    private ByteArrayOutputStream spareBuffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    private int pendingEntries;
+    private long appendedSequence;
+    private long writtenSequence;
+    private boolean writing;
+    private FileOutputStream output;
+
+    private long failedBatchStart;
+    private long failedBatchEnd;
+    private RuntimeException failure;
+
+    JournalGroupCommitter(JournalEntrySerializer<T, K> journalEntrySerializer, JournalGroupCommitConfiguration configuration)
+    {
+        this.journalEntrySerializer = journalEntrySerializer;
+        this.maxLatencyNanos = MILLISECONDS.toNanos(configuration.getMaxLatencyMillis());
+        this.maxBatchSize = configuration.getMaxBatchSize();
+    }
+
+    /**
+     * Sets the stream batches are written to. Any pending entry must have been written before
+     * changing the output.
+     *
+     * @param output journal file stream
+     */
+    void setOutput(FileOutputStream output)
+    {
+        lock.lock();
+        try
+        {
+            this.output = output;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an entry to the pending batch.
+     *
+     * @param journalEntry entry to add
+     * @return the sequence number of the entry, to be used with {@link #awaitWritten(long)}
+     */
+    long append(K journalEntry)
+    {
+        lock.lock();
+        try
+        {
+            journalEntrySerializer.serialize(journalEntry, pendingOutputStream);
+            if (++pendingEntries >= maxBatchSize)
+            {
+                batchFull.signal();
+            }
+            return ++appendedSequence;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the entry with the given sequence number has been written and synced to disk.
+     *
+     * @param sequence sequence number returned by {@link #append(JournalEntry)}
+     */
+    void awaitWritten(long sequence)
+    {
+        lock.lock();
+        try
+        {
+            while (writtenSequence < sequence)
+            {
+                if (writing)
+                {
+                    batchWritten.awaitUninterruptibly();
+                }
+                else
+                {
+                    writing = true;
+                    awaitBatch();
+                    writeBatch();
+                }
+            }
+            if (failure != null && sequence > failedBatchStart && sequence <= failedBatchEnd)
+            {
+                throw failure;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all the pending entries, waiting for any batch in progress to complete.
+     */
+    void flush()
+    {
+        lock.lock();
+        try
+        {
+            while (writing)
+            {
+                batchWritten.awaitUninterruptibly();
+            }
+            if (pendingEntries > 0)
+            {
+                writing = true;
+                writeBatch();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void awaitBatch()
+    {
+        long nanos = maxLatencyNanos;
+        try
+        {
+            while (pendingEntries < maxBatchSize && nanos > 0)
+            {
+                nanos = batchFull.awaitNanos(nanos);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // write what we have right away
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the pending batch. Must be invoked holding the lock after taking ownership of the
+     * batch by setting {@code writing}. The lock is released while doing the I/O.
+     */
+    private void writeBatch()
+    {
+        ByteArrayOutputStream batch = pendingBuffer;
+        long batchStart = writtenSequence;
+        long batchEnd = appendedSequence;
+        FileOutputStream target = output;
+        pendingBuffer = spareBuffer;
+        pendingOutputStream = new DataOutputStream(pendingBuffer);
+        pendingEntries = 0;
+
+        RuntimeException batchFailure = null;
+        lock.unlock();
+        try
+        {
+            batch.writeTo(target);
+            target.getChannel().force(false);
+        }
+        catch (IOException e)
+        {
+            batchFailure = new MuleRuntimeException(e);
+        }
+        finally
+        {
+            lock.lock();
+            batch.reset();
+            spareBuffer = batch;
+            writtenSequence = batchEnd;
+            writing = false;
+            if (batchFailure != null)
+            {
+                failedBatchStart = batchStart;
+                failedBatchEnd = batchEnd;
+                failure = batchFailure;
+            }
+            batchWritten.signalAll();
+        }
+    }
+}
@@ -64,6 +64,15 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      * @param logFilesDirectory directory used to store the journal files.
      */
     public TransactionJournal(String logFilesDirectory, TransactionCompletePredicate transactionCompletePredicate, JournalEntrySerializer journalEntrySerializer, Integer maximumFileSizeInMegabytes)
+    {
+        this(logFilesDirectory, transactionCompletePredicate, journalEntrySerializer, maximumFileSizeInMegabytes, null);
+    }
+
+    /**
+     * @param logFilesDirectory directory used to store the journal files.
+     * @param groupCommitConfiguration group commit configuration, or {@code null} to write each entry as soon as it is logged.
+     */
+    public TransactionJournal(String logFilesDirectory, TransactionCompletePredicate transactionCompletePredicate, JournalEntrySerializer journalEntrySerializer, Integer maximumFileSizeInMegabytes, JournalGroupCommitConfiguration groupCommitConfiguration)
     {
         File logFileDirectory = new File(logFilesDirectory);
         if (!logFileDirectory.exists())
@@ -75,8 +84,13 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
         File logFile2 = new File(logFileDirectory, TX2_LOG_FILE_NAME);
         logger.info(String.format("Using files for tx logs %s and %s", logFile1.getAbsolutePath(), logFile2.getAbsolutePath()));
 
-        this.currentLogFile = new TransactionJournalFile(logFile1, journalEntrySerializer, clearFileMinimumSizeInBytes);
-        this.notCurrentLogFile = new TransactionJournalFile(logFile2, journalEntrySerializer, clearFileMinimumSizeInBytes);
+        if (groupCommitConfiguration != null)
+        {
+            logger.info("Using group commit for tx logs with " + groupCommitConfiguration);
+        }
+
+        this.currentLogFile = new TransactionJournalFile(logFile1, journalEntrySerializer, clearFileMinimumSizeInBytes, groupCommitConfiguration);
+        this.notCurrentLogFile = new TransactionJournalFile(logFile2, journalEntrySerializer, clearFileMinimumSizeInBytes, groupCommitConfiguration);
         this.transactionCompletePredicate = transactionCompletePredicate;
 
     }
@@ -95,10 +109,17 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      *
      * @param journalEntry journal entry with the update operation details
      */
-    public synchronized void logUpdateOperation(JournalEntry<T> journalEntry)
+    public void logUpdateOperation(JournalEntry<T> journalEntry)
     {
-        TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
-        logFile.logOperation(journalEntry);
+        TransactionJournalFile logFile;
+        long sequence;
+        synchronized (this)
+        {
+            logFile = determineLogFile(journalEntry.getTxId());
+            sequence = logFile.logOperation(journalEntry);
+        }
+        // waiting outside the lock lets concurrent operations join the same group commit batch
+        logFile.awaitWritten(sequence);
     }
 
     /**
@@ -108,14 +129,20 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      *
      * @param journalEntry journal entry with the checkpoint operation details
      */
-    public synchronized void logCheckpointOperation(JournalEntry<T> journalEntry)
+    public void logCheckpointOperation(JournalEntry<T> journalEntry)
     {
-        TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
-        logFile.logOperation(journalEntry);
-        if (transactionCompletePredicate.isTransactionComplete(journalEntry))
+        TransactionJournalFile logFile;
+        long sequence;
+        synchronized (this)
         {
-            logFile.clearEntriesForTransaction(journalEntry.getTxId());
+            logFile = determineLogFile(journalEntry.getTxId());
+            sequence = logFile.logOperation(journalEntry);
+            if (transactionCompletePredicate.isTransactionComplete(journalEntry))
+            {
+                logFile.clearEntriesForTransaction(journalEntry.getTxId());
+            }
         }
+        logFile.awaitWritten(sequence);
     }
 
     /**
@@ -48,6 +48,7 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
     private final File journalFile;
     private final JournalEntrySerializer<T, K> journalEntrySerializer;
     private final Long clearFileMinimumSizeInBytes;
+    private final JournalGroupCommitter<T, K> groupCommitter;
 
     private Multimap<T, K> entries = LinkedHashMultimap.create();
 
@@ -59,10 +60,21 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
      * @param journalEntrySerializer serializer for {@link JournalEntry}
      */
     public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer, Long clearFileMinimumSizeInBytes)
+    {
+        this(journalFile, journalEntrySerializer, clearFileMinimumSizeInBytes, null);
+    }
+
+    /**
+     * @param journalFile journal file to use. Will be created if it doesn't exists. If exists then transaction entries will get loaded from it.
+     * @param journalEntrySerializer serializer for {@link JournalEntry}
+     * @param groupCommitConfiguration group commit configuration, or {@code null} to write each entry as soon as it is logged
+     */
+    public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer, Long clearFileMinimumSizeInBytes, JournalGroupCommitConfiguration groupCommitConfiguration)
     {
         this.journalFile = journalFile;
         this.journalEntrySerializer = journalEntrySerializer;
         this.clearFileMinimumSizeInBytes = clearFileMinimumSizeInBytes;
+        this.groupCommitter = groupCommitConfiguration == null ? null : new JournalGroupCommitter<T, K>(journalEntrySerializer, groupCommitConfiguration);
         if (journalFile.exists())
         {
             loadAllEntries();
@@ -72,13 +84,38 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
 
     /**
      * Adds a journal entry for an operation done over a transactional resource
+     *
+     * When group commit is enabled the entry is only buffered, and {@link #awaitWritten(long)} must be
+     * invoked with the returned sequence number to wait until it is written to disk.
+     *
      * @param journalEntry operation details
+     * @return the sequence number of the entry within the current group commit batches
      */
-    public synchronized void logOperation(K journalEntry)
+    public synchronized long logOperation(K journalEntry)
     {
         entries.put(journalEntry.getTxId(), journalEntry);
-        journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
         journalOperations++;
+        if (groupCommitter != null)
+        {
+            return groupCommitter.append(journalEntry);
+        }
+        journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
+        return 0;
+    }
+
+    /**
+     * Waits until the entry logged with the given sequence number has been written to disk.
+     *
+     * Does nothing if group commit is not enabled since entries are written as soon as they are logged.
+     *
+     * @param sequence sequence number returned by {@link #logOperation(JournalEntry)}
+     */
+    public void awaitWritten(long sequence)
+    {
+        if (groupCommitter != null)
+        {
+            groupCommitter.awaitWritten(sequence);
+        }
     }
 
     /**
@@ -123,6 +160,10 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
     {
         try
         {
+            if (groupCommitter != null)
+            {
+                groupCommitter.flush();
+            }
             logFileOutputStream.close();
         }
         catch (IOException e)
@@ -188,7 +229,12 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
         }
         try
         {
-            this.logFileOutputStream = new DataOutputStream(new FileOutputStream(journalFile, true));
+            FileOutputStream logFileStream = new FileOutputStream(journalFile, true);
+            this.logFileOutputStream = new DataOutputStream(logFileStream);
+            if (groupCommitter != null)
+            {
+                groupCommitter.setOutput(logFileStream);
+            }
         }
         catch (FileNotFoundException e)
         {
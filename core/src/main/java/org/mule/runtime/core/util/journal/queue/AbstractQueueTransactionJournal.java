@@ -8,6 +8,7 @@ package org.mule.runtime.core.util.journal.queue;
 
 import static org.mule.runtime.core.util.Preconditions.checkArgument;
 import org.mule.runtime.core.util.journal.JournalEntry;
+import org.mule.runtime.core.util.journal.JournalGroupCommitConfiguration;
 import org.mule.runtime.core.util.journal.JournalEntrySerializer;
 import org.mule.runtime.core.util.journal.TransactionCompletePredicate;
 import org.mule.runtime.core.util.journal.TransactionJournal;
@@ -35,6 +36,14 @@ public abstract class AbstractQueueTransactionJournal<T, K extends JournalEntry<
     private TransactionJournal<T, K> logFile;
 
     public AbstractQueueTransactionJournal(String logFilesDirectory, JournalEntrySerializer journalEntrySerializer, Integer maximumFileSizeInMegabytes)
+    {
+        this(logFilesDirectory, journalEntrySerializer, maximumFileSizeInMegabytes, JournalGroupCommitConfiguration.fromSystemProperties());
+    }
+
+    /**
+     * @param groupCommitConfiguration group commit configuration for the journal, or {@code null} to write each entry as soon as it is logged
+     */
+    public AbstractQueueTransactionJournal(String logFilesDirectory, JournalEntrySerializer journalEntrySerializer, Integer maximumFileSizeInMegabytes, JournalGroupCommitConfiguration groupCommitConfiguration)
     {
         checkArgument(maximumFileSizeInMegabytes == null || maximumFileSizeInMegabytes > 0, "Maximum tx log file size needs to be greater than zero");
         this.logFile = new TransactionJournal(logFilesDirectory, new TransactionCompletePredicate()
@@ -45,7 +54,7 @@ public abstract class AbstractQueueTransactionJournal<T, K extends JournalEntry<
                 AbstractQueueTxJournalEntry abstractQueueTxJournalEntry = (AbstractQueueTxJournalEntry) journalEntry;
                 return abstractQueueTxJournalEntry.isCommit() || abstractQueueTxJournalEntry.isRollback();
             }
-        }, journalEntrySerializer, maximumFileSizeInMegabytes);
+        }, journalEntrySerializer, maximumFileSizeInMegabytes, groupCommitConfiguration);
     }
 
     public void logAdd(T txId, QueueStore queue, Serializable value)
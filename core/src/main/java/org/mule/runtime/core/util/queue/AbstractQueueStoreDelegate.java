@@ -88,6 +88,26 @@ public abstract class AbstractQueueStoreDelegate implements QueueStoreDelegate
         }
     }
 
+    @Override
+    public final int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        checkInterrupted();
+        synchronized (this)
+        {
+            int count = 0;
+            while (count < maxItems && !isEmpty())
+            {
+                items.add(removeFirst());
+                count++;
+            }
+            if (count > 0)
+            {
+                this.notifyAll();
+            }
+            return count;
+        }
+    }
+
     @Override
     public final Serializable peek() throws InterruptedException
     {
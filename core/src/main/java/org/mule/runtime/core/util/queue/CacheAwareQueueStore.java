@@ -7,6 +7,7 @@
 package org.mule.runtime.core.util.queue;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * Wrapper for QueueStore so the cache in {@link org.mule.runtime.core.util.queue.AbstractQueueManager} gets
@@ -48,6 +49,12 @@ class CacheAwareQueueStore implements QueueStore
         return queueStore.poll(timeout);
     }
 
+    @Override
+    public int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        return queueStore.drainTo(items, maxItems);
+    }
+
     @Override
     public Serializable peek() throws InterruptedException
     {
@@ -9,8 +9,15 @@ package org.mule.runtime.core.util.queue;
 public class DefaultQueueConfiguration implements QueueConfiguration
 {
 
+    /**
+     * System property used to select the {@link QueueStoreType} used when none is
+     * explicitly provided.
+     */
+    public static final String QUEUE_STORE_TYPE_PROPERTY_KEY = "mule.queue.storeType";
+
     private final boolean persistent;
     private final int capacity;
+    private final QueueStoreType storeType;
 
     public DefaultQueueConfiguration()
     {
@@ -18,9 +25,21 @@ public class DefaultQueueConfiguration implements QueueConfiguration
     }
 
     public DefaultQueueConfiguration(int capacity, boolean isPersistent)
+    {
+        this(capacity, isPersistent, getDefaultStoreType());
+    }
+
+    public DefaultQueueConfiguration(int capacity, boolean isPersistent, QueueStoreType storeType)
     {
         this.capacity = capacity;
         this.persistent = isPersistent;
+        this.storeType = storeType == null ? QueueStoreType.DEFAULT : storeType;
+    }
+
+    private static QueueStoreType getDefaultStoreType()
+    {
+        String storeType = System.getProperty(QUEUE_STORE_TYPE_PROPERTY_KEY);
+        return storeType == null ? QueueStoreType.DEFAULT : QueueStoreType.valueOf(storeType.trim().toUpperCase());
     }
 
     @Override
@@ -35,11 +54,17 @@ public class DefaultQueueConfiguration implements QueueConfiguration
         return capacity;
     }
 
+    @Override
+    public QueueStoreType getStoreType()
+    {
+        return storeType;
+    }
+
     @Override
     public String toString()
     {
         return String.format("DefaultQueueConfiguration{" +
-               "persistent=%s, capacity=%s}", persistent, capacity);
+               "persistent=%s, capacity=%s, storeType=%s}", persistent, capacity, storeType);
     }
 
     @Override
@@ -53,6 +78,7 @@ public class DefaultQueueConfiguration implements QueueConfiguration
         {
             return false;
         }
-        return persistent == ((DefaultQueueConfiguration)obj).persistent && capacity == ((DefaultQueueConfiguration)obj).capacity;
+        DefaultQueueConfiguration other = (DefaultQueueConfiguration) obj;
+        return persistent == other.persistent && capacity == other.capacity && storeType == other.storeType;
     }
 }
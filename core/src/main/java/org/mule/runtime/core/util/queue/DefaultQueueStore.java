@@ -9,6 +9,7 @@ package org.mule.runtime.core.util.queue;
 import org.mule.runtime.core.api.MuleContext;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 import org.apache.commons.lang.NotImplementedException;
 
@@ -48,7 +49,19 @@ public class DefaultQueueStore implements RecoverableQueueStore
         }
         if (this.config.isPersistent())
         {
-            delegate = new DualRandomAccessFileQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(), muleContext, this.config.getCapacity());
+            String workingDirectory = muleContext.getConfiguration().getWorkingDirectory();
+            if (this.config.getStoreType() == QueueStoreType.MAPPED_SEGMENTS)
+            {
+                delegate = new MappedSegmentQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+            }
+            else
+            {
+                delegate = new DualRandomAccessFileQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+            }
+        }
+        else if (this.config.getStoreType() == QueueStoreType.RING_BUFFER)
+        {
+            delegate = new RingBufferQueueStoreDelegate(this.config.getCapacity());
         }
         else
         {
@@ -89,6 +102,12 @@ public class DefaultQueueStore implements RecoverableQueueStore
         return delegate.poll(timeout);
     }
 
+    @Override
+    public int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        return delegate.drainTo(items, maxItems);
+    }
+
     public Serializable peek() throws InterruptedException
     {
         return delegate.peek();
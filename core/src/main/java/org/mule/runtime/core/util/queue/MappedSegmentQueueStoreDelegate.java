@@ -0,0 +1,875 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.core.util.Preconditions.checkState;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.MuleRuntimeException;
+import org.mule.runtime.core.api.serialization.ObjectSerializer;
+import org.mule.runtime.core.util.FileUtils;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TransactionalQueueStoreDelegate} implementation that stores the queue data in append only
+ * memory mapped segment files.
+ * <p/>
+ * New items are always appended to the current write segment. Consuming an item only flags its record
+ * as consumed and moves the head cursor, and once every record of a segment has been consumed the
+ * segment file is deleted. Producers and consumers use separate locks, so they only wait for each other
+ * when the queue is empty or full.
+ * <p/>
+ * The location of every live record is kept in memory, indexed by the hash of its serialized form, so
+ * {@link #contains(Serializable)} and {@link #remove(Serializable)} only deserialize the records whose hash
+ * matches. As the hash only depends on the serialized bytes it is still valid after a restart, when only
+ * the record headers of the remaining segments are read to rebuild that index. Values that are equal but
+ * serialize differently are not found.
+ * <p/>
+ * Every record also has a sequence number that keeps the queue order after a restart. Items that are
+ * untaken are appended like any other item, but with a sequence number lower than the current head.
+ */
+public class MappedSegmentQueueStoreDelegate implements TransactionalQueueStoreDelegate
+{
+
+    public static final String SEGMENT_SIZE_PROPERTY_KEY = "mule.queue.segmentSize";
+    public static final String FORCE_ON_WRITE_PROPERTY_KEY = "mule.queue.segmentForceOnWrite";
+
+    private static final int FOUR_MEGABYTES = 4 * 1024 * 1024;
+    private static final String QUEUE_STORE_DIRECTORY = "queuestore";
+    private static final String SEGMENTS_DIRECTORY_SUFFIX = "-segments";
+    private static final String SEGMENT_FILE_SUFFIX = ".seg";
+    private static final String SEGMENT_FILE_NAME_FORMAT = "%010d" + SEGMENT_FILE_SUFFIX;
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    private static final byte CONSUMED = 2;
+    private static final int SEQUENCE_OFFSET = 1;
+    private static final int HASH_OFFSET = 9;
+    private static final int LENGTH_OFFSET = 13;
+    private static final int HEADER_SIZE = 17;
+
+    protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ObjectSerializer serializer;
+    private final File segmentsDirectory;
+    private final int capacity;
+    private final int segmentSize;
+    private final boolean forceOnWrite;
+
+    private final ReentrantLock putLock = new ReentrantLock();
+    private final Condition notFull = putLock.newCondition();
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition notEmpty = takeLock.newCondition();
+    private final AtomicInteger count = new AtomicInteger();
+    private final Deque<RecordLocation> records = new ConcurrentLinkedDeque<>();
+    private final Map<Integer, List<RecordLocation>> recordsByHash = new ConcurrentHashMap<>();
+    private final Set<Segment> segments = ConcurrentHashMap.newKeySet();
+    private volatile Segment writeSegment;
+    private int nextSegmentId;
+    private long nextSequence;
+
+    public MappedSegmentQueueStoreDelegate(String queueName, String workingDirectory, MuleContext muleContext, int capacity)
+    {
+        this.capacity = capacity;
+        this.serializer = muleContext.getObjectSerializer();
+        this.segmentSize = Integer.getInteger(SEGMENT_SIZE_PROPERTY_KEY, FOUR_MEGABYTES);
+        this.forceOnWrite = Boolean.getBoolean(FORCE_ON_WRITE_PROPERTY_KEY);
+        File queuesDirectory = new File(workingDirectory, QUEUE_STORE_DIRECTORY);
+        if (!queuesDirectory.exists())
+        {
+            checkState(queuesDirectory.mkdirs(), "Could not create queue store directory " + queuesDirectory.getAbsolutePath());
+        }
+        this.segmentsDirectory = createSegmentsDirectory(queuesDirectory, queueName + SEGMENTS_DIRECTORY_SUFFIX);
+        recover();
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Queue %s has %s messages in %s segments", queueName, getSize(), segments.size()));
+        }
+    }
+
+    private static File createSegmentsDirectory(File queuesDirectory, String directoryName)
+    {
+        File directory = new File(queuesDirectory, directoryName);
+        if (!queuesDirectory.equals(directory.getParentFile()) || !(directory.isDirectory() || directory.mkdir()))
+        {
+            //if file system does not support the name provided then use a hex representation of the name.
+            directory = new File(queuesDirectory, QueueFileProvider.toHex(directoryName));
+            checkState(directory.isDirectory() || directory.mkdir(), "Could not create queue segments directory " + directory.getAbsolutePath());
+        }
+        return directory;
+    }
+
+    /**
+     * @return the directory that holds the segment files of this queue
+     */
+    File getSegmentsDirectory()
+    {
+        return segmentsDirectory;
+    }
+
+    @Override
+    public void putNow(Serializable o)
+    {
+        byte[] data = serializer.serialize(o);
+        int c;
+        putLock.lock();
+        try
+        {
+            records.addLast(append(data, nextSequence++));
+            c = count.getAndIncrement();
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0)
+        {
+            signalNotEmpty();
+        }
+    }
+
+    @Override
+    public boolean offer(Serializable o, int room, long timeout) throws InterruptedException
+    {
+        if (capacity > 0 && capacity <= room)
+        {
+            throw new IllegalStateException("Can not add more objects than the capacity in one time");
+        }
+        byte[] data = o == null ? null : serializer.serialize(o);
+        long nanos = MILLISECONDS.toNanos(timeout);
+        int c = -1;
+        putLock.lockInterruptibly();
+        try
+        {
+            if (capacity > 0)
+            {
+                while (count.get() >= capacity - room)
+                {
+                    if (nanos <= 0L)
+                    {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+            if (data != null)
+            {
+                records.addLast(append(data, nextSequence++));
+                c = count.getAndIncrement();
+            }
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0)
+        {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public Serializable poll(long timeout) throws InterruptedException
+    {
+        long nanos = MILLISECONDS.toNanos(timeout);
+        byte[] data;
+        takeLock.lockInterruptibly();
+        try
+        {
+            while (count.get() == 0)
+            {
+                if (nanos <= 0L)
+                {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            RecordLocation location = records.pollFirst();
+            unindex(location);
+            data = consume(location);
+            if (count.getAndDecrement() > 1)
+            {
+                notEmpty.signal();
+            }
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+        signalNotFull();
+        return deserialize(data);
+    }
+
+    @Override
+    public Serializable peek() throws InterruptedException
+    {
+        byte[] data;
+        takeLock.lockInterruptibly();
+        try
+        {
+            RecordLocation location = records.peekFirst();
+            if (location == null)
+            {
+                return null;
+            }
+            data = location.segment.read(location.offset);
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+        return deserialize(data);
+    }
+
+    @Override
+    public void untake(Serializable item) throws InterruptedException
+    {
+        checkInterrupted();
+        byte[] data = serializer.serialize(item);
+        fullyLock();
+        try
+        {
+            RecordLocation head = records.peekFirst();
+            records.addFirst(append(data, (head != null ? head.sequence : nextSequence) - 1));
+            count.getAndIncrement();
+            notEmpty.signal();
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    @Override
+    public int getSize()
+    {
+        return count.get();
+    }
+
+    @Override
+    public void clear() throws InterruptedException
+    {
+        checkInterrupted();
+        fullyLock();
+        try
+        {
+            records.clear();
+            recordsByHash.clear();
+            count.set(0);
+            for (Segment segment : new ArrayList<>(segments))
+            {
+                retire(segment);
+            }
+            writeSegment = openSegment(nextSegmentId++, segmentSize);
+            notFull.signalAll();
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Serializable> items)
+    {
+        List<byte[]> serializedItems = new ArrayList<>(items.size());
+        for (Serializable item : items)
+        {
+            serializedItems.add(serializer.serialize(item));
+        }
+        int c;
+        putLock.lock();
+        try
+        {
+            for (byte[] data : serializedItems)
+            {
+                records.addLast(append(data, nextSequence++));
+            }
+            c = count.getAndAdd(serializedItems.size());
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0 && !serializedItems.isEmpty())
+        {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public void remove(Serializable value)
+    {
+        boolean removed = false;
+        takeLock.lock();
+        try
+        {
+            RecordLocation location = find(value);
+            if (location != null)
+            {
+                records.remove(location);
+                unindex(location);
+                consume(location);
+                count.getAndDecrement();
+                removed = true;
+            }
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+        if (removed)
+        {
+            signalNotFull();
+        }
+    }
+
+    @Override
+    public boolean contains(Serializable value)
+    {
+        takeLock.lock();
+        try
+        {
+            return find(value) != null;
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        fullyLock();
+        try
+        {
+            for (Segment segment : segments)
+            {
+                segment.close();
+            }
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose()
+    {
+        fullyLock();
+        try
+        {
+            for (Segment segment : segments)
+            {
+                segment.release();
+            }
+            segments.clear();
+            records.clear();
+            recordsByHash.clear();
+            count.set(0);
+            FileUtils.deleteQuietly(segmentsDirectory);
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    /**
+     * Looks for the location of a record holding the given value. Only the records whose stored hash
+     * matches the hash of the serialized value are read from the segments.
+     * <p/>
+     * Must be invoked holding the take lock.
+     */
+    private RecordLocation find(Serializable value)
+    {
+        List<RecordLocation> candidates = recordsByHash.get(hash(serializer.serialize(value)));
+        if (candidates != null)
+        {
+            for (RecordLocation location : candidates)
+            {
+                try
+                {
+                    Serializable storedValue = deserialize(location.segment.read(location.offset));
+                    if (value == null ? storedValue == null : value.equals(storedValue))
+                    {
+                        return location;
+                    }
+                }
+                catch (Exception e)
+                {
+                    logger.warn("Failure trying to deserialize value " + e.getMessage());
+                    if (logger.isDebugEnabled())
+                    {
+                        logger.debug("Failure trying to deserialize value", e);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The lists held by the index are never modified, they are replaced, so {@link #find(Serializable)}
+     * can iterate them while records are being added.
+     */
+    private void index(RecordLocation location)
+    {
+        recordsByHash.compute(location.hash, (hash, locations) ->
+        {
+            if (locations == null)
+            {
+                return Collections.singletonList(location);
+            }
+            List<RecordLocation> updated = new ArrayList<>(locations.size() + 1);
+            updated.addAll(locations);
+            updated.add(location);
+            return updated;
+        });
+    }
+
+    private void unindex(RecordLocation location)
+    {
+        recordsByHash.computeIfPresent(location.hash, (hash, locations) ->
+        {
+            List<RecordLocation> updated = new ArrayList<>(locations);
+            updated.remove(location);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * Appends a record to the current write segment, switching to a new segment if it does not fit.
+     * <p/>
+     * Must be invoked holding the put lock.
+     */
+    private RecordLocation append(byte[] data, long sequence)
+    {
+        int recordSize = HEADER_SIZE + data.length;
+        Segment segment = writeSegment;
+        if (segment.remaining() < recordSize)
+        {
+            Segment previous = segment;
+            segment = openSegment(nextSegmentId++, Math.max(segmentSize, recordSize));
+            writeSegment = segment;
+            if (previous.liveRecords.get() == 0)
+            {
+                retire(previous);
+            }
+        }
+        int hash = hash(data);
+        RecordLocation location = new RecordLocation(segment, segment.write(data, sequence, hash), sequence, hash);
+        index(location);
+        return location;
+    }
+
+    /**
+     * Reads the record data and flags the record as consumed, retiring its segment if it has
+     * no more live records.
+     * <p/>
+     * Must be invoked holding the take lock.
+     */
+    private byte[] consume(RecordLocation location)
+    {
+        Segment segment = location.segment;
+        byte[] data = segment.read(location.offset);
+        segment.markConsumed(location.offset);
+        if (segment.liveRecords.decrementAndGet() == 0 && segment != writeSegment)
+        {
+            retire(segment);
+        }
+        return data;
+    }
+
+    private void retire(Segment segment)
+    {
+        if (segment.retired.compareAndSet(false, true))
+        {
+            segments.remove(segment);
+            segment.release();
+            FileUtils.deleteQuietly(segment.file);
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Retired queue segment " + segment.file.getAbsolutePath());
+            }
+        }
+    }
+
+    private void recover()
+    {
+        File[] segmentFiles = segmentsDirectory.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.endsWith(SEGMENT_FILE_SUFFIX);
+            }
+        });
+        TreeMap<Integer, File> orderedSegmentFiles = new TreeMap<>();
+        if (segmentFiles != null)
+        {
+            for (File segmentFile : segmentFiles)
+            {
+                String name = segmentFile.getName();
+                try
+                {
+                    orderedSegmentFiles.put(Integer.valueOf(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length())), segmentFile);
+                }
+                catch (NumberFormatException e)
+                {
+                    logger.warn("Ignoring unexpected file in queue segments directory: " + segmentFile.getAbsolutePath());
+                }
+            }
+        }
+
+        Segment lastSegment = null;
+        List<RecordLocation> recoveredRecords = new ArrayList<>();
+        for (Integer segmentId : orderedSegmentFiles.keySet())
+        {
+            if (lastSegment != null && lastSegment.liveRecords.get() == 0)
+            {
+                retire(lastSegment);
+            }
+            lastSegment = openSegment(segmentId, 0);
+            lastSegment.recover(recoveredRecords);
+        }
+
+        // records are only out of order when they were untaken
+        recoveredRecords.sort(Comparator.comparingLong(location -> location.sequence));
+        for (RecordLocation location : recoveredRecords)
+        {
+            records.addLast(location);
+            index(location);
+            nextSequence = Math.max(nextSequence, location.sequence + 1);
+        }
+
+        if (lastSegment == null)
+        {
+            writeSegment = openSegment(0, segmentSize);
+            nextSegmentId = 1;
+        }
+        else
+        {
+            lastSegment.clearTail();
+            writeSegment = lastSegment;
+            nextSegmentId = lastSegment.id + 1;
+        }
+        count.set(records.size());
+    }
+
+    private Segment openSegment(int id, int minimumSize)
+    {
+        File file = new File(segmentsDirectory, String.format(SEGMENT_FILE_NAME_FORMAT, id));
+        try
+        {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            long size = Math.max(randomAccessFile.length(), minimumSize);
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(READ_WRITE, 0, size);
+            Segment segment = new Segment(id, file, randomAccessFile, buffer);
+            segments.add(segment);
+            return segment;
+        }
+        catch (IOException e)
+        {
+            throw new MuleRuntimeException(e);
+        }
+    }
+
+    private Serializable deserialize(byte[] data)
+    {
+        return serializer.deserialize(data);
+    }
+
+    private static int hash(byte[] data)
+    {
+        return Arrays.hashCode(data);
+    }
+
+    private void signalNotEmpty()
+    {
+        takeLock.lock();
+        try
+        {
+            notEmpty.signal();
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+    }
+
+    private void signalNotFull()
+    {
+        if (capacity <= 0)
+        {
+            return;
+        }
+        putLock.lock();
+        try
+        {
+            // waiting producers may require different amounts of room
+            notFull.signalAll();
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+    }
+
+    private void fullyLock()
+    {
+        putLock.lock();
+        takeLock.lock();
+    }
+
+    private void fullyUnlock()
+    {
+        takeLock.unlock();
+        putLock.unlock();
+    }
+
+    private void checkInterrupted() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Position of a live record within a segment.
+     */
+    private static final class RecordLocation
+    {
+
+        private final Segment segment;
+        private final int offset;
+        private final long sequence;
+        private final int hash;
+
+        private RecordLocation(Segment segment, int offset, long sequence, int hash)
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.sequence = sequence;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * A memory mapped file holding a sequence of records. Each record is a header made of a state byte,
+     * the sequence number, the hash of the serialized value and the data length, followed by the serialized value.
+     */
+    private final class Segment
+    {
+
+        private final int id;
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger liveRecords = new AtomicInteger();
+        private final AtomicBoolean retired = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private int writePosition;
+
+        private Segment(int id, File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer)
+        {
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = randomAccessFile;
+            this.buffer = buffer;
+        }
+
+        private int remaining()
+        {
+            return buffer.capacity() - writePosition;
+        }
+
+        private int write(byte[] data, long sequence, int hash)
+        {
+            int offset = writePosition;
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset + HEADER_SIZE);
+            target.put(data);
+            buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+            buffer.putInt(offset + HASH_OFFSET, hash);
+            buffer.putInt(offset + LENGTH_OFFSET, data.length);
+            // the state is written last so a partially written record is never considered live
+            buffer.put(offset, LIVE);
+            if (forceOnWrite)
+            {
+                buffer.force();
+            }
+            writePosition = offset + HEADER_SIZE + data.length;
+            liveRecords.incrementAndGet();
+            return offset;
+        }
+
+        private byte[] read(int offset)
+        {
+            byte[] data = new byte[buffer.getInt(offset + LENGTH_OFFSET)];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset + HEADER_SIZE);
+            source.get(data);
+            return data;
+        }
+
+        private void markConsumed(int offset)
+        {
+            buffer.put(offset, CONSUMED);
+            if (forceOnWrite)
+            {
+                buffer.force();
+            }
+        }
+
+        private void recover(List<RecordLocation> recoveredRecords)
+        {
+            int position = 0;
+            int limit = buffer.capacity();
+            while (position + HEADER_SIZE <= limit)
+            {
+                byte state = buffer.get(position);
+                int length = buffer.getInt(position + LENGTH_OFFSET);
+                if ((state != LIVE && state != CONSUMED) || length < 0 || position + HEADER_SIZE + length > limit)
+                {
+                    break;
+                }
+                if (state == LIVE)
+                {
+                    recoveredRecords.add(new RecordLocation(this, position, buffer.getLong(position + SEQUENCE_OFFSET),
+                                                            buffer.getInt(position + HASH_OFFSET)));
+                    liveRecords.incrementAndGet();
+                }
+                position += HEADER_SIZE + length;
+            }
+            writePosition = position;
+        }
+
+        /**
+         * Discards whatever is left after the last complete record, which may be a partially written
+         * record if the process died while appending.
+         */
+        private void clearTail()
+        {
+            ByteBuffer target = buffer.duplicate();
+            target.position(writePosition);
+            byte[] zeros = new byte[Math.min(target.remaining(), 8192)];
+            while (target.hasRemaining())
+            {
+                target.put(zeros, 0, Math.min(zeros.length, target.remaining()));
+            }
+        }
+
+        private void close()
+        {
+            if (!closed.compareAndSet(false, true))
+            {
+                return;
+            }
+            try
+            {
+                buffer.force();
+                randomAccessFile.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn(e.getMessage());
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Error closing queue segment", e);
+                }
+            }
+        }
+
+        /**
+         * Closes the segment and unmaps its buffer, so the file can be deleted even on platforms that do
+         * not allow deleting mapped files. The segment must not be accessed afterwards.
+         */
+        private void release()
+        {
+            close();
+            if (released.compareAndSet(false, true))
+            {
+                unmap(buffer);
+            }
+        }
+    }
+
+    /**
+     * Mapped buffers are otherwise only unmapped when they are garbage collected. There is no public API
+     * for it, so the buffer cleaner is invoked reflectively, through {@code sun.misc.Unsafe} on JDK 9 and later.
+     */
+    private void unmap(MappedByteBuffer buffer)
+    {
+        try
+        {
+            try
+            {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            }
+            catch (NoSuchMethodException e)
+            {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Could not unmap queue segment, it will be unmapped when garbage collected", e);
+            }
+        }
+    }
+}
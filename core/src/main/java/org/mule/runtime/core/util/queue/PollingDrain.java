@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * Default implementation of <code>drainTo</code> for the queues that can only remove their
+ * members one at a time.
+ */
+final class PollingDrain
+{
+
+    interface Poller
+    {
+
+        Serializable poll(long timeout) throws InterruptedException;
+    }
+
+    private PollingDrain()
+    {
+    }
+
+    /**
+     * Polls the queue without waiting until it is empty or <code>maxItems</code> members were
+     * removed.
+     *
+     * @return the number of members added to <code>items</code>
+     */
+    static int drainTo(Poller queue, Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        int count = 0;
+        Serializable item;
+        while (count < maxItems && (item = queue.poll(0)) != null)
+        {
+            items.add(item);
+            count++;
+        }
+        return count;
+    }
+}
@@ -12,6 +12,7 @@ import org.mule.runtime.core.api.NamedObject;
 import org.mule.runtime.core.api.store.ObjectStoreException;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * Interface for mule queues used for VM.
@@ -41,6 +42,17 @@ public interface Queue extends NamedObject
 
     Serializable poll(long timeout) throws InterruptedException;
 
+    /**
+     * Removes up to <code>maxItems</code> objects from this queue without waiting for new
+     * ones, so a consumer can take a whole batch with a single call.
+     *
+     * @return the number of objects added to <code>items</code>
+     */
+    default int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        return PollingDrain.drainTo(this::poll, items, maxItems);
+    }
+
     boolean offer(Serializable object, long timeout) throws InterruptedException, ObjectStoreException;
 
     /**
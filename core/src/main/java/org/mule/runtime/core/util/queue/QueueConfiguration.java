@@ -18,4 +18,13 @@ public interface QueueConfiguration
 
     public int getCapacity();
 
+    /**
+     * @return the kind of store that must be used to hold the queue items, {@link QueueStoreType#DEFAULT}
+     * unless overridden
+     */
+    public default QueueStoreType getStoreType()
+    {
+        return QueueStoreType.DEFAULT;
+    }
+
 }
@@ -7,6 +7,7 @@
 package org.mule.runtime.core.util.queue;
 
 import java.io.Serializable;
+import java.util.Collection;
 
 import org.apache.commons.lang.NotImplementedException;
 
@@ -25,6 +26,11 @@ public interface QueueStore
 
     Serializable poll(long timeout) throws InterruptedException;
 
+    default int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        return PollingDrain.drainTo(this::poll, items, maxItems);
+    }
+
     Serializable peek() throws InterruptedException;
 
     void untake(Serializable item) throws InterruptedException;
@@ -31,6 +31,17 @@ public interface QueueStoreDelegate
      */
     Serializable poll(long timeout) throws InterruptedException;
 
+    /**
+     * Removes up to <code>maxItems</code> members from the front of the queue, without
+     * waiting for new ones, and adds them to the given collection.
+     *
+     * @return the number of members removed
+     */
+    default int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        return PollingDrain.drainTo(this::poll, items, maxItems);
+    }
+
     /**
      * return, but do not remove, the first member of the queue
      */
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+/**
+ * Determines which {@link QueueStoreDelegate} implementation backs a queue.
+ */
+public enum QueueStoreType
+{
+    /**
+     * {@link DualRandomAccessFileQueueStoreDelegate} for persistent queues and
+     * {@link DefaultQueueStoreDelegate} for transient ones.
+     */
+    DEFAULT,
+
+    /**
+     * {@link MappedSegmentQueueStoreDelegate} for persistent queues. Transient queues
+     * keep using {@link DefaultQueueStoreDelegate}.
+     */
+    MAPPED_SEGMENTS,
+
+    /**
+     * {@link RingBufferQueueStoreDelegate} for transient queues. Persistent queues keep
+     * using {@link DualRandomAccessFileQueueStoreDelegate}.
+     */
+    RING_BUFFER
+}
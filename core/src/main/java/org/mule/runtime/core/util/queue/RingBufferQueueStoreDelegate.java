@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transient {@link QueueStoreDelegate} backed by a bounded multi-producer multi-consumer
+ * ring buffer, so that producers and consumers never contend on a monitor.
+ * <p/>
+ * Each slot of the buffer has a sequence that tells whether it is ready to be written or
+ * read for a given position, and producers and consumers claim positions with a CAS on
+ * their own padded counter. Threads that find the buffer full or empty spin, then yield
+ * and then park, and every successful put or take wakes up a single parked thread of the
+ * other side.
+ * <p/>
+ * The buffer size is the capacity of the queue rounded up to a power of two, or
+ * {@link #DEFAULT_CAPACITY_PROPERTY_KEY} slots for unbounded queues. Items that are
+ * untaken are kept apart and returned before the ones in the buffer.
+ */
+public class RingBufferQueueStoreDelegate implements QueueStoreDelegate
+{
+
+    /**
+     * System property used to set the buffer size of queues with no capacity.
+     */
+    public static final String DEFAULT_CAPACITY_PROPERTY_KEY = "mule.queue.ringBufferCapacity";
+
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Serializable> items;
+    private final AtomicLongArray sequences;
+    private final PaddedAtomicLong putPosition = new PaddedAtomicLong();
+    private final PaddedAtomicLong takePosition = new PaddedAtomicLong();
+    private final Deque<Serializable> untakenItems = new ConcurrentLinkedDeque<>();
+    private final Queue<Thread> waitingConsumers = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+
+    public RingBufferQueueStoreDelegate(int capacity)
+    {
+        this.capacity = capacity > 0 ? capacity : Integer.getInteger(DEFAULT_CAPACITY_PROPERTY_KEY, DEFAULT_CAPACITY);
+        int bufferSize = Integer.highestOneBit(Math.max(this.capacity, 2) - 1) << 1;
+        this.mask = bufferSize - 1;
+        this.items = new AtomicReferenceArray<>(bufferSize);
+        this.sequences = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public void putNow(Serializable o)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (!tryPut(o))
+            {
+                try
+                {
+                    await(waitingProducers, () -> size() <= mask, Long.MAX_VALUE);
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(Serializable o, int room, long timeout) throws InterruptedException
+    {
+        checkInterrupted();
+        if (capacity <= room)
+        {
+            throw new IllegalStateException("Can not add more objects than the capacity in one time");
+        }
+
+        long startedAt = System.nanoTime();
+        long timeoutNanos = MILLISECONDS.toNanos(timeout);
+        while (true)
+        {
+            if (size() < capacity - room && (o == null || tryPut(o)))
+            {
+                return true;
+            }
+
+            long remaining = timeoutNanos - (System.nanoTime() - startedAt);
+            if (remaining <= 0)
+            {
+                return false;
+            }
+            await(waitingProducers, () -> size() < capacity - room, remaining);
+        }
+    }
+
+    @Override
+    public Serializable poll(long timeout) throws InterruptedException
+    {
+        checkInterrupted();
+        long startedAt = System.nanoTime();
+        long timeoutNanos = MILLISECONDS.toNanos(timeout);
+        while (true)
+        {
+            Serializable item = tryTake();
+            if (item != null)
+            {
+                return item;
+            }
+
+            long remaining = timeoutNanos - (System.nanoTime() - startedAt);
+            if (remaining <= 0)
+            {
+                return null;
+            }
+            await(waitingConsumers, () -> size() > 0, remaining);
+        }
+    }
+
+    /**
+     * Removes up to <code>maxItems</code> items from the queue without waiting for them.
+     */
+    @Override
+    public int drainTo(Collection<? super Serializable> drained, int maxItems)
+    {
+        int count = 0;
+        Serializable item;
+        while (count < maxItems && (item = tryTake()) != null)
+        {
+            drained.add(item);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public Serializable peek() throws InterruptedException
+    {
+        checkInterrupted();
+        Serializable item = untakenItems.peekFirst();
+        if (item != null)
+        {
+            return item;
+        }
+        long position = takePosition.get();
+        int index = (int) position & mask;
+        return sequences.get(index) == position + 1 ? items.get(index) : null;
+    }
+
+    @Override
+    public void untake(Serializable item) throws InterruptedException
+    {
+        checkInterrupted();
+        untakenItems.addFirst(item);
+        signal(waitingConsumers);
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size();
+    }
+
+    @Override
+    public void clear() throws InterruptedException
+    {
+        checkInterrupted();
+        while (tryTake() != null)
+        {
+            // discard
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Serializable> items)
+    {
+        for (Serializable item : items)
+        {
+            putNow(item);
+        }
+        return true;
+    }
+
+    @Override
+    public void dispose()
+    {
+        while (tryTake() != null)
+        {
+            // discard
+        }
+    }
+
+    private int size()
+    {
+        // read the take position first so the difference is never negative
+        long taken = takePosition.get();
+        long put = putPosition.get();
+        return (int) Math.max(0, put - taken) + untakenItems.size();
+    }
+
+    private boolean tryPut(Serializable item)
+    {
+        long position = putPosition.get();
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0)
+            {
+                if (putPosition.compareAndSet(position, position + 1))
+                {
+                    items.lazySet(index, item);
+                    sequences.set(index, position + 1);
+                    signal(waitingConsumers);
+                    return true;
+                }
+                position = putPosition.get();
+            }
+            else if (difference < 0)
+            {
+                // the slot still holds the item from the previous lap
+                return false;
+            }
+            else
+            {
+                position = putPosition.get();
+            }
+        }
+    }
+
+    private Serializable tryTake()
+    {
+        Serializable untaken = untakenItems.pollFirst();
+        if (untaken != null)
+        {
+            return untaken;
+        }
+
+        long position = takePosition.get();
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0)
+            {
+                if (takePosition.compareAndSet(position, position + 1))
+                {
+                    Serializable item = items.get(index);
+                    items.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    signal(waitingProducers);
+                    return item;
+                }
+                position = takePosition.get();
+            }
+            else if (difference < 0)
+            {
+                // the slot was not written yet
+                return null;
+            }
+            else
+            {
+                position = takePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Waits until the condition holds, spinning first, then yielding and finally parking
+     * until woken up by the other side or the timeout elapses.
+     */
+    private void await(Queue<Thread> waiters, Condition condition, long timeoutNanos) throws InterruptedException
+    {
+        for (int i = 0; i < SPIN_TRIES; i++)
+        {
+            if (condition.holds())
+            {
+                return;
+            }
+        }
+        for (int i = 0; i < YIELD_TRIES; i++)
+        {
+            Thread.yield();
+            if (condition.holds())
+            {
+                return;
+            }
+        }
+
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try
+        {
+            // check again once registered so a signal sent in between is not missed
+            if (!condition.holds())
+            {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        }
+        finally
+        {
+            waiters.remove(current);
+        }
+        checkInterrupted();
+    }
+
+    private void signal(Queue<Thread> waiters)
+    {
+        if (!waiters.isEmpty())
+        {
+            Thread waiter = waiters.poll();
+            if (waiter != null)
+            {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    private void checkInterrupted() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+
+    private interface Condition
+    {
+
+        boolean holds();
+    }
+
+    /**
+     * {@link AtomicLong} padded to a cache line so the put and take positions, which are
+     * written by different threads, do not share one.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong
+    {
+
+        private static final long serialVersionUID = -6014209385245541512L;
+
+        public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+        public long preventOptimisation()
+        {
+            return p1 + p2 + p3 + p4 + p5 + p6;
+        }
+    }
+}
@@ -12,6 +12,9 @@ import org.mule.runtime.core.api.store.ObjectStoreException;
 import org.mule.runtime.core.util.store.DeserializationPostInitialisable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -116,6 +119,41 @@ public class TransactionAwareQueueStore implements Queue
         }
     }
 
+    @Override
+    public int drainTo(Collection<? super Serializable> items, int maxItems) throws InterruptedException
+    {
+        if (transactionContextProvider.isTransactional())
+        {
+            return Queue.super.drainTo(items, maxItems);
+        }
+
+        try
+        {
+            List<Serializable> drained = new ArrayList<>(Math.min(maxItems, queue.getSize()));
+            queue.drainTo(drained, maxItems);
+            int count = 0;
+            for (Serializable item : drained)
+            {
+                item = postProcessIfNeeded(item);
+                if (item != null)
+                {
+                    items.add(item);
+                    count++;
+                }
+            }
+            return count;
+        }
+        catch (InterruptedException iex)
+        {
+            if (!muleContext.isStopping())
+            {
+                throw iex;
+            }
+            // if stopping, ignore
+            return 0;
+        }
+    }
+
     @Override
     public Serializable peek() throws InterruptedException
     {
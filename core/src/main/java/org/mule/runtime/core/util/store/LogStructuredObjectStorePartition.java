@@ -0,0 +1,778 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.runtime.core.util.store;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.mule.runtime.core.api.store.ObjectStoreManager.UNBOUNDED;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.serialization.ObjectSerializer;
+import org.mule.runtime.core.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.core.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.core.api.store.ObjectStoreException;
+import org.mule.runtime.core.api.store.ObjectStoreNotAvaliableException;
+import org.mule.runtime.core.config.i18n.CoreMessages;
+import org.mule.runtime.core.util.FileUtils;
+import org.mule.runtime.core.util.concurrent.DaemonThreadFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link PersistentObjectStorePartition} that keeps all the values of the partition in a single
+ * append only data file instead of using one file per key.
+ * <p/>
+ * Every {@link #store(Serializable, Serializable)} appends a record to the data file and every
+ * {@link #remove(Serializable)} appends a tombstone for the key. The location of the live records is
+ * kept in memory, so values are read with a single positional read. When the partition is closed
+ * or compacted, that index is written to a hint file so the next {@link #open()} only needs to
+ * read the hint file and replay the records appended after it, without deserializing any value.
+ * <p/>
+ * Once most of the data file is taken by removed values, the live records are copied to a new data
+ * file in a background thread. Reads and writes are only blocked while switching to the new file.
+ */
+public class LogStructuredObjectStorePartition<T extends Serializable> extends PersistentObjectStorePartition<T>
+{
+
+    public static final String COMPACTION_THRESHOLD_PROPERTY_KEY = "mule.objectstore.compactionThreshold";
+
+    static final String DATA_FILE = "data.log";
+    static final String HINT_FILE = "data.hint";
+    private static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+    private static final int DATA_FILE_MAGIC = 0x4D4F5344;
+    private static final int HINT_FILE_MAGIC = 0x4D4F5348;
+    private static final int DATA_FILE_HEADER_SIZE = 4 + 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    // record type + timestamp + key length
+    private static final int RECORD_PREFIX_SIZE = 1 + 8 + 4;
+    private static final int ONE_MEGABYTE = 1024 * 1024;
+
+    private final MuleContext muleContext;
+    private final ObjectSerializer serializer;
+    private final File dataFile;
+    private final File hintFile;
+    private final long compactionThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private final LinkedHashMap<Serializable, IndexEntry> index = new LinkedHashMap<>();
+    private FileChannel dataChannel;
+    private long generation;
+    private long dataLength;
+    private long liveLength;
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, String partitionName, File partitionDirectory)
+    {
+        super(muleContext, partitionName, partitionDirectory);
+        this.muleContext = muleContext;
+        this.serializer = muleContext.getObjectSerializer();
+        this.dataFile = new File(partitionDirectory, DATA_FILE);
+        this.hintFile = new File(partitionDirectory, HINT_FILE);
+        this.compactionThreshold = Long.getLong(COMPACTION_THRESHOLD_PROPERTY_KEY, ONE_MEGABYTE);
+    }
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, File partitionDirectory) throws ObjectStoreNotAvaliableException
+    {
+        super(muleContext, partitionDirectory);
+        this.muleContext = muleContext;
+        this.serializer = muleContext.getObjectSerializer();
+        this.dataFile = new File(partitionDirectory, DATA_FILE);
+        this.hintFile = new File(partitionDirectory, HINT_FILE);
+        this.compactionThreshold = Long.getLong(COMPACTION_THRESHOLD_PROPERTY_KEY, ONE_MEGABYTE);
+    }
+
+    /**
+     * @param partitionDirectory directory of an existing partition
+     * @return true if the partition was stored using a single data file
+     */
+    static boolean isLogStructuredPartition(File partitionDirectory)
+    {
+        return new File(partitionDirectory, DATA_FILE).exists();
+    }
+
+    @Override
+    public synchronized void open() throws ObjectStoreException
+    {
+        super.open();
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws ObjectStoreException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                dataChannel.force(false);
+                writeHintFile();
+                dataChannel.close();
+                dataChannel = null;
+                index.clear();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys() throws ObjectStoreException
+    {
+        lock.readLock().lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                return Collections.unmodifiableList(new ArrayList<>(index.keySet()));
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            return Collections.unmodifiableList(new ArrayList<>(index.keySet()));
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Serializable key) throws ObjectStoreException
+    {
+        lock.readLock().lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                return index.containsKey(key);
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            return index.containsKey(key);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void store(Serializable key, T value) throws ObjectStoreException
+    {
+        byte[] keyBytes = serializer.serialize(key);
+        byte[] valueBytes = serializer.serialize(value);
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            if (index.containsKey(key))
+            {
+                throw new ObjectAlreadyExistsException();
+            }
+            long timestamp = System.currentTimeMillis();
+            long offset = append(PUT, timestamp, keyBytes, valueBytes);
+            addToIndex(key, new IndexEntry(offset, recordLength(keyBytes.length, valueBytes.length), valueBytes.length, timestamp));
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public T retrieve(Serializable key) throws ObjectStoreException
+    {
+        lock.readLock().lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                return doRetrieve(key);
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            return doRetrieve(key);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public T remove(Serializable key) throws ObjectStoreException
+    {
+        T value;
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            value = doRetrieve(key);
+            doRemove(key, System.currentTimeMillis());
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+        return value;
+    }
+
+    @Override
+    public void clear() throws ObjectStoreException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                dataChannel.close();
+                dataChannel = null;
+            }
+            index.clear();
+            FileUtils.deleteQuietly(hintFile);
+            FileUtils.deleteQuietly(dataFile);
+            createDataFile(generation + 1);
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(CoreMessages.createStaticMessage("Could not clear ObjectStore"), e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            assureOpen();
+            long now = System.currentTimeMillis();
+            int excess = maxEntries == UNBOUNDED ? 0 : index.size() - maxEntries;
+            Iterator<Map.Entry<Serializable, IndexEntry>> entries = new ArrayList<>(index.entrySet()).iterator();
+            while (entries.hasNext())
+            {
+                Map.Entry<Serializable, IndexEntry> entry = entries.next();
+                if (excess > 0)
+                {
+                    excess--;
+                }
+                else if (entryTTL == UNBOUNDED || (now - entry.getValue().timestamp) < entryTTL)
+                {
+                    break;
+                }
+                doRemove(entry.getKey(), now);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    private T doRetrieve(Serializable key) throws ObjectStoreException
+    {
+        IndexEntry entry = index.get(key);
+        if (entry == null)
+        {
+            String message = "Key does not exist: " + key;
+            throw new ObjectDoesNotExistException(CoreMessages.createStaticMessage(message));
+        }
+        try
+        {
+            ByteBuffer valueBuffer = ByteBuffer.allocate(entry.valueLength);
+            readFully(dataChannel, valueBuffer, entry.offset + entry.length - entry.valueLength);
+            T value = serializer.deserialize(valueBuffer.array());
+            if (value instanceof DeserializationPostInitialisable)
+            {
+                DeserializationPostInitialisable.Implementation.init(value, muleContext);
+            }
+            return value;
+        }
+        catch (ObjectStoreException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private void doRemove(Serializable key, long timestamp) throws ObjectStoreException
+    {
+        append(DELETE, timestamp, serializer.serialize(key), null);
+        IndexEntry removed = index.remove(key);
+        if (removed != null)
+        {
+            liveLength -= removed.length;
+        }
+    }
+
+    private void addToIndex(Serializable key, IndexEntry entry)
+    {
+        IndexEntry previous = index.remove(key);
+        if (previous != null)
+        {
+            liveLength -= previous.length;
+        }
+        index.put(key, entry);
+        liveLength += entry.length;
+    }
+
+    private long append(byte type, long timestamp, byte[] keyBytes, byte[] valueBytes) throws ObjectStoreException
+    {
+        int valueLength = valueBytes == null ? 0 : valueBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(recordLength(keyBytes.length, valueLength));
+        record.put(type).putLong(timestamp).putInt(keyBytes.length).put(keyBytes).putInt(valueLength);
+        if (valueBytes != null)
+        {
+            record.put(valueBytes);
+        }
+        record.flip();
+        long offset = dataLength;
+        try
+        {
+            while (record.hasRemaining())
+            {
+                dataChannel.write(record, offset + record.position());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        dataLength += record.limit();
+        return offset;
+    }
+
+    private static int recordLength(int keyLength, int valueLength)
+    {
+        return RECORD_PREFIX_SIZE + keyLength + 4 + valueLength;
+    }
+
+    /**
+     * Loads the index if the partition is not open yet. Must be invoked holding the write lock.
+     */
+    private void assureOpen() throws ObjectStoreException
+    {
+        if (dataChannel != null)
+        {
+            return;
+        }
+        try
+        {
+            if (!dataFile.exists())
+            {
+                createDataFile(0);
+                return;
+            }
+            dataChannel = new RandomAccessFile(dataFile, "rw").getChannel();
+            ByteBuffer header = ByteBuffer.allocate(DATA_FILE_HEADER_SIZE);
+            readFully(dataChannel, header, 0);
+            header.flip();
+            if (header.getInt() != DATA_FILE_MAGIC)
+            {
+                throw new IOException("Invalid object store data file " + dataFile.getAbsolutePath());
+            }
+            generation = header.getLong();
+            long replayFrom = readHintFile();
+            replay(replayFrom);
+        }
+        catch (Exception e)
+        {
+            String message = String.format("Could not restore object store data from %1s", dataFile.getAbsolutePath());
+            throw new ObjectStoreException(CoreMessages.createStaticMessage(message), e);
+        }
+    }
+
+    private void createDataFile(long newGeneration) throws IOException
+    {
+        dataChannel = new RandomAccessFile(dataFile, "rw").getChannel();
+        dataChannel.truncate(0);
+        writeDataFileHeader(dataChannel, newGeneration);
+        generation = newGeneration;
+        dataLength = DATA_FILE_HEADER_SIZE;
+        liveLength = 0;
+    }
+
+    private static void writeDataFileHeader(FileChannel channel, long generation) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(DATA_FILE_HEADER_SIZE);
+        header.putInt(DATA_FILE_MAGIC).putLong(generation).flip();
+        while (header.hasRemaining())
+        {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Loads the index stored in the hint file, if it matches the current data file.
+     *
+     * @return the data file position from which records need to be replayed
+     */
+    private long readHintFile()
+    {
+        index.clear();
+        liveLength = 0;
+        if (!hintFile.exists())
+        {
+            return DATA_FILE_HEADER_SIZE;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(hintFile))))
+        {
+            if (input.readInt() != HINT_FILE_MAGIC || input.readLong() != generation)
+            {
+                return DATA_FILE_HEADER_SIZE;
+            }
+            long coveredLength = input.readLong();
+            if (coveredLength > dataChannel.size())
+            {
+                return DATA_FILE_HEADER_SIZE;
+            }
+            int entries = input.readInt();
+            for (int i = 0; i < entries; i++)
+            {
+                byte[] keyBytes = new byte[input.readInt()];
+                input.readFully(keyBytes);
+                IndexEntry entry = new IndexEntry(input.readLong(), input.readInt(), input.readInt(), input.readLong());
+                addToIndex((Serializable) serializer.deserialize(keyBytes), entry);
+            }
+            return coveredLength;
+        }
+        catch (Exception e)
+        {
+            logger.warn("Could not read object store hint file " + hintFile.getAbsolutePath() + ", rebuilding index from data file");
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Error reading object store hint file", e);
+            }
+            index.clear();
+            liveLength = 0;
+            return DATA_FILE_HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Replays the records appended to the data file from the given position. Only the keys are read,
+     * values are skipped. A truncated record at the end of the file, which may be left if the process
+     * died while writing it, is discarded.
+     */
+    private void replay(long fromPosition) throws IOException
+    {
+        long fileLength = dataChannel.size();
+        long position = fromPosition;
+        ByteBuffer prefix = ByteBuffer.allocate(RECORD_PREFIX_SIZE);
+        ByteBuffer valueLengthBuffer = ByteBuffer.allocate(4);
+        while (position + RECORD_PREFIX_SIZE <= fileLength)
+        {
+            prefix.clear();
+            readFully(dataChannel, prefix, position);
+            prefix.flip();
+            byte type = prefix.get();
+            long timestamp = prefix.getLong();
+            int keyLength = prefix.getInt();
+            if ((type != PUT && type != DELETE) || keyLength < 0 || position + RECORD_PREFIX_SIZE + keyLength + 4 > fileLength)
+            {
+                break;
+            }
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+            readFully(dataChannel, keyBuffer, position + RECORD_PREFIX_SIZE);
+            valueLengthBuffer.clear();
+            readFully(dataChannel, valueLengthBuffer, position + RECORD_PREFIX_SIZE + keyLength);
+            valueLengthBuffer.flip();
+            int valueLength = valueLengthBuffer.getInt();
+            int length = recordLength(keyLength, valueLength);
+            if (valueLength < 0 || position + length > fileLength)
+            {
+                break;
+            }
+            Serializable key = serializer.deserialize(keyBuffer.array());
+            if (type == PUT)
+            {
+                addToIndex(key, new IndexEntry(position, length, valueLength, timestamp));
+            }
+            else
+            {
+                IndexEntry removed = index.remove(key);
+                if (removed != null)
+                {
+                    liveLength -= removed.length;
+                }
+            }
+            position += length;
+        }
+        if (position < fileLength)
+        {
+            logger.warn(String.format("Discarding %s bytes of incomplete records at the end of %s", fileLength - position, dataFile.getAbsolutePath()));
+            dataChannel.truncate(position);
+        }
+        dataLength = position;
+    }
+
+    private void writeHintFile() throws IOException
+    {
+        File temporaryHintFile = new File(hintFile.getPath() + COMPACTION_FILE_SUFFIX);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryHintFile))))
+        {
+            output.writeInt(HINT_FILE_MAGIC);
+            output.writeLong(generation);
+            output.writeLong(dataLength);
+            output.writeInt(index.size());
+            for (Map.Entry<Serializable, IndexEntry> entry : index.entrySet())
+            {
+                byte[] keyBytes = serializer.serialize(entry.getKey());
+                output.writeInt(keyBytes.length);
+                output.write(keyBytes);
+                IndexEntry indexEntry = entry.getValue();
+                output.writeLong(indexEntry.offset);
+                output.writeInt(indexEntry.length);
+                output.writeInt(indexEntry.valueLength);
+                output.writeLong(indexEntry.timestamp);
+            }
+        }
+        Files.move(temporaryHintFile.toPath(), hintFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private void compactIfNeeded()
+    {
+        boolean needsCompaction;
+        lock.readLock().lock();
+        try
+        {
+            long garbage = dataLength - DATA_FILE_HEADER_SIZE - liveLength;
+            needsCompaction = dataChannel != null && dataLength > compactionThreshold && garbage > liveLength;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        if (needsCompaction && compacting.compareAndSet(false, true))
+        {
+            new DaemonThreadFactory("ObjectStoreCompaction-" + getPartitionName(), muleContext.getExecutionClassLoader()).newThread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        compact();
+                    }
+                    catch (Exception e)
+                    {
+                        logger.warn("Could not compact object store partition " + getPartitionName() + ": " + e.getMessage());
+                        if (logger.isDebugEnabled())
+                        {
+                            logger.debug("Error compacting object store partition", e);
+                        }
+                    }
+                    finally
+                    {
+                        compacting.set(false);
+                    }
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * Copies the live records to a new data file. The bulk of the copy is done without holding the lock,
+     * records appended meanwhile are copied afterwards while switching files.
+     */
+    void compact() throws IOException
+    {
+        Map<IndexEntry, Long> newOffsets = new IdentityHashMap<>();
+        List<IndexEntry> snapshot;
+        FileChannel source;
+        long snapshotLength;
+        long newGeneration;
+        lock.readLock().lock();
+        try
+        {
+            if (dataChannel == null)
+            {
+                return;
+            }
+            source = dataChannel;
+            snapshot = new ArrayList<>(index.values());
+            snapshotLength = dataLength;
+            newGeneration = generation + 1;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        File compactedFile = new File(dataFile.getPath() + COMPACTION_FILE_SUFFIX);
+        FileChannel target = new RandomAccessFile(compactedFile, "rw").getChannel();
+        boolean switched = false;
+        try
+        {
+            target.truncate(0);
+            writeDataFileHeader(target, newGeneration);
+            long position = DATA_FILE_HEADER_SIZE;
+            for (IndexEntry entry : snapshot)
+            {
+                transferFully(source, entry.offset, entry.length, target, position);
+                newOffsets.put(entry, position);
+                position += entry.length;
+            }
+
+            lock.writeLock().lock();
+            try
+            {
+                if (dataChannel != source)
+                {
+                    // the partition was cleared or closed meanwhile
+                    return;
+                }
+                long shift = position - snapshotLength;
+                transferFully(source, snapshotLength, dataLength - snapshotLength, target, position);
+                for (Map.Entry<Serializable, IndexEntry> indexEntry : index.entrySet())
+                {
+                    IndexEntry entry = indexEntry.getValue();
+                    long newOffset = entry.offset >= snapshotLength ? entry.offset + shift : newOffsets.get(entry);
+                    indexEntry.setValue(new IndexEntry(newOffset, entry.length, entry.valueLength, entry.timestamp));
+                }
+                target.force(false);
+                Files.move(compactedFile.toPath(), dataFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+                source.close();
+                dataChannel = target;
+                generation = newGeneration;
+                dataLength += shift;
+                switched = true;
+                writeHintFile();
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug(String.format("Compacted object store partition %s from %s to %s bytes", getPartitionName(), dataLength - shift, dataLength));
+                }
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+        finally
+        {
+            if (!switched)
+            {
+                target.close();
+                FileUtils.deleteQuietly(compactedFile);
+            }
+        }
+    }
+
+    private static void transferFully(FileChannel source, long sourcePosition, long count, FileChannel target, long targetPosition) throws IOException
+    {
+        long transferred = 0;
+        while (transferred < count)
+        {
+            long bytes = target.transferFrom(source.position(sourcePosition + transferred), targetPosition + transferred, count - transferred);
+            if (bytes <= 0)
+            {
+                throw new EOFException("Unexpected end of object store data file");
+            }
+            transferred += bytes;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Location of the last record stored for a key.
+     */
+    private static final class IndexEntry
+    {
+
+        private final long offset;
+        private final int length;
+        private final int valueLength;
+        private final long timestamp;
+
+        private IndexEntry(long offset, int length, int valueLength, long timestamp)
+        {
+            this.offset = offset;
+            this.length = length;
+            this.valueLength = valueLength;
+            this.timestamp = timestamp;
+        }
+    }
+}
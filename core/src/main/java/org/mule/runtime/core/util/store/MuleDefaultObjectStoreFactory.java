@@ -6,6 +6,8 @@
  */
 package org.mule.runtime.core.util.store;
 
+import static org.mule.runtime.core.api.config.MuleProperties.DEFAULT_USER_TRANSIENT_OBJECT_STORE_NAME;
+import static org.mule.runtime.core.api.config.MuleProperties.OBJECT_STORE_DEFAULT_IN_MEMORY_NAME;
 import org.mule.runtime.core.api.store.ObjectStore;
 import org.mule.runtime.core.api.store.QueueStore;
 
@@ -14,10 +16,16 @@ import java.io.Serializable;
 public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
 {
 
+    /**
+     * System property that makes the default in memory object stores use a
+     * {@link StripedInMemoryObjectStore}.
+     */
+    public static final String STRIPED_IN_MEMORY_PROPERTY_KEY = "mule.objectstore.inMemory.striped";
+
     @Override
     public ObjectStore<Serializable> createDefaultInMemoryObjectStore()
     {
-        return new PartitionedInMemoryObjectStore<Serializable>();
+        return createInMemoryObjectStore(OBJECT_STORE_DEFAULT_IN_MEMORY_NAME);
     }
 
     @Override
@@ -47,6 +55,17 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
     @Override
     public ObjectStore<Serializable> createDefaultUserTransientObjectStore()
     {
+        return createInMemoryObjectStore(DEFAULT_USER_TRANSIENT_OBJECT_STORE_NAME);
+    }
+
+    private ObjectStore<Serializable> createInMemoryObjectStore(String name)
+    {
+        if (Boolean.getBoolean(STRIPED_IN_MEMORY_PROPERTY_KEY))
+        {
+            StripedInMemoryObjectStore<Serializable> store = new StripedInMemoryObjectStore<Serializable>();
+            store.setName(name);
+            return store;
+        }
         return new PartitionedInMemoryObjectStore<Serializable>();
     }
 }
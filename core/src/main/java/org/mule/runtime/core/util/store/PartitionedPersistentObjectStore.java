@@ -31,10 +31,17 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
 
     public static final String OBJECT_STORE_DIR = "objectstore";
 
+    /**
+     * System property used to make new partitions use a {@link LogStructuredObjectStorePartition}
+     * unless {@link #setLogStructured(boolean)} is invoked.
+     */
+    public static final String LOG_STRUCTURED_PROPERTY_KEY = "mule.objectstore.logStructured";
+
     private MuleContext muleContext;
     private File storeDirectory;
     private Map<String, PersistentObjectStorePartition> partitionsByName = new HashMap<String, PersistentObjectStorePartition>();
     private boolean initialized = false;
+    private boolean logStructured = Boolean.getBoolean(LOG_STRUCTURED_PROPERTY_KEY);
 
     public PartitionedPersistentObjectStore()
     {
@@ -79,11 +86,24 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
     @Override
     public void close(String partitionName) throws ObjectStoreException
     {
+        PersistentObjectStorePartition partition = partitionsByName.get(partitionName);
+        if (partition != null)
+        {
+            partition.close();
+        }
     }
 
     private void createPartition(String partitionName) throws ObjectStoreException
     {
-        PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
+        PersistentObjectStorePartition persistentObjectStorePartition;
+        if (logStructured)
+        {
+            persistentObjectStorePartition = new LogStructuredObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
+        }
+        else
+        {
+            persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
+        }
         persistentObjectStorePartition.open();
         partitionsByName.put(partitionName, persistentObjectStorePartition);
     }
@@ -213,7 +233,15 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         {
             try
             {
-                PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionDirectory);
+                PersistentObjectStorePartition persistentObjectStorePartition;
+                if (LogStructuredObjectStorePartition.isLogStructuredPartition(partitionDirectory))
+                {
+                    persistentObjectStorePartition = new LogStructuredObjectStorePartition(muleContext, partitionDirectory);
+                }
+                else
+                {
+                    persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionDirectory);
+                }
                 persistentObjectStorePartition.open();
                 partitionsByName.put(persistentObjectStorePartition.getPartitionName(), persistentObjectStorePartition);
             }
@@ -230,6 +258,20 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         muleContext = context;
     }
 
+    /**
+     * @param logStructured whether new partitions store all their values in a single append only
+     *                      data file. Existing partitions keep the format they were created with.
+     */
+    public void setLogStructured(boolean logStructured)
+    {
+        this.logStructured = logStructured;
+    }
+
+    public boolean isLogStructured()
+    {
+        return logStructured;
+    }
+
     @Override
     public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
     {
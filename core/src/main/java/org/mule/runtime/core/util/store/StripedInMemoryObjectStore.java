@@ -0,0 +1,775 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.store;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.core.api.store.ObjectStoreManager.UNBOUNDED;
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.context.MuleContextAware;
+import org.mule.runtime.core.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.core.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.core.api.store.ObjectStoreException;
+import org.mule.runtime.core.api.store.PartitionableExpirableObjectStore;
+import org.mule.runtime.core.management.stats.ObjectStoreStatistics;
+import org.mule.runtime.core.util.timer.HierarchicalTimingWheel;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In memory {@link PartitionableExpirableObjectStore} designed to hold large amounts of entries
+ * under concurrent access.
+ * <p/>
+ * Each partition is split in a number of stripes, each one guarded by its own lock, so operations
+ * on keys that fall in different stripes don't contend with each other. Entries are expired lazily:
+ * every stripe keeps a {@link HierarchicalTimingWheel} with the deadlines of its entries, which is
+ * advanced each time the stripe is accessed, so only the entries that are actually due are visited
+ * instead of sweeping the whole partition. {@link #expire(int, int, String)} can still be invoked
+ * periodically to release the entries of stripes that are not being accessed.
+ * <p/>
+ * The number of entries and their estimated size in bytes can be bounded. When a bound is exceeded
+ * entries are evicted according to the configured {@link EvictionPolicy}. In order to avoid taking
+ * more than one lock per operation, bounds are split evenly between the stripes of each partition.
+ * <p/>
+ * Hits, misses, evictions and expirations of each partition are tracked in an
+ * {@link ObjectStoreStatistics} that is registered in the Mule context statistics, identified by
+ * the name of the store and the partition, and only while statistics are enabled.
+ */
+public class StripedInMemoryObjectStore<T extends Serializable> extends AbstractPartitionedObjectStore<T>
+    implements PartitionableExpirableObjectStore<T>, MuleContextAware
+{
+
+    /**
+     * System property used to set the default number of stripes of each partition.
+     */
+    public static final String CONCURRENCY_LEVEL_PROPERTY_KEY = "mule.objectstore.inMemory.concurrencyLevel";
+
+    /**
+     * System property used to set the resolution, in milliseconds, of the entries expiration.
+     */
+    public static final String EXPIRATION_TICK_PROPERTY_KEY = "mule.objectstore.inMemory.expirationTick";
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final long DEFAULT_EXPIRATION_TICK_MILLIS = 50;
+
+    /**
+     * Approximate memory taken by an entry besides its key and value.
+     */
+    private static final long ENTRY_OVERHEAD = 96;
+    private static final long DEFAULT_OBJECT_SIZE = 64;
+    private static final int LFU_SAMPLE_SIZE = 8;
+
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
+
+    /**
+     * Defines which entry is evicted when a partition exceeds its bounds.
+     */
+    public enum EvictionPolicy
+    {
+        /**
+         * Evicts the least recently used entry.
+         */
+        LRU,
+
+        /**
+         * Evicts the least frequently used entry among a sample of the least recently used ones.
+         * Frequencies of the sampled entries are halved on each eviction so entries that are no
+         * longer used eventually become candidates.
+         */
+        LFU
+    }
+
+    private final ConcurrentMap<String, Partition<T>> partitions = new ConcurrentHashMap<String, Partition<T>>();
+    private final int concurrencyLevel;
+    private final long expirationTickMillis;
+    private volatile int entryTTL = UNBOUNDED;
+    private volatile int maxEntries = UNBOUNDED;
+    private volatile long maxBytes = UNBOUNDED;
+    private volatile EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    private String name = StripedInMemoryObjectStore.class.getSimpleName() + "-" + instanceCounter.incrementAndGet();
+    private MuleContext muleContext;
+
+    public StripedInMemoryObjectStore()
+    {
+        this(Integer.getInteger(CONCURRENCY_LEVEL_PROPERTY_KEY, DEFAULT_CONCURRENCY_LEVEL),
+             Long.getLong(EXPIRATION_TICK_PROPERTY_KEY, DEFAULT_EXPIRATION_TICK_MILLIS));
+    }
+
+    /**
+     * @param concurrencyLevel number of stripes of each partition, rounded up to a power of two
+     * @param expirationTickMillis resolution of the entries expiration
+     */
+    public StripedInMemoryObjectStore(int concurrencyLevel, long expirationTickMillis)
+    {
+        checkArgument(concurrencyLevel > 0, "concurrencyLevel must be greater than zero");
+        checkArgument(expirationTickMillis > 0, "expirationTickMillis must be greater than zero");
+        int stripes = 1;
+        while (stripes < concurrencyLevel)
+        {
+            stripes <<= 1;
+        }
+        this.concurrencyLevel = stripes;
+        this.expirationTickMillis = expirationTickMillis;
+    }
+
+    /**
+     * Sets the name that identifies the statistics of this store. Must be set before any partition is created.
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+        for (Partition<T> partition : partitions.values())
+        {
+            registerStatistics(partition.statistics);
+        }
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Serializable key, String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = partitions.get(partitionName);
+        if (partition == null)
+        {
+            return false;
+        }
+
+        Stripe<T> stripe = partition.stripeFor(key);
+        stripe.lock.lock();
+        try
+        {
+            expire(partition, stripe);
+            return stripe.entries.containsKey(key);
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void store(Serializable key, T value, String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = getPartition(partitionName);
+        Stripe<T> stripe = partition.stripeFor(key);
+        stripe.lock.lock();
+        try
+        {
+            expire(partition, stripe);
+            if (stripe.entries.containsKey(key))
+            {
+                throw new ObjectAlreadyExistsException();
+            }
+
+            Entry<T> entry = new Entry<T>(key, value, getCurrentNanoTime(), estimateSize(key, value));
+            stripe.entries.put(key, entry);
+            stripe.bytes += entry.size;
+            schedule(partition, stripe, entry);
+
+            int evicted = evict(stripe, entry, share(maxEntries), share(maxBytes));
+            if (evicted > 0)
+            {
+                partition.statistics.incEvictions(evicted);
+            }
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public T retrieve(Serializable key, String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = getPartition(partitionName);
+        Stripe<T> stripe = partition.stripeFor(key);
+        stripe.lock.lock();
+        try
+        {
+            expire(partition, stripe);
+            Entry<T> entry = stripe.entries.get(key);
+            if (entry == null)
+            {
+                partition.statistics.incMisses();
+                throw new ObjectDoesNotExistException();
+            }
+            if (entry.frequency < Integer.MAX_VALUE)
+            {
+                entry.frequency++;
+            }
+            partition.statistics.incHits();
+            return entry.value;
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public T remove(Serializable key, String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = getPartition(partitionName);
+        Stripe<T> stripe = partition.stripeFor(key);
+        stripe.lock.lock();
+        try
+        {
+            expire(partition, stripe);
+            Entry<T> entry = stripe.entries.get(key);
+            if (entry == null)
+            {
+                throw new ObjectDoesNotExistException();
+            }
+            stripe.remove(entry);
+            return entry.value;
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys(String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = getPartition(partitionName);
+        List<Serializable> keys = new ArrayList<Serializable>();
+        for (Stripe<T> stripe : partition.stripes)
+        {
+            stripe.lock.lock();
+            try
+            {
+                expire(partition, stripe);
+                keys.addAll(stripe.entries.keySet());
+            }
+            finally
+            {
+                stripe.lock.unlock();
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public void clear(String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = partitions.get(partitionName);
+        if (partition != null)
+        {
+            partition.clear();
+        }
+    }
+
+    @Override
+    public List<String> allPartitions() throws ObjectStoreException
+    {
+        return new ArrayList<String>(partitions.keySet());
+    }
+
+    @Override
+    public void open(String partitionName) throws ObjectStoreException
+    {
+        // Nothing to do
+    }
+
+    @Override
+    public void close(String partitionName) throws ObjectStoreException
+    {
+        // Nothing to do
+    }
+
+    @Override
+    public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
+    {
+        expire(entryTTL, maxEntries, DEFAULT_PARTITION);
+    }
+
+    /**
+     * Expires the entries of a partition older than the given time to live and evicts entries until
+     * there are no more than the given maximum.
+     * <p/>
+     * Entries are scheduled for expiration using the time to live of their partition, so expiring with
+     * a different time to live than the one used before reschedules all the entries of the partition.
+     * This is a one time cost when periodic expiration always uses the same time to live.
+     */
+    @Override
+    public void expire(int entryTTL, int maxEntries, String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = getPartition(partitionName);
+        boolean reschedule = partition.entryTTL != entryTTL;
+        partition.entryTTL = entryTTL;
+        int expiredEntries = 0;
+        for (Stripe<T> stripe : partition.stripes)
+        {
+            stripe.lock.lock();
+            try
+            {
+                if (reschedule)
+                {
+                    stripe.reschedule(entryTTL);
+                }
+                expiredEntries += expire(partition, stripe);
+            }
+            finally
+            {
+                stripe.lock.unlock();
+            }
+        }
+
+        int evictedEntries = trimToMaxSize(partition, maxEntries);
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Expired " + expiredEntries + " old entries and " + evictedEntries + " excess entries");
+        }
+    }
+
+    @Override
+    public void disposePartition(String partitionName) throws ObjectStoreException
+    {
+        Partition<T> partition = partitions.remove(partitionName);
+        if (partition != null)
+        {
+            partition.clear();
+            if (muleContext != null)
+            {
+                muleContext.getStatistics().remove(partition.statistics);
+            }
+        }
+    }
+
+    /**
+     * @param partitionName name of the partition
+     * @return the usage statistics of the partition, or null if it does not exist
+     */
+    public ObjectStoreStatistics getStatistics(String partitionName)
+    {
+        Partition<T> partition = partitions.get(partitionName);
+        return partition == null ? null : partition.statistics;
+    }
+
+    /**
+     * Sets the time to live in milliseconds of the entries of new partitions.
+     */
+    public void setEntryTTL(int entryTTL)
+    {
+        this.entryTTL = entryTTL;
+    }
+
+    public int getEntryTTL()
+    {
+        return entryTTL;
+    }
+
+    /**
+     * Sets the maximum number of entries of each partition.
+     */
+    public void setMaxEntries(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the maximum estimated size in bytes of the entries of each partition.
+     *
+     * @see #estimateSize(Serializable, Serializable)
+     */
+    public void setMaxBytes(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return evictionPolicy;
+    }
+
+    protected long getCurrentNanoTime()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Estimates the memory taken by an entry, used to enforce the maximum size in bytes of the
+     * partitions. Subclasses may override this method to provide a more accurate estimation for the
+     * values they store.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @return the estimated size in bytes
+     */
+    protected long estimateSize(Serializable key, T value)
+    {
+        return ENTRY_OVERHEAD + estimateObjectSize(key) + estimateObjectSize(value);
+    }
+
+    private long estimateObjectSize(Object object)
+    {
+        if (object instanceof byte[])
+        {
+            return ((byte[]) object).length;
+        }
+        else if (object instanceof CharSequence)
+        {
+            return 2L * ((CharSequence) object).length();
+        }
+        else if (object instanceof Number || object instanceof Boolean || object instanceof Character)
+        {
+            return 16;
+        }
+        return DEFAULT_OBJECT_SIZE;
+    }
+
+    private Partition<T> getPartition(String partitionName)
+    {
+        Partition<T> partition = partitions.get(partitionName);
+        if (partition == null)
+        {
+            partition = new Partition<T>(name, partitionName, entryTTL, concurrencyLevel, expirationTickMillis, getCurrentNanoTime());
+            Partition<T> previous = partitions.putIfAbsent(partitionName, partition);
+            if (previous != null)
+            {
+                partition = previous;
+            }
+            else
+            {
+                registerStatistics(partition.statistics);
+            }
+        }
+        return partition;
+    }
+
+    private void registerStatistics(ObjectStoreStatistics statistics)
+    {
+        if (muleContext != null)
+        {
+            statistics.setEnabled(muleContext.getStatistics().isEnabled());
+            muleContext.getStatistics().add(statistics);
+        }
+    }
+
+    private long share(long bound)
+    {
+        return bound == UNBOUNDED ? UNBOUNDED : (bound + concurrencyLevel - 1) / concurrencyLevel;
+    }
+
+    private void schedule(Partition<T> partition, Stripe<T> stripe, Entry<T> entry)
+    {
+        int ttl = partition.entryTTL;
+        if (ttl != UNBOUNDED)
+        {
+            entry.timeout = stripe.wheel.schedule(entry, entry.createdNanos + MILLISECONDS.toNanos(ttl));
+        }
+    }
+
+    /**
+     * Expires the entries of the stripe that are due. Must be invoked holding the stripe lock.
+     */
+    private int expire(Partition<T> partition, Stripe<T> stripe)
+    {
+        int expired = stripe.wheel.advance(getCurrentNanoTime(), stripe::expired);
+        if (expired > 0)
+        {
+            partition.statistics.incExpirations(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Evicts entries of the stripe until it fits the given bounds. Must be invoked holding the
+     * stripe lock.
+     */
+    private int evict(Stripe<T> stripe, Entry<T> keep, long maxEntries, long maxBytes)
+    {
+        int evicted = 0;
+        while ((maxEntries != UNBOUNDED && stripe.entries.size() > maxEntries)
+               || (maxBytes != UNBOUNDED && stripe.bytes > maxBytes))
+        {
+            Entry<T> victim = selectVictim(stripe, keep);
+            if (victim == null)
+            {
+                break;
+            }
+            stripe.remove(victim);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private Entry<T> selectVictim(Stripe<T> stripe, Entry<T> keep)
+    {
+        Iterator<Entry<T>> iterator = stripe.entries.values().iterator();
+        if (evictionPolicy == EvictionPolicy.LRU)
+        {
+            while (iterator.hasNext())
+            {
+                Entry<T> candidate = iterator.next();
+                if (candidate != keep)
+                {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        List<Entry<T>> sample = new ArrayList<Entry<T>>(LFU_SAMPLE_SIZE);
+        Entry<T> victim = null;
+        while (iterator.hasNext() && sample.size() < LFU_SAMPLE_SIZE)
+        {
+            Entry<T> candidate = iterator.next();
+            if (candidate != keep)
+            {
+                sample.add(candidate);
+                if (victim == null || candidate.frequency < victim.frequency)
+                {
+                    victim = candidate;
+                }
+            }
+        }
+        for (Entry<T> entry : sample)
+        {
+            entry.frequency >>>= 1;
+        }
+        return victim;
+    }
+
+    /**
+     * Evicts entries from the stripes of the partition until it holds no more than the given
+     * number of entries. Entries are evicted from each stripe proportionally to its size.
+     */
+    private int trimToMaxSize(Partition<T> partition, int maxEntries)
+    {
+        if (maxEntries == UNBOUNDED)
+        {
+            return 0;
+        }
+
+        int total = partition.size();
+        int excess = total - maxEntries;
+        if (excess <= 0)
+        {
+            return 0;
+        }
+
+        int evicted = 0;
+        for (Stripe<T> stripe : partition.stripes)
+        {
+            stripe.lock.lock();
+            try
+            {
+                int toEvict = (int) ((long) excess * stripe.entries.size() / total);
+                evicted += evict(stripe, Math.min(toEvict, excess - evicted));
+            }
+            finally
+            {
+                stripe.lock.unlock();
+            }
+        }
+        // rounding leftovers are evicted one at a time from each stripe
+        boolean progress = true;
+        while (evicted < excess && progress)
+        {
+            progress = false;
+            for (int i = 0; i < partition.stripes.length && evicted < excess; i++)
+            {
+                Stripe<T> stripe = partition.stripes[i];
+                stripe.lock.lock();
+                try
+                {
+                    if (evict(stripe, 1) > 0)
+                    {
+                        evicted++;
+                        progress = true;
+                    }
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        partition.statistics.incEvictions(evicted);
+        return evicted;
+    }
+
+    /**
+     * Evicts the given number of entries from the stripe. Must be invoked holding the stripe lock.
+     */
+    private int evict(Stripe<T> stripe, int count)
+    {
+        int evicted = 0;
+        Entry<T> victim;
+        while (evicted < count && (victim = selectVictim(stripe, null)) != null)
+        {
+            stripe.remove(victim);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private static class Partition<T>
+    {
+
+        private final Stripe<T>[] stripes;
+        private final ObjectStoreStatistics statistics;
+        private volatile int entryTTL;
+
+        @SuppressWarnings("unchecked")
+        private Partition(String storeName, String name, int entryTTL, int concurrencyLevel, long expirationTickMillis, long startNanos)
+        {
+            this.statistics = new ObjectStoreStatistics(storeName, name);
+            this.entryTTL = entryTTL;
+            this.stripes = new Stripe[concurrencyLevel];
+            for (int i = 0; i < stripes.length; i++)
+            {
+                stripes[i] = new Stripe<T>(expirationTickMillis, startNanos);
+            }
+        }
+
+        private Stripe<T> stripeFor(Serializable key)
+        {
+            int hash = key.hashCode();
+            hash ^= hash >>> 16;
+            return stripes[hash & (stripes.length - 1)];
+        }
+
+        private int size()
+        {
+            int size = 0;
+            for (Stripe<T> stripe : stripes)
+            {
+                stripe.lock.lock();
+                try
+                {
+                    size += stripe.entries.size();
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+            return size;
+        }
+
+        private void clear()
+        {
+            for (Stripe<T> stripe : stripes)
+            {
+                stripe.lock.lock();
+                try
+                {
+                    stripe.entries.clear();
+                    stripe.wheel.clear();
+                    stripe.bytes = 0;
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static class Stripe<T>
+    {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // access ordered so that the least recently used entries come first
+        private final LinkedHashMap<Serializable, Entry<T>> entries = new LinkedHashMap<Serializable, Entry<T>>(16, 0.75f, true);
+        private final HierarchicalTimingWheel<Entry<T>> wheel;
+        private long bytes;
+
+        private Stripe(long expirationTickMillis, long startNanos)
+        {
+            this.wheel = new HierarchicalTimingWheel<Entry<T>>(expirationTickMillis, MILLISECONDS, startNanos);
+        }
+
+        private void remove(Entry<T> entry)
+        {
+            entries.remove(entry.key);
+            bytes -= entry.size;
+            if (entry.timeout != null)
+            {
+                wheel.cancel(entry.timeout);
+            }
+        }
+
+        private void expired(Entry<T> entry)
+        {
+            entries.remove(entry.key);
+            bytes -= entry.size;
+        }
+
+        private void reschedule(int entryTTL)
+        {
+            wheel.clear();
+            for (Entry<T> entry : entries.values())
+            {
+                entry.timeout = entryTTL == UNBOUNDED ? null : wheel.schedule(entry, entry.createdNanos + MILLISECONDS.toNanos(entryTTL));
+            }
+        }
+    }
+
+    private static class Entry<T>
+    {
+
+        private final Serializable key;
+        private final T value;
+        private final long createdNanos;
+        private final long size;
+        private int frequency;
+        private HierarchicalTimingWheel.Timeout<Entry<T>> timeout;
+
+        private Entry(Serializable key, T value, long createdNanos, long size)
+        {
+            this.key = key;
+            this.value = value;
+            this.createdNanos = createdNanos;
+            this.size = size;
+        }
+    }
+}
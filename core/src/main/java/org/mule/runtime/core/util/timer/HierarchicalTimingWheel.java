@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.timer;
+
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that keeps track of elements that have to be processed once a
+ * deadline is reached.
+ * <p/>
+ * Time is divided in ticks of a fixed duration. Elements due in the next {@value #WHEEL_SIZE}
+ * ticks are kept in the slots of the first level wheel, while elements due further in the future
+ * are kept in coarser grained levels and are cascaded down to the finer levels as time advances.
+ * Scheduling and cancelling an element are O(1) operations and advancing the wheel only visits
+ * the elements that are due, no matter how many elements are scheduled.
+ * <p/>
+ * Elements are never expired before their deadline, but may be expired up to one tick after it.
+ * Deadlines beyond the range covered by all the levels are parked in the last level and
+ * rescheduled when that slot is cascaded.
+ * <p/>
+ * This class is not thread safe, access to it must be guarded by the caller.
+ *
+ * @param <E> type of the scheduled elements
+ */
+public class HierarchicalTimingWheel<E>
+{
+
+    private static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout<E>[][] wheels;
+    private final int[] levelSizes = new int[LEVELS];
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickDuration duration of each tick
+     * @param unit time unit of the tick duration
+     * @param startNanos value of {@link System#nanoTime()} taken as the origin of time for the wheel
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickDuration, TimeUnit unit, long startNanos)
+    {
+        checkArgument(tickDuration > 0, "tickDuration must be greater than zero");
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = startNanos;
+        this.wheels = new Timeout[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++)
+        {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++)
+            {
+                wheels[level][slot] = new Timeout<E>(null, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Schedules an element to be expired once the given deadline is reached.
+     *
+     * @param element the element to schedule
+     * @param deadlineNanos the deadline, as a value of {@link System#nanoTime()}
+     * @return a handle that allows to cancel the scheduled element
+     */
+    public Timeout<E> schedule(E element, long deadlineNanos)
+    {
+        long elapsed = deadlineNanos - startNanos;
+        long deadlineTick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+        Timeout<E> timeout = new Timeout<E>(element, deadlineNanos, deadlineTick);
+        add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a scheduled element. Cancelling an element that already expired or was cancelled
+     * has no effect.
+     *
+     * @param timeout the handle returned when the element was scheduled
+     * @return whether the element was still scheduled
+     */
+    public boolean cancel(Timeout<E> timeout)
+    {
+        if (!timeout.isScheduled())
+        {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given time, handing every element whose deadline was reached to
+     * the given consumer. Expired elements are no longer scheduled by the time the consumer is
+     * invoked.
+     *
+     * @param nowNanos current value of {@link System#nanoTime()}
+     * @param expired consumer of the expired elements
+     * @return the number of expired elements
+     */
+    public int advance(long nowNanos, Consumer<E> expired)
+    {
+        long nowTick = (nowNanos - startNanos) / tickNanos;
+        int expiredCount = 0;
+        while (currentTick <= nowTick)
+        {
+            if (size == 0)
+            {
+                currentTick = nowTick + 1;
+                break;
+            }
+
+            // nothing can happen until the first level holding elements cascades
+            int emptyLevels = 0;
+            while (emptyLevels < LEVELS - 1 && levelSizes[emptyLevels] == 0)
+            {
+                emptyLevels++;
+            }
+            long levelSpan = 1L << (WHEEL_BITS * emptyLevels);
+            if (emptyLevels > 0 && (currentTick & (levelSpan - 1)) != 0)
+            {
+                currentTick = Math.min((currentTick | (levelSpan - 1)) + 1, nowTick + 1);
+                continue;
+            }
+
+            int index = (int) (currentTick & WHEEL_MASK);
+            if (index == 0)
+            {
+                for (int level = 1; level < LEVELS && cascade(level) == 0; level++)
+                {
+                    // keep cascading while the coarser levels also wrap around
+                }
+            }
+
+            Timeout<E> head = wheels[0][index];
+            while (head.next != head)
+            {
+                Timeout<E> timeout = head.next;
+                unlink(timeout);
+                expiredCount++;
+                expired.accept(timeout.element);
+            }
+            currentTick++;
+        }
+        return expiredCount;
+    }
+
+    /**
+     * Removes every scheduled element.
+     */
+    public void clear()
+    {
+        for (Timeout<E>[] wheel : wheels)
+        {
+            for (Timeout<E> head : wheel)
+            {
+                while (head.next != head)
+                {
+                    head.next.unlink();
+                }
+            }
+        }
+        Arrays.fill(levelSizes, 0);
+        size = 0;
+    }
+
+    /**
+     * @return the number of scheduled elements
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    private int cascade(int level)
+    {
+        int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout<E> head = wheels[level][index];
+        Timeout<E> timeout = head.next;
+        head.next = head;
+        head.prev = head;
+        while (timeout != head)
+        {
+            Timeout<E> next = timeout.next;
+            levelSizes[level]--;
+            timeout.next = null;
+            timeout.prev = null;
+            add(timeout);
+            timeout = next;
+        }
+        return index;
+    }
+
+    private void add(Timeout<E> timeout)
+    {
+        long expires = timeout.deadlineTick;
+        long ticks = expires - currentTick;
+        int level = 0;
+        if (ticks < 0)
+        {
+            expires = currentTick;
+        }
+        else if (ticks >= WHEEL_SIZE)
+        {
+            if (ticks >= MAX_TICKS)
+            {
+                expires = currentTick + MAX_TICKS - 1;
+                ticks = MAX_TICKS - 1;
+            }
+            level = 1;
+            while (ticks >= 1L << (WHEEL_BITS * (level + 1)))
+            {
+                level++;
+            }
+        }
+        timeout.level = level;
+        timeout.linkBefore(wheels[level][(int) ((expires >>> (WHEEL_BITS * level)) & WHEEL_MASK)]);
+        levelSizes[level]++;
+    }
+
+    private void unlink(Timeout<E> timeout)
+    {
+        levelSizes[timeout.level]--;
+        size--;
+        timeout.unlink();
+    }
+
+    /**
+     * Handle of an element scheduled in a {@link HierarchicalTimingWheel}.
+     *
+     * @param <E> type of the scheduled element
+     */
+    public static final class Timeout<E>
+    {
+
+        private final E element;
+        private final long deadlineNanos;
+        private final long deadlineTick;
+        private int level;
+        private Timeout<E> prev;
+        private Timeout<E> next;
+
+        private Timeout(E element, long deadlineNanos, long deadlineTick)
+        {
+            this.element = element;
+            this.deadlineNanos = deadlineNanos;
+            this.deadlineTick = deadlineTick;
+            // slot heads are empty circular lists
+            if (element == null)
+            {
+                prev = this;
+                next = this;
+            }
+        }
+
+        public E getElement()
+        {
+            return element;
+        }
+
+        public long getDeadlineNanos()
+        {
+            return deadlineNanos;
+        }
+
+        public boolean isScheduled()
+        {
+            return next != null;
+        }
+
+        private void linkBefore(Timeout<E> head)
+        {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink()
+        {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.mule.runtime.core.api.routing.ResponseTimeoutException;
 import org.mule.runtime.core.config.i18n.MessageFactory;
 import org.mule.runtime.core.execution.MessageProcessorExecutionTemplate;
 
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +29,9 @@ import java.util.concurrent.TimeUnit;
  * used in this latter manner, this class provides semmantics similar to
  * {@link Future#get(long, TimeUnit)} but with some differences around exception
  * handling, cancellation, etc (see {@link #getResult(long, TimeUnit)}).
+ * <p/>
+ * When a completion queue is given, the work adds itself to it once it finishes, so the
+ * results of several works can be collected in the order they become available.
  * 
  * @since 3.5.0
  */
@@ -39,11 +43,26 @@ public class ProcessingMuleEventWork extends AbstractMuleEventWork
     private final MessageProcessor messageProcessor;
     private MuleEvent resultEvent;
     private MuleException exception;
+    private final Queue<? super ProcessingMuleEventWork> completionQueue;
+    private final Object runnerLock = new Object();
+    private Thread runner;
+    private volatile boolean cancelled = false;
+    private boolean interrupted = false;
 
     public ProcessingMuleEventWork(MessageProcessor messageProcessor, MuleEvent muleEvent)
+    {
+        this(messageProcessor, muleEvent, null);
+    }
+
+    /**
+     * @param completionQueue queue this work is added to once it finishes. Can be {@code null}
+     */
+    public ProcessingMuleEventWork(MessageProcessor messageProcessor, MuleEvent muleEvent,
+                                   Queue<? super ProcessingMuleEventWork> completionQueue)
     {
         super(muleEvent);
         this.messageProcessor = messageProcessor;
+        this.completionQueue = completionQueue;
     }
 
     /**
@@ -52,13 +71,22 @@ public class ProcessingMuleEventWork extends AbstractMuleEventWork
      * sucessful the result is stored in {@link #resultEvent} or if it throws
      * exception, it will be stored in {@link #exception} Storing the
      * result/exception allows {@link #getResult(long, TimeUnit)} to return the
-     * values
+     * values. If this work was cancelled before it started, the message processor
+     * is not invoked at all
      */
     @Override
     protected void doRun()
     {
         try
         {
+            synchronized (runnerLock)
+            {
+                if (cancelled)
+                {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
             this.resultEvent = messageProcessorExecutionTemplate.execute(messageProcessor, event);
         }
         catch (MuleException e)
@@ -67,10 +95,77 @@ public class ProcessingMuleEventWork extends AbstractMuleEventWork
         }
         finally
         {
+            synchronized (runnerLock)
+            {
+                runner = null;
+                if (interrupted)
+                {
+                    // clear the interruption of the cancellation so it does not leak to the next work of this thread
+                    Thread.interrupted();
+                }
+            }
             this.latch.countDown();
+            if (completionQueue != null)
+            {
+                completionQueue.offer(this);
+            }
         }
     }
 
+    /**
+     * Cancels this work if it hasn't finished yet, without interrupting the thread
+     * running it. If it hasn't started, the message processor will not be invoked,
+     * and if it is running, it is left to finish and its result is discarded by the
+     * caller.
+     */
+    public void cancel()
+    {
+        cancel(false);
+    }
+
+    /**
+     * Cancels this work if it hasn't finished yet. If it hasn't started, the message
+     * processor will not be invoked, and if it is running and
+     * {@code mayInterruptIfRunning} is {@code true}, the thread running it is
+     * interrupted. Since the message processor may ignore the interruption, the work
+     * may still finish normally after being cancelled.
+     * <p/>
+     * Works usually run on pooled threads that are shared with other components, so
+     * interruption should only be requested when the message processor is known to
+     * handle it, as it may otherwise abort blocking operations such as transactional
+     * resources or connections in an unexpected state.
+     *
+     * @param mayInterruptIfRunning whether the thread running this work should be interrupted
+     */
+    public void cancel(boolean mayInterruptIfRunning)
+    {
+        synchronized (runnerLock)
+        {
+            if (!cancelled && !isDone())
+            {
+                cancelled = true;
+                if (mayInterruptIfRunning && runner != null)
+                {
+                    interrupted = true;
+                    runner.interrupt();
+                }
+            }
+        }
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * @return whether {@link #doRun()} already finished
+     */
+    public boolean isDone()
+    {
+        return latch.getCount() == 0;
+    }
+
     /**
      * This method is useful for having a thread other than the one executing this
      * work waiting for the result being available. This is similar to
@@ -18,10 +18,14 @@ import org.mule.runtime.module.http.internal.domain.request.ClientConnection;
 import org.mule.runtime.module.http.internal.domain.request.HttpRequestContext;
 import org.mule.runtime.module.http.internal.domain.response.HttpResponse;
 import org.mule.runtime.module.http.internal.listener.RequestHandlerProvider;
+import org.mule.runtime.module.http.internal.listener.ResponseStreamingStatistics;
+import org.mule.runtime.module.http.internal.listener.ServerAddress;
+import org.mule.runtime.module.http.internal.listener.ServerAddressMap;
 import org.mule.runtime.module.http.internal.listener.async.HttpResponseReadyCallback;
 import org.mule.runtime.module.http.internal.listener.async.RequestHandler;
 import org.mule.runtime.module.http.internal.listener.async.ResponseStatusCallback;
 import org.mule.runtime.module.http.internal.listener.grizzly.GrizzlyHttpRequestAdapter;
+import org.mule.runtime.module.http.internal.listener.grizzly.GrizzlyServer;
 import org.mule.runtime.module.http.internal.listener.grizzly.ResponseCompletionHandler;
 import org.mule.runtime.module.http.internal.listener.grizzly.ResponseStreamingCompletionHandler;
 
@@ -44,10 +48,12 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
 {
 
     private final RequestHandlerProvider requestHandlerProvider;
+    private final ServerAddressMap<GrizzlyServer> servers;
 
-    GrizzlyRequestDispatcherFilter(final RequestHandlerProvider requestHandlerProvider)
+    GrizzlyRequestDispatcherFilter(final RequestHandlerProvider requestHandlerProvider, final ServerAddressMap<GrizzlyServer> servers)
     {
         this.requestHandlerProvider = requestHandlerProvider;
+        this.servers = servers;
     }
 
     @Override
@@ -91,7 +97,11 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
                 {
                     if (httpResponse.getEntity() instanceof InputStreamHttpEntity)
                     {
-                        new ResponseStreamingCompletionHandler(ctx, request, httpResponse, responseStatusCallback).start();
+                        final GrizzlyServer server = servers.get(new ServerAddress(ip, port));
+                        // the server may have been removed while the response was being built
+                        final ResponseStreamingStatistics statistics = server != null ? server.getResponseStreamingStatistics()
+                                                                                      : new ResponseStreamingStatistics();
+                        new ResponseStreamingCompletionHandler(ctx, request, httpResponse, responseStatusCallback, statistics).start();
                     }
                     else
                     {
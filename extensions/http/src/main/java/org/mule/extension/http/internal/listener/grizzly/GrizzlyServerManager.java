@@ -22,6 +22,7 @@ import org.mule.runtime.module.http.internal.listener.HttpListenerRegistry;
 import org.mule.runtime.module.http.internal.listener.HttpServerManager;
 import org.mule.runtime.module.http.internal.listener.Server;
 import org.mule.runtime.module.http.internal.listener.ServerAddress;
+import org.mule.runtime.module.http.internal.listener.ServerAddressMap;
 import org.mule.runtime.module.http.internal.listener.grizzly.ExecutorPerServerAddressIOStrategy;
 import org.mule.runtime.module.http.internal.listener.grizzly.GrizzlyAddressDelegateFilter;
 import org.mule.runtime.module.http.internal.listener.grizzly.GrizzlyServer;
@@ -71,7 +72,7 @@ public class GrizzlyServerManager implements HttpServerManager
     public GrizzlyServerManager(String threadNamePrefix, HttpListenerRegistry httpListenerRegistry, TcpServerSocketProperties serverSocketProperties) throws IOException
     {
         this.httpListenerRegistry = httpListenerRegistry;
-        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry);
+        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry, new ServerAddressMap<>(servers));
         sslFilterDelegate = new GrizzlyAddressDelegateFilter<>();
         httpServerFilterDelegate = new GrizzlyAddressDelegateFilter<>();
 
@@ -6,15 +6,19 @@
  */
 package org.mule.module.socket.api.connection.tcp;
 
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
 import static org.mule.module.socket.internal.SocketUtils.configureConnection;
 import org.mule.module.socket.api.connection.ConnectionSettings;
 import org.mule.module.socket.api.connection.ListenerConnection;
 import org.mule.module.socket.api.connection.udp.UdpListenerConnection;
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
 import org.mule.module.socket.api.protocol.TcpProtocol;
 import org.mule.module.socket.api.socket.tcp.TcpServerSocketProperties;
 import org.mule.module.socket.api.socket.tcp.TcpSocketProperties;
 import org.mule.module.socket.api.source.SocketAttributes;
+import org.mule.module.socket.internal.NonBlockingTcpServer;
 import org.mule.module.socket.internal.socket.factory.SimpleServerSocketFactory;
 import org.mule.module.socket.internal.worker.SocketWorker;
 import org.mule.module.socket.internal.worker.TcpWorker;
@@ -33,6 +37,7 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
 
 /**
  * Implementation of {@link ListenerConnection} for receiving TCP connections.
@@ -45,6 +50,7 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
     private final TcpServerSocketProperties socketProperties;
     private final SimpleServerSocketFactory serverSocketFactory;
     private ServerSocket serverSocket;
+    private NonBlockingTcpServer nonBlockingServer;
 
     public TcpListenerConnection(ConnectionSettings connectionSettings, TcpProtocol protocol, TcpServerSocketProperties socketProperties,
                                  SimpleServerSocketFactory serverSocketFactory) throws ConnectionException
@@ -55,7 +61,10 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
     }
 
     /**
-     * One worker is created per accepted connection.
+     * One worker is created per accepted connection. When {@link TcpServerSocketProperties#isNonBlocking()},
+     * connections are served by a {@link NonBlockingTcpServer} instead and one worker is created each time
+     * a connection has messages to process. Its I/O threads are started on the first invocation, as they
+     * are named after the {@code muleContext}.
      * <p>
      * The new {@link Socket} used for responding has the same {@link TcpSocketProperties} settings as the
      * listener socket used in the {@link Source}.
@@ -67,6 +76,12 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
     @Override
     public SocketWorker listen(MuleContext muleContext, MessageHandler<InputStream, SocketAttributes> messageHandler) throws IOException, ConnectionException
     {
+        if (nonBlockingServer != null)
+        {
+            nonBlockingServer.start(muleContext);
+            return nextNonBlockingWorker(muleContext, messageHandler);
+        }
+
         Socket newConnection = acceptConnection();
         configureConnection(newConnection, socketProperties);
         return new TcpWorker(newConnection, protocol, muleContext, messageHandler);
@@ -75,6 +90,11 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
     @Override
     public void doDisconnect()
     {
+        if (nonBlockingServer != null)
+        {
+            nonBlockingServer.close();
+        }
+
         try
         {
             serverSocket.close();
@@ -93,9 +113,19 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
     @Override
     public void connect() throws ConnectionException
     {
+        ServerSocketChannel serverChannel = null;
+
         try
         {
-            serverSocket = serverSocketFactory.createServerSocket();
+            if (socketProperties.isNonBlocking())
+            {
+                serverChannel = ServerSocketChannel.open();
+                serverSocket = serverChannel.socket();
+            }
+            else
+            {
+                serverSocket = serverSocketFactory.createServerSocket();
+            }
 
             if (socketProperties.getReceiveBufferSize() != null)
             {
@@ -125,6 +155,32 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
             throw new ConnectionException(format("Could not bind socket to host '%s' and port '%d'", connectionSettings.getHost(), connectionSettings.getPort()), e);
         }
 
+        if (serverChannel != null)
+        {
+            createNonBlockingServer(serverChannel);
+        }
+    }
+
+    private void createNonBlockingServer(ServerSocketChannel serverChannel) throws ConnectionException
+    {
+        if (!(protocol instanceof NonBlockingTcpProtocol))
+        {
+            throw new ConnectionException(format("Protocol '%s' does not support non blocking listeners", protocol.getClass().getName()));
+        }
+
+        int ioThreads = socketProperties.getIoThreads() != null
+                        ? socketProperties.getIoThreads()
+                        : min(4, getRuntime().availableProcessors());
+        String name = format("socket.listener.%s:%d", connectionSettings.getHost(), connectionSettings.getPort());
+
+        try
+        {
+            nonBlockingServer = new NonBlockingTcpServer(name, serverChannel, (NonBlockingTcpProtocol) protocol, socketProperties, ioThreads);
+        }
+        catch (IOException e)
+        {
+            throw new ConnectionException("Could not create non blocking TCP listener", e);
+        }
     }
 
     /**
@@ -146,6 +202,25 @@ public final class TcpListenerConnection extends AbstractTcpConnection implement
         return ConnectionValidationResult.success();
     }
 
+    private SocketWorker nextNonBlockingWorker(MuleContext muleContext, MessageHandler<InputStream, SocketAttributes> messageHandler) throws ConnectionException, IOException
+    {
+        try
+        {
+            return nonBlockingServer.nextWorker(muleContext, messageHandler);
+        }
+        catch (IOException e)
+        {
+            if (!wasDisconnected)
+            {
+                throw new ConnectionException("An error occurred while listening for new TCP messages", e);
+            }
+
+            LOGGER.debug("TCP listener socket has been gracefully closed");
+
+            throw e;
+        }
+    }
+
     /**
      * @return a {@link Socket} from a received connection
      * @throws ConnectionException    if the socket was closed by a different means than invoking {@link TcpListenerConnection#disconnect}
@@ -30,6 +30,13 @@ public class CustomClassLoadingLengthProtocol extends LengthProtocol
         return new ClassLoaderObjectInputStream(this.getClassLoader(), is);
     }
 
+    @Override
+    public InputStream readFrame(byte[] frame) throws IOException
+    {
+        InputStream payload = super.readFrame(frame);
+        return payload == null ? null : new ClassLoaderObjectInputStream(this.getClassLoader(), payload);
+    }
+
     public ClassLoader getClassLoader()
     {
         if (this.classLoader == null)
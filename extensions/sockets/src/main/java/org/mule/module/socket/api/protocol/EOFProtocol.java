@@ -6,8 +6,12 @@
  */
 package org.mule.module.socket.api.protocol;
 
+import static java.lang.Math.min;
 import org.mule.runtime.extension.api.annotation.Alias;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
 /**
  * This protocol is an application level {@link TcpProtocol} that does nothing.
  * Reading is terminated by the stream being closed by the client.
@@ -16,7 +20,7 @@ import org.mule.runtime.extension.api.annotation.Alias;
  * @since 4.0
  */
 @Alias("eof-protocol")
-public class EOFProtocol extends DirectProtocol
+public class EOFProtocol extends DirectProtocol implements NonBlockingTcpProtocol
 {
 
     /**
@@ -32,4 +36,61 @@ public class EOFProtocol extends DirectProtocol
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new EOFFrameDecoder();
+    }
+
+    /**
+     * Keeps everything that is read as a single frame until the input ends.
+     */
+    private static class EOFFrameDecoder implements TcpFrameDecoder
+    {
+
+        private static final int CHUNK_SIZE = 4 * 1024;
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        // direct buffers have no array, so they are copied through this one
+        private byte[] chunk;
+
+        @Override
+        public byte[] decode(ByteBuffer buffer)
+        {
+            if (buffer.hasArray())
+            {
+                data.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
+            else
+            {
+                if (chunk == null)
+                {
+                    chunk = new byte[CHUNK_SIZE];
+                }
+                while (buffer.hasRemaining())
+                {
+                    int length = min(buffer.remaining(), chunk.length);
+                    buffer.get(chunk, 0, length);
+                    data.write(chunk, 0, length);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public byte[] flush(boolean closed)
+        {
+            if (!closed || data.size() == 0)
+            {
+                return null;
+            }
+            byte[] frame = data.toByteArray();
+            data.reset();
+            return frame;
+        }
+    }
 }
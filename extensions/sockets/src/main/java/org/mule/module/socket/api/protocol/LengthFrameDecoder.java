@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.api.protocol;
+
+import static java.lang.String.format;
+import static org.mule.module.socket.api.protocol.LengthProtocol.LENGTH_EXCEEDED;
+import org.mule.module.socket.api.exceptions.LengthExceededException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link TcpFrameDecoder} for data preceded by its length, as written by {@link LengthProtocol}.
+ * Frames include the length, and the ones longer than the limit fail as soon as it is read.
+ *
+ * @since 4.0
+ */
+final class LengthFrameDecoder implements TcpFrameDecoder
+{
+
+    static final int SIZE_INT = Integer.BYTES;
+
+    private final int maxMessageLength;
+    private final ByteBuffer header = ByteBuffer.allocate(SIZE_INT);
+    private byte[] frame;
+    private int position;
+
+    LengthFrameDecoder(int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(ByteBuffer buffer) throws IOException
+    {
+        if (frame == null)
+        {
+            while (header.hasRemaining() && buffer.hasRemaining())
+            {
+                header.put(buffer.get());
+            }
+            if (header.hasRemaining())
+            {
+                return null;
+            }
+
+            int length = header.getInt(0);
+            if (length < 0 || (maxMessageLength > 0 && length > maxMessageLength))
+            {
+                throw new LengthExceededException(format(LENGTH_EXCEEDED, length, maxMessageLength));
+            }
+            frame = new byte[SIZE_INT + length];
+            System.arraycopy(header.array(), 0, frame, 0, SIZE_INT);
+            position = SIZE_INT;
+        }
+
+        int count = Math.min(buffer.remaining(), frame.length - position);
+        buffer.get(frame, position, count);
+        position += count;
+        if (position < frame.length)
+        {
+            return null;
+        }
+
+        byte[] complete = frame;
+        frame = null;
+        header.clear();
+        return complete;
+    }
+
+    /**
+     * Partial frames are dropped when the input ends.
+     */
+    @Override
+    public byte[] flush(boolean closed)
+    {
+        return null;
+    }
+}
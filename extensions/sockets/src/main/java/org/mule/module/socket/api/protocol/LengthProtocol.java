@@ -32,7 +32,7 @@ import org.apache.commons.logging.LogFactory;
  *
  * @since 4.0
  */
-public class LengthProtocol extends DirectProtocol
+public class LengthProtocol extends DirectProtocol implements NonBlockingTcpProtocol
 {
 
     private static final Log LOGGER = LogFactory.getLog(LengthProtocol.class);
@@ -101,6 +101,27 @@ public class LengthProtocol extends DirectProtocol
         return buffer;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new LengthFrameDecoder(maxMessageLength);
+    }
+
+    /**
+     * Skips the length that precedes the data instead of reading it again.
+     *
+     * @param frame a frame returned by the decoder of this protocol
+     * @return {@code null} if the message is empty
+     */
+    @Override
+    public InputStream readFrame(byte[] frame) throws IOException
+    {
+        return frame.length == SIZE_INT ? null : new ByteArrayInputStream(frame, SIZE_INT, frame.length - SIZE_INT);
+    }
+
     /**
      * It first writes the an int representing the length of the data to be written, and then writes the actual data.
      *
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.api.protocol;
+
+import org.mule.module.socket.api.socket.tcp.TcpServerSocketProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link TcpProtocol} that can be used by listeners with {@link TcpServerSocketProperties#isNonBlocking()} set.
+ * <p>
+ * The bytes read from each connection go through a {@link TcpFrameDecoder} that finds where each message
+ * ends without blocking, and each complete frame is then turned into a message with {@link #readFrame(byte[])}.
+ *
+ * @since 4.0
+ */
+public interface NonBlockingTcpProtocol extends TcpProtocol
+{
+
+    /**
+     * @return a new decoder that keeps the partial frame of a single connection
+     */
+    TcpFrameDecoder createFrameDecoder();
+
+    /**
+     * Builds a message from the bytes of a complete frame, as {@link #read(InputStream)} would
+     * from a stream holding them.
+     *
+     * @param frame the bytes of the frame, as returned by the {@link TcpFrameDecoder}
+     * @return an {@link InputStream} containing the message, or {@code null} if the frame holds none
+     * @throws IOException if the frame is not valid
+     */
+    default InputStream readFrame(byte[] frame) throws IOException
+    {
+        return read(new ByteArrayInputStream(frame));
+    }
+}
@@ -15,6 +15,7 @@ import org.mule.runtime.extension.api.annotation.param.Optional;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.inject.Inject;
 
@@ -25,13 +26,13 @@ import javax.inject.Inject;
  *
  * @since 4.0
  */
-public class SafeProtocol extends AbstractByteProtocol
+public class SafeProtocol extends AbstractByteProtocol implements NonBlockingTcpProtocol
 {
 
     public static final String COOKIE = "You are using SafeProtocol";
 
-    private final TcpProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
-    private TcpProtocol delegate;
+    private final LengthProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
+    private LengthProtocol delegate;
 
     @Parameter
     @Optional(defaultValue = "-1")
@@ -82,6 +83,15 @@ public class SafeProtocol extends AbstractByteProtocol
         delegate.write(os, data);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new SafeFrameDecoder(cookieProtocol.createFrameDecoder(), delegate.createFrameDecoder());
+    }
+
     /**
      * Writes COOKIE message into #{code outputStream}. It should be invoked before sending the actual data.
      *
@@ -157,4 +167,59 @@ public class SafeProtocol extends AbstractByteProtocol
         }
     }
 
+    /**
+     * Frames made of the cookie followed by the data, both as decoded by {@link LengthProtocol}.
+     * The cookie itself is checked when the frame is read.
+     */
+    private class SafeFrameDecoder implements TcpFrameDecoder
+    {
+
+        private final TcpFrameDecoder cookieDecoder;
+        private final TcpFrameDecoder dataDecoder;
+        private byte[] cookie;
+
+        SafeFrameDecoder(TcpFrameDecoder cookieDecoder, TcpFrameDecoder dataDecoder)
+        {
+            this.cookieDecoder = cookieDecoder;
+            this.dataDecoder = dataDecoder;
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer buffer) throws IOException
+        {
+            if (cookie == null)
+            {
+                try
+                {
+                    cookie = cookieDecoder.decode(buffer);
+                }
+                catch (IOException e)
+                {
+                    helpUser(e);
+                }
+                if (cookie == null)
+                {
+                    return null;
+                }
+            }
+
+            byte[] data = dataDecoder.decode(buffer);
+            if (data == null)
+            {
+                return null;
+            }
+
+            byte[] frame = new byte[cookie.length + data.length];
+            System.arraycopy(cookie, 0, frame, 0, cookie.length);
+            System.arraycopy(data, 0, frame, cookie.length, data.length);
+            cookie = null;
+            return frame;
+        }
+
+        @Override
+        public byte[] flush(boolean closed)
+        {
+            return null;
+        }
+    }
 }
@@ -30,4 +30,13 @@ public class XmlMessageEOFProtocol extends XmlMessageProtocol
         return patternIndex < 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isSplitOnIdle()
+    {
+        return false;
+    }
+
 }
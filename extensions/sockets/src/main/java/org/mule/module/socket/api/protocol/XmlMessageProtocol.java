@@ -6,10 +6,13 @@
  */
 package org.mule.module.socket.api.protocol;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -46,10 +49,11 @@ import java.util.concurrent.ConcurrentMap;
  * be read later.
  * </p>
  */
-public class XmlMessageProtocol extends AbstractByteProtocol
+public class XmlMessageProtocol extends AbstractByteProtocol implements NonBlockingTcpProtocol
 {
 
     private static final String XML_PATTERN = "<?xml";
+    private static final byte[] XML_PATTERN_BYTES = XML_PATTERN.getBytes(StandardCharsets.US_ASCII);
 
     private static final int READ_BUFFER_SIZE = 4096;
     private static final int PUSHBACK_BUFFER_SIZE = READ_BUFFER_SIZE * 2;
@@ -152,4 +156,98 @@ public class XmlMessageProtocol extends AbstractByteProtocol
     {
         return patternIndex < 0 && len == READ_BUFFER_SIZE && available > 0;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new XmlFrameDecoder(isSplitOnIdle());
+    }
+
+    /**
+     * Frames are already split by the decoder, so they are wrapped as they are instead of
+     * going through the pushback streams kept by {@link #read(InputStream)}.
+     */
+    @Override
+    public InputStream readFrame(byte[] frame)
+    {
+        return nullIfEmptyArray(frame);
+    }
+
+    /**
+     * Whether a document ends when there are no more data to read for the moment, in the
+     * same way {@link #isRepeat(int, int, int)} stops reading once the input is not saturated.
+     *
+     * @return {@code true} if the data read so far make a message once the input is idle, {@code false}
+     * if they are only complete when a new document starts or the input ends
+     */
+    protected boolean isSplitOnIdle()
+    {
+        return true;
+    }
+
+    /**
+     * Splits the data where each new xml declaration starts.
+     */
+    private static class XmlFrameDecoder implements TcpFrameDecoder
+    {
+
+        private final boolean splitOnIdle;
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream(READ_BUFFER_SIZE);
+        private int matched;
+
+        XmlFrameDecoder(boolean splitOnIdle)
+        {
+            this.splitOnIdle = splitOnIdle;
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer buffer)
+        {
+            while (buffer.hasRemaining())
+            {
+                byte b = buffer.get();
+                data.write(b);
+                if (b == XML_PATTERN_BYTES[matched])
+                {
+                    matched++;
+                }
+                else
+                {
+                    matched = b == XML_PATTERN_BYTES[0] ? 1 : 0;
+                }
+
+                if (matched == XML_PATTERN_BYTES.length)
+                {
+                    matched = 0;
+                    // a new document starting anywhere but at the beginning ends the previous one
+                    if (data.size() > XML_PATTERN_BYTES.length)
+                    {
+                        byte[] bytes = data.toByteArray();
+                        byte[] frame = new byte[bytes.length - XML_PATTERN_BYTES.length];
+                        System.arraycopy(bytes, 0, frame, 0, frame.length);
+                        data.reset();
+                        data.write(XML_PATTERN_BYTES, 0, XML_PATTERN_BYTES.length);
+                        return frame;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public byte[] flush(boolean closed)
+        {
+            if ((!splitOnIdle && !closed) || data.size() == 0)
+            {
+                return null;
+            }
+            byte[] frame = data.toByteArray();
+            data.reset();
+            matched = 0;
+            return frame;
+        }
+    }
 }
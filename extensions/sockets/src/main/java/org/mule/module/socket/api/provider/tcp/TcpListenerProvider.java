@@ -6,10 +6,12 @@
  */
 package org.mule.module.socket.api.provider.tcp;
 
+import static java.lang.String.format;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNeeded;
 import org.mule.module.socket.api.config.ListenerConfig;
 import org.mule.module.socket.api.connection.ConnectionSettings;
 import org.mule.module.socket.api.connection.tcp.TcpListenerConnection;
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
 import org.mule.module.socket.api.protocol.SafeProtocol;
 import org.mule.module.socket.api.protocol.TcpProtocol;
 import org.mule.module.socket.api.socket.tcp.TcpServerSocketProperties;
@@ -132,6 +134,26 @@ public final class TcpListenerProvider implements ConnectionProvider<ListenerCon
             throw new InitialisationException(CoreMessages.createStaticMessage("KeyStore must be configured for server side SSL"), this);
         }
 
+        if (tcpServerSocketProperties.isNonBlocking())
+        {
+            if (tlsContext != null)
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage("Non blocking TCP listeners do not support TLS"), this);
+            }
+
+            if (!(protocol instanceof NonBlockingTcpProtocol))
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage(
+                        format("Protocol '%s' can not be used by non blocking TCP listeners, it must implement '%s'",
+                               protocol.getClass().getName(), NonBlockingTcpProtocol.class.getName())), this);
+            }
+
+            if (tcpServerSocketProperties.getIoThreads() != null && tcpServerSocketProperties.getIoThreads() < 1)
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage("ioThreads must be greater than zero"), this);
+            }
+        }
+
         initialiseIfNeeded(tlsContext);
     }
 }
@@ -6,6 +6,7 @@
  */
 package org.mule.module.socket.api.socket.tcp;
 
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
 import org.mule.runtime.extension.api.annotation.Parameter;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 
@@ -34,6 +35,23 @@ public class TcpServerSocketProperties extends AbstractTcpSocketProperties
     @Optional(defaultValue = "50")
     private int receiveBacklog = 50;
 
+    /**
+     * If set, the accepted connections are multiplexed on a few I/O threads instead of having a thread
+     * per connection, and only complete messages are handed to the flow. The protocol must implement
+     * {@link NonBlockingTcpProtocol}, and TLS is not supported.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    private boolean nonBlocking = false;
+
+    /**
+     * The number of threads that read and write the connections when {@code nonBlocking} is set.
+     * Defaults to the number of processors, up to 4.
+     */
+    @Parameter
+    @Optional
+    private Integer ioThreads;
+
     /**
      * The maximum queue length for incoming connections.
      */
@@ -51,4 +69,20 @@ public class TcpServerSocketProperties extends AbstractTcpSocketProperties
     {
         return serverTimeout;
     }
+
+    /**
+     * Whether the accepted connections are multiplexed on a few I/O threads instead of having a thread per connection.
+     */
+    public boolean isNonBlocking()
+    {
+        return nonBlocking;
+    }
+
+    /**
+     * The number of threads that read and write the connections when {@link #isNonBlocking()} is set.
+     */
+    public Integer getIoThreads()
+    {
+        return ioThreads;
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.internal;
+
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct {@link ByteBuffer}s of the same size, so that the buffers used to read from
+ * sockets are not allocated, nor copied by the JVM into native memory, on every read.
+ * <p>
+ * Buffers are created when the pool is empty, and the ones released while it is full are left
+ * to the garbage collector.
+ *
+ * @since 4.0
+ */
+public final class ByteBufferPool
+{
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    public ByteBufferPool(int bufferSize, int maxPooledBuffers)
+    {
+        checkArgument(bufferSize > 0, "Buffer size must be greater than zero");
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * @return an empty buffer, ready to be written to
+     */
+    public ByteBuffer acquire()
+    {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null)
+        {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        pooledBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire()}. It must not be used afterwards.
+     */
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer.capacity() != bufferSize)
+        {
+            return;
+        }
+
+        if (pooledBuffers.incrementAndGet() <= maxPooledBuffers)
+        {
+            buffers.add(buffer);
+        }
+        else
+        {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.internal;
+
+import static java.lang.Math.floorMod;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.module.socket.internal.SocketUtils.configureConnection;
+import static org.mule.runtime.core.util.concurrent.ThreadNameHelper.getPrefix;
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
+import org.mule.module.socket.api.socket.tcp.TcpServerSocketProperties;
+import org.mule.module.socket.api.source.SocketAttributes;
+import org.mule.module.socket.internal.worker.SocketWorker;
+import org.mule.module.socket.internal.worker.TcpFrameWorker;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.extension.api.runtime.MessageHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the connections accepted by a {@link ServerSocketChannel} with a fixed number of I/O threads,
+ * each one running a {@link Selector} for its share of the connections.
+ * <p>
+ * The I/O threads read into pooled direct buffers and decode them with the {@link NonBlockingTcpProtocol},
+ * so only complete frames leave them. {@link #nextWorker(MuleContext, MessageHandler)} hands the frames
+ * of a connection to a {@link TcpFrameWorker}, one worker per connection at a time, so that responses
+ * are written in the same order as the messages were received.
+ *
+ * @since 4.0
+ */
+public final class NonBlockingTcpServer
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NonBlockingTcpServer.class);
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final long SELECT_TIMEOUT = 1000;
+    private static final long READY_POLL_TIMEOUT = 1000;
+
+    private final String name;
+    private final ServerSocketChannel serverChannel;
+    private final NonBlockingTcpProtocol protocol;
+    private final TcpServerSocketProperties socketProperties;
+    private final ByteBufferPool bufferPool;
+    private final IoLoop[] ioLoops;
+    private final BlockingQueue<TcpChannel> readyChannels = new LinkedBlockingQueue<>();
+    private final AtomicInteger nextIoLoop = new AtomicInteger();
+    private volatile boolean closed = false;
+    private boolean started = false;
+
+    /**
+     * @param name             used to name the I/O threads, after the prefix of the application
+     * @param serverChannel    a bound {@link ServerSocketChannel}, owned by this server from now on
+     * @param protocol         used to decode the frames of every connection
+     * @param socketProperties applied to every accepted connection
+     * @param ioThreads        the number of I/O threads
+     * @throws IOException if the selectors could not be opened
+     */
+    public NonBlockingTcpServer(String name, ServerSocketChannel serverChannel, NonBlockingTcpProtocol protocol,
+                                TcpServerSocketProperties socketProperties, int ioThreads) throws IOException
+    {
+        this.name = name;
+        this.serverChannel = serverChannel;
+        this.protocol = protocol;
+        this.socketProperties = socketProperties;
+        this.bufferPool = new ByteBufferPool(READ_BUFFER_SIZE, ioThreads);
+        this.ioLoops = new IoLoop[ioThreads];
+
+        try
+        {
+            for (int i = 0; i < ioThreads; i++)
+            {
+                ioLoops[i] = new IoLoop();
+            }
+            serverChannel.configureBlocking(false);
+            serverChannel.register(ioLoops[0].selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e)
+        {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the I/O threads, unless they were already started or this server was closed.
+     *
+     * @param muleContext the context of the application, used to name the I/O threads
+     */
+    public synchronized void start(MuleContext muleContext)
+    {
+        if (started || closed)
+        {
+            return;
+        }
+
+        started = true;
+        for (int i = 0; i < ioLoops.length; i++)
+        {
+            ioLoops[i].start(format("%s%s.io.%d", getPrefix(muleContext), name, i));
+        }
+    }
+
+    /**
+     * Blocks until a connection has frames to process.
+     *
+     * @return a {@link SocketWorker} that will process them
+     * @throws ClosedChannelException if this server was closed
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    public SocketWorker nextWorker(MuleContext muleContext, MessageHandler<InputStream, SocketAttributes> messageHandler) throws IOException
+    {
+        try
+        {
+            TcpChannel channel;
+            do
+            {
+                if (closed)
+                {
+                    throw new ClosedChannelException();
+                }
+                channel = readyChannels.poll(READY_POLL_TIMEOUT, MILLISECONDS);
+            }
+            while (channel == null);
+
+            return new TcpFrameWorker(channel, channel.takeFrames(), protocol, muleContext, messageHandler);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for TCP messages");
+        }
+    }
+
+    public boolean isOpen()
+    {
+        return !closed && serverChannel.isOpen();
+    }
+
+    /**
+     * Stops accepting connections and closes the ones already accepted. The selectors of the
+     * I/O threads that were not started yet are closed right away.
+     */
+    public void close()
+    {
+        synchronized (this)
+        {
+            closed = true;
+        }
+        for (IoLoop ioLoop : ioLoops)
+        {
+            if (ioLoop != null)
+            {
+                ioLoop.stop();
+            }
+        }
+
+        try
+        {
+            serverChannel.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("An error occurred when closing TCP listener socket", e);
+        }
+        readyChannels.clear();
+    }
+
+    void ready(TcpChannel channel)
+    {
+        if (!closed)
+        {
+            readyChannels.add(channel);
+        }
+    }
+
+    ByteBufferPool getBufferPool()
+    {
+        return bufferPool;
+    }
+
+    private void accept()
+    {
+        try
+        {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null)
+            {
+                try
+                {
+                    configureConnection(channel.socket(), socketProperties);
+                    channel.configureBlocking(false);
+                }
+                catch (ConnectionException | IOException e)
+                {
+                    LOGGER.warn("Could not configure accepted TCP connection, closing it", e);
+                    closeQuietly(channel);
+                    continue;
+                }
+
+                final SocketChannel accepted = channel;
+                final IoLoop ioLoop = ioLoops[floorMod(nextIoLoop.getAndIncrement(), ioLoops.length)];
+                ioLoop.execute(() -> ioLoop.register(accepted));
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed)
+            {
+                LOGGER.warn("An error occurred while accepting TCP connections", e);
+            }
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel)
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("TCP connection close failed", e);
+        }
+    }
+
+    /**
+     * An I/O thread. The {@link TcpChannel}s it serves are only read and written from it.
+     */
+    final class IoLoop implements Runnable
+    {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean stopped = false;
+        private boolean running = false;
+        private long nextIdleScan = 0;
+
+        private IoLoop() throws IOException
+        {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Runs the {@code task} in this I/O thread.
+         */
+        void execute(Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void register(SocketChannel socketChannel)
+        {
+            TcpChannel channel = new TcpChannel(NonBlockingTcpServer.this, this, socketChannel, protocol.createFrameDecoder());
+            try
+            {
+                channel.setKey(socketChannel.register(selector, SelectionKey.OP_READ, channel));
+            }
+            catch (ClosedChannelException e)
+            {
+                LOGGER.debug("TCP connection was closed before being registered");
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!stopped)
+                {
+                    selector.select(SELECT_TIMEOUT);
+                    runTasks();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext())
+                    {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try
+                        {
+                            if (key.isAcceptable())
+                            {
+                                accept();
+                            }
+                            else
+                            {
+                                TcpChannel channel = (TcpChannel) key.attachment();
+                                if (key.isReadable())
+                                {
+                                    channel.read();
+                                }
+                                if (key.isValid() && key.isWritable())
+                                {
+                                    channel.flushWrites();
+                                }
+                            }
+                        }
+                        catch (CancelledKeyException e)
+                        {
+                            // connection was closed in the meantime
+                        }
+                    }
+
+                    closeIdleChannels();
+                }
+            }
+            catch (ClosedSelectorException e)
+            {
+                // stopped
+            }
+            catch (Exception e)
+            {
+                if (!stopped)
+                {
+                    LOGGER.error("TCP listener I/O thread stopped due to an unexpected error", e);
+                }
+            }
+            finally
+            {
+                closeChannels();
+            }
+        }
+
+        private void runTasks()
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                try
+                {
+                    task.run();
+                }
+                catch (CancelledKeyException e)
+                {
+                    // connection was closed in the meantime
+                }
+            }
+        }
+
+        /**
+         * Connections are closed once they are idle for longer than the client timeout, as reading
+         * from a blocking socket would time out. All the connections are checked at most once per
+         * {@link #SELECT_TIMEOUT}, so busy connections don't make every event walk the idle ones.
+         */
+        private void closeIdleChannels()
+        {
+            Integer timeout = socketProperties.getClientTimeout();
+            if (timeout != null && timeout > 0)
+            {
+                long now = System.currentTimeMillis();
+                if (now < nextIdleScan)
+                {
+                    return;
+                }
+                nextIdleScan = now + SELECT_TIMEOUT;
+
+                long idleSince = now - timeout;
+                for (SelectionKey key : selector.keys())
+                {
+                    if (key.attachment() instanceof TcpChannel && ((TcpChannel) key.attachment()).isIdleSince(idleSince))
+                    {
+                        ((TcpChannel) key.attachment()).closeNow();
+                    }
+                }
+            }
+        }
+
+        private void closeChannels()
+        {
+            try
+            {
+                for (SelectionKey key : selector.keys())
+                {
+                    if (key.attachment() instanceof TcpChannel)
+                    {
+                        ((TcpChannel) key.attachment()).closeNow();
+                    }
+                }
+                selector.close();
+            }
+            catch (ClosedSelectorException e)
+            {
+                // already closed
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("TCP listener selector close failed", e);
+            }
+        }
+
+        private void start(String threadName)
+        {
+            synchronized (this)
+            {
+                if (stopped)
+                {
+                    return;
+                }
+                running = true;
+            }
+
+            Thread thread = new Thread(this, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Makes the I/O thread close its connections and selector on its way out, or closes them
+         * right away if the thread was never started.
+         */
+        private void stop()
+        {
+            boolean wasRunning;
+            synchronized (this)
+            {
+                stopped = true;
+                wasRunning = running;
+            }
+
+            if (wasRunning)
+            {
+                selector.wakeup();
+            }
+            else
+            {
+                closeChannels();
+            }
+        }
+    }
+}
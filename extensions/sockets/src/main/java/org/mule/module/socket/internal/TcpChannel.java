@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.internal;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static org.mule.module.socket.internal.NonBlockingTcpServer.closeQuietly;
+import org.mule.module.socket.api.protocol.TcpFrameDecoder;
+import org.mule.module.socket.api.source.ImmutableSocketAttributes;
+import org.mule.module.socket.api.source.SocketAttributes;
+import org.mule.module.socket.internal.worker.TcpFrameWorker;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A connection accepted by a {@link NonBlockingTcpServer}.
+ * <p>
+ * It is read and written only from its I/O thread. The decoded frames are handed to a single
+ * {@link TcpFrameWorker} at a time, and reading is suspended while too many of them are pending.
+ *
+ * @since 4.0
+ */
+public final class TcpChannel
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TcpChannel.class);
+
+    private static final int MAX_READS_PER_SELECT = 16;
+    private static final int MAX_PENDING_FRAMES = 64;
+
+    private final NonBlockingTcpServer server;
+    private final NonBlockingTcpServer.IoLoop ioLoop;
+    private final SocketChannel channel;
+    private final TcpFrameDecoder decoder;
+
+    // only accessed from the I/O thread
+    private final Queue<ByteBuffer> writes = new ArrayDeque<>();
+    private SelectionKey key;
+    private boolean endOfInput = false;
+    private long lastActivity = currentTimeMillis();
+
+    // guarded by this
+    private final List<byte[]> frames = new ArrayList<>();
+    private boolean queued = false;
+    private boolean processing = false;
+    private SocketAttributes attributes;
+
+    TcpChannel(NonBlockingTcpServer server, NonBlockingTcpServer.IoLoop ioLoop, SocketChannel channel, TcpFrameDecoder decoder)
+    {
+        this.server = server;
+        this.ioLoop = ioLoop;
+        this.channel = channel;
+        this.decoder = decoder;
+    }
+
+    void setKey(SelectionKey key)
+    {
+        this.key = key;
+    }
+
+    /**
+     * The attributes are resolved lazily, out of the I/O thread, as it implies a reverse DNS lookup.
+     */
+    public synchronized SocketAttributes getAttributes()
+    {
+        if (attributes == null)
+        {
+            attributes = new ImmutableSocketAttributes(channel.socket());
+        }
+        return attributes;
+    }
+
+    public SocketAddress getRemoteAddress()
+    {
+        return channel.socket().getRemoteSocketAddress();
+    }
+
+    public boolean isOpen()
+    {
+        return channel.isOpen();
+    }
+
+    /**
+     * Takes the pending frames, which are processed by the caller until it invokes {@link #workDone()}.
+     */
+    public List<byte[]> takeFrames()
+    {
+        List<byte[]> taken;
+        synchronized (this)
+        {
+            queued = false;
+            processing = true;
+            taken = new ArrayList<>(frames);
+            frames.clear();
+        }
+
+        if (taken.size() >= MAX_PENDING_FRAMES)
+        {
+            ioLoop.execute(this::resume);
+        }
+        return taken;
+    }
+
+    /**
+     * Signals that the frames returned by {@link #takeFrames()} were processed.
+     */
+    public void workDone()
+    {
+        boolean ready;
+        synchronized (this)
+        {
+            processing = false;
+            ready = !frames.isEmpty() && !queued;
+            queued |= ready;
+        }
+
+        if (ready)
+        {
+            server.ready(this);
+        }
+        ioLoop.execute(this::resume);
+    }
+
+    /**
+     * Sends {@code data} once the previous responses were sent.
+     */
+    public void write(byte[] data)
+    {
+        ioLoop.execute(() ->
+                       {
+                           if (channel.isOpen())
+                           {
+                               writes.add(ByteBuffer.wrap(data));
+                               flushWrites();
+                           }
+                       });
+    }
+
+    public void close()
+    {
+        ioLoop.execute(this::closeNow);
+    }
+
+    void read()
+    {
+        lastActivity = currentTimeMillis();
+        ByteBufferPool bufferPool = server.getBufferPool();
+        ByteBuffer buffer = bufferPool.acquire();
+        List<byte[]> decoded = null;
+        int count = 0;
+        try
+        {
+            for (int i = 0; i < MAX_READS_PER_SELECT; i++)
+            {
+                buffer.clear();
+                count = channel.read(buffer);
+                if (count <= 0)
+                {
+                    break;
+                }
+
+                buffer.flip();
+                byte[] frame;
+                while (buffer.hasRemaining() && (frame = decoder.decode(buffer)) != null)
+                {
+                    decoded = add(decoded, frame);
+                }
+            }
+
+            if (count <= 0)
+            {
+                decoded = add(decoded, decoder.flush(count < 0));
+            }
+        }
+        catch (IOException e)
+        {
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("An error occurred while reading from TCP connection " + getRemoteAddress(), e);
+            }
+            closeNow();
+            return;
+        }
+        finally
+        {
+            bufferPool.release(buffer);
+        }
+
+        if (count < 0)
+        {
+            endOfInput = true;
+            key.interestOps(key.interestOps() & ~OP_READ);
+        }
+        if (decoded != null)
+        {
+            enqueue(decoded);
+        }
+        closeIfDone();
+    }
+
+    void flushWrites()
+    {
+        try
+        {
+            while (!writes.isEmpty())
+            {
+                ByteBuffer buffer = writes.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining())
+                {
+                    key.interestOps(key.interestOps() | OP_WRITE);
+                    return;
+                }
+                writes.poll();
+            }
+            key.interestOps(key.interestOps() & ~OP_WRITE);
+            closeIfDone();
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("An error occurred while sending TCP response to address " + getRemoteAddress(), e);
+            closeNow();
+        }
+    }
+
+    boolean isIdleSince(long time)
+    {
+        return lastActivity < time && writes.isEmpty() && isIdle();
+    }
+
+    void closeNow()
+    {
+        if (key != null)
+        {
+            key.cancel();
+        }
+        closeQuietly(channel);
+        writes.clear();
+        synchronized (this)
+        {
+            frames.clear();
+        }
+    }
+
+    private void enqueue(List<byte[]> decoded)
+    {
+        boolean ready;
+        int pending;
+        synchronized (this)
+        {
+            frames.addAll(decoded);
+            pending = frames.size();
+            ready = !processing && !queued;
+            queued |= ready;
+        }
+
+        if (ready)
+        {
+            server.ready(this);
+        }
+        if (pending >= MAX_PENDING_FRAMES)
+        {
+            key.interestOps(key.interestOps() & ~OP_READ);
+        }
+    }
+
+    private void resume()
+    {
+        lastActivity = currentTimeMillis();
+        if (!channel.isOpen())
+        {
+            return;
+        }
+
+        if (!endOfInput && pendingFrames() < MAX_PENDING_FRAMES)
+        {
+            key.interestOps(key.interestOps() | OP_READ);
+        }
+        closeIfDone();
+    }
+
+    private void closeIfDone()
+    {
+        if (endOfInput && channel.isOpen() && writes.isEmpty() && isIdle())
+        {
+            closeNow();
+        }
+    }
+
+    private synchronized int pendingFrames()
+    {
+        return frames.size();
+    }
+
+    private synchronized boolean isIdle()
+    {
+        return !processing && !queued && frames.isEmpty();
+    }
+
+    private static List<byte[]> add(List<byte[]> frames, byte[] frame)
+    {
+        if (frame == null)
+        {
+            return frames;
+        }
+
+        List<byte[]> result = frames == null ? new ArrayList<>() : frames;
+        result.add(frame);
+        return result;
+    }
+}
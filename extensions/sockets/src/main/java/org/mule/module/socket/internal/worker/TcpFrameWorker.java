@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.socket.internal.worker;
+
+import static java.lang.String.format;
+import static org.mule.module.socket.internal.SocketUtils.createMuleMessage;
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
+import org.mule.module.socket.api.source.SocketAttributes;
+import org.mule.module.socket.internal.NonBlockingTcpServer;
+import org.mule.module.socket.internal.TcpChannel;
+import org.mule.runtime.api.execution.CompletionHandler;
+import org.mule.runtime.api.execution.ExceptionCallback;
+import org.mule.runtime.api.message.MuleEvent;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.extension.api.runtime.MessageHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Processes the frames already read from a connection by a {@link NonBlockingTcpServer}.
+ * Unlike the {@link TcpWorker}, it does not block on the connection, it finishes once those
+ * frames are processed and a new one is created when more of them arrive.
+ *
+ * @since 4.0
+ */
+public final class TcpFrameWorker extends SocketWorker
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TcpFrameWorker.class);
+    private final TcpChannel channel;
+    private final List<byte[]> frames;
+    private final NonBlockingTcpProtocol protocol;
+
+    public TcpFrameWorker(TcpChannel channel, List<byte[]> frames, NonBlockingTcpProtocol protocol, MuleContext muleContext,
+                          MessageHandler<InputStream, SocketAttributes> messageHandler)
+    {
+        super(muleContext, messageHandler);
+        this.channel = channel;
+        this.frames = frames;
+        this.protocol = protocol;
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            for (byte[] frame : frames)
+            {
+                if (!channel.isOpen())
+                {
+                    break;
+                }
+
+                InputStream content;
+                try
+                {
+                    content = protocol.readFrame(frame);
+                }
+                catch (IOException e)
+                {
+                    if (LOGGER.isDebugEnabled())
+                    {
+                        LOGGER.debug("An error occurred while reading from the TCP Worker connection", e);
+                    }
+
+                    channel.close();
+                    break;
+                }
+
+                if (content == null)
+                {
+                    continue;
+                }
+
+                messageHandler.handle(createMuleMessage(content, channel.getAttributes(), muleContext), new CompletionHandler<MuleEvent, Exception, MuleEvent>()
+                {
+                    @Override
+                    public void onCompletion(MuleEvent muleEvent, ExceptionCallback<MuleEvent, Exception> exceptionCallback)
+                    {
+                        try
+                        {
+                            ByteArrayOutputStream response = new ByteArrayOutputStream();
+                            protocol.write(response, muleEvent.getMessage().getPayload());
+                            channel.write(response.toByteArray());
+                        }
+                        catch (IOException e)
+                        {
+                            exceptionCallback.onException(new IOException(
+                                    format("An error occurred while sending TCP response to address '%s'",
+                                           channel.getRemoteAddress()), e)
+                            );
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e)
+                    {
+                        LOGGER.error("TCP worker will not answer back due an exception was received", e);
+
+                        // end connection's processing
+                        channel.close();
+                    }
+                });
+            }
+        }
+        finally
+        {
+            channel.workDone();
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        channel.close();
+    }
+
+    @Override
+    public void release()
+    {
+        dispose();
+    }
+}
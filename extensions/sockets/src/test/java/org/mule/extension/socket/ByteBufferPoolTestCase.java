@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.socket;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.mule.module.socket.internal.ByteBufferPool;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+@SmallTest
+public class ByteBufferPoolTestCase extends AbstractMuleTestCase
+{
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final ByteBufferPool pool = new ByteBufferPool(BUFFER_SIZE, 2);
+
+    @Test
+    public void acquiresDirectBuffers()
+    {
+        ByteBuffer buffer = pool.acquire();
+
+        assertThat(buffer.isDirect(), is(true));
+        assertThat(buffer.capacity(), is(BUFFER_SIZE));
+        assertThat(buffer.remaining(), is(BUFFER_SIZE));
+    }
+
+    @Test
+    public void reusesReleasedBuffers()
+    {
+        ByteBuffer buffer = pool.acquire();
+        buffer.put(new byte[10]).flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire();
+        assertThat(reused, sameInstance(buffer));
+        assertThat(reused.position(), is(0));
+        assertThat(reused.remaining(), is(BUFFER_SIZE));
+    }
+
+    @Test
+    public void keepsUpToMaxPooledBuffers()
+    {
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        ByteBuffer third = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertThat(pool.acquire(), sameInstance(first));
+        assertThat(pool.acquire(), sameInstance(second));
+        assertThat(pool.acquire(), not(sameInstance(third)));
+    }
+
+    @Test
+    public void doesNotPoolBuffersOfOtherSize()
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE * 2);
+        pool.release(buffer);
+
+        assertThat(pool.acquire(), not(sameInstance(buffer)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyBuffers()
+    {
+        new ByteBufferPool(0, 2);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.socket;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mule.extension.socket.SocketExtensionTestCase.POLL_DELAY_MILLIS;
+import static org.mule.extension.socket.SocketExtensionTestCase.TIMEOUT_MILLIS;
+import org.mule.module.socket.api.protocol.LengthProtocol;
+import org.mule.module.socket.api.socket.tcp.TcpServerSocketProperties;
+import org.mule.module.socket.api.source.SocketAttributes;
+import org.mule.module.socket.internal.NonBlockingTcpServer;
+import org.mule.runtime.core.util.UUID;
+import org.mule.runtime.extension.api.runtime.MessageHandler;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.JUnitLambdaProbe;
+import org.mule.tck.probe.PollingProber;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class NonBlockingTcpServerTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final int IO_THREADS = 2;
+    private static final int FRAME_SIZE = 1024;
+
+    // far more than what the socket buffers of both ends can hold
+    private static final int FRAMES = 32 * 1024;
+
+    private final String name = "tcpServer-" + UUID.getUUID();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger handledFrames = new AtomicInteger();
+
+    private ServerSocketChannel serverChannel;
+    private NonBlockingTcpServer server;
+    private MessageHandler<InputStream, SocketAttributes> messageHandler;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", 0));
+        server = new NonBlockingTcpServer(name, serverChannel, new LengthProtocol(), new TcpServerSocketProperties(), IO_THREADS);
+
+        messageHandler = mock(MessageHandler.class);
+        doAnswer(invocation -> handledFrames.incrementAndGet()).when(messageHandler).handle(any(), any());
+    }
+
+    @Override
+    protected void doTearDown() throws Exception
+    {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void closingUnstartedServerReleasesChannel() throws Exception
+    {
+        server.close();
+
+        assertThat(server.isOpen(), is(false));
+        assertThat(serverChannel.isOpen(), is(false));
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void noWorkersOnceClosed() throws Exception
+    {
+        server.close();
+        server.nextWorker(muleContext, messageHandler);
+    }
+
+    @Test
+    public void startsIoThreadsOnce() throws Exception
+    {
+        server.start(muleContext);
+        server.start(muleContext);
+        assertThat(countIoThreads(), is(IO_THREADS));
+
+        server.close();
+        new PollingProber(TIMEOUT_MILLIS, POLL_DELAY_MILLIS).check(new JUnitLambdaProbe(() -> countIoThreads() == 0));
+    }
+
+    @Test
+    public void doesNotStartOnceClosed() throws Exception
+    {
+        server.close();
+        server.start(muleContext);
+
+        assertThat(countIoThreads(), is(0));
+    }
+
+    @Test
+    public void stopsReadingWhileFramesArePending() throws Exception
+    {
+        server.start(muleContext);
+
+        try (Socket client = new Socket("localhost", serverChannel.socket().getLocalPort()))
+        {
+            Future<?> writer = executor.submit(() -> writeFrames(client));
+
+            // frames are not processed until the worker runs, so the client must block at some point
+            Runnable firstWorker = server.nextWorker(muleContext, messageHandler);
+            try
+            {
+                writer.get(500, MILLISECONDS);
+                fail("The client was not blocked while its frames were pending");
+            }
+            catch (TimeoutException e)
+            {
+                // expected
+            }
+
+            firstWorker.run();
+            while (handledFrames.get() < FRAMES)
+            {
+                server.nextWorker(muleContext, messageHandler).run();
+            }
+            writer.get(TIMEOUT_MILLIS, MILLISECONDS);
+        }
+
+        assertThat(handledFrames.get(), is(FRAMES));
+    }
+
+    private Void writeFrames(Socket client) throws Exception
+    {
+        DataOutputStream output = new DataOutputStream(client.getOutputStream());
+        byte[] frame = new byte[FRAME_SIZE];
+        for (int i = 0; i < FRAMES; i++)
+        {
+            output.writeInt(frame.length);
+            output.write(frame);
+        }
+        output.flush();
+        return null;
+    }
+
+    private int countIoThreads()
+    {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(name + ".io."))
+                .count();
+    }
+}
@@ -8,9 +8,11 @@ package org.mule.extension.socket;
 
 import org.mule.module.socket.api.protocol.DirectProtocol;
 import org.mule.module.socket.api.protocol.LengthProtocol;
+import org.mule.module.socket.api.protocol.NonBlockingTcpProtocol;
 import org.mule.module.socket.api.protocol.SafeProtocol;
 import org.mule.module.socket.api.protocol.TcpProtocol;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -18,7 +20,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 /**
- * Base clase for common tests across all the {@link TcpProtocol} implementations
+ * Base clase for common tests across all the {@link TcpProtocol} implementations. Subclasses whose listener
+ * reads the {@code nonBlocking} property can also test the ones that implement {@link NonBlockingTcpProtocol}
+ * with non blocking listeners, declaring their parameters with {@link #withNonBlockingListeners()}.
  */
 @RunWith(Parameterized.class)
 public abstract class ParameterizedProtocolTestCase extends SocketExtensionTestCase
@@ -30,27 +34,40 @@ public abstract class ParameterizedProtocolTestCase extends SocketExtensionTestC
     @Parameterized.Parameter(1)
     public String protocolBeanName;
 
+    @Parameterized.Parameter(2)
+    public boolean nonBlocking;
+
     @Parameterized.Parameters(name = "{0}")
     public static Collection<Object[]> data()
     {
         return Arrays.asList(new Object[][] {
-                {LengthProtocol.class.getSimpleName(), "length"},
-                {DirectProtocol.class.getSimpleName(), "direct"},
-                {SafeProtocol.class.getSimpleName(), "safe"},
+                {LengthProtocol.class.getSimpleName(), "length", false},
+                {DirectProtocol.class.getSimpleName(), "direct", false},
+                {SafeProtocol.class.getSimpleName(), "safe", false},
         });
     }
 
+    protected static Collection<Object[]> withNonBlockingListeners()
+    {
+        Collection<Object[]> data = new ArrayList<>(data());
+        data.add(new Object[] {LengthProtocol.class.getSimpleName() + " non blocking", "length", true});
+        data.add(new Object[] {SafeProtocol.class.getSimpleName() + " non blocking", "safe", true});
+        return data;
+    }
+
     @Override
     protected void doSetUpBeforeMuleContextCreation() throws Exception
     {
         super.doSetUpBeforeMuleContextCreation();
         System.setProperty("protocol", protocolBeanName);
+        System.setProperty("nonBlocking", Boolean.toString(nonBlocking));
     }
 
     @Override
     protected void doTearDown() throws Exception
     {
         System.clearProperty("protocol");
+        System.clearProperty("nonBlocking");
         super.doTearDown();
     }
 
@@ -10,6 +10,7 @@ import static org.junit.Assert.assertEquals;
 import org.mule.runtime.core.util.IOUtils;
 
 import java.io.InputStream;
+import java.util.Collection;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,6 +20,12 @@ import org.junit.runners.Parameterized;
 public class TcpMultipleSendTestCase extends ParameterizedProtocolTestCase
 {
 
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data()
+    {
+        return withNonBlockingListeners();
+    }
+
     @Override
     protected String getConfigFile()
     {
@@ -28,7 +35,6 @@ public class TcpMultipleSendTestCase extends ParameterizedProtocolTestCase
     @Test
     public void multipleSendString() throws Exception
     {
-        // TODO repeat this test with different messages and test that they arrive in the same order
         for (int i = 0; i < REPETITIONS; i++)
         {
             InputStream payload = (InputStream) flowRunner("tcp-send")
@@ -38,4 +44,17 @@ public class TcpMultipleSendTestCase extends ParameterizedProtocolTestCase
             assertEquals(RESPONSE_TEST_STRING, IOUtils.toString(payload));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void multipleSendDifferentStrings() throws Exception
+    {
+        for (int i = 0; i < REPETITIONS; i++)
+        {
+            InputStream payload = (InputStream) flowRunner("tcp-send")
+                    .withPayload(TEST_STRING + i)
+                    .run().getMessage().getPayload();
+
+            assertEquals(TEST_STRING + i + "_modified", IOUtils.toString(payload));
+        }
+    }
+}
@@ -6,6 +6,8 @@
  */
 package org.mule.extension.socket;
 
+import java.util.Collection;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -14,6 +16,11 @@ import org.junit.runners.Parameterized;
 public class TcpSendTestCase extends ParameterizedProtocolTestCase
 {
 
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data()
+    {
+        return withNonBlockingListeners();
+    }
 
     @Override
     protected String getConfigFile()
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.socket.protocol;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.extension.socket.TestPojo;
+import org.mule.module.socket.api.protocol.CustomClassLoadingLengthProtocol;
+import org.mule.module.socket.api.protocol.TcpFrameDecoder;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+@SmallTest
+public class CustomClassLoadingLengthProtocolTestCase extends AbstractMuleTestCase
+{
+
+    private static final String NAME = "John";
+
+    private final CustomClassLoadingLengthProtocol protocol = new CustomClassLoadingLengthProtocol();
+
+    @Test
+    public void readsObjectsFromFrames() throws Exception
+    {
+        TestPojo pojo = (TestPojo) ((ObjectInputStream) protocol.readFrame(decode(frame(pojo(NAME))))).readObject();
+
+        assertThat(pojo.getName(), is(NAME));
+    }
+
+    @Test
+    public void loadsClassesWithItsClassLoader() throws Exception
+    {
+        RecordingClassLoader classLoader = new RecordingClassLoader(getClass().getClassLoader());
+        protocol.setClassLoader(classLoader);
+
+        InputStream content = protocol.readFrame(decode(frame(pojo(NAME))));
+        assertThat(((ObjectInputStream) content).readObject(), instanceOf(TestPojo.class));
+        assertThat(classLoader.loadedClasses, hasItem(TestPojo.class.getName()));
+    }
+
+    @Test
+    public void emptyFrameHasNoMessage() throws Exception
+    {
+        assertThat(protocol.readFrame(decode(frame(new byte[0]))), is(nullValue()));
+    }
+
+    private byte[] decode(byte[] data) throws IOException
+    {
+        TcpFrameDecoder decoder = protocol.createFrameDecoder();
+        return decoder.decode(ByteBuffer.wrap(data));
+    }
+
+    private static TestPojo pojo(String name)
+    {
+        TestPojo pojo = new TestPojo();
+        pojo.setName(name);
+        return pojo;
+    }
+
+    private static byte[] frame(TestPojo pojo) throws IOException
+    {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(serialized))
+        {
+            output.writeObject(pojo);
+        }
+        return frame(serialized.toByteArray());
+    }
+
+    private static byte[] frame(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(framed);
+        output.writeInt(data.length);
+        output.write(data);
+        return framed.toByteArray();
+    }
+
+    private static class RecordingClassLoader extends ClassLoader
+    {
+
+        private final List<String> loadedClasses = new CopyOnWriteArrayList<>();
+
+        RecordingClassLoader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            loadedClasses.add(name);
+            return super.loadClass(name, resolve);
+        }
+    }
+}
@@ -97,6 +97,16 @@ public class HttpRequesterConfigBuilder
         return this;
     }
 
+    /**
+     * @param maxConnectionsPerHost the maximum number of outgoing connections opened to each host and port
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        defaultHttpRequesterConfig.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        return this;
+    }
+
     /**
      * @param usePersistentConnections true to reuse a connection for several request,
      *                                 false to discard a connection after the first request.
@@ -289,6 +289,10 @@ public class HttpParser
      */
     public static String normalizePathWithSpacesOrEncodedSpaces(String path)
     {
+        if (path.indexOf(SPACE_ENTITY) == -1 && path.indexOf('+') == -1)
+        {
+            return path;
+        }
         return path.replaceAll(SPACE_ENTITY, WHITE_SPACE).replaceAll(PLUS_SIGN, WHITE_SPACE);
     }
 
@@ -261,6 +261,14 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
         return tlsContext;
     }
 
+    /**
+     * @return the statistics of the responses streamed by the listeners of this config
+     */
+    public ResponseStreamingStatistics getResponseStreamingStatistics()
+    {
+        return server.getResponseStreamingStatistics();
+    }
+
     @Override
     public synchronized void start() throws MuleException
     {
@@ -16,17 +16,13 @@ import org.mule.runtime.core.util.Preconditions;
 import org.mule.runtime.core.util.StringUtils;
 
 import com.google.common.base.Joiner;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +32,7 @@ public class HttpListenerRegistry implements RequestHandlerProvider
 
     private static final String WILDCARD_CHARACTER = "*";
     private static final String SLASH = "/";
+    private static final char SLASH_CHARACTER = '/';
     private Logger logger = LoggerFactory.getLogger(getClass());
 
     private final ServerAddressMap<Server> serverAddressToServerMap = new ServerAddressMap<>();
@@ -76,22 +73,23 @@ public class HttpListenerRegistry implements RequestHandlerProvider
         return NoListenerRequestHandler.getInstance();
     }
 
+    /**
+     * Holds the request handlers of a server in a tree with a level per path segment. Static segments
+     * of each level are kept in an open addressing table that is looked up with the bounds of the segment
+     * in the request path, and uri parameters and wildcards share a single child per level, so a request
+     * is resolved in one walk over its path without splitting it. Handlers are added and removed in place,
+     * without invalidating anything else.
+     */
     public class ServerAddressRequestHandlerRegistry
     {
 
-        private PathMap serverRequestHandler;
+        private volatile PathMap serverRequestHandler;
         private PathMap rootPathMap = new PathMap();
         private PathMap catchAllPathMap = new PathMap();
         private Set<String> paths = new HashSet<>();
-        private LoadingCache<String, Stack<PathMap>> pathMapSearchCache = CacheBuilder.newBuilder().maximumSize(1000).build(new CacheLoader<String, Stack<PathMap>>() {
-            public Stack<PathMap> load(String path) {
-                return findPossibleRequestHandlers(path);
-            }
-        });
 
         public synchronized RequestHandlerManager addRequestHandler(final ListenerRequestMatcher requestMatcher, final RequestHandler requestHandler)
         {
-            pathMapSearchCache.invalidateAll();
             String requestMatcherPath = normalizePathWithSpacesOrEncodedSpaces(requestMatcher.getPath());
             Preconditions.checkArgument(requestMatcherPath.startsWith(SLASH) || requestMatcherPath.equals(WILDCARD_CHARACTER), "path parameter must start with /");
             validateCollision(requestMatcher);
@@ -163,9 +161,7 @@ public class HttpListenerRegistry implements RequestHandlerProvider
         private void validateCollision(ListenerRequestMatcher newListenerRequestMatcher)
         {
             final String newListenerRequestMatcherPath = newListenerRequestMatcher.getPath();
-            final Stack<PathMap> possibleRequestHandlers = findPossibleRequestHandlersFromCache(newListenerRequestMatcherPath);
-            for (PathMap possibleRequestHandler : possibleRequestHandlers)
-            {
+            visitPossibleRequestHandlers(newListenerRequestMatcherPath, possibleRequestHandler -> {
                 final List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = possibleRequestHandler.getRequestHandlerMatcherPairs();
                 for (RequestHandlerMatcherPair requestHandlerMatcherPair : requestHandlerMatcherPairs)
                 {
@@ -188,32 +184,18 @@ public class HttpListenerRegistry implements RequestHandlerProvider
                         }
                     }
                 }
-            }
+                return false;
+            });
         }
 
         public RequestHandler findRequestHandler(final HttpRequest request)
         {
             final String path = normalizePathWithSpacesOrEncodedSpaces(request.getPath());
             Preconditions.checkArgument(path.startsWith(SLASH), "path parameter must start with /");
-            Stack<PathMap> foundPaths = findPossibleRequestHandlersFromCache(path);
+            final RequestHandlerMatch match = new RequestHandlerMatch(request);
+            visitPossibleRequestHandlers(path, match);
 
-            boolean methodNotAllowed = false;
-            RequestHandlerMatcherPair requestHandlerMatcherPair = null;
-            while (!foundPaths.empty())
-            {
-                final PathMap pathMap = foundPaths.pop();
-                List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = pathMap.getRequestHandlerMatcherPairs();
-                requestHandlerMatcherPair = findRequestHandlerMatcherPair(requestHandlerMatcherPairs, request);
-                if (requestHandlerMatcherPair != null)
-                {
-                    break;
-                }
-                if (!requestHandlerMatcherPairs.isEmpty())
-                {
-                    //there were matching paths but no matching methods
-                    methodNotAllowed = true;
-                }
-            }
+            final RequestHandlerMatcherPair requestHandlerMatcherPair = match.requestHandlerMatcherPair;
             if (requestHandlerMatcherPair == null)
             {
                 if (logger.isInfoEnabled())
@@ -221,7 +203,7 @@ public class HttpListenerRegistry implements RequestHandlerProvider
                     logger.info("No listener found for request: " + getMethodAndPath(request.getMethod(), request.getPath()));
                     logger.info("Available listeners are: [{}]", Joiner.on(", ").join(this.paths));
                 }
-                if(methodNotAllowed)
+                if (match.methodNotAllowed)
                 {
                     return NoMethodRequestHandler.getInstance();
                 }
@@ -239,72 +221,65 @@ public class HttpListenerRegistry implements RequestHandlerProvider
             return "(" + method + ")" + path;
         }
 
-        private Stack<PathMap> findPossibleRequestHandlersFromCache(String path)
+        /**
+         * Visits the path maps that may hold a handler for the path, from the most specific one to the
+         * least specific one, until the visitor accepts one.
+         *
+         * @return whether the visitor accepted a path map
+         */
+        private boolean visitPossibleRequestHandlers(String path, PathMapVisitor visitor)
         {
-            return findPossibleRequestHandlers(path);
+            if (path.equals(WILDCARD_CHARACTER))
+            {
+                return visit(serverRequestHandler, visitor) || visit(catchAllPathMap, visitor);
+            }
+            if (path.equals(SLASH))
+            {
+                return visit(rootPathMap, visitor) || visit(catchAllPathMap, visitor);
+            }
+            // A trailing slash does not add a level
+            final int pathEnd = path.endsWith(SLASH) ? path.length() - 1 : path.length();
+            return visitPossibleRequestHandlers(rootPathMap, path, 1, pathEnd, visitor) || visit(catchAllPathMap, visitor);
         }
 
-        private Stack<PathMap> findPossibleRequestHandlers(String path)
+        /**
+         * Visits the path maps for the segment starting at {@code segmentStart}, visiting the ones of the following
+         * segments first since they are more specific.
+         */
+        private boolean visitPossibleRequestHandlers(PathMap currentPathMap, String path, int segmentStart, int pathEnd, PathMapVisitor visitor)
         {
-            PathMap currentPathMap = rootPathMap;
-            final String[] pathParts = splitPath(path);
-            Stack<PathMap> foundPaths = new Stack<>();
-            foundPaths.add(catchAllPathMap);
-            if (path.equals(WILDCARD_CHARACTER))
+            int segmentEnd = path.indexOf(SLASH_CHARACTER, segmentStart);
+            if (segmentEnd == -1 || segmentEnd > pathEnd)
             {
-                foundPaths.push(serverRequestHandler);
-                return foundPaths;
+                segmentEnd = pathEnd;
             }
-            if (path.equals(SLASH))
+
+            PathMap pathMap = currentPathMap.getChildPathMap(path, segmentStart, segmentEnd);
+            PathMap currentCatchAllPathMap = null;
+            if (pathMap == null)
             {
-                foundPaths.push(rootPathMap);
-                return foundPaths;
+                currentCatchAllPathMap = currentPathMap.getCatchAllPathMap();
+                pathMap = currentPathMap.getCatchAllCurrentPathMap();
             }
-            for (int i = 1; i < pathParts.length && currentPathMap != null; i++)
+
+            if (segmentEnd == pathEnd)
             {
-                String currentPath = pathParts[i];
-                PathMap pathMap = currentPathMap.getChildPathMap(currentPath);
                 if (pathMap == null)
                 {
-                    addCatchAllPathMapIfNotNull(currentPathMap, foundPaths);
-                    pathMap = currentPathMap.getCatchAllCurrentPathMap();
+                    return visit(currentPathMap.getCatchAllPathMap(), visitor);
                 }
-                if (i == pathParts.length - 1)
-                {
-                    if (pathMap != null)
-                    {
-                        addCatchAllPathMapIfNotNull(pathMap, foundPaths);
-                        foundPaths.push(pathMap);
-                    }
-                    else
-                    {
-                        addCatchAllPathMapIfNotNull(currentPathMap, foundPaths);
-                    }
-                }
-                currentPathMap = pathMap;
+                return visit(pathMap, visitor) || visit(pathMap.getCatchAllPathMap(), visitor) || visit(currentCatchAllPathMap, visitor);
             }
-            return foundPaths;
-        }
-
-        private void addCatchAllPathMapIfNotNull(PathMap currentPathMap, Stack<PathMap> foundPaths)
-        {
-            final PathMap catchAllPathMap = currentPathMap.getCatchAllPathMap();
-            if (catchAllPathMap != null)
+            if (pathMap != null && visitPossibleRequestHandlers(pathMap, path, segmentEnd + 1, pathEnd, visitor))
             {
-                foundPaths.push(catchAllPathMap);
+                return true;
             }
+            return visit(currentCatchAllPathMap, visitor);
         }
 
-        private RequestHandlerMatcherPair findRequestHandlerMatcherPair(List<RequestHandlerMatcherPair> requestHandlerMatcherPairs, HttpRequest request)
+        private boolean visit(PathMap pathMap, PathMapVisitor visitor)
         {
-            for (RequestHandlerMatcherPair requestHandlerMatcherPair : requestHandlerMatcherPairs)
-            {
-                if (requestHandlerMatcherPair.getRequestMatcher().matches(request))
-                {
-                    return requestHandlerMatcherPair;
-                }
-            }
-            return null;
+            return pathMap != null && visitor.visit(pathMap);
         }
     }
 
@@ -348,11 +323,11 @@ public class HttpListenerRegistry implements RequestHandlerProvider
     public class PathMap
     {
 
-        List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = new ArrayList<>();
+        List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = new CopyOnWriteArrayList<>();
 
-        private Map<String, PathMap> subPaths = new HashMap<>();
-        private PathMap catchAllPathMap;
-        private PathMap catchAllCurrentPathMap;
+        private volatile SubPathTable subPaths = SubPathTable.EMPTY;
+        private volatile PathMap catchAllPathMap;
+        private volatile PathMap catchAllCurrentPathMap;
 
         public PathMap getCatchAllPathMap()
         {
@@ -374,22 +349,31 @@ public class HttpListenerRegistry implements RequestHandlerProvider
             {
                 return getCatchAllCurrentPathMap();
             }
-            PathMap pathMap = subPaths.get(subPath);
-            return pathMap;
+            return subPaths.get(subPath, 0, subPath.length());
         }
 
         /**
-         * @param subPath a sub part of the path
+         * @param path a path
+         * @param start the index where the sub part of the path starts
+         * @param end the index where the sub part of the path ends, exclusive
          * @return the node with the existent mappings. null if there's no such node.
          */
-        public PathMap getLastChildPathMap(final String subPath)
+        public PathMap getChildPathMap(final String path, final int start, final int end)
         {
-            if (isCatchAllPath(subPath) || isUriParameter(subPath))
+            if (isCatchAllPath(path, start, end) || isUriParameter(path, start, end))
             {
                 return getCatchAllCurrentPathMap();
             }
-            PathMap pathMap = subPaths.get(subPath);
-            return pathMap;
+            return subPaths.get(path, start, end);
+        }
+
+        /**
+         * @param subPath a sub part of the path
+         * @return the node with the existent mappings. null if there's no such node.
+         */
+        public PathMap getLastChildPathMap(final String subPath)
+        {
+            return getChildPathMap(subPath);
         }
 
         public void addRequestHandlerMatcherPair(final RequestHandlerMatcherPair requestHandlerMatcherPair)
@@ -405,7 +389,7 @@ public class HttpListenerRegistry implements RequestHandlerProvider
             }
             else
             {
-                subPaths.put(path, pathMap);
+                subPaths = subPaths.with(path, pathMap);
             }
         }
 
@@ -446,6 +430,142 @@ public class HttpListenerRegistry implements RequestHandlerProvider
         return WILDCARD_CHARACTER.equals(path);
     }
 
+    private boolean isCatchAllPath(String path, int start, int end)
+    {
+        return end - start == 1 && path.charAt(start) == '*';
+    }
+
+    private boolean isUriParameter(String path, int start, int end)
+    {
+        return end - start >= 2 && path.charAt(start) == '{' && path.charAt(end - 1) == '}';
+    }
+
+    /**
+     * Visitor of the path maps that may hold the handler for a path.
+     */
+    private interface PathMapVisitor
+    {
+
+        /**
+         * @return true to stop visiting path maps
+         */
+        boolean visit(PathMap pathMap);
+    }
+
+    /**
+     * Finds the first handler whose path map and method match a request.
+     */
+    private class RequestHandlerMatch implements PathMapVisitor
+    {
+
+        private final HttpRequest request;
+        private RequestHandlerMatcherPair requestHandlerMatcherPair;
+        private boolean methodNotAllowed;
+
+        private RequestHandlerMatch(HttpRequest request)
+        {
+            this.request = request;
+        }
+
+        @Override
+        public boolean visit(PathMap pathMap)
+        {
+            final List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = pathMap.getRequestHandlerMatcherPairs();
+            for (RequestHandlerMatcherPair candidate : requestHandlerMatcherPairs)
+            {
+                if (candidate.getRequestMatcher().matches(request))
+                {
+                    requestHandlerMatcherPair = candidate;
+                    return true;
+                }
+            }
+            if (!requestHandlerMatcherPairs.isEmpty())
+            {
+                //there were matching paths but no matching methods
+                methodNotAllowed = true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Immutable open addressing table of the static sub paths of a {@link PathMap}. It can be looked
+     * up with a portion of a path, so no substring has to be created for each segment of a request path,
+     * and it is replaced as a whole when a sub path is added so lookups never see it half updated.
+     */
+    private static final class SubPathTable
+    {
+
+        private static final SubPathTable EMPTY = new SubPathTable(0);
+
+        private final String[] keys;
+        private final PathMap[] values;
+        private final int size;
+
+        private SubPathTable(int size)
+        {
+            int capacity = 2;
+            while (capacity < size * 2)
+            {
+                capacity <<= 1;
+            }
+            this.keys = new String[capacity];
+            this.values = new PathMap[capacity];
+            this.size = size;
+        }
+
+        PathMap get(String path, int start, int end)
+        {
+            final int length = end - start;
+            int hash = 0;
+            for (int i = start; i < end; i++)
+            {
+                hash = 31 * hash + path.charAt(i);
+            }
+            final int mask = keys.length - 1;
+            for (int index = spread(hash) & mask; keys[index] != null; index = (index + 1) & mask)
+            {
+                final String key = keys[index];
+                if (key.length() == length && path.regionMatches(start, key, 0, length))
+                {
+                    return values[index];
+                }
+            }
+            return null;
+        }
+
+        SubPathTable with(String key, PathMap value)
+        {
+            final SubPathTable table = new SubPathTable(size + 1);
+            for (int i = 0; i < keys.length; i++)
+            {
+                if (keys[i] != null && !keys[i].equals(key))
+                {
+                    table.put(keys[i], values[i]);
+                }
+            }
+            table.put(key, value);
+            return table;
+        }
+
+        private void put(String key, PathMap value)
+        {
+            final int mask = keys.length - 1;
+            int index = spread(key.hashCode()) & mask;
+            while (keys[index] != null)
+            {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        private static int spread(int hash)
+        {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
     public class RequestHandlerMatcherPair
     {
 
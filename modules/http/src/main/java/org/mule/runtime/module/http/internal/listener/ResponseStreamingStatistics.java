@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.listener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the responses streamed by a {@link Server}, and therefore by the listener config
+ * that owns it.
+ * <p/>
+ * A write stall is counted each time a chunk could not be written right away because the
+ * connection was not able to take it, so it had to be queued until the client read enough data.
+ */
+public class ResponseStreamingStatistics
+{
+
+    private final LongAdder streamedResponses = new LongAdder();
+    private final LongAdder fileResponses = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder writeStalls = new LongAdder();
+
+    public void incStreamedResponses()
+    {
+        streamedResponses.increment();
+    }
+
+    public void incFileResponses()
+    {
+        fileResponses.increment();
+    }
+
+    public void incBytesWritten(long bytes)
+    {
+        bytesWritten.add(bytes);
+    }
+
+    public void incWriteStalls()
+    {
+        writeStalls.increment();
+    }
+
+    /**
+     * @return the number of responses whose body was streamed
+     */
+    public long getStreamedResponses()
+    {
+        return streamedResponses.sum();
+    }
+
+    /**
+     * @return the number of streamed responses whose body was read from a file channel
+     */
+    public long getFileResponses()
+    {
+        return fileResponses.sum();
+    }
+
+    /**
+     * @return the number of body bytes written by streamed responses
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * @return the number of chunk writes that could not be completed right away
+     */
+    public long getWriteStalls()
+    {
+        return writeStalls.sum();
+    }
+
+    public void clear()
+    {
+        streamedResponses.reset();
+        fileResponses.reset();
+        bytesWritten.reset();
+        writeStalls.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ResponseStreamingStatistics{streamedResponses=%d, fileResponses=%d, bytesWritten=%d, writeStalls=%d}",
+                             getStreamedResponses(), getFileResponses(), getBytesWritten(), getWriteStalls());
+    }
+}
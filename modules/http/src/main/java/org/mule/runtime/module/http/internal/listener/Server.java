@@ -43,6 +43,10 @@ public interface Server
      */
     boolean isStopped();
 
+    /**
+     * @return the statistics of the responses streamed by this server
+     */
+    ResponseStreamingStatistics getResponseStreamingStatistics();
 
     RequestHandlerManager addRequestHandler(final ListenerRequestMatcher listenerRequestMatcher, final RequestHandler requestHandler);
 }
@@ -9,10 +9,10 @@ package org.mule.runtime.module.http.internal.listener.grizzly;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.ReadResult;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.HttpContent;
-import org.glassfish.grizzly.utils.BufferInputStream;
 
 /**
  * {@link java.io.InputStream} to be used when the HTTP request
@@ -22,15 +22,19 @@ import org.glassfish.grizzly.utils.BufferInputStream;
  * This {@link java.io.InputStream} implementation does a blocking read
  * over the HTTP connection to read the next chunk when there is no more
  * data available.
+ *
+ * Data is read directly from the Grizzly {@link Buffer} of each chunk, and the
+ * buffers can also be handed off as they are with {@link #nextBuffer()}, so the
+ * content can be written to another connection without copying it.
  */
 public class BlockingTransferInputStream extends InputStream
 {
 
     private final FilterChainContext filterChainContext;
-    private InputStream chunk;
+    private Buffer chunk;
     private boolean lastPacketReceived;
 
-    public BlockingTransferInputStream(FilterChainContext filterChainContext, InputStream firstChunk)
+    public BlockingTransferInputStream(FilterChainContext filterChainContext, Buffer firstChunk)
     {
         this.filterChainContext = filterChainContext;
         this.chunk = firstChunk;
@@ -39,15 +43,89 @@ public class BlockingTransferInputStream extends InputStream
     @Override
     public int read() throws IOException
     {
-        int value = chunk.read();
-        if (value == -1 && !lastPacketReceived)
+        if (!ensureData())
+        {
+            return -1;
+        }
+        return chunk.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (off < 0 || len < 0 || len > b.length - off)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (!ensureData())
+        {
+            return -1;
+        }
+
+        int read = Math.min(len, chunk.remaining());
+        chunk.get(b, off, read);
+        return read;
+    }
+
+    /**
+     * Returns the bytes remaining in the current chunk, which can be read without blocking.
+     */
+    @Override
+    public int available() throws IOException
+    {
+        return chunk == null ? 0 : chunk.remaining();
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        if (n <= 0 || !ensureData())
+        {
+            return 0;
+        }
+
+        int skipped = (int) Math.min(n, chunk.remaining());
+        chunk.position(chunk.position() + skipped);
+        return skipped;
+    }
+
+    /**
+     * Hands off the unread content of the current chunk, or the next chunk if the current one was read
+     * completely, without copying it. The returned buffer is no longer used by this stream.
+     *
+     * @return the next buffer of content or {@code null} if the whole content was read
+     * @throws IOException if the next chunk could not be read
+     */
+    public Buffer nextBuffer() throws IOException
+    {
+        if (!ensureData())
+        {
+            return null;
+        }
+
+        Buffer buffer = chunk;
+        chunk = null;
+        return buffer;
+    }
+
+    /**
+     * Reads chunks until there is data available or the last one is received.
+     *
+     * @return whether there is data available
+     */
+    private boolean ensureData() throws IOException
+    {
+        while ((chunk == null || !chunk.hasRemaining()) && !lastPacketReceived)
         {
             ReadResult readResult = filterChainContext.read();
             HttpContent httpContent = (HttpContent) readResult.getMessage();
             lastPacketReceived = httpContent.isLast();
-            chunk = new BufferInputStream(httpContent.getContent());
-            value = chunk.read();
+            chunk = httpContent.getContent();
         }
-        return value;
+        return chunk != null && chunk.hasRemaining();
     }
 }
@@ -57,13 +57,15 @@ public class GrizzlyHttpRequestAdapter extends BaseHttpMessage implements HttpRe
             contentLengthAsInt = Integer.parseInt(contentLengthAsString);
         }
         this.contentLength = contentLengthAsInt;
-        InputStream contentInputStream = new BufferInputStream(httpContent.getContent());
         boolean contentIsIncomplete = !httpContent.isLast();
         if (contentIsIncomplete)
         {
-            contentInputStream = new BlockingTransferInputStream(filterChainContext, contentInputStream);
+            this.requestContent = new BlockingTransferInputStream(filterChainContext, httpContent.getContent());
+        }
+        else
+        {
+            this.requestContent = new BufferInputStream(httpContent.getContent());
         }
-        this.requestContent = contentInputStream;
     }
 
     @Override
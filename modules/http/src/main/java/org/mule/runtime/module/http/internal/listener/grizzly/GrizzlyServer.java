@@ -8,6 +8,7 @@ package org.mule.runtime.module.http.internal.listener.grizzly;
 
 import org.mule.runtime.module.http.internal.listener.HttpListenerRegistry;
 import org.mule.runtime.module.http.internal.listener.RequestHandlerManager;
+import org.mule.runtime.module.http.internal.listener.ResponseStreamingStatistics;
 import org.mule.runtime.module.http.internal.listener.Server;
 import org.mule.runtime.module.http.internal.listener.ServerAddress;
 import org.mule.runtime.module.http.internal.listener.async.RequestHandler;
@@ -24,6 +25,7 @@ public class GrizzlyServer implements Server
     private final TCPNIOTransport transport;
     private final ServerAddress serverAddress;
     private final HttpListenerRegistry listenerRegistry;
+    private final ResponseStreamingStatistics responseStreamingStatistics = new ResponseStreamingStatistics();
     private TCPNIOServerConnection serverConnection;
     private boolean stopped = true;
     private boolean stopping;
@@ -74,6 +76,12 @@ public class GrizzlyServer implements Server
         return stopped;
     }
 
+    @Override
+    public ResponseStreamingStatistics getResponseStreamingStatistics()
+    {
+        return responseStreamingStatistics;
+    }
+
     @Override
     public RequestHandlerManager addRequestHandler(ListenerRequestMatcher listenerRequestMatcher, RequestHandler requestHandler)
     {
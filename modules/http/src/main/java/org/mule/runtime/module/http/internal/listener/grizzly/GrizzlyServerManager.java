@@ -21,6 +21,7 @@ import org.mule.runtime.module.http.internal.listener.HttpListenerRegistry;
 import org.mule.runtime.module.http.internal.listener.HttpServerManager;
 import org.mule.runtime.module.http.internal.listener.Server;
 import org.mule.runtime.module.http.internal.listener.ServerAddress;
+import org.mule.runtime.module.http.internal.listener.ServerAddressMap;
 import org.mule.runtime.api.tls.TlsContextFactory;
 import org.mule.runtime.core.util.concurrent.NamedThreadFactory;
 
@@ -67,7 +68,7 @@ public class GrizzlyServerManager implements HttpServerManager
     public GrizzlyServerManager(String threadNamePrefix, HttpListenerRegistry httpListenerRegistry, TcpServerSocketProperties serverSocketProperties) throws IOException
     {
         this.httpListenerRegistry = httpListenerRegistry;
-        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry);
+        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry, new ServerAddressMap<>(servers));
         sslFilterDelegate = new GrizzlyAddressDelegateFilter<>();
         httpServerFilterDelegate = new GrizzlyAddressDelegateFilter<>();
 
@@ -6,17 +6,25 @@
  */
 package org.mule.runtime.module.http.internal.listener.grizzly;
 
+import static java.lang.Integer.getInteger;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static org.glassfish.grizzly.http.HttpServerFilter.RESPONSE_COMPLETE_EVENT;
+import static org.mule.runtime.core.api.config.MuleProperties.SYSTEM_PROPERTY_PREFIX;
 import org.mule.runtime.core.api.DefaultMuleException;
 import org.mule.runtime.core.config.i18n.CoreMessages;
 import org.mule.runtime.module.http.internal.domain.InputStreamHttpEntity;
 import org.mule.runtime.module.http.internal.domain.response.HttpResponse;
+import org.mule.runtime.module.http.internal.listener.ResponseStreamingStatistics;
 import org.mule.runtime.module.http.internal.listener.async.ResponseStatusCallback;
 
 import com.google.common.base.Preconditions;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.WriteResult;
@@ -24,26 +32,51 @@ import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  * {@link org.glassfish.grizzly.CompletionHandler}, responsible for asynchronous http response transferring
  * when the response body is an input stream.
+ * <p/>
+ * Chunks start with {@link #INITIAL_CHUNK_SIZE_PROPERTY_KEY} bytes and their size is doubled, up to
+ * {@link #MAX_CHUNK_SIZE_PROPERTY_KEY} bytes, while the stream fills them and the connection takes each
+ * one right away. When a write stalls the size goes back to the initial one. The buffer of a chunk is
+ * reused for the next one once it was written, and returned to a shared pool when the response is
+ * sent. Bodies read from a {@link FileInputStream} are read through its {@link FileChannel} into direct
+ * buffers with the maximum chunk size, so they are not copied again when written to the socket.
  */
 public class ResponseStreamingCompletionHandler
         extends BaseResponseCompletionHandler
 {
 
+    public static final String INITIAL_CHUNK_SIZE_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.responseStreaming.initialChunkSize";
+    public static final String MAX_CHUNK_SIZE_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.responseStreaming.maxChunkSize";
+
+    private static final int INITIAL_CHUNK_SIZE = getInteger(INITIAL_CHUNK_SIZE_PROPERTY_KEY, 8 * 1024);
+    private static final int MAX_CHUNK_SIZE = max(INITIAL_CHUNK_SIZE, getInteger(MAX_CHUNK_SIZE_PROPERTY_KEY, 64 * 1024));
+
+    private static final StreamingBufferPool HEAP_BUFFER_POOL = new StreamingBufferPool(false);
+    private static final StreamingBufferPool DIRECT_BUFFER_POOL = new StreamingBufferPool(true);
+
     private final MemoryManager memoryManager;
     private final FilterChainContext ctx;
     private final HttpResponsePacket httpResponsePacket;
     private final InputStream inputStream;
     private final ResponseStatusCallback responseStatusCallback;
+    private final ResponseStreamingStatistics statistics;
+    private final FileChannel fileChannel;
+    private final StreamingBufferPool bufferPool;
 
+    private ByteBuffer chunkBuffer;
+    private int chunkSize;
+    private volatile int startedWrites;
+    private volatile int returnedWrites;
     private volatile boolean isDone;
 
     public ResponseStreamingCompletionHandler(final FilterChainContext ctx,
-                                              final HttpRequestPacket request, final HttpResponse httpResponse, ResponseStatusCallback responseStatusCallback)
+                                              final HttpRequestPacket request, final HttpResponse httpResponse, ResponseStatusCallback responseStatusCallback,
+                                              ResponseStreamingStatistics statistics)
     {
         Preconditions.checkArgument((httpResponse.getEntity() instanceof InputStreamHttpEntity), "http response must have an input stream entity");
         this.ctx = ctx;
@@ -51,22 +84,42 @@ public class ResponseStreamingCompletionHandler
         inputStream = ((InputStreamHttpEntity) httpResponse.getEntity()).getInputStream();
         memoryManager = ctx.getConnection().getTransport().getMemoryManager();
         this.responseStatusCallback = responseStatusCallback;
+        this.statistics = statistics;
+
+        if (inputStream instanceof FileInputStream)
+        {
+            fileChannel = ((FileInputStream) inputStream).getChannel();
+            bufferPool = DIRECT_BUFFER_POOL;
+            chunkSize = MAX_CHUNK_SIZE;
+        }
+        else
+        {
+            fileChannel = null;
+            bufferPool = HEAP_BUFFER_POOL;
+            chunkSize = INITIAL_CHUNK_SIZE;
+        }
     }
 
     public void start() throws IOException
     {
+        statistics.incStreamedResponses();
+        if (fileChannel != null)
+        {
+            statistics.incFileResponses();
+        }
         sendInputStreamChunk();
     }
 
     public void sendInputStreamChunk() throws IOException
     {
-        final Buffer buffer = memoryManager.allocate(8 * 1024);
-
-        final byte[] bufferByteArray = buffer.array();
-        final int offset = buffer.arrayOffset();
-        final int length = buffer.remaining();
+        if (inputStream instanceof BlockingTransferInputStream)
+        {
+            sendTransferredBuffer((BlockingTransferInputStream) inputStream);
+            return;
+        }
 
-        int bytesRead = inputStream.read(bufferByteArray, offset, length);
+        final ByteBuffer buffer = nextChunkBuffer();
+        final int bytesRead = fileChannel != null ? fileChannel.read(buffer) : readInputStream(buffer);
         final HttpContent content;
 
         if (bytesRead == -1)
@@ -76,11 +129,104 @@ public class ResponseStreamingCompletionHandler
         }
         else
         {
-            buffer.limit(bytesRead);
-            content = httpResponsePacket.httpContentBuilder().content(buffer).build();
+            buffer.flip();
+            statistics.incBytesWritten(bytesRead);
+            content = httpResponsePacket.httpContentBuilder().content(Buffers.wrap(memoryManager, buffer)).build();
+        }
+
+        write(content);
+    }
+
+    private int readInputStream(ByteBuffer buffer) throws IOException
+    {
+        int bytesRead = inputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (bytesRead > 0)
+        {
+            buffer.position(buffer.position() + bytesRead);
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Provides the buffer to read the next chunk into. The buffer of the previous chunk is reused
+     * unless the chunk size grew beyond its capacity, since it was already written.
+     */
+    private ByteBuffer nextChunkBuffer()
+    {
+        if (chunkBuffer == null || chunkBuffer.capacity() < chunkSize)
+        {
+            releaseChunkBuffer();
+            chunkBuffer = bufferPool.acquire(chunkSize);
+        }
+        else
+        {
+            chunkBuffer.clear().limit(chunkSize);
+        }
+        return chunkBuffer;
+    }
+
+    private void releaseChunkBuffer()
+    {
+        if (chunkBuffer != null)
+        {
+            bufferPool.release(chunkBuffer);
+            chunkBuffer = null;
         }
+    }
 
+    /**
+     * Adapts the chunk size after a chunk was written.
+     *
+     * @param stalled whether the write of the chunk could not be completed right away
+     */
+    private void adaptChunkSize(boolean stalled)
+    {
+        if (stalled)
+        {
+            statistics.incWriteStalls();
+            chunkSize = fileChannel != null ? MAX_CHUNK_SIZE : INITIAL_CHUNK_SIZE;
+        }
+        else if (chunkBuffer != null && chunkBuffer.limit() == chunkSize)
+        {
+            chunkSize = min(chunkSize * 2, MAX_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Writes the content keeping track of whether the write call returned before the write was completed,
+     * which means the connection could not take the whole content so it was queued.
+     */
+    private void write(HttpContent content)
+    {
+        final int write = ++startedWrites;
         ctx.write(content, this);
+        if (write > returnedWrites)
+        {
+            returnedWrites = write;
+        }
+    }
+
+    /**
+     * Writes the buffers of a request being streamed as they are, without copying them, when the response
+     * body is the body of a request received by a listener.
+     */
+    private void sendTransferredBuffer(BlockingTransferInputStream transferInputStream) throws IOException
+    {
+        final Buffer buffer = transferInputStream.nextBuffer();
+        final HttpContent content;
+
+        if (buffer == null)
+        {
+            content = httpResponsePacket.httpTrailerBuilder().build();
+            isDone = true;
+        }
+        else
+        {
+            statistics.incBytesWritten(buffer.remaining());
+            content = httpResponsePacket.httpContentBuilder().content(buffer).build();
+        }
+
+        write(content);
     }
 
     /**
@@ -91,6 +237,7 @@ public class ResponseStreamingCompletionHandler
     @Override
     public void completed(WriteResult result)
     {
+        adaptChunkSize(returnedWrites == startedWrites);
         try
         {
             if (!isDone)
@@ -148,10 +295,11 @@ public class ResponseStreamingCompletionHandler
     }
 
     /**
-     * Close the local file input stream.
+     * Close the local file input stream and return the chunk buffer to the pool.
      */
     private void close()
     {
+        releaseChunkBuffer();
         try
         {
             inputStream.close();
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.listener.grizzly;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Pool of the buffers used to stream response bodies, shared by all the threads. The chunks of a
+ * response are read in a worker thread but its buffer is usually returned from a selector thread
+ * once the response is sent, so buffers can't be kept per thread.
+ * <p/>
+ * Buffers are kept by capacity, up to {@link #MAX_POOLED_BUFFERS_PER_CAPACITY} of each one. Chunk
+ * sizes only double from the initial size up to the maximum one, so there are only a few capacities.
+ */
+class StreamingBufferPool
+{
+
+    static final int MAX_POOLED_BUFFERS_PER_CAPACITY = 16;
+
+    private final boolean direct;
+    private final ConcurrentNavigableMap<Integer, Queue<ByteBuffer>> pools = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param direct whether the pool allocates direct buffers instead of heap ones
+     */
+    StreamingBufferPool(boolean direct)
+    {
+        this.direct = direct;
+    }
+
+    /**
+     * Takes the smallest pooled buffer of at least the given capacity, or allocates a new one if
+     * there is none.
+     *
+     * @param size the minimum capacity of the buffer
+     * @return a cleared buffer whose limit is {@code size}
+     */
+    ByteBuffer acquire(int size)
+    {
+        for (Queue<ByteBuffer> pool : pools.tailMap(size).values())
+        {
+            ByteBuffer buffer = pool.poll();
+            if (buffer != null)
+            {
+                buffer.clear().limit(size);
+                return buffer;
+            }
+        }
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    /**
+     * Returns a buffer to the pool. It is discarded if there are already enough pooled buffers
+     * of its capacity. Can be invoked from any thread.
+     */
+    void release(ByteBuffer buffer)
+    {
+        pools.computeIfAbsent(buffer.capacity(), capacity -> new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS_PER_CAPACITY))
+             .offer(buffer);
+    }
+}
@@ -64,7 +64,15 @@ public class MethodRequestMatcher implements RequestMatcher
     @Override
     public boolean matches(final HttpRequest httpRequest)
     {
-        return this.methods.contains(httpRequest.getMethod().toLowerCase());
+        final String method = httpRequest.getMethod();
+        for (String allowedMethod : methods)
+        {
+            if (allowedMethod.equalsIgnoreCase(method))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -64,8 +64,10 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
     private ProxyConfig proxyConfig;
 
     private HttpClient httpClient;
+    private final HttpClientStatistics connectionStatistics = new HttpClientStatistics();
 
     private int maxConnections = UNLIMITED_CONNECTIONS;
+    private int maxConnectionsPerHost = UNLIMITED_CONNECTIONS;
     private boolean usePersistentConnections = true;
     private int connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
 
@@ -112,10 +114,12 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
                 .setProxyConfig(proxyConfig)
                 .setClientSocketProperties(clientSocketProperties)
                 .setMaxConnections(maxConnections)
+                .setMaxConnectionsPerHost(maxConnectionsPerHost)
                 .setUsePersistentConnections(usePersistentConnections)
                 .setConnectionIdleTimeout(connectionIdleTimeout)
                 .setThreadNamePrefix(threadNamePrefix)
                 .setOwnerName(name)
+                .setStatistics(connectionStatistics)
                 .build();
 
         HttpClientFactory httpClientFactory = muleContext.getRegistry().get(OBJECT_HTTP_CLIENT_FACTORY);
@@ -138,6 +142,11 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
             throw new InitialisationException(CoreMessages.createStaticMessage("The maxConnections parameter only allows positive values or -1 for unlimited concurrent connections."), this);
         }
 
+        if (maxConnectionsPerHost < UNLIMITED_CONNECTIONS || maxConnectionsPerHost == 0)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The maxConnectionsPerHost parameter only allows positive values or -1 for unlimited concurrent connections to each host."), this);
+        }
+
         if (!usePersistentConnections)
         {
             connectionIdleTimeout = 0;
@@ -342,6 +351,19 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
         this.maxConnections = maxConnections;
     }
 
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @return the connection statistics of the client of this config, by host and port
+     */
+    public HttpClientStatistics getConnectionStatistics()
+    {
+        return connectionStatistics;
+    }
+
     public void setUsePersistentConnections(boolean usePersistentConnections)
     {
         this.usePersistentConnections = usePersistentConnections;
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.request;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection statistics of the partition of an {@link HttpClient} for a single host and port.
+ * <p/>
+ * The time each request waits for a connection slot is kept in a histogram whose first bucket
+ * counts the waits under 1 millisecond and bucket {@code i} the ones under {@code 2^i} milliseconds,
+ * with the last bucket counting the rest.
+ */
+public class HostConnectionStatistics
+{
+
+    public static final int ACQUIRE_LATENCY_BUCKETS = 16;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder openedConnections = new LongAdder();
+    private final LongAdder closedConnections = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final AtomicInteger pendingAcquires = new AtomicInteger();
+    private final AtomicLongArray acquireLatencies = new AtomicLongArray(ACQUIRE_LATENCY_BUCKETS);
+    private volatile long lastActivity = System.nanoTime();
+
+    public void incRequests()
+    {
+        requests.increment();
+        lastActivity = System.nanoTime();
+    }
+
+    public void incOpenedConnections()
+    {
+        openedConnections.increment();
+        lastActivity = System.nanoTime();
+    }
+
+    public void incClosedConnections()
+    {
+        closedConnections.increment();
+        lastActivity = System.nanoTime();
+    }
+
+    public void incAcquireTimeouts()
+    {
+        acquireTimeouts.increment();
+    }
+
+    /**
+     * Registers a request that starts waiting for a connection slot.
+     */
+    public void acquireStarted()
+    {
+        pendingAcquires.incrementAndGet();
+        lastActivity = System.nanoTime();
+    }
+
+    /**
+     * Registers a request that stopped waiting for a connection slot, whether it got one or not.
+     *
+     * @param waitNanos the time the request waited
+     */
+    public void acquireFinished(long waitNanos)
+    {
+        pendingAcquires.decrementAndGet();
+        lastActivity = System.nanoTime();
+        acquireLatencies.incrementAndGet(getAcquireLatencyBucket(NANOSECONDS.toMillis(waitNanos)));
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of connections opened
+     */
+    public long getOpenedConnections()
+    {
+        return openedConnections.sum();
+    }
+
+    /**
+     * @return the number of connections closed, either by the remote host or because they were idle or expired
+     */
+    public long getClosedConnections()
+    {
+        return closedConnections.sum();
+    }
+
+    public long getOpenConnections()
+    {
+        return getOpenedConnections() - getClosedConnections();
+    }
+
+    /**
+     * @return the number of requests that could not get a connection slot within their response timeout
+     */
+    public long getAcquireTimeouts()
+    {
+        return acquireTimeouts.sum();
+    }
+
+    /**
+     * @return the number of requests currently waiting for a connection slot
+     */
+    public int getPendingAcquires()
+    {
+        return pendingAcquires.get();
+    }
+
+    /**
+     * @return the ratio of requests sent over a connection that was already open
+     */
+    public double getKeepAliveHitRatio()
+    {
+        long sentRequests = getRequests();
+        if (sentRequests == 0)
+        {
+            return 0;
+        }
+        return Math.max(0, 1 - (double) getOpenedConnections() / sentRequests);
+    }
+
+    /**
+     * @return a copy of the counts of each bucket of the acquire latency histogram
+     */
+    public long[] getAcquireLatencyHistogram()
+    {
+        long[] histogram = new long[ACQUIRE_LATENCY_BUCKETS];
+        for (int i = 0; i < ACQUIRE_LATENCY_BUCKETS; i++)
+        {
+            histogram[i] = acquireLatencies.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * @param nanoTime a value of {@link System#nanoTime()}
+     * @return whether the partition has no open connections nor pending requests and had no activity after the given time
+     */
+    boolean isIdleSince(long nanoTime)
+    {
+        return getPendingAcquires() == 0 && getOpenConnections() <= 0 && lastActivity - nanoTime <= 0;
+    }
+
+    static int getAcquireLatencyBucket(long waitMillis)
+    {
+        return waitMillis <= 0 ? 0 : min(64 - numberOfLeadingZeros(waitMillis), ACQUIRE_LATENCY_BUCKETS - 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("HostConnectionStatistics{requests=%d, openConnections=%d, keepAliveHitRatio=%.2f, pendingAcquires=%d, acquireTimeouts=%d}",
+                             getRequests(), getOpenConnections(), getKeepAliveHitRatio(), getPendingAcquires(), getAcquireTimeouts());
+    }
+}
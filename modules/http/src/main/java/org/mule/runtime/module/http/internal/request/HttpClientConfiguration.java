@@ -17,22 +17,27 @@ public class HttpClientConfiguration
     private final ProxyConfig proxyConfig;
     private final TcpClientSocketProperties clientSocketProperties;
     private final int maxConnections;
+    private final int maxConnectionsPerHost;
     private final boolean usePersistentConnections;
     private final int connectionIdleTimeout;
     private final String threadNamePrefix;
     private final String ownerName;
+    private final HttpClientStatistics statistics;
 
     private HttpClientConfiguration(TlsContextFactory tlsContextFactory, ProxyConfig proxyConfig, TcpClientSocketProperties clientSocketProperties,
-                                           int maxConnections, boolean usePersistentConnections, int connectionIdleTimeout, String threadNamePrefix, String ownerName)
+                                           int maxConnections, int maxConnectionsPerHost, boolean usePersistentConnections, int connectionIdleTimeout,
+                                           String threadNamePrefix, String ownerName, HttpClientStatistics statistics)
     {
         this.tlsContextFactory = tlsContextFactory;
         this.proxyConfig = proxyConfig;
         this.clientSocketProperties = clientSocketProperties;
         this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
         this.usePersistentConnections = usePersistentConnections;
         this.connectionIdleTimeout = connectionIdleTimeout;
         this.threadNamePrefix = threadNamePrefix;
         this.ownerName = ownerName;
+        this.statistics = statistics;
     }
 
     public TlsContextFactory getTlsContextFactory()
@@ -55,6 +60,11 @@ public class HttpClientConfiguration
         return maxConnections;
     }
 
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
     public boolean isUsePersistentConnections()
     {
         return usePersistentConnections;
@@ -75,16 +85,23 @@ public class HttpClientConfiguration
         return ownerName;
     }
 
+    public HttpClientStatistics getStatistics()
+    {
+        return statistics;
+    }
+
     public static class Builder
     {
         private TlsContextFactory tlsContextFactory;
         private ProxyConfig proxyConfig;
         private TcpClientSocketProperties clientSocketProperties;
         private int maxConnections;
+        private int maxConnectionsPerHost;
         private boolean usePersistentConnections;
         private int connectionIdleTimeout;
         private String threadNamePrefix;
         private String ownerName;
+        private HttpClientStatistics statistics = new HttpClientStatistics();
 
         public Builder setTlsContextFactory(TlsContextFactory tlsContextFactory)
         {
@@ -110,6 +127,12 @@ public class HttpClientConfiguration
             return this;
         }
 
+        public Builder setMaxConnectionsPerHost(int maxConnectionsPerHost)
+        {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
         public Builder setUsePersistentConnections(boolean usePersistentConnections)
         {
             this.usePersistentConnections = usePersistentConnections;
@@ -134,10 +157,16 @@ public class HttpClientConfiguration
             return this;
         }
 
+        public Builder setStatistics(HttpClientStatistics statistics)
+        {
+            this.statistics = statistics;
+            return this;
+        }
+
         public HttpClientConfiguration build()
         {
-            return new HttpClientConfiguration(tlsContextFactory, proxyConfig, clientSocketProperties, maxConnections,
-                                                      usePersistentConnections, connectionIdleTimeout, threadNamePrefix, ownerName);
+            return new HttpClientConfiguration(tlsContextFactory, proxyConfig, clientSocketProperties, maxConnections, maxConnectionsPerHost,
+                                                      usePersistentConnections, connectionIdleTimeout, threadNamePrefix, ownerName, statistics);
         }
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.request;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Connection statistics of an {@link HttpClient}, partitioned by the host and port the connections go to.
+ */
+public class HttpClientStatistics
+{
+
+    private final ConcurrentMap<String, HostConnectionStatistics> hostStatistics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the statistics of the partition for the given host and port, created if it does not exist yet
+     */
+    public HostConnectionStatistics getHostStatistics(String host, int port)
+    {
+        final String partitionKey = getPartitionKey(host, port);
+        final HostConnectionStatistics statistics = hostStatistics.get(partitionKey);
+        return statistics != null ? statistics : hostStatistics.computeIfAbsent(partitionKey, key -> new HostConnectionStatistics());
+    }
+
+    /**
+     * @return the statistics of each partition, by its {@code host:port} key
+     */
+    public Map<String, HostConnectionStatistics> getHostsStatistics()
+    {
+        return unmodifiableMap(hostStatistics);
+    }
+
+    /**
+     * Discards the statistics of the partitions that have no open connections nor pending requests and had no
+     * activity for the given time, so that a client that sends requests to many different hosts does not keep
+     * the statistics of all of them. The statistics of a partition start from zero if it's used again.
+     *
+     * @param idleNanos the time a partition must be idle to be discarded
+     */
+    public void evictIdleHosts(long idleNanos)
+    {
+        final long idleSince = System.nanoTime() - idleNanos;
+        hostStatistics.values().removeIf(statistics -> statistics.isIdleSince(idleSince));
+    }
+
+    /**
+     * @return the key of the partition for the given host and port
+     */
+    public static String getPartitionKey(String host, int port)
+    {
+        return host.toLowerCase() + ":" + port;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.request.grizzly;
+
+import org.mule.runtime.module.http.internal.request.HostConnectionStatistics;
+import org.mule.runtime.module.http.internal.request.HttpClientStatistics;
+
+import com.ning.http.client.providers.grizzly.TransportCustomizer;
+
+import java.net.InetSocketAddress;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ConnectionProbe;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+
+/**
+ * Transport customizer that adds a probe for counting the connections opened and closed to each host.
+ * <p/>
+ * Connections are counted for the address they go to, so when a proxy is configured they are counted for the proxy.
+ */
+public class ConnectionStatisticsTransportCustomizer implements TransportCustomizer
+{
+
+    private final HttpClientStatistics statistics;
+
+    public ConnectionStatisticsTransportCustomizer(HttpClientStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void customize(TCPNIOTransport transport, FilterChainBuilder filterChainBuilder)
+    {
+        transport.getConnectionMonitoringConfig().addProbes(new ConnectionProbe.Adapter()
+        {
+            @Override
+            public void onConnectEvent(Connection connection)
+            {
+                HostConnectionStatistics hostStatistics = getHostStatistics(connection);
+                if (hostStatistics != null)
+                {
+                    hostStatistics.incOpenedConnections();
+                }
+            }
+
+            @Override
+            public void onCloseEvent(Connection connection)
+            {
+                HostConnectionStatistics hostStatistics = getHostStatistics(connection);
+                if (hostStatistics != null)
+                {
+                    hostStatistics.incClosedConnections();
+                }
+            }
+        });
+    }
+
+    private HostConnectionStatistics getHostStatistics(Connection connection)
+    {
+        Object peerAddress = connection.getPeerAddress();
+        if (peerAddress instanceof InetSocketAddress)
+        {
+            InetSocketAddress address = (InetSocketAddress) peerAddress;
+            return statistics.getHostStatistics(address.getHostString(), address.getPort());
+        }
+        return null;
+    }
+}
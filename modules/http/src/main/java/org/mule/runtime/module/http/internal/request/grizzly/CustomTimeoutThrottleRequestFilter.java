@@ -7,6 +7,10 @@
 package org.mule.runtime.module.http.internal.request.grizzly;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.module.http.internal.request.HostConnectionStatistics;
+import org.mule.runtime.module.http.internal.request.HttpClientStatistics;
 
 import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.HttpResponseBodyPart;
@@ -15,9 +19,15 @@ import com.ning.http.client.HttpResponseStatus;
 import com.ning.http.client.filter.FilterContext;
 import com.ning.http.client.filter.FilterException;
 import com.ning.http.client.filter.RequestFilter;
+import com.ning.http.client.uri.Uri;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,32 +38,79 @@ import org.slf4j.LoggerFactory;
  *
  * This is based on {@code com.ning.http.client.extra.ThrottleRequestFilter} from Async Http Client, but uses the
  * request timeout from each request.
+ *
+ * Besides the permits shared by all the requests, each host and port can have its own permits, so a slow host can
+ * only take the connections of its own partition. The time each request waits for its permits is registered in the
+ * {@link HostConnectionStatistics} of its partition. The permits and statistics of the hosts that had no requests
+ * for a while are discarded, checking for them at most once per idle timeout while filtering the requests.
  */
 public class CustomTimeoutThrottleRequestFilter implements RequestFilter
 {
 
+    private static final String HTTPS_SCHEME = "https";
+    private static final String WSS_SCHEME = "wss";
+    private static final int HTTP_DEFAULT_PORT = 80;
+    private static final int HTTPS_DEFAULT_PORT = 443;
+    private static final long DEFAULT_IDLE_HOST_TIMEOUT = MINUTES.toNanos(5);
+
     private final static Logger logger = LoggerFactory.getLogger(CustomTimeoutThrottleRequestFilter.class);
     private final Semaphore available;
+    private final int maxConnectionsPerHost;
+    private final ConcurrentMap<String, HostPermits> availablePerHost = new ConcurrentHashMap<>();
+    private final HttpClientStatistics statistics;
+    private final long idleHostTimeout;
+    private final AtomicLong nextEviction;
 
     public CustomTimeoutThrottleRequestFilter(int maxConnections)
     {
-        available = new Semaphore(maxConnections, true);
+        this(maxConnections, -1, new HttpClientStatistics());
+    }
+
+    /**
+     * @param maxConnections the permits shared by all the requests, or a non positive value for no limit
+     * @param maxConnectionsPerHost the permits of each host and port, or a non positive value for no limit
+     * @param statistics the statistics to register the requests into
+     */
+    public CustomTimeoutThrottleRequestFilter(int maxConnections, int maxConnectionsPerHost, HttpClientStatistics statistics)
+    {
+        this(maxConnections, maxConnectionsPerHost, statistics, DEFAULT_IDLE_HOST_TIMEOUT);
+    }
+
+    CustomTimeoutThrottleRequestFilter(int maxConnections, int maxConnectionsPerHost, HttpClientStatistics statistics, long idleHostTimeoutNanos)
+    {
+        available = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.statistics = statistics;
+        this.idleHostTimeout = idleHostTimeoutNanos;
+        this.nextEviction = new AtomicLong(System.nanoTime() + idleHostTimeoutNanos);
     }
 
     @Override
     public FilterContext filter(FilterContext ctx) throws FilterException
     {
+        final Uri uri = ctx.getRequest().getUri();
+        final int port = getPort(uri);
+        evictIdleHosts();
+        final HostConnectionStatistics hostStatistics = statistics.getHostStatistics(uri.getHost(), port);
+        final HostPermits hostAvailable = getHostPermits(uri.getHost(), port);
+
+        final long timeout = MILLISECONDS.toNanos(ctx.getRequest().getRequestTimeout());
+        final long start = System.nanoTime();
+        hostStatistics.acquireStarted();
         try
         {
-            if (logger.isDebugEnabled())
+            if (logger.isDebugEnabled() && available != null)
             {
                 logger.debug("Current Throttling Status {}", available.availablePermits());
             }
-            if (!available.tryAcquire(ctx.getRequest().getRequestTimeout(), MILLISECONDS))
+            if (!tryAcquire(hostAvailable, timeout))
+            {
+                throw noSlotAvailable(ctx, hostStatistics);
+            }
+            if (!tryAcquire(available, timeout - (System.nanoTime() - start)))
             {
-                throw new FilterException(
-                        String.format("No slot available for processing Request %s with AsyncHandler %s",
-                                      ctx.getRequest(), ctx.getAsyncHandler()));
+                release(hostAvailable);
+                throw noSlotAvailable(ctx, hostStatistics);
             }
         }
         catch (InterruptedException e)
@@ -61,28 +118,176 @@ public class CustomTimeoutThrottleRequestFilter implements RequestFilter
             throw new FilterException(
                     String.format("Interrupted Request %s with AsyncHandler %s", ctx.getRequest(), ctx.getAsyncHandler()));
         }
+        finally
+        {
+            hostStatistics.acquireFinished(System.nanoTime() - start);
+        }
+        hostStatistics.incRequests();
+
+        if (available == null && hostAvailable == null)
+        {
+            return ctx;
+        }
+        return new FilterContext.FilterContextBuilder(ctx).asyncHandler(new AsyncHandlerWrapper(ctx.getAsyncHandler(), hostAvailable)).build();
+    }
+
+    private HostPermits getHostPermits(String host, int port)
+    {
+        if (maxConnectionsPerHost <= 0)
+        {
+            return null;
+        }
+        // atomic with the eviction of the partition, so it is not discarded before its permits are acquired
+        return availablePerHost.compute(HttpClientStatistics.getPartitionKey(host, port), (key, hostAvailable) ->
+        {
+            HostPermits permits = hostAvailable == null ? new HostPermits(maxConnectionsPerHost) : hostAvailable;
+            permits.acquireStarted();
+            return permits;
+        });
+    }
+
+    private void evictIdleHosts()
+    {
+        final long now = System.nanoTime();
+        final long evictionTime = nextEviction.get();
+        if (now - evictionTime < 0 || !nextEviction.compareAndSet(evictionTime, now + idleHostTimeout))
+        {
+            return;
+        }
+
+        final long idleSince = now - idleHostTimeout;
+        for (String partitionKey : availablePerHost.keySet())
+        {
+            availablePerHost.computeIfPresent(partitionKey, (key, hostAvailable) -> hostAvailable.isIdleSince(idleSince) ? null : hostAvailable);
+        }
+        statistics.evictIdleHosts(idleHostTimeout);
+    }
+
+    /**
+     * @return the keys of the partitions that currently have their own permits
+     */
+    Set<String> getHostPartitions()
+    {
+        return availablePerHost.keySet();
+    }
+
+    private boolean tryAcquire(HostPermits hostPermits, long timeoutNanos) throws InterruptedException
+    {
+        if (hostPermits == null)
+        {
+            return true;
+        }
+        try
+        {
+            return tryAcquire(hostPermits.semaphore, timeoutNanos);
+        }
+        finally
+        {
+            hostPermits.acquireFinished();
+        }
+    }
+
+    private boolean tryAcquire(Semaphore semaphore, long timeoutNanos) throws InterruptedException
+    {
+        return semaphore == null || semaphore.tryAcquire(timeoutNanos, NANOSECONDS);
+    }
+
+    private void release(Semaphore semaphore)
+    {
+        if (semaphore != null)
+        {
+            semaphore.release();
+        }
+    }
 
-        return new FilterContext.FilterContextBuilder(ctx).asyncHandler(new AsyncHandlerWrapper(ctx.getAsyncHandler())).build();
+    private void release(HostPermits hostPermits)
+    {
+        if (hostPermits != null)
+        {
+            hostPermits.touch();
+            hostPermits.semaphore.release();
+        }
+    }
+
+    private FilterException noSlotAvailable(FilterContext ctx, HostConnectionStatistics hostStatistics)
+    {
+        hostStatistics.incAcquireTimeouts();
+        return new FilterException(
+                String.format("No slot available for processing Request %s with AsyncHandler %s",
+                              ctx.getRequest(), ctx.getAsyncHandler()));
+    }
+
+    static int getPort(Uri uri)
+    {
+        if (uri.getPort() != -1)
+        {
+            return uri.getPort();
+        }
+        return HTTPS_SCHEME.equalsIgnoreCase(uri.getScheme()) || WSS_SCHEME.equalsIgnoreCase(uri.getScheme()) ? HTTPS_DEFAULT_PORT : HTTP_DEFAULT_PORT;
+    }
+
+    /**
+     * The permits of a host and port, along with the last time they were used. They are only idle while no request
+     * holds or is about to acquire them, so every request of a partition uses the same instance.
+     */
+    private static class HostPermits
+    {
+
+        private final Semaphore semaphore;
+        private final int maxPermits;
+        private final AtomicInteger acquiring = new AtomicInteger();
+        private volatile long lastUsed = System.nanoTime();
+
+        HostPermits(int maxPermits)
+        {
+            this.semaphore = new Semaphore(maxPermits, true);
+            this.maxPermits = maxPermits;
+        }
+
+        void touch()
+        {
+            lastUsed = System.nanoTime();
+        }
+
+        void acquireStarted()
+        {
+            touch();
+            acquiring.incrementAndGet();
+        }
+
+        void acquireFinished()
+        {
+            acquiring.decrementAndGet();
+        }
+
+        boolean isIdleSince(long nanoTime)
+        {
+            return acquiring.get() == 0 && semaphore.availablePermits() == maxPermits && !semaphore.hasQueuedThreads()
+                   && lastUsed - nanoTime <= 0;
+        }
     }
 
     private class AsyncHandlerWrapper<T> implements AsyncHandler<T>
     {
 
         private final AsyncHandler<T> asyncHandler;
+        private final HostPermits hostAvailable;
         private final AtomicBoolean complete = new AtomicBoolean(false);
 
-        public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler)
+        public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler, HostPermits hostAvailable)
         {
             this.asyncHandler = asyncHandler;
+            this.hostAvailable = hostAvailable;
         }
 
         private void complete()
         {
             if (complete.compareAndSet(false, true))
             {
-                available.release();
+                release(available);
+                release(hostAvailable);
             }
-            if (logger.isDebugEnabled())
+            if (logger.isDebugEnabled() && available != null)
             {
                 logger.debug("Current Throttling Status after onThrowable {}", available.availablePermits());
             }
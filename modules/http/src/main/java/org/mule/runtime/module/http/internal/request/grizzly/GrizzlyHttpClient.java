@@ -7,6 +7,7 @@
 package org.mule.runtime.module.http.internal.request.grizzly;
 
 import static com.ning.http.client.Realm.AuthScheme.NTLM;
+import static org.mule.runtime.core.api.config.MuleProperties.SYSTEM_PROPERTY_PREFIX;
 import static org.mule.runtime.module.http.api.HttpHeaders.Names.CONNECTION;
 import static org.mule.runtime.module.http.api.HttpHeaders.Values.CLOSE;
 
@@ -35,6 +36,7 @@ import org.mule.runtime.module.http.internal.multipart.HttpPart;
 import org.mule.runtime.module.http.internal.request.HttpAuthenticationType;
 import org.mule.runtime.module.http.internal.request.HttpClient;
 import org.mule.runtime.module.http.internal.request.HttpClientConfiguration;
+import org.mule.runtime.module.http.internal.request.HttpClientStatistics;
 import org.mule.runtime.module.http.internal.request.NtlmProxyConfig;
 
 import com.ning.http.client.AsyncCompletionHandler;
@@ -65,7 +67,8 @@ import org.slf4j.LoggerFactory;
 public class GrizzlyHttpClient implements HttpClient
 {
 
-    private static final int MAX_CONNECTION_LIFETIME = 30 * 60 * 1000;
+    public static final String MAX_CONNECTION_LIFETIME_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.client.maxConnectionLifetime";
+    private static final int MAX_CONNECTION_LIFETIME = Integer.getInteger(MAX_CONNECTION_LIFETIME_PROPERTY_KEY, 30 * 60 * 1000);
 
     private static final Logger logger = LoggerFactory.getLogger(GrizzlyHttpClient.class);
 
@@ -74,10 +77,12 @@ public class GrizzlyHttpClient implements HttpClient
     private final TcpClientSocketProperties clientSocketProperties;
 
     private int maxConnections;
+    private int maxConnectionsPerHost;
     private boolean usePersistentConnections;
     private int connectionIdleTimeout;
     private String threadNamePrefix;
     private String ownerName;
+    private HttpClientStatistics statistics;
 
     private AsyncHttpClient asyncHttpClient;
     private SSLContext sslContext;
@@ -88,10 +93,12 @@ public class GrizzlyHttpClient implements HttpClient
         this.proxyConfig = config.getProxyConfig();
         this.clientSocketProperties = config.getClientSocketProperties();
         this.maxConnections = config.getMaxConnections();
+        this.maxConnectionsPerHost = config.getMaxConnectionsPerHost();
         this.usePersistentConnections = config.isUsePersistentConnections();
         this.connectionIdleTimeout = config.getConnectionIdleTimeout();
         this.threadNamePrefix = config.getThreadNamePrefix();
         this.ownerName = config.getOwnerName();
+        this.statistics = config.getStatistics();
     }
 
     @Override
@@ -200,6 +207,7 @@ public class GrizzlyHttpClient implements HttpClient
         compositeTransportCustomizer.addTransportCustomizer(new IOStrategyTransportCustomizer
                                                                     (threadNamePrefix));
         compositeTransportCustomizer.addTransportCustomizer(new LoggerTransportCustomizer());
+        compositeTransportCustomizer.addTransportCustomizer(new ConnectionStatisticsTransportCustomizer(statistics));
 
         if (clientSocketProperties != null)
         {
@@ -214,13 +222,10 @@ public class GrizzlyHttpClient implements HttpClient
 
     private void configureConnections(AsyncHttpClientConfig.Builder builder) throws InitialisationException
     {
-        if (maxConnections > 0)
-        {
-            builder.addRequestFilter(new CustomTimeoutThrottleRequestFilter(maxConnections));
-        }
+        builder.addRequestFilter(new CustomTimeoutThrottleRequestFilter(maxConnections, maxConnectionsPerHost, statistics));
 
         builder.setMaxConnections(maxConnections);
-        builder.setMaxConnectionsPerHost(maxConnections);
+        builder.setMaxConnectionsPerHost(maxConnectionsPerHost > 0 ? maxConnectionsPerHost : maxConnections);
 
         builder.setAllowPoolingConnections(usePersistentConnections);
         builder.setAllowPoolingSslConnections(usePersistentConnections);
@@ -427,7 +432,7 @@ public class GrizzlyHttpClient implements HttpClient
         }
 
         // Set the response timeout in the request, this value is read by {@code CustomTimeoutThrottleRequestFilter}
-        // if the maxConnections attribute is configured in the requester.
+        // to bound the time it waits for a connection slot.
         builder.setRequestTimeout(responseTimeout);
 
         return builder.build();
@@ -283,6 +283,48 @@ public class HttpListenerRegistryTestCase extends AbstractMuleTestCase
         assertThat(requestHandler, is(instanceOf(NoListenerRequestHandler.class)));
     }
 
+    @Test
+    public void noMethodFound()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        httpListenerRegistry.addRequestHandler(testServer, mock(RequestHandler.class), new ListenerRequestMatcher(new MethodRequestMatcher(GET_METHOD), ANOTHER_PATH));
+        final HttpRequest mockRequest = createMockRequestWithPath(ANOTHER_PATH);
+        when(mockRequest.getMethod()).thenReturn(POST_METHOD);
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, mockRequest), is(instanceOf(NoMethodRequestHandler.class)));
+    }
+
+    @Test
+    public void routeManyPathsAddedWhileRouting()
+    {
+        httpListenerRegistry = createHttpListenerRegistryWithRegisteredHandlers();
+        for (int i = 0; i < 2000; i++)
+        {
+            final String path = FIRST_LEVEL_PATH_LOWER_CASE + "/resource" + i;
+            requestHandlerPerPath.put(path, mock(RequestHandler.class));
+            httpListenerRegistry.addRequestHandler(testServer, requestHandlerPerPath.get(path), new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), path));
+            routePath(path, path);
+            routePath(SECOND_LEVEL_URI_PARAM.replace(URI_PARAM, "1"), SECOND_LEVEL_URI_PARAM);
+        }
+        for (int i = 0; i < 2000; i++)
+        {
+            final String path = FIRST_LEVEL_PATH_LOWER_CASE + "/resource" + i;
+            routePath(path + PATH_SEPARATOR, path);
+        }
+    }
+
+    @Test
+    public void disposedHandlerIsNotRouted()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        final RequestHandlerManager requestHandlerManager = httpListenerRegistry.addRequestHandler(testServer, mock(RequestHandler.class), new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), SECOND_LEVEL_URI_PARAM));
+        requestHandlerManager.dispose();
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(SECOND_LEVEL_URI_PARAM.replace(URI_PARAM, "1"))), is(instanceOf(NoListenerRequestHandler.class)));
+
+        requestHandlerPerPath.put(SECOND_LEVEL_URI_PARAM, mock(RequestHandler.class));
+        httpListenerRegistry.addRequestHandler(testServer, requestHandlerPerPath.get(SECOND_LEVEL_URI_PARAM), new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), SECOND_LEVEL_URI_PARAM));
+        routePath(SECOND_LEVEL_URI_PARAM.replace(URI_PARAM, "1"), SECOND_LEVEL_URI_PARAM);
+    }
+
     private void routePath(String requestPath, String listenerPath)
     {
         assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(requestPath)), is(requestHandlerPerPath.get(listenerPath)));
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.listener.grizzly;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.runtime.core.util.IOUtils;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.ReadResult;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class BlockingTransferInputStreamTestCase extends AbstractMuleTestCase
+{
+
+    private final FilterChainContext filterChainContext = mock(FilterChainContext.class);
+    private Buffer secondChunk;
+    private Buffer lastChunk;
+
+    @Before
+    public void before() throws Exception
+    {
+        secondChunk = buffer("second ");
+        lastChunk = buffer("last");
+        ReadResult emptyRead = readResult(buffer(""), false);
+        ReadResult secondRead = readResult(secondChunk, false);
+        ReadResult lastRead = readResult(lastChunk, true);
+        when(filterChainContext.read()).thenReturn(emptyRead, secondRead, lastRead);
+    }
+
+    @Test
+    public void readsAllChunks() throws Exception
+    {
+        BlockingTransferInputStream inputStream = new BlockingTransferInputStream(filterChainContext, buffer("first "));
+
+        assertThat(IOUtils.toString(inputStream), is(equalTo("first second last")));
+        assertThat(inputStream.read(), is(-1));
+    }
+
+    @Test
+    public void bulkReadDoesNotSpanChunks() throws Exception
+    {
+        BlockingTransferInputStream inputStream = new BlockingTransferInputStream(filterChainContext, buffer("first "));
+        byte[] bytes = new byte[64];
+
+        assertThat(inputStream.available(), is(6));
+        assertThat(inputStream.read(bytes, 0, bytes.length), is(6));
+        assertThat(inputStream.available(), is(0));
+        assertThat(inputStream.read(bytes, 0, bytes.length), is(7));
+        assertThat(inputStream.skip(2), is(2L));
+        assertThat(inputStream.read(bytes, 0, bytes.length), is(2));
+        assertThat(new String(bytes, 0, 2, UTF_8), is(equalTo("st")));
+        assertThat(inputStream.read(bytes, 0, bytes.length), is(-1));
+    }
+
+    @Test
+    public void handsOffBuffersWithoutCopying() throws Exception
+    {
+        BlockingTransferInputStream inputStream = new BlockingTransferInputStream(filterChainContext, buffer("first "));
+        assertThat((char) inputStream.read(), is('f'));
+
+        assertThat(inputStream.nextBuffer().toStringContent(UTF_8), is(equalTo("irst ")));
+        assertThat(inputStream.nextBuffer(), is(sameInstance(secondChunk)));
+        assertThat(inputStream.nextBuffer(), is(sameInstance(lastChunk)));
+        assertThat(inputStream.nextBuffer(), is(nullValue()));
+    }
+
+    private Buffer buffer(String content)
+    {
+        return Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, content.getBytes(UTF_8));
+    }
+
+    private ReadResult readResult(Buffer content, boolean last)
+    {
+        HttpContent httpContent = mock(HttpContent.class);
+        when(httpContent.getContent()).thenReturn(content);
+        when(httpContent.isLast()).thenReturn(last);
+        ReadResult readResult = mock(ReadResult.class);
+        when(readResult.getMessage()).thenReturn(httpContent);
+        return readResult;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.listener.grizzly;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.module.http.api.HttpHeaders.Names.TRANSFER_ENCODING;
+import static org.mule.runtime.module.http.api.HttpHeaders.Values.CHUNKED;
+import org.mule.runtime.module.http.internal.domain.InputStreamHttpEntity;
+import org.mule.runtime.module.http.internal.domain.response.HttpResponse;
+import org.mule.runtime.module.http.internal.domain.response.HttpResponseBuilder;
+import org.mule.runtime.module.http.internal.listener.ResponseStreamingStatistics;
+import org.mule.runtime.module.http.internal.listener.async.ResponseStatusCallback;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Transport;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class ResponseStreamingCompletionHandlerTestCase extends AbstractMuleTestCase
+{
+
+    private static final int KB = 1024;
+    private static final int BODY_SIZE = 200 * KB;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FilterChainContext ctx = mock(FilterChainContext.class);
+    private final ResponseStatusCallback responseStatusCallback = mock(ResponseStatusCallback.class);
+    private final ResponseStreamingStatistics statistics = new ResponseStreamingStatistics();
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private final byte[] body = new byte[BODY_SIZE];
+
+    private CompletionHandler pendingWrite;
+    private boolean completeWritesRightAway = true;
+
+    @Before
+    public void before()
+    {
+        new Random(0).nextBytes(body);
+
+        Connection connection = mock(Connection.class);
+        Transport transport = mock(Transport.class);
+        when(ctx.getConnection()).thenReturn(connection);
+        when(connection.getTransport()).thenReturn(transport);
+        when(transport.getMemoryManager()).thenReturn(MemoryManager.DEFAULT_MEMORY_MANAGER);
+
+        doAnswer(invocation -> {
+            Buffer content = ((HttpContent) invocation.getArguments()[0]).getContent();
+            if (content.hasRemaining())
+            {
+                chunkSizes.add(content.remaining());
+                byte[] bytes = new byte[content.remaining()];
+                content.get(bytes);
+                written.write(bytes);
+            }
+            CompletionHandler completionHandler = (CompletionHandler) invocation.getArguments()[1];
+            if (completeWritesRightAway)
+            {
+                completionHandler.completed(null);
+            }
+            else
+            {
+                pendingWrite = completionHandler;
+            }
+            return null;
+        }).when(ctx).write(any(), any(CompletionHandler.class));
+    }
+
+    @Test
+    public void chunksGrowWhileWritesCompleteRightAway() throws Exception
+    {
+        createHandler(new ByteArrayInputStream(body)).start();
+
+        assertThat(chunkSizes.subList(0, 5), equalTo(asList(8 * KB, 16 * KB, 32 * KB, 64 * KB, 64 * KB)));
+        assertWholeBodyWritten();
+        assertThat(statistics.getWriteStalls(), is(0L));
+        assertThat(statistics.getFileResponses(), is(0L));
+    }
+
+    @Test
+    public void chunksDoNotGrowWhenWritesStall() throws Exception
+    {
+        completeWritesRightAway = false;
+        createHandler(new ByteArrayInputStream(body)).start();
+        while (pendingWrite != null)
+        {
+            CompletionHandler completionHandler = pendingWrite;
+            pendingWrite = null;
+            completionHandler.completed(null);
+        }
+
+        for (int i = 0; i < chunkSizes.size() - 1; i++)
+        {
+            assertThat(chunkSizes.get(i), is(8 * KB));
+        }
+        assertWholeBodyWritten();
+        assertThat(statistics.getWriteStalls(), is((long) chunkSizes.size() + 1));
+    }
+
+    @Test
+    public void fileBodiesUseMaximumChunkSize() throws Exception
+    {
+        File file = temporaryFolder.newFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file))
+        {
+            outputStream.write(body);
+        }
+
+        createHandler(new FileInputStream(file)).start();
+
+        assertThat(chunkSizes.get(0), is(64 * KB));
+        assertWholeBodyWritten();
+        assertThat(statistics.getFileResponses(), is(1L));
+    }
+
+    @Test
+    public void pooledBuffersAreReused()
+    {
+        StreamingBufferPool pool = new StreamingBufferPool(false);
+        ByteBuffer buffer = pool.acquire(16 * KB);
+        pool.release(buffer);
+
+        assertThat(pool.acquire(8 * KB), is(sameInstance(buffer)));
+        assertThat(pool.acquire(8 * KB), is(not(sameInstance(buffer))));
+    }
+
+    @Test
+    public void pooledBuffersAreSharedBetweenThreads() throws Exception
+    {
+        StreamingBufferPool pool = new StreamingBufferPool(false);
+        ByteBuffer buffer = pool.acquire(8 * KB);
+        Thread releaser = new Thread(() -> pool.release(buffer));
+        releaser.start();
+        releaser.join();
+
+        assertThat(pool.acquire(8 * KB), is(sameInstance(buffer)));
+    }
+
+    @Test
+    public void pooledBuffersAreBounded()
+    {
+        StreamingBufferPool pool = new StreamingBufferPool(false);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i <= StreamingBufferPool.MAX_POOLED_BUFFERS_PER_CAPACITY; i++)
+        {
+            buffers.add(pool.acquire(8 * KB));
+        }
+        buffers.forEach(pool::release);
+
+        int reused = 0;
+        for (int i = 0; i <= StreamingBufferPool.MAX_POOLED_BUFFERS_PER_CAPACITY; i++)
+        {
+            ByteBuffer acquired = pool.acquire(8 * KB);
+            if (buffers.stream().anyMatch(released -> released == acquired))
+            {
+                reused++;
+            }
+        }
+        assertThat(reused, is(StreamingBufferPool.MAX_POOLED_BUFFERS_PER_CAPACITY));
+    }
+
+    private ResponseStreamingCompletionHandler createHandler(InputStream inputStream)
+    {
+        HttpRequestPacket request = HttpRequestPacket.builder().method("GET").uri("/").protocol(Protocol.HTTP_1_1).build();
+        HttpResponse response = new HttpResponseBuilder().setStatusCode(200)
+                                                         .setReasonPhrase("OK")
+                                                         .addHeader(TRANSFER_ENCODING, CHUNKED)
+                                                         .setEntity(new InputStreamHttpEntity(inputStream))
+                                                         .build();
+        return new ResponseStreamingCompletionHandler(ctx, request, response, responseStatusCallback, statistics);
+    }
+
+    private void assertWholeBodyWritten()
+    {
+        assertThat(written.toByteArray(), equalTo(body));
+        assertThat(statistics.getBytesWritten(), is((long) BODY_SIZE));
+        assertThat(statistics.getStreamedResponses(), is(1L));
+        verify(responseStatusCallback).responseSendSuccessfully();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.http.internal.request.grizzly;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import org.mule.runtime.module.http.internal.request.HostConnectionStatistics;
+import org.mule.runtime.module.http.internal.request.HttpClientStatistics;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import com.ning.http.client.AsyncHandler;
+import com.ning.http.client.RequestBuilder;
+import com.ning.http.client.filter.FilterContext;
+import com.ning.http.client.filter.FilterException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+@SmallTest
+public class CustomTimeoutThrottleRequestFilterTestCase extends AbstractMuleTestCase
+{
+
+    private static final int TIMEOUT = 10;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final HttpClientStatistics statistics = new HttpClientStatistics();
+    private final CustomTimeoutThrottleRequestFilter filter = new CustomTimeoutThrottleRequestFilter(2, 1, statistics);
+
+    @Test
+    public void hostsHaveTheirOwnPartition() throws Exception
+    {
+        filter.filter(createContext("http://hostA:8081/"));
+        filter.filter(createContext("http://hostB:8081/"));
+
+        assertThat(hostStatistics("hostA", 8081).getRequests(), is(1L));
+        assertThat(hostStatistics("hostB", 8081).getRequests(), is(1L));
+    }
+
+    @Test
+    public void hostWithoutSlotsTimesOut() throws Exception
+    {
+        filter.filter(createContext("http://hostA:8081/"));
+        try
+        {
+            expectedException.expect(FilterException.class);
+            filter.filter(createContext("http://hostA:8081/"));
+        }
+        finally
+        {
+            assertThat(hostStatistics("hostA", 8081).getAcquireTimeouts(), is(1L));
+            assertThat(hostStatistics("hostA", 8081).getPendingAcquires(), is(0));
+        }
+    }
+
+    @Test
+    public void completedRequestReleasesItsSlots() throws Exception
+    {
+        filter.filter(createContext("http://hostA:8081/")).getAsyncHandler().onCompleted();
+        filter.filter(createContext("http://hostA:8081/"));
+
+        assertThat(hostStatistics("hostA", 8081).getRequests(), is(2L));
+        assertThat(hostStatistics("hostA", 8081).getAcquireTimeouts(), is(0L));
+    }
+
+    @Test
+    public void sharedSlotsAreLimited() throws Exception
+    {
+        filter.filter(createContext("http://hostA:8081/"));
+        filter.filter(createContext("http://hostB:8081/"));
+
+        expectedException.expect(FilterException.class);
+        filter.filter(createContext("http://hostC:8081/"));
+    }
+
+    @Test
+    public void defaultPortPartition() throws Exception
+    {
+        filter.filter(createContext("https://HostA/"));
+
+        assertThat(hostStatistics("hosta", 443).getRequests(), is(1L));
+    }
+
+    @Test
+    public void idleHostsAreEvicted() throws Exception
+    {
+        CustomTimeoutThrottleRequestFilter evictingFilter = new CustomTimeoutThrottleRequestFilter(2, 1, statistics, 0);
+        evictingFilter.filter(createContext("http://hostA:8081/")).getAsyncHandler().onCompleted();
+        evictingFilter.filter(createContext("http://hostB:8081/"));
+
+        assertThat(evictingFilter.getHostPartitions(), not(hasItem("hosta:8081")));
+        assertThat(statistics.getHostsStatistics().keySet(), not(hasItem("hosta:8081")));
+        assertThat(evictingFilter.getHostPartitions(), hasItem("hostb:8081"));
+    }
+
+    @Test
+    public void hostsWithRequestsInFlightAreNotEvicted() throws Exception
+    {
+        CustomTimeoutThrottleRequestFilter evictingFilter = new CustomTimeoutThrottleRequestFilter(2, 1, statistics, 0);
+        evictingFilter.filter(createContext("http://hostA:8081/"));
+        evictingFilter.filter(createContext("http://hostB:8081/"));
+
+        assertThat(evictingFilter.getHostPartitions(), hasItem("hosta:8081"));
+
+        expectedException.expect(FilterException.class);
+        evictingFilter.filter(createContext("http://hostA:8081/"));
+    }
+
+    @Test
+    public void acquireLatencyBuckets()
+    {
+        assertThat(HostConnectionStatistics.getAcquireLatencyBucket(0), is(0));
+        assertThat(HostConnectionStatistics.getAcquireLatencyBucket(1), is(1));
+        assertThat(HostConnectionStatistics.getAcquireLatencyBucket(3), is(2));
+        assertThat(HostConnectionStatistics.getAcquireLatencyBucket(4), is(3));
+        assertThat(HostConnectionStatistics.getAcquireLatencyBucket(Long.MAX_VALUE), is(HostConnectionStatistics.ACQUIRE_LATENCY_BUCKETS - 1));
+    }
+
+    private HostConnectionStatistics hostStatistics(String host, int port)
+    {
+        return statistics.getHostStatistics(host, port);
+    }
+
+    private FilterContext createContext(String url)
+    {
+        return new FilterContext.FilterContextBuilder().asyncHandler(mock(AsyncHandler.class))
+                                                       .request(new RequestBuilder("GET").setUrl(url).setRequestTimeout(TIMEOUT).build())
+                                                       .build();
+    }
+}
@@ -10,8 +10,10 @@ import org.mule.runtime.config.spring.handlers.AbstractMuleNamespaceHandler;
 import org.mule.runtime.config.spring.parsers.collection.ChildMapEntryDefinitionParser;
 import org.mule.runtime.config.spring.parsers.generic.OrphanDefinitionParser;
 import org.mule.runtime.config.spring.parsers.specific.FilterDefinitionParser;
+import org.mule.runtime.config.spring.parsers.specific.SplitterDefinitionParser;
 import org.mule.runtime.config.spring.parsers.specific.TransformerMessageProcessorDefinitionParser;
 import org.mule.runtime.module.json.filters.IsJsonFilter;
+import org.mule.runtime.module.json.routing.JsonArrayStreamingSplitter;
 import org.mule.runtime.module.json.transformers.JsonSchemaValidationFilter;
 import org.mule.runtime.module.json.transformers.JsonToObject;
 import org.mule.runtime.module.json.transformers.JsonToXml;
@@ -39,6 +41,7 @@ public class JsonNamespaceHandler extends AbstractMuleNamespaceHandler
         registerBeanDefinitionParser("json-xslt-transformer", new TransformerMessageProcessorDefinitionParser(JsonXsltTransformer.class));
         registerDeprecatedBeanDefinitionParser("json-schema-validation-filter", new FilterDefinitionParser(JsonSchemaValidationFilter.class), "Use validate-schema instead");
         registerBeanDefinitionParser("validate-schema", new ValidateJsonSchemaMessageProcessorDefinitionParser());
+        registerBeanDefinitionParser("array-streaming-splitter", new SplitterDefinitionParser(JsonArrayStreamingSplitter.class));
         registerIgnoredElement("schema-redirects");
         registerIgnoredElement("schema-redirect");
     }
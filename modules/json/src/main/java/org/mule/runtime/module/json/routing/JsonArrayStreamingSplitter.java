@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.json.routing;
+
+import org.mule.runtime.api.metadata.DataType;
+import org.mule.runtime.core.api.DefaultMuleException;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.config.i18n.MessageFactory;
+import org.mule.runtime.core.routing.MessageSequence;
+import org.mule.runtime.core.routing.outbound.AbstractMessageSequenceSplitter;
+import org.mule.runtime.core.routing.outbound.StreamingMessageSequence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Splits a JSON array payload in its elements, passing each of them as a JSON string to
+ * the next message processor.
+ * <p/>
+ * The payload is tokenized as the elements are processed, so only the element being
+ * split is held in memory no matter the size of the array.
+ */
+public class JsonArrayStreamingSplitter extends AbstractMessageSequenceSplitter
+{
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        JsonParser parser = null;
+        try
+        {
+            parser = createParser(event);
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+            {
+                throw new DefaultMuleException(MessageFactory.createStaticMessage("Payload is not a JSON array"));
+            }
+            return new ElementSequence(parser);
+        }
+        catch (IOException e)
+        {
+            closeQuietly(parser);
+            throw new DefaultMuleException(MessageFactory.createStaticMessage("Could not read JSON payload"), e);
+        }
+        catch (MuleException e)
+        {
+            closeQuietly(parser);
+            throw e;
+        }
+    }
+
+    private JsonParser createParser(MuleEvent event) throws IOException, MuleException
+    {
+        JsonFactory factory = mapper.getJsonFactory();
+        Object payload = event.getMessage().getPayload();
+        if (payload instanceof InputStream)
+        {
+            return factory.createJsonParser((InputStream) payload);
+        }
+        else if (payload instanceof Reader)
+        {
+            return factory.createJsonParser((Reader) payload);
+        }
+        else if (payload instanceof byte[])
+        {
+            return factory.createJsonParser((byte[]) payload);
+        }
+        else if (payload instanceof String)
+        {
+            return factory.createJsonParser((String) payload);
+        }
+        else
+        {
+            return factory.createJsonParser((String) muleContext.getTransformationService()
+                                                                .transform(event.getMessage(), DataType.STRING)
+                                                                .getPayload());
+        }
+    }
+
+    private static void closeQuietly(JsonParser parser)
+    {
+        if (parser != null)
+        {
+            try
+            {
+                parser.close();
+            }
+            catch (IOException e)
+            {
+                // the parser is not needed anymore
+            }
+        }
+    }
+
+    private class ElementSequence extends StreamingMessageSequence<String>
+    {
+
+        private final JsonParser parser;
+
+        ElementSequence(JsonParser parser)
+        {
+            this.parser = parser;
+        }
+
+        @Override
+        protected String readNext() throws IOException
+        {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY)
+            {
+                return null;
+            }
+            JsonNode element = parser.readValueAsTree();
+            return mapper.writeValueAsString(element);
+        }
+
+        @Override
+        protected void closeSource() throws IOException
+        {
+            parser.close();
+        }
+    }
+}
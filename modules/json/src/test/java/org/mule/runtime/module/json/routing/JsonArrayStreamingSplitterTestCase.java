@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.json.routing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.mule.runtime.core.DefaultMuleEvent;
+import org.mule.runtime.core.DefaultMuleMessage;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.construct.Flow;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JsonArrayStreamingSplitterTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String ARRAY = "[{\"id\":1,\"tags\":[\"a\",\"b\"]},{\"id\":2},3]";
+
+    private final Grabber grabber = new Grabber();
+
+    @Test
+    public void splitsElementsFromStream() throws Exception
+    {
+        ClosingInputStream payload = new ClosingInputStream(ARRAY.getBytes());
+
+        createSplitter().process(createEvent(payload));
+
+        assertThat(grabber.payloads, equalTo(Arrays.<Object> asList("{\"id\":1,\"tags\":[\"a\",\"b\"]}", "{\"id\":2}", "3")));
+        assertThat(payload.closed, is(true));
+    }
+
+    @Test
+    public void splitsInBatches() throws Exception
+    {
+        JsonArrayStreamingSplitter splitter = createSplitter();
+        splitter.setBatchSize(2);
+
+        splitter.process(createEvent(ARRAY));
+
+        assertThat(grabber.payloads.size(), is(2));
+        assertThat(((Collection<?>) grabber.payloads.get(0)).size(), is(2));
+        assertThat(((Collection<?>) grabber.payloads.get(1)).size(), is(1));
+    }
+
+    @Test(expected = MuleException.class)
+    public void failsIfNotAnArray() throws Exception
+    {
+        createSplitter().process(createEvent("{\"id\":1}"));
+    }
+
+    private JsonArrayStreamingSplitter createSplitter()
+    {
+        JsonArrayStreamingSplitter splitter = new JsonArrayStreamingSplitter();
+        splitter.setMuleContext(muleContext);
+        splitter.setListener(grabber);
+        return splitter;
+    }
+
+    private MuleEvent createEvent(Object payload) throws Exception
+    {
+        Flow flow = getTestFlow();
+        return new DefaultMuleEvent(new DefaultMuleMessage(payload, muleContext), flow, getTestSession(flow, muleContext));
+    }
+
+    private static class Grabber implements MessageProcessor
+    {
+
+        private final List<Object> payloads = new ArrayList<>();
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            payloads.add(event.getMessage().getPayload());
+            return null;
+        }
+    }
+
+    private static class ClosingInputStream extends ByteArrayInputStream
+    {
+
+        private boolean closed;
+
+        ClosingInputStream(byte[] bytes)
+        {
+            super(bytes);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+}
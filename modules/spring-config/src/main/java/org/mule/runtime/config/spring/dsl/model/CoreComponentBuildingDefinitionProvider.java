@@ -290,6 +290,8 @@ public class CoreComponentBuildingDefinitionProvider implements ComponentBuildin
                                                  .withTypeDefinition(fromType(ScatterGatherRouter.class))
                                                  .withObjectFactoryType(ScatterGatherRouterFactoryBean.class)
                                                  .withSetterParameterDefinition("timeout", fromSimpleParameter("timeout").build())
+                                                 .withSetterParameterDefinition("minSuccessfulRoutes", fromSimpleParameter("minSuccessfulRoutes").build())
+                                                 .withSetterParameterDefinition("interruptCancelledRoutes", fromSimpleParameter("interruptCancelledRoutes").build())
                                                  .withSetterParameterDefinition("aggregationStrategy", fromChildConfiguration(AggregationStrategy.class).build())
                                                  .withSetterParameterDefinition("threadingProfile", fromChildConfiguration(ThreadingProfile.class).build())
                                                  .withSetterParameterDefinition(MESSAGE_PROCESSORS, fromChildCollectionConfiguration(MessageProcessor.class).build())
@@ -353,6 +355,7 @@ public class CoreComponentBuildingDefinitionProvider implements ComponentBuildin
                                                  .withTypeDefinition(fromType(Foreach.class))
                                                  .withSetterParameterDefinition("collectionExpression", fromSimpleParameter("collection").build())
                                                  .withSetterParameterDefinition("batchSize", fromSimpleParameter("batchSize").build())
+                                                 .withSetterParameterDefinition("maxConcurrency", fromSimpleParameter("maxConcurrency").build())
                                                  .withSetterParameterDefinition("rootMessageVariableName", fromSimpleParameter("rootMessageVariableName").build())
                                                  .withSetterParameterDefinition("counterVariableName", fromSimpleParameter("counterVariableName").build())
                                                  .withSetterParameterDefinition(MESSAGE_PROCESSORS, fromChildCollectionConfiguration(MessageProcessor.class).build())
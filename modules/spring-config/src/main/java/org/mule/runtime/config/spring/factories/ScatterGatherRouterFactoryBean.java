@@ -25,6 +25,8 @@ public class ScatterGatherRouterFactoryBean extends AbstractAnnotatedObject impl
 {
 
     private long timeout = 0;
+    private int minSuccessfulRoutes = 0;
+    private boolean interruptCancelledRoutes = false;
     private List<MessageProcessor> messageProcessors;
     private AggregationStrategy aggregationStrategy;
     private ThreadingProfile threadingProfile;
@@ -36,6 +38,8 @@ public class ScatterGatherRouterFactoryBean extends AbstractAnnotatedObject impl
     {
         ScatterGatherRouter sg = new ScatterGatherRouter();
         sg.setTimeout(timeout);
+        sg.setMinSuccessfulRoutes(minSuccessfulRoutes);
+        sg.setInterruptCancelledRoutes(interruptCancelledRoutes);
         sg.setMuleContext(muleContext);
         sg.setFlowConstruct(flowConstruct);
 
@@ -80,6 +84,16 @@ public class ScatterGatherRouterFactoryBean extends AbstractAnnotatedObject impl
         this.timeout = timeout;
     }
 
+    public void setMinSuccessfulRoutes(int minSuccessfulRoutes)
+    {
+        this.minSuccessfulRoutes = minSuccessfulRoutes;
+    }
+
+    public void setInterruptCancelledRoutes(boolean interruptCancelledRoutes)
+    {
+        this.interruptCancelledRoutes = interruptCancelledRoutes;
+    }
+
     public void setAggregationStrategy(AggregationStrategy aggregationStrategy)
     {
         this.aggregationStrategy = aggregationStrategy;
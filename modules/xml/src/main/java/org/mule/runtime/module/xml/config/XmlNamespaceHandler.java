@@ -13,10 +13,12 @@ import org.mule.runtime.config.spring.parsers.generic.OrphanDefinitionParser;
 import org.mule.runtime.config.spring.parsers.generic.TextDefinitionParser;
 import org.mule.runtime.config.spring.parsers.specific.FilterDefinitionParser;
 import org.mule.runtime.config.spring.parsers.specific.MessageProcessorDefinitionParser;
+import org.mule.runtime.config.spring.parsers.specific.SplitterDefinitionParser;
 import org.mule.runtime.config.spring.parsers.specific.TransformerMessageProcessorDefinitionParser;
 import org.mule.runtime.module.xml.filters.IsXmlFilter;
 import org.mule.runtime.module.xml.filters.SchemaValidationFilter;
 import org.mule.runtime.module.xml.filters.XPathFilter;
+import org.mule.runtime.module.xml.routing.XmlStreamingSplitter;
 import org.mule.runtime.module.xml.transformer.DomDocumentToXml;
 import org.mule.runtime.module.xml.transformer.ObjectToXml;
 import org.mule.runtime.module.xml.transformer.XPathExtractor;
@@ -60,6 +62,9 @@ public class XmlNamespaceHandler extends AbstractMuleNamespaceHandler
         registerBeanDefinitionParser("alias", new ChildMapEntryDefinitionParser("aliases", "name", "class"));
         registerBeanDefinitionParser("converter", new ChildListEntryDefinitionParser("converters", "class"));
 
+        //Routing
+        registerBeanDefinitionParser("streaming-splitter", new SplitterDefinitionParser(XmlStreamingSplitter.class));
+
         //Namespaces
         registerBeanDefinitionParser("namespace-manager", new NamespaceManagerDefinitionParser());
         registerBeanDefinitionParser("namespace", new ChildMapEntryDefinitionParser("namespaces", "prefix", "uri"));
@@ -27,6 +27,9 @@ import org.mule.runtime.module.xml.transformer.DelayedResult;
 import org.mule.runtime.module.xml.util.NamespaceManager;
 import org.mule.runtime.module.xml.util.XMLUtils;
 import org.mule.runtime.module.xml.xpath.SaxonXpathEvaluator;
+import org.mule.runtime.module.xml.xpath.StreamingXPathEvaluator;
+import org.mule.runtime.module.xml.xpath.XPathDocumentCache;
+import org.mule.runtime.module.xml.xpath.XPathEvaluationMode;
 import org.mule.runtime.module.xml.xpath.XPathEvaluator;
 import org.mule.runtime.module.xml.xpath.XPathReturnType;
 
@@ -126,6 +129,9 @@ import org.xml.sax.InputSource;
  * cases in which the input value was the actual message payload (no matter if it was given
  * explicitly or by default), it will update the output message payload with the result obtained
  * from consuming the input.
+ * <p/>
+ * Depending on the {@link XPathEvaluationMode} given by {@link XPathEvaluationMode#getDefault()}, the parsed
+ * input is shared with other XPath components and simple expressions are evaluated by streaming the input.
  *
  * @since 3.6.0
  */
@@ -142,7 +148,9 @@ public class XPath3Function implements ExpressionLanguageFunction
     private static final String SUPPORTED_TYPES_AS_STRING = Joiner.on(',').join(SUPPORTED_TYPES);
 
     private final MuleContext muleContext;
+    private final XPathEvaluationMode evaluationMode = XPathEvaluationMode.getDefault();
     private XPathEvaluator xpathEvaluator;
+    private StreamingXPathEvaluator streamingEvaluator;
     private Supplier<XPathEvaluator> xpathEvaluatorSupplier = new LookupEvaluatorSupplier();
 
     XPath3Function(MuleContext muleContext)
@@ -163,13 +171,20 @@ public class XPath3Function implements ExpressionLanguageFunction
 
         try
         {
+            XPathEvaluator evaluator = xpathEvaluatorSupplier.get();
+            if (streamingEvaluator != null && streamingEvaluator.canEvaluate(xpathExpression, input, returnType))
+            {
+                return streamingEvaluator.evaluate(xpathExpression, input, returnType);
+            }
+
             Node node = toDOMNode(input, event);
-            Object result = xpathEvaluatorSupplier.get().evaluate(xpathExpression, node, returnType, event);
+            Object result = evaluator.evaluate(xpathExpression, node, returnType, event);
 
             MuleMessage message = event.getMessage();
             if (input == message.getPayload() && isConsumable(message.getPayload().getClass()))
             {
                 ctx.setPayload(node);
+                XPathDocumentCache.release(event, input);
             }
 
             return result;
@@ -199,7 +214,9 @@ public class XPath3Function implements ExpressionLanguageFunction
             throw new IllegalArgumentException("Can't evaluate an XPath expression over a null input");
         }
 
-        Node node = XMLUtils.toDOMNode(input, event);
+        Node node = evaluationMode == XPathEvaluationMode.PER_COMPONENT
+                    ? XMLUtils.toDOMNode(input, event)
+                    : XPathDocumentCache.getDocument(event, input, () -> XMLUtils.toDOMNode(input, event));
 
         if (node == null)
         {
@@ -288,6 +305,12 @@ public class XPath3Function implements ExpressionLanguageFunction
                     LOGGER.debug("No namespace manager found. Will not register any namespaces");
                 }
 
+                if (evaluationMode == XPathEvaluationMode.STREAMING)
+                {
+                    streamingEvaluator = new StreamingXPathEvaluator();
+                    streamingEvaluator.registerNamespaces(xpathEvaluator.getRegisteredNamespaces());
+                }
+
                 xpathEvaluatorSupplier = new FastEvaluatorSupplier();
             }
 
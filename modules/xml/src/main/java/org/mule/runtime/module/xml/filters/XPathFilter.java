@@ -25,7 +25,11 @@ import org.mule.runtime.core.config.i18n.MessageFactory;
 import org.mule.runtime.core.util.ClassUtils;
 import org.mule.runtime.module.xml.util.NamespaceManager;
 import org.mule.runtime.module.xml.xpath.SaxonXpathEvaluator;
+import org.mule.runtime.module.xml.xpath.StreamingXPathEvaluator;
+import org.mule.runtime.module.xml.xpath.XPathDocumentCache;
+import org.mule.runtime.module.xml.xpath.XPathEvaluationMode;
 import org.mule.runtime.module.xml.xpath.XPathEvaluator;
+import org.mule.runtime.module.xml.xpath.XPathReturnType;
 
 import java.text.MessageFormat;
 import java.util.Map;
@@ -44,6 +48,8 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     private Map<String, String> prefixToNamespaceMap = null;
     private NamespaceManager namespaceManager;
     private MuleContext muleContext;
+    private XPathEvaluationMode evaluationMode = XPathEvaluationMode.getDefault();
+    private StreamingXPathEvaluator streamingEvaluator;
 
     public XPathFilter()
     {
@@ -103,6 +109,12 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
         {
             xpathEvaluator.registerNamespaces(prefixToNamespaceMap);
         }
+
+        if (evaluationMode == XPathEvaluationMode.STREAMING)
+        {
+            streamingEvaluator = new StreamingXPathEvaluator();
+            streamingEvaluator.registerNamespaces(xpathEvaluator.getRegisteredNamespaces());
+        }
     }
 
     @Override
@@ -149,10 +161,18 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
             }
         }
 
+        if (streamingEvaluator != null && streamingEvaluator.canEvaluate(pattern, payload, XPathReturnType.STRING))
+        {
+            // The payload is not replaced by a document, as the expression was evaluated without building one
+            return acceptStreaming(payload);
+        }
+
         Node node;
         try
         {
-            node = toDOMNode(payload);
+            node = evaluationMode == XPathEvaluationMode.PER_COMPONENT
+                   ? toDOMNode(payload)
+                   : XPathDocumentCache.getDocument(event, payload, () -> toDOMNode(payload));
         }
         catch (Exception e)
         {
@@ -166,6 +186,8 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
 
         // TODO MULE-9856 Replace with the builder
         event.setMessage(new DefaultMuleMessage(node, event.getMessage(), event.getMuleContext()));
+        // the document is the payload from now on, so it's no longer shared as the document of the original payload
+        XPathDocumentCache.release(event, payload);
 
         return accept(node);
     }
@@ -173,7 +195,6 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     protected boolean accept(Node node)
     {
         Object xpathResult;
-        boolean accept = false;
 
         try
         {
@@ -190,6 +211,35 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
             return false;
         }
 
+        return isExpectedResult(xpathResult);
+    }
+
+    private boolean acceptStreaming(Object payload)
+    {
+        Object xpathResult;
+
+        try
+        {
+            xpathResult = streamingEvaluator.evaluate(pattern, payload, XPathReturnType.STRING);
+        }
+        catch (Exception e)
+        {
+            if (logger.isWarnEnabled())
+            {
+                logger.warn(
+                        ClassUtils.getSimpleName(getClass()) + " filter rejected message because of an error while evaluating the expression: "
+                        + e.getMessage(), e);
+            }
+            return false;
+        }
+
+        return isExpectedResult(xpathResult);
+    }
+
+    private boolean isExpectedResult(Object xpathResult)
+    {
+        boolean accept = false;
+
         if (logger.isDebugEnabled())
         {
             logger.debug(MessageFormat.format("{0} Expression result = ''{1}'' -  Expected value = ''{2}''",
@@ -261,6 +311,22 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
         this.expectedValue = expectedValue;
     }
 
+    public XPathEvaluationMode getEvaluationMode()
+    {
+        return evaluationMode;
+    }
+
+    /**
+     * Sets how the payload is parsed to evaluate the expression. Defaults to
+     * {@link XPathEvaluationMode#getDefault()}.
+     *
+     * @param evaluationMode The evaluation mode.
+     */
+    public void setEvaluationMode(XPathEvaluationMode evaluationMode)
+    {
+        this.evaluationMode = evaluationMode;
+    }
+
     public void setXpathEvaluator(XPathEvaluator xpathEvaluator)
     {
         this.xpathEvaluator = xpathEvaluator;
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.routing;
+
+import org.mule.runtime.core.api.DefaultMuleException;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.lifecycle.Initialisable;
+import org.mule.runtime.core.api.lifecycle.InitialisationException;
+import org.mule.runtime.core.config.i18n.CoreMessages;
+import org.mule.runtime.core.config.i18n.MessageFactory;
+import org.mule.runtime.core.routing.MessageSequence;
+import org.mule.runtime.core.routing.outbound.AbstractMessageSequenceSplitter;
+import org.mule.runtime.core.routing.outbound.StreamingMessageSequence;
+import org.mule.runtime.core.util.StringUtils;
+import org.mule.runtime.module.xml.util.XMLUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Splits an XML payload in the elements with the configured name, passing each of them
+ * as an XML string to the next message processor.
+ * <p/>
+ * The payload is read with StAX as the parts are processed, so only the element being
+ * split is held in memory no matter the size of the document. Elements with the
+ * configured name nested within another one are part of the outer element.
+ */
+public class XmlStreamingSplitter extends AbstractMessageSequenceSplitter implements Initialisable
+{
+
+    private String elementName;
+    private String namespaceUri;
+    private boolean acceptExternalEntities = false;
+
+    private XMLInputFactory xmlInputFactory;
+    private XMLOutputFactory xmlOutputFactory;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        if (StringUtils.isBlank(elementName))
+        {
+            throw new InitialisationException(CoreMessages.objectIsNull("elementName"), this);
+        }
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        if (!acceptExternalEntities)
+        {
+            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+        xmlOutputFactory = XMLOutputFactory.newInstance();
+        xmlOutputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        Object payload = event.getMessage().getPayload();
+        try
+        {
+            XMLStreamReader streamReader = XMLUtils.toXMLStreamReader(xmlInputFactory, event, payload);
+            if (streamReader == null)
+            {
+                throw new DefaultMuleException(MessageFactory.createStaticMessage(
+                        "Cannot split payload of type " + payload.getClass().getName() + " as XML"));
+            }
+            return new ElementSequence(streamReader, xmlInputFactory.createXMLEventReader(streamReader));
+        }
+        catch (XMLStreamException e)
+        {
+            throw new DefaultMuleException(MessageFactory.createStaticMessage("Could not read XML payload"), e);
+        }
+    }
+
+    private boolean isSplitElement(StartElement element)
+    {
+        return elementName.equals(element.getName().getLocalPart())
+               && (namespaceUri == null || namespaceUri.equals(element.getName().getNamespaceURI()));
+    }
+
+    private class ElementSequence extends StreamingMessageSequence<String>
+    {
+
+        private final XMLStreamReader streamReader;
+        private final XMLEventReader eventReader;
+
+        ElementSequence(XMLStreamReader streamReader, XMLEventReader eventReader)
+        {
+            this.streamReader = streamReader;
+            this.eventReader = eventReader;
+        }
+
+        @Override
+        protected String readNext() throws XMLStreamException
+        {
+            while (eventReader.hasNext())
+            {
+                XMLEvent xmlEvent = eventReader.nextEvent();
+                if (xmlEvent.isStartElement() && isSplitElement(xmlEvent.asStartElement()))
+                {
+                    return writeElement(xmlEvent);
+                }
+            }
+            return null;
+        }
+
+        private String writeElement(XMLEvent startEvent) throws XMLStreamException
+        {
+            StringWriter writer = new StringWriter();
+            XMLEventWriter eventWriter = xmlOutputFactory.createXMLEventWriter(writer);
+            eventWriter.add(startEvent);
+            int depth = 1;
+            while (depth > 0)
+            {
+                XMLEvent xmlEvent = eventReader.nextEvent();
+                if (xmlEvent.isStartElement())
+                {
+                    depth++;
+                }
+                else if (xmlEvent.isEndElement())
+                {
+                    depth--;
+                }
+                eventWriter.add(xmlEvent);
+            }
+            eventWriter.close();
+            return writer.toString();
+        }
+
+        @Override
+        protected void closeSource() throws IOException
+        {
+            try
+            {
+                eventReader.close();
+                streamReader.close();
+            }
+            catch (XMLStreamException e)
+            {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    public void setElementName(String elementName)
+    {
+        this.elementName = elementName;
+    }
+
+    public void setNamespaceUri(String namespaceUri)
+    {
+        this.namespaceUri = namespaceUri;
+    }
+
+    public void setAcceptExternalEntities(boolean acceptExternalEntities)
+    {
+        this.acceptExternalEntities = acceptExternalEntities;
+    }
+}
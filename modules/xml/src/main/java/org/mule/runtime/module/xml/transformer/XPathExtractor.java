@@ -21,17 +21,24 @@ import org.mule.runtime.core.transformer.AbstractTransformer;
 import org.mule.runtime.module.xml.util.NamespaceManager;
 import org.mule.runtime.module.xml.util.XMLUtils;
 import org.mule.runtime.module.xml.xpath.SaxonXpathEvaluator;
+import org.mule.runtime.module.xml.xpath.StreamingXPathEvaluator;
+import org.mule.runtime.module.xml.xpath.XPathDocumentCache;
+import org.mule.runtime.module.xml.xpath.XPathEvaluationMode;
 import org.mule.runtime.module.xml.xpath.XPathEvaluator;
 import org.mule.runtime.module.xml.xpath.XPathReturnType;
 
 import java.nio.charset.Charset;
 import java.util.Map;
 
+import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 
 /**
  * Simple transformer for using the JAXP XPath library to extract an XPath value from
  * an XPath expression.
+ * <p/>
+ * Depending on the {@link XPathEvaluationMode}, the parsed input is shared with other XPath components
+ * and simple expressions are evaluated by streaming the input.
  *
  * @author Ryan Heaton
  */
@@ -42,6 +49,8 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
     private volatile String expression;
     private volatile XPathReturnType resultType = XPathReturnType.STRING;
     private NamespaceManager namespaceManager;
+    private XPathEvaluationMode evaluationMode = XPathEvaluationMode.getDefault();
+    private StreamingXPathEvaluator streamingEvaluator;
 
     public XPathExtractor()
     {
@@ -89,6 +98,19 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
         {
             xpathEvaluator.registerNamespaces(prefixToNamespaceMap);
         }
+
+        if (evaluationMode != XPathEvaluationMode.PER_COMPONENT)
+        {
+            // Parsed once and shared, or streamed, instead of being transformed by each component
+            registerSourceType(DataType.STRING);
+            registerSourceType(DataType.BYTE_ARRAY);
+        }
+
+        if (evaluationMode == XPathEvaluationMode.STREAMING)
+        {
+            streamingEvaluator = new StreamingXPathEvaluator();
+            streamingEvaluator.registerNamespaces(xpathEvaluator.getRegisteredNamespaces());
+        }
     }
 
     @Override
@@ -97,7 +119,11 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
         MuleEvent event = RequestContext.getEvent();
         try
         {
-            return xpathEvaluator.evaluate(expression, XMLUtils.toDOMNode(src, event), resultType, event);
+            if (streamingEvaluator != null && streamingEvaluator.canEvaluate(expression, src, resultType))
+            {
+                return streamingEvaluator.evaluate(expression, src, resultType);
+            }
+            return xpathEvaluator.evaluate(expression, toDOMNode(src, event), resultType, event);
         }
         catch (Exception e)
         {
@@ -105,6 +131,15 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
         }
     }
 
+    private Node toDOMNode(Object src, MuleEvent event) throws Exception
+    {
+        if (evaluationMode == XPathEvaluationMode.PER_COMPONENT)
+        {
+            return XMLUtils.toDOMNode(src, event);
+        }
+        return XPathDocumentCache.getDocument(event, src, () -> XMLUtils.toDOMNode(src, event));
+    }
+
     /**
      * @return Returns the expression.
      */
@@ -141,6 +176,21 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
         this.resultType = resultType;
     }
 
+    public XPathEvaluationMode getEvaluationMode()
+    {
+        return evaluationMode;
+    }
+
+    /**
+     * Sets how the input is parsed to evaluate the expression. Defaults to {@link XPathEvaluationMode#getDefault()}.
+     *
+     * @param evaluationMode the evaluation mode.
+     */
+    public void setEvaluationMode(XPathEvaluationMode evaluationMode)
+    {
+        this.evaluationMode = evaluationMode;
+    }
+
     public XPathEvaluator getXpathEvaluator()
     {
         return xpathEvaluator;
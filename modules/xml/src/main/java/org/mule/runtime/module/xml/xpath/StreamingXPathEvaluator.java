@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.xpath;
+
+import static org.mule.runtime.core.util.Preconditions.checkArgument;
+import org.mule.runtime.core.api.MuleRuntimeException;
+import org.mule.runtime.module.xml.i18n.XmlMessages;
+import org.mule.runtime.module.xml.util.NamespaceManager;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Evaluates simple forward-only XPath expressions by reading the input with a StAX {@link XMLStreamReader},
+ * without building a document. The evaluation stops as soon as the result is known, so an expression
+ * on the first elements of a large document doesn't read the rest of it.
+ * <p/>
+ * Supported expressions are absolute paths of child steps with element names, optionally ending in an
+ * attribute step or a {@code text()} step, such as {@code /soap:Envelope/soap:Body/order/@id}. Predicates,
+ * wildcards, other axes, functions and variables are not supported. Results can only be obtained as
+ * {@link XPathReturnType#STRING} or {@link XPathReturnType#BOOLEAN}, and inputs must be a {@link String} or
+ * a {@code byte[]}, so they can be read again if a later component needs a document. Use
+ * {@link #canEvaluate(String, Object, XPathReturnType)} to check whether an expression can be evaluated.
+ * <p/>
+ * Namespace prefixes are resolved the same way {@link JaxpXPathEvaluator} does.
+ *
+ * @since 4.0
+ */
+public class StreamingXPathEvaluator
+{
+
+    private static final Pattern NAME = Pattern.compile("(?:([A-Za-z_][\\w.-]*):)?([A-Za-z_][\\w.-]*)");
+    private static final Pattern STEP = Pattern.compile("/(@)?(?:(text\\(\\))|" + NAME.pattern() + ")");
+
+    private final XMLInputFactory inputFactory;
+    private final Map<String, String> prefixToNamespaceMap = new HashMap<>();
+    private NamespaceContext namespaceContext = new XPathNamespaceContext(prefixToNamespaceMap);
+
+    private final LoadingCache<String, Optional<StreamingPath>> pathCache = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build(new CacheLoader<String, Optional<StreamingPath>>()
+            {
+                @Override
+                public Optional<StreamingPath> load(String key) throws Exception
+                {
+                    return Optional.ofNullable(compile(key));
+                }
+            });
+
+    public StreamingXPathEvaluator()
+    {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    /**
+     * @return whether the expression can be evaluated over the input by this evaluator
+     */
+    public boolean canEvaluate(String xpathExpression, Object input, XPathReturnType returnType)
+    {
+        return (returnType == XPathReturnType.STRING || returnType == XPathReturnType.BOOLEAN)
+               && (input instanceof String || input instanceof byte[])
+               && pathCache.getUnchecked(xpathExpression).isPresent();
+    }
+
+    /**
+     * Evaluates the expression over the input. Only valid when
+     * {@link #canEvaluate(String, Object, XPathReturnType)} returns {@code true}.
+     *
+     * @return the string value of the first node selected by the expression, or whether any node is selected
+     *         if {@code returnType} is {@link XPathReturnType#BOOLEAN}
+     */
+    public Object evaluate(String xpathExpression, Object input, XPathReturnType returnType)
+    {
+        checkArgument(canEvaluate(xpathExpression, input, returnType),
+                      String.format("Expression '%s' can't be evaluated by streaming the input", xpathExpression));
+
+        StreamingPath path = pathCache.getUnchecked(xpathExpression).get();
+        try
+        {
+            String value = path.evaluate(createReader(input));
+            if (returnType == XPathReturnType.BOOLEAN)
+            {
+                return value != null;
+            }
+            return value == null ? "" : value;
+        }
+        catch (XMLStreamException e)
+        {
+            throw new MuleRuntimeException(XmlMessages.failedToProcessXPath(xpathExpression), e);
+        }
+    }
+
+    public void registerNamespaces(Map<String, String> namespaces)
+    {
+        checkArgument(namespaces != null, "cannot register null namespaces");
+        prefixToNamespaceMap.putAll(namespaces);
+        namespaceContext = new XPathNamespaceContext(prefixToNamespaceMap);
+        pathCache.invalidateAll();
+    }
+
+    public void registerNamespaces(NamespaceManager namespaceManager)
+    {
+        checkArgument(namespaceManager != null, "cannot register a null namespace manager");
+        registerNamespaces(namespaceManager.getNamespaces());
+    }
+
+    private XMLStreamReader createReader(Object input) throws XMLStreamException
+    {
+        if (input instanceof String)
+        {
+            return inputFactory.createXMLStreamReader(new StringReader((String) input));
+        }
+        return inputFactory.createXMLStreamReader(new ByteArrayInputStream((byte[]) input));
+    }
+
+    /**
+     * @return the path for the expression or {@code null} if it's not supported
+     */
+    private StreamingPath compile(String expression)
+    {
+        Matcher matcher = STEP.matcher(expression.trim());
+        List<QName> elements = new ArrayList<>();
+        QName attribute = null;
+        boolean text = false;
+        int end = 0;
+
+        while (matcher.lookingAt())
+        {
+            if (attribute != null || text)
+            {
+                // Attribute and text steps can only be the last ones
+                return null;
+            }
+
+            if (matcher.group(2) != null)
+            {
+                if (matcher.group(1) != null)
+                {
+                    return null;
+                }
+                text = true;
+            }
+            else
+            {
+                QName name = toQName(matcher.group(3), matcher.group(4));
+                if (name == null)
+                {
+                    return null;
+                }
+                if (matcher.group(1) != null)
+                {
+                    attribute = name;
+                }
+                else
+                {
+                    elements.add(name);
+                }
+            }
+
+            end = matcher.end();
+            matcher.region(end, matcher.regionEnd());
+        }
+
+        if (end != matcher.regionEnd() || elements.isEmpty())
+        {
+            return null;
+        }
+
+        return new StreamingPath(elements.toArray(new QName[elements.size()]), attribute, text);
+    }
+
+    private QName toQName(String prefix, String localName)
+    {
+        if (prefix == null)
+        {
+            return new QName("", localName);
+        }
+
+        String namespace = namespaceContext.getNamespaceURI(prefix);
+        return namespace == null ? null : new QName(namespace, localName);
+    }
+
+    /**
+     * A compiled expression, made of the names of the elements in the path and an optional attribute name
+     * or text step.
+     */
+    private static class StreamingPath
+    {
+
+        private final QName[] elements;
+        private final QName attribute;
+        private final boolean text;
+
+        private StreamingPath(QName[] elements, QName attribute, boolean text)
+        {
+            this.elements = elements;
+            this.attribute = attribute;
+            this.text = text;
+        }
+
+        /**
+         * @return the string value of the first node selected by the path, or {@code null} if none is
+         */
+        private String evaluate(XMLStreamReader reader) throws XMLStreamException
+        {
+            try
+            {
+                int depth = 0;
+                // Number of leading elements of the path matched by the currently open elements
+                int matched = 0;
+
+                while (reader.hasNext())
+                {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT)
+                    {
+                        depth++;
+                        if (matched == depth - 1 && depth <= elements.length && matches(reader, elements[depth - 1]))
+                        {
+                            matched = depth;
+                            if (matched == elements.length)
+                            {
+                                String value = selectedValue(reader);
+                                if (value != null)
+                                {
+                                    return value;
+                                }
+                                // The element was read until its end
+                                matched--;
+                                depth--;
+                            }
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT)
+                    {
+                        if (matched == depth)
+                        {
+                            matched--;
+                        }
+                        depth--;
+                        if (depth == 0)
+                        {
+                            return null;
+                        }
+                    }
+                }
+
+                return null;
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+
+        /**
+         * Gets the value selected in the element the reader is positioned at. If there is none the element is
+         * read until its end.
+         */
+        private String selectedValue(XMLStreamReader reader) throws XMLStreamException
+        {
+            if (attribute != null)
+            {
+                String value = attributeValue(reader);
+                if (value == null)
+                {
+                    skipElement(reader);
+                }
+                return value;
+            }
+            return text ? firstTextChild(reader) : stringValue(reader);
+        }
+
+        private String attributeValue(XMLStreamReader reader)
+        {
+            for (int i = 0; i < reader.getAttributeCount(); i++)
+            {
+                if (attribute.getLocalPart().equals(reader.getAttributeLocalName(i))
+                    && attribute.getNamespaceURI().equals(nullToEmpty(reader.getAttributeNamespace(i))))
+                {
+                    return reader.getAttributeValue(i);
+                }
+            }
+            return null;
+        }
+
+        private String firstTextChild(XMLStreamReader reader) throws XMLStreamException
+        {
+            StringBuilder text = null;
+            int depth = 1;
+            while (depth > 0)
+            {
+                int event = reader.next();
+                if (depth == 1 && isText(event))
+                {
+                    if (text == null)
+                    {
+                        text = new StringBuilder();
+                    }
+                    text.append(reader.getText());
+                    continue;
+                }
+
+                if (text != null)
+                {
+                    return text.toString();
+                }
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    depth++;
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    depth--;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Reads the element until its end, concatenating all its descendant text.
+         */
+        private String stringValue(XMLStreamReader reader) throws XMLStreamException
+        {
+            StringBuilder value = new StringBuilder();
+            int depth = 1;
+            while (depth > 0)
+            {
+                int event = reader.next();
+                if (isText(event))
+                {
+                    value.append(reader.getText());
+                }
+                else if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    depth++;
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    depth--;
+                }
+            }
+            return value.toString();
+        }
+
+        private void skipElement(XMLStreamReader reader) throws XMLStreamException
+        {
+            int depth = 1;
+            while (depth > 0)
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    depth++;
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    depth--;
+                }
+            }
+        }
+
+        private boolean isText(int event)
+        {
+            return event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                   || event == XMLStreamConstants.SPACE;
+        }
+
+        private boolean matches(XMLStreamReader reader, QName name)
+        {
+            return name.getLocalPart().equals(reader.getLocalName())
+                   && name.getNamespaceURI().equals(nullToEmpty(reader.getNamespaceURI()));
+        }
+
+        private String nullToEmpty(String value)
+        {
+            return value == null ? "" : value;
+        }
+    }
+}
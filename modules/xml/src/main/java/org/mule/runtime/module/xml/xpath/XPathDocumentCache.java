@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.xpath;
+
+import static java.util.Collections.synchronizedMap;
+import org.mule.runtime.core.api.MuleEvent;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.w3c.dom.Node;
+
+/**
+ * Keeps the DOM documents parsed from the inputs of XPath expressions during the processing of an event, so
+ * that every component evaluating expressions on the same input (usually the payload of the message) parses it
+ * only once. This also allows evaluating expressions on a consumable input that was already parsed by a previous
+ * component.
+ * <p/>
+ * Documents are scoped to the {@link MuleEvent} that is being processed: events and inputs are compared by
+ * identity and events are only weakly referenced, so the documents are discarded together with the event.
+ * Copies of an event, like the ones processed in parallel by routers, parse their own documents, as DOM documents
+ * are not thread safe even for reading. Components that place a document in the payload of the event must
+ * {@link #release(MuleEvent, Object)} it, so that it's not handed to other components as the document of the
+ * original input once it may have been modified.
+ *
+ * @since 4.0
+ */
+public final class XPathDocumentCache
+{
+
+    private static final Cache<MuleEvent, Map<Object, Node>> documents = CacheBuilder.newBuilder().weakKeys().build();
+
+    private XPathDocumentCache()
+    {
+    }
+
+    /**
+     * Returns the document parsed from the given input during the processing of the given event, parsing it with
+     * the given parser if it wasn't parsed before.
+     *
+     * @param event the event being processed. If {@code null} the input is always parsed
+     * @param input the input of the expression. If it's already a {@link Node} it's returned as is
+     * @param parser the parser to use if the input was not parsed yet
+     * @return the document parsed from the input, or {@code null} if the parser returned {@code null}
+     * @throws Exception if the input could not be parsed
+     */
+    public static Node getDocument(MuleEvent event, Object input, Callable<Node> parser) throws Exception
+    {
+        if (input instanceof Node)
+        {
+            return (Node) input;
+        }
+        if (event == null)
+        {
+            return parser.call();
+        }
+
+        Map<Object, Node> eventDocuments = documents.asMap().computeIfAbsent(event, key -> synchronizedMap(new IdentityHashMap<>()));
+        Node document = eventDocuments.get(input);
+        if (document == null)
+        {
+            document = parser.call();
+            if (document != null)
+            {
+                eventDocuments.put(input, document);
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Discards the document parsed from the given input during the processing of the given event, if any.
+     * Must be invoked when the document is handed to others, for instance as the new payload of the message.
+     */
+    public static void release(MuleEvent event, Object input)
+    {
+        if (event == null)
+        {
+            return;
+        }
+
+        Map<Object, Node> eventDocuments = documents.getIfPresent(event);
+        if (eventDocuments != null)
+        {
+            eventDocuments.remove(input);
+        }
+    }
+
+    /**
+     * Discards all the parsed documents.
+     */
+    public static void clear()
+    {
+        documents.invalidateAll();
+    }
+}
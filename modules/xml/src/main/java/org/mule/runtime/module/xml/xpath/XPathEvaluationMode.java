@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.xpath;
+
+/**
+ * Defines how the XPath components obtain the document an expression is evaluated on.
+ * <p/>
+ * The mode used by default is taken from the {@link #EVALUATION_MODE_PROPERTY_KEY} system property,
+ * and defaults to {@link #PER_COMPONENT}.
+ *
+ * @since 4.0
+ */
+public enum XPathEvaluationMode
+{
+
+    /**
+     * Each component parses its input into a new DOM document.
+     */
+    PER_COMPONENT,
+
+    /**
+     * The input is parsed once per event into a DOM document which is shared by all the components evaluating
+     * expressions on the same input while processing that event. See {@link XPathDocumentCache}.
+     */
+    SHARED_DOCUMENT,
+
+    /**
+     * Simple forward-only expressions on non consumable inputs are evaluated by streaming the input with StAX,
+     * without building a document. See {@link StreamingXPathEvaluator}. Other expressions are evaluated as in
+     * {@link #SHARED_DOCUMENT}.
+     */
+    STREAMING;
+
+    public static final String EVALUATION_MODE_PROPERTY_KEY = "mule.xml.xpath.evaluationMode";
+
+    /**
+     * @return the mode configured with the {@link #EVALUATION_MODE_PROPERTY_KEY} system property, or
+     *         {@link #PER_COMPONENT} if it is not set
+     */
+    public static XPathEvaluationMode getDefault()
+    {
+        String mode = System.getProperty(EVALUATION_MODE_PROPERTY_KEY);
+        return mode == null ? PER_COMPONENT : valueOf(mode.trim().toUpperCase());
+    }
+}
@@ -19,7 +19,9 @@ import static org.mule.tck.MuleTestUtils.getTestEvent;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.MuleEvent;
 import org.mule.runtime.core.api.registry.MuleRegistry;
+import org.mule.runtime.core.util.IOUtils;
 import org.mule.runtime.module.xml.xpath.SaxonXpathEvaluator;
+import org.mule.runtime.module.xml.xpath.XPathEvaluationMode;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 
@@ -149,4 +151,25 @@ public class XPathFilterTestCase extends AbstractMuleTestCase
         assertTrue(filter.accept(envDoc));
     }
 
+    @Test
+    public void testAcceptStreamingSoapPayload() throws Exception
+    {
+        String soapEnvelope = IOUtils.toString(getClass().getResourceAsStream("/request.xml"));
+
+        filter.setPattern("/soap:Envelope/soap:Body/mule:echo/mule:echo");
+        filter.setExpectedValue("Hello!");
+        HashMap<String, String> prefix2Namespace = new HashMap<String, String>();
+        prefix2Namespace.put("soap", "http://schemas.xmlsoap.org/soap/envelope/");
+        prefix2Namespace.put("mule", "http://simple.component.mule.org/");
+        filter.setNamespaces(prefix2Namespace);
+        filter.setEvaluationMode(XPathEvaluationMode.STREAMING);
+        filter.initialise();
+
+        MuleEvent event = getTestEvent(soapEnvelope, muleContext);
+        assertTrue(filter.accept(event));
+        assertSame(soapEnvelope, event.getMessage().getPayload());
+
+        filter.setExpectedValue("Bye!");
+        assertFalse(filter.accept(event));
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.routing;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.mule.runtime.core.DefaultMuleEvent;
+import org.mule.runtime.core.DefaultMuleMessage;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.construct.Flow;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class XmlStreamingSplitterTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String ORDERS = "<orders xmlns=\"http://orders\">" +
+                                         "<order id=\"1\"><item>a</item></order>" +
+                                         "<summary/>" +
+                                         "<order id=\"2\"><item>b</item></order>" +
+                                         "</orders>";
+
+    private final Grabber grabber = new Grabber();
+
+    @Test
+    public void splitsElementsFromStream() throws Exception
+    {
+        ClosingInputStream payload = new ClosingInputStream(ORDERS.getBytes());
+        XmlStreamingSplitter splitter = createSplitter("order");
+
+        splitter.process(createEvent(payload));
+
+        assertThat(grabber.payloads.size(), is(2));
+        assertThat(grabber.payloads.get(0), containsString("id=\"1\""));
+        assertThat(grabber.payloads.get(0), containsString("<item>a</item>"));
+        assertThat(grabber.payloads.get(1), containsString("id=\"2\""));
+        assertThat(grabber.payloads.get(1), containsString("xmlns=\"http://orders\""));
+        assertThat(payload.closed, is(true));
+    }
+
+    @Test
+    public void filtersByNamespace() throws Exception
+    {
+        XmlStreamingSplitter splitter = createSplitter("order");
+        splitter.setNamespaceUri("http://other");
+        splitter.process(createEvent(ORDERS));
+
+        assertThat(grabber.payloads.size(), is(0));
+    }
+
+    @Test
+    public void streamIsClosedWhenPartFails() throws Exception
+    {
+        ClosingInputStream payload = new ClosingInputStream(ORDERS.getBytes());
+        XmlStreamingSplitter splitter = createSplitter("order");
+        splitter.setListener(event -> {
+            throw new IllegalStateException("part failed");
+        });
+
+        try
+        {
+            splitter.process(createEvent(payload));
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+        assertThat(payload.closed, is(true));
+    }
+
+    private XmlStreamingSplitter createSplitter(String elementName) throws Exception
+    {
+        XmlStreamingSplitter splitter = new XmlStreamingSplitter();
+        splitter.setElementName(elementName);
+        splitter.setMuleContext(muleContext);
+        splitter.setListener(grabber);
+        splitter.initialise();
+        return splitter;
+    }
+
+    private MuleEvent createEvent(Object payload) throws Exception
+    {
+        Flow flow = getTestFlow();
+        return new DefaultMuleEvent(new DefaultMuleMessage(payload, muleContext), flow, getTestSession(flow, muleContext));
+    }
+
+    private static class Grabber implements MessageProcessor
+    {
+
+        private final List<String> payloads = new ArrayList<>();
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            payloads.add((String) event.getMessage().getPayload());
+            return null;
+        }
+    }
+
+    private static class ClosingInputStream extends ByteArrayInputStream
+    {
+
+        private boolean closed;
+
+        ClosingInputStream(byte[] bytes)
+        {
+            super(bytes);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.xpath;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.module.xml.util.XMLUtils.toDOMNode;
+import static org.mule.runtime.module.xml.xpath.XPathReturnType.BOOLEAN;
+import static org.mule.runtime.module.xml.xpath.XPathReturnType.NODE;
+import static org.mule.runtime.module.xml.xpath.XPathReturnType.STRING;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+@SmallTest
+public class StreamingXPathEvaluatorTestCase extends AbstractMuleTestCase
+{
+
+    private static final String ORDERS_NAMESPACE = "http://mule.org/orders";
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                                      + "<o:orders xmlns:o=\"" + ORDERS_NAMESPACE + "\">"
+                                      + "<o:order id=\"1\"><o:item>book<!-- comment --></o:item></o:order>"
+                                      + "<o:order id=\"2\" priority=\"high\"><o:item>pen</o:item>"
+                                      + "<o:note><b>fragile</b> and <![CDATA[heavy]]></o:note></o:order>"
+                                      + "</o:orders>";
+
+    private final StreamingXPathEvaluator evaluator = new StreamingXPathEvaluator();
+    private final SaxonXpathEvaluator saxonEvaluator = new SaxonXpathEvaluator();
+
+    @Before
+    public void registerNamespaces()
+    {
+        evaluator.registerNamespaces(ImmutableMap.of("o", ORDERS_NAMESPACE));
+        saxonEvaluator.registerNamespaces(ImmutableMap.of("o", ORDERS_NAMESPACE));
+    }
+
+    @Test
+    public void firstElementValue() throws Exception
+    {
+        assertSameAsSaxon("/o:orders/o:order/o:item");
+    }
+
+    @Test
+    public void elementValueWithDescendants() throws Exception
+    {
+        assertSameAsSaxon("/o:orders/o:order/o:note");
+    }
+
+    @Test
+    public void attributeOfFirstElementHavingIt() throws Exception
+    {
+        assertSameAsSaxon("/o:orders/o:order/@priority");
+    }
+
+    @Test
+    public void textChild() throws Exception
+    {
+        assertSameAsSaxon("/o:orders/o:order/o:note/text()");
+    }
+
+    @Test
+    public void noMatch() throws Exception
+    {
+        assertSameAsSaxon("/o:orders/o:invoice");
+        assertSameAsSaxon("/orders/order");
+        assertSameAsSaxon("/o:orders/o:order/@missing");
+    }
+
+    @Test
+    public void booleanResult()
+    {
+        assertThat(evaluator.evaluate("/o:orders/o:order/o:note", XML, BOOLEAN), is(true));
+        assertThat(evaluator.evaluate("/o:orders/o:order/o:missing", XML, BOOLEAN), is(false));
+    }
+
+    @Test
+    public void byteArrayInput()
+    {
+        assertThat(evaluator.evaluate("/o:orders/o:order/@id", XML.getBytes(UTF_8), STRING), equalTo("1"));
+    }
+
+    @Test
+    public void unsupportedExpressions()
+    {
+        assertThat(evaluator.canEvaluate("/o:orders/o:order", XML, STRING), is(true));
+        assertThat(evaluator.canEvaluate("//o:order", XML, STRING), is(false));
+        assertThat(evaluator.canEvaluate("/o:orders/o:order[2]", XML, STRING), is(false));
+        assertThat(evaluator.canEvaluate("/o:orders/*", XML, STRING), is(false));
+        assertThat(evaluator.canEvaluate("/o:orders/@id/o:order", XML, STRING), is(false));
+        assertThat(evaluator.canEvaluate("count(/o:orders/o:order)", XML, STRING), is(false));
+        assertThat(evaluator.canEvaluate("/x:orders", XML, STRING), is(false));
+    }
+
+    @Test
+    public void unsupportedInputsAndReturnTypes()
+    {
+        assertThat(evaluator.canEvaluate("/o:orders/o:order", XML, NODE), is(false));
+        assertThat(evaluator.canEvaluate("/o:orders/o:order", new ByteArrayInputStream(XML.getBytes(UTF_8)), STRING), is(false));
+    }
+
+    private void assertSameAsSaxon(String expression) throws Exception
+    {
+        Node document = toDOMNode(XML, null);
+        Object expected = saxonEvaluator.evaluate(expression, document, STRING, null);
+        assertThat(evaluator.evaluate(expression, XML, STRING), equalTo(expected));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.xml.xpath;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mule.runtime.module.xml.util.XMLUtils.toDOMNode;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+@SmallTest
+public class XPathDocumentCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final String XML = "<orders><order id=\"1\"/></orders>";
+
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final MuleEvent event = mock(MuleEvent.class);
+
+    @After
+    public void clearCache()
+    {
+        XPathDocumentCache.clear();
+    }
+
+    @Test
+    public void parsesSameInputOncePerEvent() throws Exception
+    {
+        byte[] payload = XML.getBytes();
+
+        Node document = XPathDocumentCache.getDocument(event, payload, () -> parse(payload));
+
+        assertThat(XPathDocumentCache.getDocument(event, payload, () -> parse(payload)), is(sameInstance(document)));
+        assertThat(parsed.get(), is(1));
+    }
+
+    @Test
+    public void doesNotShareDocumentsBetweenEvents() throws Exception
+    {
+        String payload = XML;
+
+        Node document = XPathDocumentCache.getDocument(event, payload, () -> parse(payload));
+
+        assertThat(XPathDocumentCache.getDocument(mock(MuleEvent.class), payload, () -> parse(payload)), is(not(sameInstance(document))));
+        assertThat(parsed.get(), is(2));
+    }
+
+    @Test
+    public void comparesInputsByIdentity() throws Exception
+    {
+        String payload = new String(XML);
+        String equalPayload = new String(XML);
+
+        Node document = XPathDocumentCache.getDocument(event, payload, () -> parse(payload));
+
+        assertThat(XPathDocumentCache.getDocument(event, equalPayload, () -> parse(equalPayload)), is(not(sameInstance(document))));
+        assertThat(parsed.get(), is(2));
+    }
+
+    @Test
+    public void releasedDocumentsAreParsedAgain() throws Exception
+    {
+        String payload = XML;
+
+        Node document = XPathDocumentCache.getDocument(event, payload, () -> parse(payload));
+        XPathDocumentCache.release(event, payload);
+
+        assertThat(XPathDocumentCache.getDocument(event, payload, () -> parse(payload)), is(not(sameInstance(document))));
+        assertThat(parsed.get(), is(2));
+    }
+
+    @Test
+    public void returnsNodeInputs() throws Exception
+    {
+        Node node = toDOMNode(XML, null);
+
+        assertThat(XPathDocumentCache.getDocument(event, node, () -> parse(node)), is(sameInstance(node)));
+        assertThat(parsed.get(), is(0));
+    }
+
+    private Node parse(Object input) throws Exception
+    {
+        parsed.incrementAndGet();
+        return toDOMNode(input, null);
+    }
+}
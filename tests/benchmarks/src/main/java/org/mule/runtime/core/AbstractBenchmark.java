@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.config.DefaultMuleConfiguration;
+import org.mule.runtime.core.config.builders.DefaultsConfigurationBuilder;
+import org.mule.runtime.core.context.DefaultMuleContextFactory;
+import org.mule.runtime.core.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for benchmarks, defining the default JMH settings and helpers to create the {@link MuleContext}
+ * the benchmarks run with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+public abstract class AbstractBenchmark
+{
+
+    public static final String PAYLOAD = "Tom,Fennelly,Male,4,Ireland";
+
+    protected MuleContext muleContext;
+    protected File workingDirectory;
+
+    /**
+     * Creates and starts a {@link MuleContext} with the default configuration, using a new temporary working
+     * directory.
+     */
+    protected MuleContext createMuleContext() throws MuleException, IOException
+    {
+        workingDirectory = Files.createTempDirectory("mule-benchmark").toFile();
+        DefaultMuleConfiguration configuration = new DefaultMuleConfiguration();
+        configuration.setWorkingDirectory(workingDirectory.getAbsolutePath());
+
+        MuleContext context = new DefaultMuleContextFactory().createMuleContext(new DefaultsConfigurationBuilder(),
+            new Properties(), configuration);
+        context.start();
+        return context;
+    }
+
+    /**
+     * Disposes the {@link MuleContext} created by {@link #createMuleContext()} and deletes its working directory.
+     */
+    protected void disposeMuleContext()
+    {
+        if (muleContext != null)
+        {
+            muleContext.dispose();
+            muleContext = null;
+        }
+        if (workingDirectory != null)
+        {
+            FileUtils.deleteQuietly(workingDirectory);
+            workingDirectory = null;
+        }
+    }
+}
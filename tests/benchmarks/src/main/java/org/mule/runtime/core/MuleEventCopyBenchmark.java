@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core;
+
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleMessage;
+import org.mule.runtime.core.construct.Flow;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of the different ways an event is copied while it is processed.
+ */
+public class MuleEventCopyBenchmark extends AbstractBenchmark
+{
+
+    @Param({"0", "10", "50"})
+    public int properties;
+
+    private MuleEvent event;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        Map<String, Object> inbound = new HashMap<>();
+        Map<String, Object> outbound = new HashMap<>();
+        for (int i = 0; i < properties; i++)
+        {
+            inbound.put("inbound" + i, "value" + i);
+            outbound.put("outbound" + i, "value" + i);
+        }
+        MuleMessage message = new DefaultMuleMessage(PAYLOAD, inbound, outbound, null, muleContext);
+        event = new DefaultMuleEvent(message, MessageExchangePattern.ONE_WAY, (Flow) null);
+        for (int i = 0; i < properties; i++)
+        {
+            event.setFlowVariable("flowVar" + i, "value" + i);
+        }
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public MuleEvent threadCopy()
+    {
+        return ((DefaultMuleEvent) event).newThreadCopy();
+    }
+
+    @Benchmark
+    public MuleEvent copy()
+    {
+        return DefaultMuleEvent.copy(event);
+    }
+
+    @Benchmark
+    public MuleEvent rewriteMessage()
+    {
+        return new DefaultMuleEvent(new DefaultMuleMessage(event.getMessage()), event);
+    }
+}
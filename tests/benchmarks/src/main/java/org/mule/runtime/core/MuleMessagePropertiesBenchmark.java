@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core;
+
+import org.mule.runtime.core.api.MuleMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures message property lookups and the copy of the properties when a message is copied.
+ */
+public class MuleMessagePropertiesBenchmark extends AbstractBenchmark
+{
+
+    @Param({"10", "50"})
+    public int properties;
+
+    private MuleMessage message;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        Map<String, Object> inbound = new HashMap<>();
+        Map<String, Object> outbound = new HashMap<>();
+        for (int i = 0; i < properties; i++)
+        {
+            inbound.put("inbound" + i, "value" + i);
+            outbound.put("outbound" + i, "value" + i);
+        }
+        message = new DefaultMuleMessage(PAYLOAD, inbound, outbound, null, muleContext);
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public Object inboundLookup()
+    {
+        return message.getInboundProperty("inbound5");
+    }
+
+    @Benchmark
+    public Object outboundLookup()
+    {
+        return message.getOutboundProperty("outbound5");
+    }
+
+    @Benchmark
+    public Object caseInsensitiveLookup()
+    {
+        return message.getOutboundProperty("OUTBOUND5");
+    }
+
+    @Benchmark
+    public Object missingLookup()
+    {
+        return message.getOutboundProperty("missing");
+    }
+
+    @Benchmark
+    public MuleMessage copy()
+    {
+        return new DefaultMuleMessage(message);
+    }
+
+    @Benchmark
+    public MuleMessage copyAndSetProperty()
+    {
+        MuleMessage copy = new DefaultMuleMessage(message);
+        copy.setOutboundProperty("added", PAYLOAD);
+        return copy;
+    }
+}
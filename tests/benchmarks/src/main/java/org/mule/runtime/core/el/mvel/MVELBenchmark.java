@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.el.mvel;
+
+import org.mule.runtime.core.AbstractBenchmark;
+import org.mule.runtime.core.DefaultMuleEvent;
+import org.mule.runtime.core.DefaultMuleMessage;
+import org.mule.runtime.core.MessageExchangePattern;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.el.CompiledExpression;
+import org.mule.runtime.core.api.el.ExpressionLanguage;
+import org.mule.runtime.core.construct.Flow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the evaluation of expressions from their text with the evaluation of compiled expressions.
+ */
+public class MVELBenchmark extends AbstractBenchmark
+{
+
+    private static final String SIMPLE_EXPRESSION = "payload";
+    private static final String COMPLEX_EXPRESSION = "payload.split(',')[1].toUpperCase() + flowVars.suffix";
+
+    private ExpressionLanguage expressionLanguage;
+    private CompiledExpression simpleCompiled;
+    private CompiledExpression complexCompiled;
+    private MuleEvent event;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        expressionLanguage = muleContext.getExpressionLanguage();
+        simpleCompiled = expressionLanguage.compile(SIMPLE_EXPRESSION);
+        complexCompiled = expressionLanguage.compile(COMPLEX_EXPRESSION);
+        event = new DefaultMuleEvent(new DefaultMuleMessage(PAYLOAD, muleContext), MessageExchangePattern.ONE_WAY,
+            (Flow) null);
+        event.setFlowVariable("suffix", "!");
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public Object evaluateSimple()
+    {
+        return expressionLanguage.evaluate(SIMPLE_EXPRESSION, event);
+    }
+
+    @Benchmark
+    public Object evaluateSimpleCompiled()
+    {
+        return simpleCompiled.evaluate(event);
+    }
+
+    @Benchmark
+    public Object evaluateComplex()
+    {
+        return expressionLanguage.evaluate(COMPLEX_EXPRESSION, event);
+    }
+
+    @Benchmark
+    public Object evaluateComplexCompiled()
+    {
+        return complexCompiled.evaluate(event);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.processor.chain;
+
+import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNeeded;
+import org.mule.runtime.core.AbstractBenchmark;
+import org.mule.runtime.core.DefaultMuleEvent;
+import org.mule.runtime.core.DefaultMuleMessage;
+import org.mule.runtime.core.MessageExchangePattern;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+import org.mule.runtime.core.api.processor.MessageProcessorChain;
+import org.mule.runtime.core.construct.Flow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the overhead a {@link DefaultMessageProcessorChain} adds to the processors it invokes.
+ */
+public class MessageProcessorChainBenchmark extends AbstractBenchmark
+{
+
+    @Param({"1", "10", "50"})
+    public int processors;
+
+    private MessageProcessorChain chain;
+    private MuleEvent event;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        List<MessageProcessor> processorList = new ArrayList<>(processors);
+        for (int i = 0; i < processors; i++)
+        {
+            processorList.add(event -> event);
+        }
+        chain = DefaultMessageProcessorChain.from(processorList);
+        initialiseIfNeeded(chain, muleContext);
+        event = new DefaultMuleEvent(new DefaultMuleMessage(PAYLOAD, muleContext), MessageExchangePattern.ONE_WAY,
+            (Flow) null);
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public MuleEvent process() throws MuleException
+    {
+        return chain.process(event);
+    }
+}
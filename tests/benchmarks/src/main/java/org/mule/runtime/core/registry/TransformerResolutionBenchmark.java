@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.registry;
+
+import org.mule.runtime.api.metadata.DataType;
+import org.mule.runtime.core.AbstractBenchmark;
+import org.mule.runtime.core.api.transformer.Transformer;
+import org.mule.runtime.core.api.transformer.TransformerException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the lookup of transformers by source and result {@link DataType}, both for pairs that have a
+ * transformer and for pairs that don't.
+ */
+public class TransformerResolutionBenchmark extends AbstractBenchmark
+{
+
+    private static final DataType<?> UNKNOWN = DataType.fromType(TransformerResolutionBenchmark.class);
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public Transformer lookupExisting() throws TransformerException
+    {
+        return muleContext.getRegistry().lookupTransformer(DataType.STRING, DataType.BYTE_ARRAY);
+    }
+
+    @Benchmark
+    public Object lookupMissing()
+    {
+        try
+        {
+            return muleContext.getRegistry().lookupTransformer(DataType.STRING, UNKNOWN);
+        }
+        catch (TransformerException e)
+        {
+            return e;
+        }
+    }
+}
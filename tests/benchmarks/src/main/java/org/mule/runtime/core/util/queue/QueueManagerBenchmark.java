@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.queue;
+
+import org.mule.runtime.core.AbstractBenchmark;
+
+import java.io.Serializable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures putting and taking elements from the queues of a {@link TransactionalQueueManager}, for each
+ * kind of queue store.
+ */
+public class QueueManagerBenchmark extends AbstractBenchmark
+{
+
+    private static final String QUEUE_NAME = "benchmarkQueue";
+
+    @Param({"false", "true"})
+    public boolean persistent;
+
+    @Param({"DEFAULT", "MAPPED_SEGMENTS"})
+    public QueueStoreType storeType;
+
+    private TransactionalQueueManager queueManager;
+    private QueueSession session;
+    private Queue queue;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        queueManager = new TransactionalQueueManager();
+        queueManager.setMuleContext(muleContext);
+        queueManager.setDefaultQueueConfiguration(new DefaultQueueConfiguration(0, persistent, storeType));
+        queueManager.initialise();
+        queueManager.start();
+        session = queueManager.getQueueSession();
+        queue = session.getQueue(QUEUE_NAME);
+    }
+
+    @TearDown
+    public void teardown() throws Exception
+    {
+        queueManager.stop();
+        queueManager.dispose();
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public Serializable putAndTake() throws Exception
+    {
+        queue.put(PAYLOAD);
+        return queue.take();
+    }
+
+    @Benchmark
+    public Serializable transactionalPutAndTake() throws Exception
+    {
+        session.begin();
+        queue.put(PAYLOAD);
+        session.commit();
+
+        session.begin();
+        Serializable value = queue.take();
+        session.commit();
+        return value;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.util.store;
+
+import org.mule.runtime.core.AbstractBenchmark;
+
+import java.io.File;
+import java.io.Serializable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the file per entry {@link PersistentObjectStorePartition} with the
+ * {@link LogStructuredObjectStorePartition}.
+ */
+public class PersistentObjectStorePartitionBenchmark extends AbstractBenchmark
+{
+
+    private static final int STORED_KEYS = 1000;
+
+    @Param({"false", "true"})
+    public boolean logStructured;
+
+    private PersistentObjectStorePartition<Serializable> partition;
+    private int counter;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        muleContext = createMuleContext();
+        File partitionDirectory = new File(workingDirectory, "benchmarkPartition");
+        partition = logStructured
+                    ? new LogStructuredObjectStorePartition<>(muleContext, "benchmark", partitionDirectory)
+                    : new PersistentObjectStorePartition<>(muleContext, "benchmark", partitionDirectory);
+        partition.open();
+        for (int i = 0; i < STORED_KEYS; i++)
+        {
+            partition.store("stored" + i, PAYLOAD);
+        }
+    }
+
+    @TearDown
+    public void teardown() throws Exception
+    {
+        partition.close();
+        disposeMuleContext();
+    }
+
+    @Benchmark
+    public Serializable storeAndRemove() throws Exception
+    {
+        String key = "key" + counter++;
+        partition.store(key, PAYLOAD);
+        return partition.remove(key);
+    }
+
+    @Benchmark
+    public Serializable retrieve() throws Exception
+    {
+        return partition.retrieve("stored" + (counter++ % STORED_KEYS));
+    }
+}
@@ -6,11 +6,16 @@
  */
 package org.mule.runtime.core;
 
+import static org.mule.runtime.core.execution.MessageProcessorExecutionTemplate.createExceptionTransformerExecutionTemplate;
+import org.mule.runtime.core.api.processor.MessageProcessor;
 import org.mule.runtime.core.construct.Flow;
+import org.mule.runtime.core.processor.BlockingProcessorExecutor;
 import org.mule.runtime.core.util.IOUtils;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.databene.contiperf.PerfTest;
 import org.databene.contiperf.junit.ContiPerfRule;
@@ -150,6 +155,23 @@ public class MuleEventCopyPerformanceTestCase extends AbstractMuleContextTestCas
         }
     }
 
+    @Test
+    @PerfTest(duration = 15000, threads = 1, warmUp = 5000)
+    public void processWith10ProcessorsCopyingOnVoidEvent() throws Exception
+    {
+        List<MessageProcessor> processors = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            processors.add(event -> event);
+        }
+        boolean[] mayReturnVoidEvent = BlockingProcessorExecutor.mayReturnVoidEvent(processors);
+        DefaultMuleEvent original = createMuleEventWithFlowVarsAndProperties(10);
+        for (int i = 0; i < 100; i++)
+        {
+            new BlockingProcessorExecutor(original, processors, createExceptionTransformerExecutionTemplate(), mayReturnVoidEvent).execute();
+        }
+    }
+
     protected DefaultMuleEvent createMuleEvent() throws Exception
     {
         return new DefaultMuleEvent(new DefaultMuleMessage(payload, muleContext),
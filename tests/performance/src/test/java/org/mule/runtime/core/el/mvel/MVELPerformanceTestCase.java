@@ -10,6 +10,7 @@ import org.mule.runtime.core.DefaultMuleEvent;
 import org.mule.runtime.core.DefaultMuleMessage;
 import org.mule.runtime.core.MessageExchangePattern;
 import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.el.CompiledExpression;
 import org.mule.runtime.core.construct.Flow;
 import org.mule.runtime.core.el.mvel.MVELExpressionLanguage;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
@@ -49,15 +50,19 @@ public class MVELPerformanceTestCase extends AbstractMuleContextTestCase
 
     protected MuleEvent event;
 
+    protected CompiledExpression compiledMel;
+
     @Before
     public void before()
     {
         ((MVELExpressionLanguage) muleContext.getExpressionLanguage()).setAutoResolveVariables(false);
         event = createMuleEvent();
+        compiledMel = muleContext.getExpressionLanguage().compile(mel);
         // Warmup
         for (int i = 0; i < 5000; i++)
         {
             muleContext.getExpressionLanguage().evaluate(mel, event);
+            compiledMel.evaluate(event);
         }
     }
 
@@ -103,6 +108,51 @@ public class MVELPerformanceTestCase extends AbstractMuleContextTestCase
         }
     }
 
+    /**
+     * Compiled warm start: - Same compiled expression for each iteration - New context (message) for each
+     * iteration
+     */
+    @Test
+    @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
+    @Required(median = 20)
+    public void mvelCompiledWarmStart()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            compiledMel.evaluate(createMuleEvent());
+        }
+    }
+
+    /**
+     * Compiled hot start: - Same compiled expression for each iteration - Same context (message) for each
+     * iteration
+     */
+    @Test
+    @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
+    @Required(median = 20)
+    public void mvelCompiledHotStart()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            compiledMel.evaluate(event);
+        }
+    }
+
+    /**
+     * Compiled hot start with concurrent evaluations, taking their resolver chains from the pool of the
+     * expression language instead of creating one per evaluation.
+     */
+    @Test
+    @PerfTest(duration = 30000, threads = 4, warmUp = 10000)
+    @Required(median = 20)
+    public void mvelCompiledHotStartConcurrent()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            compiledMel.evaluate(event);
+        }
+    }
+
     @Ignore
     @Test
     @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
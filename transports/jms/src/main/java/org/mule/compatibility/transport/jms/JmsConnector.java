@@ -170,6 +170,38 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
      */
     private boolean returnOriginalMessageAsReply = false;
 
+    /**
+     * Number of long-lived consumers of temporary reply queues shared by the request-response
+     * calls of this connector. With 0 (the default) each call creates its own consumer and
+     * temporary destination.
+     */
+    private int sharedReplyToConsumers = 0;
+
+    private volatile SharedReplyToConsumer[] replyToConsumers;
+
+    /**
+     * Whether the sessions and producers used to send messages outside of a transaction are
+     * pooled instead of being created for each message.
+     */
+    private boolean cacheOutboundProducers = false;
+
+    /**
+     * Number of messages sent in one transacted session commit. Values greater than 1 imply
+     * {@link #cacheOutboundProducers}.
+     */
+    private int outboundBatchSize = 0;
+
+    /**
+     * Milliseconds after which an incomplete batch is committed.
+     */
+    private int outboundBatchTimeout = 100;
+
+    private JmsProducerCache producerCache;
+
+    private final Object replyToConsumersLock = new Object();
+
+    private final AtomicInteger nextReplyToConsumer = new AtomicInteger();
+
     /**
      * In-container embedded mode disables some features for strict Java EE compliance.
      */
@@ -231,6 +263,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         {
             redeliveryHandlerFactory = new AutoDiscoveryRedeliveryHandlerFactory(this);
         }
+        if (cacheOutboundProducers || outboundBatchSize > 1)
+        {
+            producerCache = new JmsProducerCache(this, outboundBatchSize, outboundBatchTimeout,
+                                                 ThreadNameHelper.getPrefix(muleContext) + name + ".OutboundBatchTimer");
+        }
 
         try
         {
@@ -366,6 +403,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDispose()
     {
+        closeReplyToConsumers();
+        if (producerCache != null)
+        {
+            producerCache.dispose();
+        }
         if (connection != null)
         {
             try
@@ -572,6 +614,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDisconnect() throws Exception
     {
+        closeReplyToConsumers();
+        if (producerCache != null)
+        {
+            producerCache.closeSessions();
+        }
         try
         {
             if (connection != null)
@@ -1376,6 +1423,55 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         this.returnOriginalMessageAsReply = returnOriginalMessageAsReply;
     }
 
+    /**
+     * @return the cache of sessions and producers used to send messages outside of a
+     *         transaction, or null if they are not cached
+     */
+    public JmsProducerCache getProducerCache()
+    {
+        return producerCache;
+    }
+
+    public boolean isCacheOutboundProducers()
+    {
+        return cacheOutboundProducers;
+    }
+
+    public void setCacheOutboundProducers(boolean cacheOutboundProducers)
+    {
+        this.cacheOutboundProducers = cacheOutboundProducers;
+    }
+
+    public int getOutboundBatchSize()
+    {
+        return outboundBatchSize;
+    }
+
+    public void setOutboundBatchSize(int outboundBatchSize)
+    {
+        this.outboundBatchSize = outboundBatchSize;
+    }
+
+    public int getOutboundBatchTimeout()
+    {
+        return outboundBatchTimeout;
+    }
+
+    public void setOutboundBatchTimeout(int outboundBatchTimeout)
+    {
+        this.outboundBatchTimeout = outboundBatchTimeout;
+    }
+
+    public int getSharedReplyToConsumers()
+    {
+        return sharedReplyToConsumers;
+    }
+
+    public void setSharedReplyToConsumers(int sharedReplyToConsumers)
+    {
+        this.sharedReplyToConsumers = sharedReplyToConsumers;
+    }
+
     /**
      * @return Returns underlying connection factory properties.
      */
@@ -1474,6 +1570,76 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         return getConnection();
     }
 
+    /**
+     * Returns one of the consumers of temporary reply queues shared by the request-response
+     * calls of this connector, creating them on first use, or null if they are disabled.
+     */
+    public SharedReplyToConsumer getSharedReplyToConsumer() throws JMSException
+    {
+        if (sharedReplyToConsumers <= 0)
+        {
+            return null;
+        }
+
+        SharedReplyToConsumer[] consumers = replyToConsumers;
+        if (consumers == null)
+        {
+            synchronized (replyToConsumersLock)
+            {
+                consumers = replyToConsumers;
+                if (consumers == null)
+                {
+                    consumers = new SharedReplyToConsumer[sharedReplyToConsumers];
+                    try
+                    {
+                        for (int i = 0; i < consumers.length; i++)
+                        {
+                            consumers[i] = new SharedReplyToConsumer(this);
+                        }
+                    }
+                    catch (JMSException e)
+                    {
+                        for (SharedReplyToConsumer consumer : consumers)
+                        {
+                            if (consumer != null)
+                            {
+                                consumer.close();
+                            }
+                        }
+                        throw e;
+                    }
+                    replyToConsumers = consumers;
+                }
+            }
+        }
+        return consumers[Math.floorMod(nextReplyToConsumer.getAndIncrement(), consumers.length)];
+    }
+
+    /**
+     * Runs the continuation of a request-response call that got its reply from a shared consumer
+     * on the dispatcher work manager, so that the session thread of the consumer is free to deliver
+     * the replies of other calls.
+     */
+    public void executeReplyWork(Runnable work) throws MuleException
+    {
+        getDispatcherWorkManager().execute(work);
+    }
+
+    private void closeReplyToConsumers()
+    {
+        synchronized (replyToConsumersLock)
+        {
+            if (replyToConsumers != null)
+            {
+                for (SharedReplyToConsumer consumer : replyToConsumers)
+                {
+                    consumer.close();
+                }
+                replyToConsumers = null;
+            }
+        }
+    }
+
     /**
      * Schedules a timeout task used for performing timeout of async responses.
      *
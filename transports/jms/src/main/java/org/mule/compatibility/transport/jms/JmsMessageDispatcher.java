@@ -141,6 +141,8 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         Session session = null;
         MessageProducer producer = null;
         boolean delayedCleanup = false;
+        SharedReplyToConsumer replyToConsumer = null;
+        JmsProducerCache.Lease lease = null;
 
         try
         {
@@ -155,10 +157,31 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                              "\n  JMSReplyTo=" + jmsMessage.getJMSReplyTo());
             }
 
-            session = connector.getTransactionalResource(endpoint);
-            producer = createProducer(session, topic);
+            if (!useReplyToDestination && !transacted && connector.getProducerCache() != null)
+            {
+                lease = connector.getProducerCache().lease(endpoint, topic);
+                session = lease.getSession();
+                producer = lease.getProducer();
+            }
+            else
+            {
+                session = connector.getTransactionalResource(endpoint);
+                producer = createProducer(session, topic);
+            }
 
-            final Destination replyTo = getReplyToDestination(jmsMessage, session, event, useReplyToDestination, topic);
+            if (useReplyToDestination && !topic && !disableTemporaryDestinations && isHandleReplyTo(jmsMessage, event))
+            {
+                replyToConsumer = connector.getSharedReplyToConsumer();
+            }
+            Destination replyTo = getReplyToDestination(jmsMessage, session, event, useReplyToDestination && replyToConsumer == null, topic);
+            if (replyTo == null && replyToConsumer != null)
+            {
+                replyTo = replyToConsumer.getReplyTo();
+            }
+            else
+            {
+                replyToConsumer = null;
+            }
 
             // Set the replyTo property
             if (replyTo != null)
@@ -172,7 +195,23 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
             // Allow overrides to alter the message if necessary
             processMessage(jmsMessage, event);
 
-            if (useReplyToDestination && replyTo != null)
+            if (replyToConsumer != null)
+            {
+                final int timeout = endpoint.getResponseTimeout();
+
+                if (completionHandler != null)
+                {
+                    internalNonBlockingSendAndAwaitSharedReply(replyToConsumer, producer, replyTo, jmsMessage,
+                                                               topic, ttl, priority, persistent, timeout, completionHandler);
+                    return null;
+                }
+                else
+                {
+                    return internalBlockingSendAndAwaitSharedReply(replyToConsumer, producer, replyTo, jmsMessage,
+                                                                   topic, ttl, priority, persistent, timeout);
+                }
+            }
+            else if (useReplyToDestination && replyTo != null)
             {
                 final MessageConsumer consumer = createReplyToConsumer(jmsMessage, event, session, replyTo, topic);
                 final int timeout = endpoint.getResponseTimeout();
@@ -205,14 +244,33 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                     }
                 }
             }
+            else if (lease != null)
+            {
+                MutableMuleMessage result = internalSend(producer, jmsMessage, topic, ttl, priority, persistent);
+                lease.sent();
+                return result;
+            }
             else
             {
                 return internalSend(producer, jmsMessage, topic, ttl, priority, persistent);
             }
         }
+        catch (JMSException e)
+        {
+            if (lease != null)
+            {
+                // the cached session may be broken, so it is not used again
+                lease.invalidate();
+            }
+            throw e;
+        }
         finally
         {
-            if (!delayedCleanup)
+            if (lease != null)
+            {
+                lease.release();
+            }
+            else if (!delayedCleanup)
             {
                 connector.closeQuietly(producer);
                 closeSession(session);
@@ -263,6 +321,115 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         return createResponseMuleMessage(result, replyTo);
     }
 
+    /**
+     * Sends the request with a correlation ID of its own, so that the shared consumer hands
+     * this call the reply to its request and no other.
+     */
+    private MutableMuleMessage internalBlockingSendAndAwaitSharedReply(SharedReplyToConsumer replyToConsumer, MessageProducer producer,
+                                                                       Destination replyTo, Message jmsMessage, boolean topic,
+                                                                       long ttl, int priority, boolean persistent, int timeout)
+            throws Exception
+    {
+        Latch latch = new Latch();
+        LatchReplyToListener listener = new LatchReplyToListener(latch);
+        // the shared consumer delivers the replies of other calls too, so it must not wait for this one
+        listener.release();
+        String correlationId = replyToConsumer.register(listener);
+        try
+        {
+            jmsMessage.setJMSCorrelationID(correlationId);
+            connector.getJmsSupport().send(producer, jmsMessage, persistent, priority, ttl, topic, endpoint);
+            replyToConsumer.sent(correlationId, jmsMessage.getJMSMessageID());
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Waiting for response event with correlation ID " + correlationId + " for: " + timeout + " ms on " + replyTo);
+            }
+
+            latch.await(timeout, TimeUnit.MILLISECONDS);
+            return createResponseMuleMessage(listener.getMessage(), replyTo);
+        }
+        finally
+        {
+            replyToConsumer.release(correlationId);
+        }
+    }
+
+    /**
+     * Sends the request with a correlation ID of its own and hands the reply to the completion
+     * handler when the shared consumer gets it. The completion handler runs on the dispatcher
+     * work manager, as the session thread of the shared consumer delivers the replies of other
+     * calls too. The producer and session are not needed to receive the reply, so they are
+     * closed as soon as the request is sent.
+     */
+    private void internalNonBlockingSendAndAwaitSharedReply(final SharedReplyToConsumer replyToConsumer, MessageProducer producer,
+                                                            final Destination replyTo, Message jmsMessage, boolean topic,
+                                                            long ttl, int priority, boolean persistent, int timeout,
+                                                            final CompletionHandler<MutableMuleMessage, Exception, Void> completionHandler)
+            throws JMSException
+    {
+        final String correlationId = replyToConsumer.register(message ->
+        {
+            try
+            {
+                connector.executeReplyWork(() ->
+                {
+                    try
+                    {
+                        completionHandler.onCompletion(createResponseMuleMessage(message, replyTo), (exception ->
+                        {
+                            // TODO MULE-9629
+                            return null;
+                        }));
+                    }
+                    catch (Exception e)
+                    {
+                        completionHandler.onFailure(e);
+                    }
+                });
+            }
+            catch (Exception e)
+            {
+                completionHandler.onFailure(e);
+            }
+        });
+
+        try
+        {
+            jmsMessage.setJMSCorrelationID(correlationId);
+            connector.getJmsSupport().send(producer, jmsMessage, persistent, priority, ttl, topic, endpoint);
+            replyToConsumer.sent(correlationId, jmsMessage.getJMSMessageID());
+        }
+        catch (JMSException | RuntimeException e)
+        {
+            replyToConsumer.release(correlationId);
+            throw e;
+        }
+
+        connector.scheduleTimeoutTask(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                // only time out if the reply did not get to the listener in the meantime
+                if (replyToConsumer.release(correlationId))
+                {
+                    try
+                    {
+                        completionHandler.onCompletion(createMuleMessage(null), (exception ->
+                        {
+                            return null;
+                        }));
+                    }
+                    catch (MuleException e)
+                    {
+                        completionHandler.onFailure(e);
+                    }
+                }
+            }
+        }, timeout);
+    }
+
     private void internalNonBlockingSendAndReceive(final Session session, final MessageProducer producer, final MessageConsumer consumer, final Destination replyTo, Message jmsMessage, boolean topic,
                                                    long ttl, int priority, boolean persistent, final boolean transacted, int timeout,
                                                    final CompletionHandler<MutableMuleMessage, Exception, Void> completionHandler)
@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.jms;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.mule.compatibility.core.api.endpoint.ImmutableEndpoint;
+import org.mule.runtime.core.util.concurrent.NamedThreadFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a pool of sessions, and their producers per destination, for the messages that
+ * a {@link JmsConnector} sends outside of a transaction, so they are not created and
+ * closed for every message. Each message borrows a session and returns it once sent, so
+ * there are as many sessions as concurrent senders, and at most {@link #MAX_IDLE_SESSIONS}
+ * of each kind are kept open while nobody uses them. The delivery mode, priority and time
+ * to live are given on each send, so producers only depend on the destination.
+ * <p/>
+ * When the batch size is greater than one the sessions are transacted and commit once
+ * per batch, or when the batch timeout elapses since its first message. Messages are
+ * not delivered until their batch commits, and the ones of a batch that fails to commit
+ * are lost even though their sends already succeeded, so batching only gives at-most-once
+ * delivery. Those batches are counted by {@link #getFailedBatches()}.
+ */
+public class JmsProducerCache
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(JmsProducerCache.class);
+
+    private static final int MAX_PRODUCERS_PER_SESSION = 100;
+
+    static final int MAX_IDLE_SESSIONS = 16;
+
+    private final JmsConnector connector;
+    private final int batchSize;
+    private final int batchTimeout;
+    private final ScheduledExecutorService flushScheduler;
+
+    private final BlockingDeque<CachedSession> idleQueueSessions = new LinkedBlockingDeque<>(MAX_IDLE_SESSIONS);
+    private final BlockingDeque<CachedSession> idleTopicSessions = new LinkedBlockingDeque<>(MAX_IDLE_SESSIONS);
+    private final Set<CachedSession> sessions = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder sessionHits = new LongAdder();
+    private final LongAdder sessionMisses = new LongAdder();
+    private final LongAdder producerHits = new LongAdder();
+    private final LongAdder producerMisses = new LongAdder();
+    private final LongAdder committedBatches = new LongAdder();
+    private final LongAdder committedMessages = new LongAdder();
+    private final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+
+    /**
+     * @param threadName name of the thread that commits the incomplete batches once their
+     *                   timeout elapses. Only started when the batch size is greater than one
+     */
+    public JmsProducerCache(JmsConnector connector, int batchSize, int batchTimeout, String threadName)
+    {
+        this.connector = connector;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        this.flushScheduler = isBatching() ? new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(threadName)) : null;
+    }
+
+    /**
+     * Borrows a session and its producer for the endpoint. Nobody else uses them until the
+     * lease is released.
+     */
+    public Lease lease(ImmutableEndpoint endpoint, boolean topic) throws JMSException
+    {
+        CachedSession cached = borrowSession(topic);
+        try
+        {
+            return new Lease(cached, cached.getProducer(endpoint, topic));
+        }
+        catch (JMSException e)
+        {
+            invalidate(cached);
+            cached.lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * @return an open session of the current connection, locked by the current thread
+     */
+    private CachedSession borrowSession(boolean topic) throws JMSException
+    {
+        Connection connection = connector.getConnection();
+        CachedSession cached;
+        while ((cached = getIdleSessions(topic).pollFirst()) != null)
+        {
+            cached.lock.lock();
+            // it may have been closed while idle, by closeSessions() or a failed commit on timeout
+            if (!cached.closed && cached.connection == connection)
+            {
+                sessionHits.increment();
+                return cached;
+            }
+            invalidate(cached);
+            cached.lock.unlock();
+        }
+
+        sessionMisses.increment();
+        Session session = connector.getJmsSupport().createSession(connection, topic, isBatching(),
+                                                                  connector.getAcknowledgementMode(), connector.isNoLocal());
+        cached = new CachedSession(connection, session, topic);
+        cached.lock.lock();
+        sessions.add(cached);
+        return cached;
+    }
+
+    /**
+     * Returns a session to the idle ones, or closes it if there are enough of them already.
+     * Must be invoked holding the lock of the session.
+     */
+    private void returnSession(CachedSession cached)
+    {
+        if (cached.closed || getIdleSessions(cached.topic).offerFirst(cached))
+        {
+            return;
+        }
+        commitAndInvalidate(cached);
+    }
+
+    private BlockingDeque<CachedSession> getIdleSessions(boolean topic)
+    {
+        return topic ? idleTopicSessions : idleQueueSessions;
+    }
+
+    private boolean isBatching()
+    {
+        return batchSize > 1;
+    }
+
+    private void commit(CachedSession cached) throws JMSException
+    {
+        int messages = cached.uncommitted;
+        cached.uncommitted = 0;
+        cached.batch++;
+        try
+        {
+            cached.session.commit();
+        }
+        catch (JMSException | RuntimeException e)
+        {
+            logger.error("Could not commit a batch of " + messages + " JMS messages, they will not be delivered");
+            batchFailed(messages);
+            invalidate(cached);
+            throw e;
+        }
+        committedBatches.increment();
+        committedMessages.add(messages);
+        maxBatchSize.accumulate(messages);
+    }
+
+    private void batchFailed(int messages)
+    {
+        failedBatches.increment();
+        failedMessages.add(messages);
+    }
+
+    /**
+     * Commits the batch of the session once the batch timeout elapses, unless it was
+     * already committed by then. The commit runs on a scheduler of this cache, so a slow
+     * or failing broker does not delay the response timeouts of the connector.
+     */
+    private void scheduleFlush(final CachedSession cached)
+    {
+        final long batch = cached.batch;
+        flushScheduler.schedule(() ->
+        {
+            cached.lock.lock();
+            try
+            {
+                if (!cached.closed && cached.batch == batch && cached.uncommitted > 0)
+                {
+                    commit(cached);
+                }
+            }
+            catch (Exception e)
+            {
+                logger.warn("Failed to commit JMS batch on timeout", e);
+            }
+            finally
+            {
+                cached.lock.unlock();
+            }
+        }, batchTimeout, MILLISECONDS);
+    }
+
+    private void invalidate(CachedSession cached)
+    {
+        if (!cached.closed)
+        {
+            cached.closed = true;
+            if (cached.uncommitted > 0)
+            {
+                // closing a transacted session rolls back the messages sent since its last commit
+                batchFailed(cached.uncommitted);
+                cached.uncommitted = 0;
+            }
+            sessions.remove(cached);
+            for (MessageProducer producer : cached.producers.values())
+            {
+                connector.closeQuietly(producer);
+            }
+            cached.producers.clear();
+            connector.closeQuietly(cached.session);
+        }
+    }
+
+    /**
+     * Commits the pending batches and closes all the cached sessions. The cache can still
+     * be used afterwards, creating new sessions as needed.
+     */
+    public void closeSessions()
+    {
+        for (CachedSession cached : sessions)
+        {
+            cached.lock.lock();
+            try
+            {
+                commitAndInvalidate(cached);
+            }
+            finally
+            {
+                cached.lock.unlock();
+            }
+        }
+        idleQueueSessions.clear();
+        idleTopicSessions.clear();
+    }
+
+    private void commitAndInvalidate(CachedSession cached)
+    {
+        try
+        {
+            if (!cached.closed && cached.uncommitted > 0)
+            {
+                commit(cached);
+            }
+        }
+        catch (JMSException | RuntimeException e)
+        {
+            logger.warn("Failed to commit pending JMS batch", e);
+        }
+        finally
+        {
+            invalidate(cached);
+        }
+    }
+
+    /**
+     * Commits the pending batches, closes all the cached sessions and stops committing
+     * batches on timeout. The cache cannot be used afterwards.
+     */
+    public void dispose()
+    {
+        if (flushScheduler != null)
+        {
+            flushScheduler.shutdownNow();
+        }
+        closeSessions();
+    }
+
+    public long getSessionCacheHits()
+    {
+        return sessionHits.sum();
+    }
+
+    public long getSessionCacheMisses()
+    {
+        return sessionMisses.sum();
+    }
+
+    public long getProducerCacheHits()
+    {
+        return producerHits.sum();
+    }
+
+    public long getProducerCacheMisses()
+    {
+        return producerMisses.sum();
+    }
+
+    public long getCommittedBatches()
+    {
+        return committedBatches.sum();
+    }
+
+    public double getAverageBatchSize()
+    {
+        long batches = committedBatches.sum();
+        return batches == 0 ? 0 : (double) committedMessages.sum() / batches;
+    }
+
+    public long getMaxBatchSize()
+    {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * @return the number of batches that could not be committed, including the ones of
+     *         sessions discarded with messages pending to commit
+     */
+    public long getFailedBatches()
+    {
+        return failedBatches.sum();
+    }
+
+    /**
+     * @return the number of messages lost because their batch could not be committed
+     */
+    public long getFailedBatchMessages()
+    {
+        return failedMessages.sum();
+    }
+
+    /**
+     * Session and producer borrowed from the cache, to be released once the message is sent.
+     */
+    public class Lease
+    {
+
+        private final CachedSession cached;
+        private final MessageProducer producer;
+        private boolean released;
+
+        private Lease(CachedSession cached, MessageProducer producer)
+        {
+            this.cached = cached;
+            this.producer = producer;
+        }
+
+        public Session getSession()
+        {
+            return cached.session;
+        }
+
+        public MessageProducer getProducer()
+        {
+            return producer;
+        }
+
+        /**
+         * Records that a message was sent, committing the batch if it is complete.
+         */
+        public void sent() throws JMSException
+        {
+            if (isBatching())
+            {
+                cached.uncommitted++;
+                if (cached.uncommitted >= batchSize)
+                {
+                    commit(cached);
+                }
+                else if (cached.uncommitted == 1)
+                {
+                    scheduleFlush(cached);
+                }
+            }
+        }
+
+        /**
+         * Discards the session, for instance because it failed to send a message.
+         */
+        public void invalidate()
+        {
+            JmsProducerCache.this.invalidate(cached);
+        }
+
+        public void release()
+        {
+            if (!released)
+            {
+                released = true;
+                try
+                {
+                    returnSession(cached);
+                }
+                finally
+                {
+                    cached.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private class CachedSession
+    {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Connection connection;
+        private final Session session;
+        private final boolean topic;
+        private final Map<String, MessageProducer> producers = new LinkedHashMap<String, MessageProducer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageProducer> eldest)
+            {
+                if (size() > MAX_PRODUCERS_PER_SESSION)
+                {
+                    connector.closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        private volatile boolean closed;
+        private int uncommitted;
+        private long batch;
+
+        CachedSession(Connection connection, Session session, boolean topic)
+        {
+            this.connection = connection;
+            this.session = session;
+            this.topic = topic;
+        }
+
+        MessageProducer getProducer(ImmutableEndpoint endpoint, boolean topic) throws JMSException
+        {
+            String key = endpoint.getEndpointURI().getAddress();
+            MessageProducer producer = producers.get(key);
+            if (producer != null)
+            {
+                producerHits.increment();
+                return producer;
+            }
+
+            producerMisses.increment();
+            JmsSupport jmsSupport = connector.getJmsSupport();
+            producer = jmsSupport.createProducer(session, jmsSupport.createDestination(session, endpoint), topic);
+            producers.put(key, producer);
+            return producer;
+        }
+    }
+}
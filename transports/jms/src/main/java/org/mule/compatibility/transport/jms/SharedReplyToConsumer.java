@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.jms;
+
+import org.mule.runtime.core.util.UUID;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived consumer of a temporary reply queue shared by all the request-response
+ * calls of a {@link JmsConnector}. Each call registers a {@link MessageListener} and gets
+ * a correlation ID of its own to send as the JMSCorrelationID of its request, so no
+ * consumer or temporary destination is created per call.
+ * <p/>
+ * The reply is handed to the listener when its JMSCorrelationID is either the correlation
+ * ID of the call or, once the call reports it with {@link #sent(String, String)}, the
+ * JMSMessageID of the request. As correlation IDs are never reused, a reply that arrives
+ * after its call timed out is discarded instead of being handed to another call.
+ * <p/>
+ * Replies are delivered on the JMS session thread, so listeners must not block.
+ */
+public class SharedReplyToConsumer implements MessageListener
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedReplyToConsumer.class);
+
+    // replies kept in case they arrive before the JMSMessageID of their request is known
+    private static final int MAX_UNMATCHED_REPLIES = 64;
+
+    private final JmsConnector connector;
+    private final Session session;
+    private final Destination replyTo;
+    private final MessageConsumer consumer;
+    private final ConcurrentMap<String, PendingReply> pendingReplies = new ConcurrentHashMap<>();
+    private final Map<String, Message> unmatchedReplies = new LinkedHashMap<String, Message>()
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Message> eldest)
+        {
+            return size() > MAX_UNMATCHED_REPLIES;
+        }
+    };
+
+    public SharedReplyToConsumer(JmsConnector connector) throws JMSException
+    {
+        this.connector = connector;
+        JmsSupport jmsSupport = connector.getJmsSupport();
+        this.session = jmsSupport.createSession(connector.getConnection(), false, false, Session.AUTO_ACKNOWLEDGE, false);
+        try
+        {
+            this.replyTo = jmsSupport.createTemporaryDestination(session, false);
+            this.consumer = jmsSupport.createConsumer(session, replyTo, null, false, null, false, null);
+            consumer.setMessageListener(this);
+        }
+        catch (JMSException e)
+        {
+            connector.closeQuietly(session);
+            throw e;
+        }
+    }
+
+    public Destination getReplyTo()
+    {
+        return replyTo;
+    }
+
+    /**
+     * Registers a call waiting for a reply.
+     *
+     * @param listener the listener that will receive the reply
+     * @return the correlation ID the request of the call must be sent with
+     */
+    public String register(MessageListener listener)
+    {
+        String correlationId = UUID.getUUID();
+        pendingReplies.put(correlationId, new PendingReply(correlationId, listener));
+        return correlationId;
+    }
+
+    /**
+     * Registers the JMSMessageID the request of a call was sent with, for responders that
+     * correlate their replies by it.
+     */
+    public void sent(String correlationId, String messageId)
+    {
+        PendingReply pending = pendingReplies.get(correlationId);
+        if (pending == null || messageId == null || messageId.equals(correlationId))
+        {
+            return;
+        }
+
+        Message reply;
+        synchronized (unmatchedReplies)
+        {
+            pending.messageId = messageId;
+            pendingReplies.put(messageId, pending);
+            reply = unmatchedReplies.remove(messageId);
+        }
+        if (pending.isDone())
+        {
+            // released while the message ID was being registered
+            pendingReplies.remove(messageId, pending);
+        }
+        else if (reply != null)
+        {
+            deliver(pending, reply);
+        }
+    }
+
+    /**
+     * Stops waiting for a reply.
+     *
+     * @return true if the call was still waiting, false if the reply was already delivered
+     */
+    public boolean release(String correlationId)
+    {
+        PendingReply pending = pendingReplies.get(correlationId);
+        return pending != null && pending.complete();
+    }
+
+    public int getPendingReplies()
+    {
+        return pendingReplies.size();
+    }
+
+    @Override
+    public void onMessage(Message message)
+    {
+        String correlationId = null;
+        try
+        {
+            correlationId = message.getJMSCorrelationID();
+        }
+        catch (JMSException e)
+        {
+            logger.warn("Could not read the correlation ID of a reply on " + replyTo, e);
+        }
+
+        PendingReply pending = null;
+        if (correlationId != null)
+        {
+            pending = pendingReplies.get(correlationId);
+            if (pending == null)
+            {
+                synchronized (unmatchedReplies)
+                {
+                    pending = pendingReplies.get(correlationId);
+                    if (pending == null)
+                    {
+                        unmatchedReplies.put(correlationId, message);
+                    }
+                }
+            }
+        }
+
+        if (pending == null)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Nobody is waiting for the reply with correlation ID " + correlationId + " on " + replyTo);
+            }
+            return;
+        }
+        deliver(pending, message);
+    }
+
+    private void deliver(PendingReply pending, Message message)
+    {
+        if (pending.complete())
+        {
+            pending.listener.onMessage(message);
+        }
+        else if (logger.isDebugEnabled())
+        {
+            logger.debug("Discarding reply for correlation ID " + pending.correlationId + " on " + replyTo + ", the call is not waiting anymore");
+        }
+    }
+
+    public void close()
+    {
+        connector.closeQuietly(consumer);
+        if (replyTo instanceof TemporaryQueue)
+        {
+            connector.closeQuietly((TemporaryQueue) replyTo);
+        }
+        connector.closeQuietly(session);
+        pendingReplies.clear();
+        synchronized (unmatchedReplies)
+        {
+            unmatchedReplies.clear();
+        }
+    }
+
+    private class PendingReply
+    {
+
+        private final String correlationId;
+        private final MessageListener listener;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile String messageId;
+
+        PendingReply(String correlationId, MessageListener listener)
+        {
+            this.correlationId = correlationId;
+            this.listener = listener;
+        }
+
+        boolean isDone()
+        {
+            return done.get();
+        }
+
+        /**
+         * Marks the call as done, either because its reply arrived or because it stopped waiting.
+         *
+         * @return false if it was already done
+         */
+        boolean complete()
+        {
+            if (!done.compareAndSet(false, true))
+            {
+                return false;
+            }
+            pendingReplies.remove(correlationId, this);
+            String sentMessageId = messageId;
+            if (sentMessageId != null)
+            {
+                pendingReplies.remove(sentMessageId, this);
+            }
+            return true;
+        }
+    }
+}
@@ -108,6 +108,10 @@ public class JmsTransportComponentBuildingDefinitionProvider extends TransportCo
                 .withSetterParameterDefinition("specification", fromSimpleParameter("specification").build())
                 .withSetterParameterDefinition("disableTemporaryReplyToDestinations", fromSimpleParameter("disableTemporaryReplyToDestinations").build())
                 .withSetterParameterDefinition("returnOriginalMessageAsReply", fromSimpleParameter("returnOriginalMessageAsReply").build())
+                .withSetterParameterDefinition("sharedReplyToConsumers", fromSimpleParameter("sharedReplyToConsumers").build())
+                .withSetterParameterDefinition("cacheOutboundProducers", fromSimpleParameter("cacheOutboundProducers").build())
+                .withSetterParameterDefinition("outboundBatchSize", fromSimpleParameter("outboundBatchSize").build())
+                .withSetterParameterDefinition("outboundBatchTimeout", fromSimpleParameter("outboundBatchTimeout").build())
                 .withSetterParameterDefinition("embeddedMode", fromSimpleParameter("embeddedMode").build())
                 .withSetterParameterDefinition("honorQosHeaders", fromSimpleParameter("honorQosHeaders").build())
                 .withSetterParameterDefinition("sameRMOverrideValue", fromSimpleParameter("sameRMOverrideValue").build())
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.jms;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.compatibility.core.api.endpoint.EndpointURI;
+import org.mule.compatibility.core.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitLambdaProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class JmsProducerCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final String THREAD_NAME = "test.OutboundBatchTimer";
+    private static final int RECEIVE_TIMEOUT = 5000;
+    private static final int POLL_DELAY = 10;
+
+    private JmsConnector connector;
+    private JmsSupport jmsSupport;
+    private Session session;
+    private ImmutableEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connector = mock(JmsConnector.class);
+        jmsSupport = mock(JmsSupport.class);
+        session = mock(Session.class);
+
+        when(connector.getJmsSupport()).thenReturn(jmsSupport);
+        when(connector.getConnection()).thenReturn(mock(Connection.class));
+        when(jmsSupport.createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean())).thenReturn(session);
+        when(jmsSupport.createProducer(any(Session.class), any(Destination.class), anyBoolean())).thenAnswer(new Answer<MessageProducer>()
+        {
+            @Override
+            public MessageProducer answer(InvocationOnMock invocation) throws Throwable
+            {
+                return mock(MessageProducer.class);
+            }
+        });
+
+        endpoint = createEndpoint("queue1");
+    }
+
+    @Test
+    public void reusesSessionAndProducer() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        MessageProducer first = sendWith(cache, endpoint);
+        MessageProducer second = sendWith(cache, endpoint);
+
+        assertThat(second, is(first));
+        verify(jmsSupport, times(1)).createSession(any(Connection.class), eq(false), eq(false), anyInt(), anyBoolean());
+        assertThat(cache.getSessionCacheHits(), is(1L));
+        assertThat(cache.getProducerCacheHits(), is(1L));
+        assertThat(cache.getProducerCacheMisses(), is(1L));
+    }
+
+    @Test
+    public void keepsProducerPerDestination() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        MessageProducer first = sendWith(cache, endpoint);
+        MessageProducer second = sendWith(cache, createEndpoint("queue2"));
+
+        assertThat(second, is(not(first)));
+        assertThat(cache.getProducerCacheMisses(), is(2L));
+    }
+
+    @Test
+    public void commitsFullBatches() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 3, 60000, THREAD_NAME);
+
+        for (int i = 0; i < 7; i++)
+        {
+            sendWith(cache, endpoint);
+        }
+
+        verify(jmsSupport).createSession(any(Connection.class), anyBoolean(), eq(true), anyInt(), anyBoolean());
+        verify(session, times(2)).commit();
+        assertThat(cache.getCommittedBatches(), is(2L));
+        assertThat(cache.getMaxBatchSize(), is(3L));
+
+        cache.closeSessions();
+        verify(session, times(3)).commit();
+        verify(connector).closeQuietly(session);
+        assertThat(cache.getAverageBatchSize(), is(7.0 / 3));
+    }
+
+    @Test
+    public void countsFailedBatches() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 3, 60000, THREAD_NAME);
+        doThrow(new JMSException("commit failed")).doNothing().when(session).commit();
+
+        sendWith(cache, endpoint);
+        sendWith(cache, endpoint);
+        try
+        {
+            sendWith(cache, endpoint);
+            fail("Expected the commit of the batch to fail");
+        }
+        catch (JMSException e)
+        {
+            // expected
+        }
+
+        assertThat(cache.getFailedBatches(), is(1L));
+        assertThat(cache.getFailedBatchMessages(), is(3L));
+        assertThat(cache.getCommittedBatches(), is(0L));
+        cache.dispose();
+    }
+
+    @Test
+    public void keepsCommittingOnTimeoutAfterUnexpectedFailure() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 3, 10, THREAD_NAME);
+        doThrow(new IllegalStateException("broker failure")).doNothing().when(session).commit();
+
+        sendWith(cache, endpoint);
+        new PollingProber(RECEIVE_TIMEOUT, POLL_DELAY).check(new JUnitLambdaProbe(() -> cache.getFailedBatches() == 1));
+        sendWith(cache, endpoint);
+        new PollingProber(RECEIVE_TIMEOUT, POLL_DELAY).check(new JUnitLambdaProbe(() -> cache.getCommittedBatches() == 1));
+
+        verify(session, times(2)).commit();
+        cache.dispose();
+    }
+
+    @Test
+    public void replacesInvalidatedSession() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        JmsProducerCache.Lease lease = cache.lease(endpoint, false);
+        lease.invalidate();
+        lease.release();
+        sendWith(cache, endpoint);
+
+        verify(connector).closeQuietly(session);
+        verify(jmsSupport, times(2)).createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean());
+        verify(session, never()).commit();
+    }
+
+    @Test
+    public void concurrentLeasesBorrowDifferentSessions() throws Exception
+    {
+        Session otherSession = mock(Session.class);
+        when(jmsSupport.createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean())).thenReturn(session, otherSession);
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        JmsProducerCache.Lease first = cache.lease(endpoint, false);
+        JmsProducerCache.Lease second = cache.lease(endpoint, false);
+        assertThat(second.getSession(), is(not(first.getSession())));
+        first.release();
+        second.release();
+
+        // the last returned session is borrowed first
+        JmsProducerCache.Lease third = cache.lease(endpoint, false);
+        assertThat(third.getSession(), is(otherSession));
+        third.release();
+        assertThat(cache.getSessionCacheMisses(), is(2L));
+        assertThat(cache.getSessionCacheHits(), is(1L));
+    }
+
+    @Test
+    public void closesSessionsBeyondIdleLimit() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        List<JmsProducerCache.Lease> leases = new ArrayList<>();
+        for (int i = 0; i <= JmsProducerCache.MAX_IDLE_SESSIONS; i++)
+        {
+            leases.add(cache.lease(endpoint, false));
+        }
+        for (JmsProducerCache.Lease lease : leases)
+        {
+            lease.release();
+        }
+
+        verify(jmsSupport, times(JmsProducerCache.MAX_IDLE_SESSIONS + 1)).createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean());
+        verify(connector, times(1)).closeQuietly(session);
+    }
+
+    @Test
+    public void doesNotBorrowSessionClosedWhileIdle() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 0, 100, THREAD_NAME);
+
+        sendWith(cache, endpoint);
+        cache.closeSessions();
+        sendWith(cache, endpoint);
+
+        verify(jmsSupport, times(2)).createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean());
+        assertThat(cache.getSessionCacheHits(), is(0L));
+    }
+
+    private MessageProducer sendWith(JmsProducerCache cache, ImmutableEndpoint endpoint) throws Exception
+    {
+        JmsProducerCache.Lease lease = cache.lease(endpoint, false);
+        try
+        {
+            lease.sent();
+            return lease.getProducer();
+        }
+        finally
+        {
+            lease.release();
+        }
+    }
+
+    private ImmutableEndpoint createEndpoint(String address)
+    {
+        ImmutableEndpoint endpoint = mock(ImmutableEndpoint.class);
+        EndpointURI endpointURI = mock(EndpointURI.class);
+        when(endpointURI.getAddress()).thenReturn(address);
+        when(endpoint.getEndpointURI()).thenReturn(endpointURI);
+        return endpoint;
+    }
+}
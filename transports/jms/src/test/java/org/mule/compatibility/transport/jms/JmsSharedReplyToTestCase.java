@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.jms;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.Assert.assertThat;
+import org.mule.functional.junit4.FunctionalTestCase;
+import org.mule.runtime.core.api.MuleEvent;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.processor.MessageProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.junit.Test;
+
+/**
+ * Sends request-response calls through the consumers of reply queues shared by the connector,
+ * replying to them from a plain JMS session.
+ */
+public class JmsSharedReplyToTestCase extends FunctionalTestCase
+{
+
+    private static final String REPLY = "reply";
+
+    // prefix of the threads ActiveMQ delivers the messages of a session on
+    private static final String CONSUMER_THREAD_PREFIX = "ActiveMQ Session Task";
+
+    private static volatile String continuationThread;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private Connection connection;
+    private Session session;
+    private MessageConsumer requests;
+    private MessageProducer replies;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "jms-shared-reply-to-config.xml";
+    }
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        connection = ((ConnectionFactory) muleContext.getRegistry().lookupObject("connectionFactory")).createConnection();
+        connection.start();
+        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        requests = session.createConsumer(session.createQueue("requests"));
+        replies = session.createProducer(null);
+    }
+
+    @Override
+    protected void doTearDown() throws Exception
+    {
+        executor.shutdownNow();
+        connection.close();
+        super.doTearDown();
+    }
+
+    @Test
+    public void lateReplyIsNotDeliveredToNextCall() throws Exception
+    {
+        Future<MuleEvent> result = executor.submit(() -> flowRunner("timeoutThenRequest").withPayload(TEST_MESSAGE).run());
+
+        Message timedOutRequest = receiveRequest();
+        // the first call times out before its request is answered
+        Message request = receiveRequest();
+        assertThat(request.getJMSCorrelationID(), not(equalTo(timedOutRequest.getJMSCorrelationID())));
+
+        reply(timedOutRequest, timedOutRequest.getJMSCorrelationID(), "late " + REPLY);
+        reply(request, request.getJMSCorrelationID(), REPLY);
+
+        assertThat(getPayloadAsString(result.get(RECEIVE_TIMEOUT, MILLISECONDS).getMessage()), is(REPLY));
+    }
+
+    @Test
+    public void replyCorrelatedByMessageId() throws Exception
+    {
+        Future<MuleEvent> result = executor.submit(() -> flowRunner("request").withPayload(TEST_MESSAGE).run());
+
+        Message request = receiveRequest();
+        reply(request, request.getJMSMessageID(), REPLY);
+
+        assertThat(getPayloadAsString(result.get(RECEIVE_TIMEOUT, MILLISECONDS).getMessage()), is(REPLY));
+    }
+
+    @Test
+    public void nonBlockingContinuationDoesNotRunOnConsumerThread() throws Exception
+    {
+        Future<MuleEvent> result = executor.submit(() -> flowRunner("nonBlockingRequest").nonBlocking().withPayload(TEST_MESSAGE).run());
+
+        Message request = receiveRequest();
+        reply(request, request.getJMSCorrelationID(), REPLY);
+
+        assertThat(getPayloadAsString(result.get(RECEIVE_TIMEOUT, MILLISECONDS).getMessage()), is(REPLY));
+        assertThat(continuationThread, not(startsWith(CONSUMER_THREAD_PREFIX)));
+    }
+
+    private Message receiveRequest() throws Exception
+    {
+        Message request = requests.receive(RECEIVE_TIMEOUT);
+        assertThat(request, notNullValue());
+        return request;
+    }
+
+    private void reply(Message request, String correlationId, String payload) throws Exception
+    {
+        TextMessage reply = session.createTextMessage(payload);
+        reply.setJMSCorrelationID(correlationId);
+        replies.send(request.getJMSReplyTo(), reply);
+    }
+
+    public static class ThreadRecorder implements MessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            continuationThread = Thread.currentThread().getName();
+            return event;
+        }
+    }
+}
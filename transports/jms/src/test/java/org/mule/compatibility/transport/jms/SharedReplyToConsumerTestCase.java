@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.jms;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.compatibility.core.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class SharedReplyToConsumerTestCase extends AbstractMuleTestCase
+{
+
+    private static final String MESSAGE_ID = "ID:message";
+
+    private JmsConnector connector;
+    private Session session;
+    private TemporaryQueue replyQueue;
+    private MessageConsumer consumer;
+    private SharedReplyToConsumer replyToConsumer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connector = mock(JmsConnector.class);
+        JmsSupport jmsSupport = mock(JmsSupport.class);
+        session = mock(Session.class);
+        replyQueue = mock(TemporaryQueue.class);
+        consumer = mock(MessageConsumer.class);
+
+        when(connector.getJmsSupport()).thenReturn(jmsSupport);
+        when(connector.getConnection()).thenReturn(mock(Connection.class));
+        when(jmsSupport.createSession(any(Connection.class), anyBoolean(), anyBoolean(), anyInt(), anyBoolean())).thenReturn(session);
+        when(jmsSupport.createTemporaryDestination(session, false)).thenReturn(replyQueue);
+        when(jmsSupport.createConsumer(any(Session.class), any(Destination.class), anyString(), anyBoolean(), anyString(),
+                                       anyBoolean(), any(ImmutableEndpoint.class))).thenReturn(consumer);
+
+        replyToConsumer = new SharedReplyToConsumer(connector);
+    }
+
+    @Test
+    public void listensOnTemporaryQueue() throws Exception
+    {
+        assertThat(replyToConsumer.getReplyTo(), is((Destination) replyQueue));
+        verify(consumer).setMessageListener(replyToConsumer);
+    }
+
+    @Test
+    public void deliversReplyToWaitingListener() throws Exception
+    {
+        MessageListener listener = mock(MessageListener.class);
+        String correlationId = replyToConsumer.register(listener);
+
+        Message reply = createReply(correlationId);
+        replyToConsumer.onMessage(reply);
+
+        verify(listener).onMessage(reply);
+        assertThat(replyToConsumer.getPendingReplies(), is(0));
+    }
+
+    @Test
+    public void deliversReplyCorrelatedByMessageId() throws Exception
+    {
+        MessageListener listener = mock(MessageListener.class);
+        String correlationId = replyToConsumer.register(listener);
+        replyToConsumer.sent(correlationId, MESSAGE_ID);
+
+        Message reply = createReply(MESSAGE_ID);
+        replyToConsumer.onMessage(reply);
+
+        verify(listener).onMessage(reply);
+        assertThat(replyToConsumer.getPendingReplies(), is(0));
+    }
+
+    @Test
+    public void deliversReplyArrivedBeforeMessageIdWasKnown() throws Exception
+    {
+        MessageListener listener = mock(MessageListener.class);
+        String correlationId = replyToConsumer.register(listener);
+
+        Message reply = createReply(MESSAGE_ID);
+        replyToConsumer.onMessage(reply);
+        verify(listener, never()).onMessage(any(Message.class));
+
+        replyToConsumer.sent(correlationId, MESSAGE_ID);
+        verify(listener).onMessage(reply);
+        assertThat(replyToConsumer.getPendingReplies(), is(0));
+    }
+
+    @Test
+    public void discardsRepliesNobodyWaitsFor() throws Exception
+    {
+        MessageListener listener = mock(MessageListener.class);
+        replyToConsumer.register(listener);
+
+        replyToConsumer.onMessage(createReply("other"));
+
+        verify(listener, never()).onMessage(any(Message.class));
+        assertThat(replyToConsumer.getPendingReplies(), is(1));
+    }
+
+    @Test
+    public void lateReplyIsNotDeliveredToNextCall() throws Exception
+    {
+        String timedOutCorrelationId = replyToConsumer.register(mock(MessageListener.class));
+        assertThat(replyToConsumer.release(timedOutCorrelationId), is(true));
+
+        MessageListener listener = mock(MessageListener.class);
+        String correlationId = replyToConsumer.register(listener);
+        replyToConsumer.onMessage(createReply(timedOutCorrelationId));
+
+        assertThat(correlationId, not(equalTo(timedOutCorrelationId)));
+        verify(listener, never()).onMessage(any(Message.class));
+        assertThat(replyToConsumer.getPendingReplies(), is(1));
+    }
+
+    @Test
+    public void timeoutLosesAgainstDeliveredReply() throws Exception
+    {
+        MessageListener listener = mock(MessageListener.class);
+        String correlationId = replyToConsumer.register(listener);
+        replyToConsumer.sent(correlationId, MESSAGE_ID);
+
+        replyToConsumer.onMessage(createReply(correlationId));
+
+        assertThat(replyToConsumer.release(correlationId), is(false));
+        assertThat(replyToConsumer.getPendingReplies(), is(0));
+    }
+
+    @Test
+    public void closesJmsResources() throws Exception
+    {
+        replyToConsumer.register(mock(MessageListener.class));
+        replyToConsumer.close();
+
+        verify(connector).closeQuietly(consumer);
+        verify(connector).closeQuietly(replyQueue);
+        verify(connector).closeQuietly(session);
+        assertThat(replyToConsumer.getPendingReplies(), is(0));
+    }
+
+    private Message createReply(String correlationId) throws Exception
+    {
+        Message reply = mock(Message.class);
+        when(reply.getJMSCorrelationID()).thenReturn(correlationId);
+        return reply;
+    }
+}
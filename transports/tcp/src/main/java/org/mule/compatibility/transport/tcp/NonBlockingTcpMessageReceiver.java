@@ -0,0 +1,722 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp;
+
+import org.mule.compatibility.core.api.endpoint.InboundEndpoint;
+import org.mule.compatibility.core.api.transport.Connector;
+import org.mule.compatibility.core.connector.EndpointConnectException;
+import org.mule.compatibility.core.transport.AbstractMessageReceiver;
+import org.mule.compatibility.core.transport.AbstractReceiverWorker;
+import org.mule.compatibility.transport.tcp.i18n.TcpMessages;
+import org.mule.runtime.core.api.MuleException;
+import org.mule.runtime.core.api.MutableMuleMessage;
+import org.mule.runtime.core.api.config.MuleProperties;
+import org.mule.runtime.core.api.construct.FlowConstruct;
+import org.mule.runtime.core.api.lifecycle.CreateException;
+import org.mule.runtime.core.api.lifecycle.DisposeException;
+import org.mule.runtime.core.api.transaction.Transaction;
+import org.mule.runtime.core.api.transaction.TransactionException;
+import org.mule.runtime.core.config.i18n.CoreMessages;
+import org.mule.runtime.core.connector.ConnectException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkManager;
+
+/**
+ * <code>NonBlockingTcpMessageReceiver</code> acts like a TCP server that multiplexes all
+ * its connections on a few selector threads instead of blocking a thread per connection
+ * as {@link TcpMessageReceiver} does.
+ * <p/>
+ * The selector threads only read and write bytes. The {@link TcpFrameDecoder} of the
+ * {@link NonBlockingTcpProtocol} finds where each message ends, and only complete frames
+ * are handed to the receiver work manager, where they become messages and are routed.
+ * The frames of a connection are processed one batch at a time so that responses are
+ * written in order, and reading from a connection is suspended while too many of its
+ * frames wait to be processed.
+ */
+public class NonBlockingTcpMessageReceiver extends AbstractMessageReceiver
+{
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_READS_PER_SELECT = 16;
+    private static final int MAX_PENDING_FRAMES = 64;
+    private static final long SELECT_TIMEOUT = 1000;
+
+    private final TcpConnector tcpConnector;
+    private final NonBlockingTcpProtocol protocol;
+    private final AtomicInteger nextIoLoop = new AtomicInteger();
+
+    private ServerSocketChannel serverChannel;
+    private SelectionKey acceptKey;
+    private IoLoop[] ioLoops;
+
+    public NonBlockingTcpMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
+            throws CreateException
+    {
+        super(connector, flowConstruct, endpoint);
+        this.tcpConnector = (TcpConnector) connector;
+
+        TcpProtocol tcpProtocol = tcpConnector.getTcpProtocol();
+        if (!(tcpProtocol instanceof NonBlockingTcpProtocol))
+        {
+            throw new CreateException(TcpMessages.protocolNotNonBlocking(tcpProtocol), this);
+        }
+        this.protocol = (NonBlockingTcpProtocol) tcpProtocol;
+    }
+
+    @Override
+    protected void doConnect() throws ConnectException
+    {
+        URI uri = endpoint.getEndpointURI().getUri();
+
+        try
+        {
+            TcpServerSocketFactory serverSocketFactory = (TcpServerSocketFactory) tcpConnector.getServerSocketFactory();
+            serverChannel = serverSocketFactory.createServerSocketChannel(uri, tcpConnector.getReceiveBacklog(),
+                                                                          tcpConnector.isReuseAddress());
+            serverChannel.configureBlocking(false);
+
+            ioLoops = new IoLoop[Math.max(1, tcpConnector.getReceiverIoThreads())];
+            for (int i = 0; i < ioLoops.length; i++)
+            {
+                ioLoops[i] = new IoLoop();
+            }
+            // connections are only accepted once the receiver starts
+            acceptKey = serverChannel.register(ioLoops[0].selector, 0);
+        }
+        catch (Exception e)
+        {
+            closeIoLoops(false);
+            closeServerChannel();
+            throw new EndpointConnectException(TcpMessages.failedToBindToUri(uri), e, this);
+        }
+
+        try
+        {
+            for (IoLoop ioLoop : ioLoops)
+            {
+                getWorkManager().scheduleWork(ioLoop, WorkManager.INDEFINITE, null, connector);
+            }
+        }
+        catch (WorkException e)
+        {
+            closeIoLoops(false);
+            closeServerChannel();
+            throw new EndpointConnectException(CoreMessages.failedToScheduleWork(), e, this);
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws ConnectException
+    {
+        closeIoLoops(true);
+        closeServerChannel();
+    }
+
+    @Override
+    protected void doStart() throws MuleException
+    {
+        setAcceptInterest(SelectionKey.OP_ACCEPT);
+    }
+
+    @Override
+    protected void doStop() throws MuleException
+    {
+        setAcceptInterest(0);
+    }
+
+    @Override
+    protected void doDispose()
+    {
+        closeIoLoops(true);
+        closeServerChannel();
+        logger.info("Closed Tcp port");
+    }
+
+    private void setAcceptInterest(final int ops)
+    {
+        final SelectionKey key = acceptKey;
+        if (key != null)
+        {
+            ioLoops[0].execute(() ->
+            {
+                if (key.isValid())
+                {
+                    key.interestOps(ops);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param scheduled whether the loops are running, in which case they close their own
+     *        connections and selector on their way out
+     */
+    private void closeIoLoops(boolean scheduled)
+    {
+        if (ioLoops != null)
+        {
+            for (IoLoop ioLoop : ioLoops)
+            {
+                if (ioLoop != null)
+                {
+                    ioLoop.release();
+                    if (!scheduled)
+                    {
+                        ioLoop.closeConnections();
+                    }
+                }
+            }
+            ioLoops = null;
+        }
+        acceptKey = null;
+    }
+
+    private void closeServerChannel()
+    {
+        try
+        {
+            if (serverChannel != null && serverChannel.isOpen())
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Closing: " + serverChannel);
+                }
+                serverChannel.close();
+            }
+            serverChannel = null;
+        }
+        catch (IOException e)
+        {
+            logger.error(new DisposeException(TcpMessages.failedToCloseSocket(), e, this).toString());
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel)
+    {
+        IoLoop[] loops = ioLoops;
+        if (loops == null)
+        {
+            return;
+        }
+
+        try
+        {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null)
+            {
+                try
+                {
+                    tcpConnector.configureSocket(TcpConnector.SERVER, channel.socket());
+                    channel.configureBlocking(false);
+                }
+                catch (IOException e)
+                {
+                    logger.warn("Failed to configure accepted connection, closing it: " + e.getMessage());
+                    closeQuietly(channel);
+                    continue;
+                }
+
+                final SocketChannel accepted = channel;
+                final IoLoop ioLoop = loops[Math.floorMod(nextIoLoop.getAndIncrement(), loops.length)];
+                ioLoop.execute(() -> ioLoop.register(accepted));
+            }
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to accept connection: " + e.getMessage());
+        }
+    }
+
+    private void closeQuietly(SocketChannel channel)
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Socket close failed with: " + e);
+        }
+    }
+
+    /**
+     * A selector thread, handling its own share of the connections.
+     */
+    private class IoLoop implements Work
+    {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private volatile boolean closed;
+        private long nextIdleScan;
+
+        IoLoop() throws IOException
+        {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Runs a task in this selector thread, which owns the state of its connections.
+         */
+        void execute(Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel)
+        {
+            Connection connection = new Connection(this, channel);
+            try
+            {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            }
+            catch (ClosedChannelException e)
+            {
+                return;
+            }
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Accepted connection from: " + connection.remoteAddress);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!closed)
+                {
+                    selector.select(SELECT_TIMEOUT);
+                    runTasks();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext())
+                    {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try
+                        {
+                            if (key.isAcceptable())
+                            {
+                                accept((ServerSocketChannel) key.channel());
+                            }
+                            else
+                            {
+                                Connection connection = (Connection) key.attachment();
+                                if (key.isReadable())
+                                {
+                                    connection.read();
+                                }
+                                if (key.isValid() && key.isWritable())
+                                {
+                                    connection.flushWrites();
+                                }
+                            }
+                        }
+                        catch (CancelledKeyException e)
+                        {
+                            // connection was closed in the meantime
+                        }
+                    }
+
+                    closeIdleConnections();
+                }
+            }
+            catch (ClosedSelectorException e)
+            {
+                // released
+            }
+            catch (Exception e)
+            {
+                if (!closed)
+                {
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                }
+            }
+            finally
+            {
+                closeConnections();
+            }
+        }
+
+        private void runTasks()
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                try
+                {
+                    task.run();
+                }
+                catch (CancelledKeyException e)
+                {
+                    // connection was closed in the meantime
+                }
+            }
+        }
+
+        /**
+         * Closes the connections idle for longer than the keep alive timeout. They are checked at
+         * most once per {@link #SELECT_TIMEOUT}, so busy connections don't make every event walk
+         * all the idle ones.
+         */
+        private void closeIdleConnections()
+        {
+            int keepAliveTimeout = tcpConnector.getKeepAliveTimeout();
+            if (keepAliveTimeout > 0)
+            {
+                long now = System.currentTimeMillis();
+                if (now < nextIdleScan)
+                {
+                    return;
+                }
+                nextIdleScan = now + SELECT_TIMEOUT;
+
+                for (SelectionKey key : selector.keys())
+                {
+                    Object attachment = key.attachment();
+                    if (attachment instanceof Connection && ((Connection) attachment).isIdleSince(now - keepAliveTimeout))
+                    {
+                        ((Connection) attachment).close();
+                    }
+                }
+            }
+        }
+
+        void closeConnections()
+        {
+            try
+            {
+                for (SelectionKey key : selector.keys())
+                {
+                    if (key.attachment() instanceof Connection)
+                    {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                selector.close();
+            }
+            catch (ClosedSelectorException e)
+            {
+                // already closed
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to close selector: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            closed = true;
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * State of a connection. It is only used from the thread of its {@link IoLoop}; the
+     * workers that process its frames go through {@link IoLoop#execute(Runnable)}.
+     */
+    private class Connection
+    {
+
+        private final IoLoop ioLoop;
+        private final SocketChannel channel;
+        private final SocketAddress remoteAddress;
+        private final TcpFrameDecoder decoder = protocol.createFrameDecoder();
+        private final Queue<Object> frames = new ArrayDeque<>();
+        private final Queue<ByteBuffer> writes = new ArrayDeque<>();
+        private SelectionKey key;
+        private boolean processing;
+        private boolean endOfInput;
+        private long lastActivity = System.currentTimeMillis();
+
+        Connection(IoLoop ioLoop, SocketChannel channel)
+        {
+            this.ioLoop = ioLoop;
+            this.channel = channel;
+            this.remoteAddress = channel.socket().getRemoteSocketAddress();
+        }
+
+        void read()
+        {
+            lastActivity = System.currentTimeMillis();
+            ByteBuffer buffer = ioLoop.readBuffer;
+            try
+            {
+                int count = 0;
+                for (int i = 0; i < MAX_READS_PER_SELECT; i++)
+                {
+                    buffer.clear();
+                    count = channel.read(buffer);
+                    if (count <= 0)
+                    {
+                        break;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining())
+                    {
+                        byte[] frame = decoder.decode(buffer);
+                        if (frame == null)
+                        {
+                            break;
+                        }
+                        frames.add(frame);
+                    }
+                }
+
+                if (count <= 0)
+                {
+                    // nothing else to read for now
+                    byte[] frame = decoder.flush(count < 0);
+                    if (frame != null)
+                    {
+                        frames.add(frame);
+                    }
+                }
+                if (count < 0)
+                {
+                    endOfInput = true;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+                else if (processing && frames.size() >= MAX_PENDING_FRAMES)
+                {
+                    // resumed once the frames being processed are done
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+            }
+            catch (IOException e)
+            {
+                logger.warn("Closing connection from " + remoteAddress + ": " + e.getMessage());
+                close();
+                return;
+            }
+
+            dispatch();
+            closeIfDone();
+        }
+
+        private void dispatch()
+        {
+            if (processing || frames.isEmpty() || !channel.isOpen())
+            {
+                return;
+            }
+
+            List<Object> batch = new ArrayList<>(frames);
+            frames.clear();
+            processing = true;
+            try
+            {
+                getWorkManager().scheduleWork(new FrameWorker(batch, this), WorkManager.INDEFINITE, null, connector);
+            }
+            catch (WorkException e)
+            {
+                logger.error("Failed to schedule processing of messages from " + remoteAddress + ", closing connection", e);
+                processing = false;
+                close();
+            }
+        }
+
+        /**
+         * Called by the worker once its frames are processed.
+         */
+        void workDone()
+        {
+            ioLoop.execute(() ->
+            {
+                processing = false;
+                lastActivity = System.currentTimeMillis();
+                dispatch();
+                if (channel.isOpen() && !endOfInput && frames.size() < MAX_PENDING_FRAMES)
+                {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                }
+                closeIfDone();
+            });
+        }
+
+        void send(final ByteBuffer data)
+        {
+            ioLoop.execute(() ->
+            {
+                if (channel.isOpen())
+                {
+                    writes.add(data);
+                    flushWrites();
+                }
+            });
+        }
+
+        void flushWrites()
+        {
+            try
+            {
+                ByteBuffer data;
+                while ((data = writes.peek()) != null)
+                {
+                    channel.write(data);
+                    if (data.hasRemaining())
+                    {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    writes.poll();
+                }
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to write response to " + remoteAddress + ": " + e.getMessage());
+                close();
+                return;
+            }
+
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            lastActivity = System.currentTimeMillis();
+            closeIfDone();
+        }
+
+        boolean isIdleSince(long time)
+        {
+            return !processing && frames.isEmpty() && writes.isEmpty() && lastActivity < time;
+        }
+
+        private void closeIfDone()
+        {
+            if (endOfInput && !processing && frames.isEmpty() && writes.isEmpty())
+            {
+                close();
+            }
+        }
+
+        void closeLater()
+        {
+            ioLoop.execute(this::close);
+        }
+
+        void close()
+        {
+            if (channel.isOpen())
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Closing connection from: " + remoteAddress);
+                }
+                if (key != null)
+                {
+                    key.cancel();
+                }
+                closeQuietly(channel);
+            }
+            frames.clear();
+            writes.clear();
+        }
+    }
+
+    /**
+     * Turns the frames of a connection into messages and routes them, writing back the
+     * responses when the exchange pattern has them.
+     */
+    private class FrameWorker extends AbstractReceiverWorker
+    {
+
+        private final Connection connection;
+        private boolean failed;
+
+        FrameWorker(List<Object> frames, Connection connection)
+        {
+            super(frames, NonBlockingTcpMessageReceiver.this);
+            this.connection = connection;
+        }
+
+        @Override
+        protected Object preProcessMessage(Object message) throws Exception
+        {
+            if (failed)
+            {
+                return null;
+            }
+
+            try
+            {
+                return protocol.readFrame((byte[]) message);
+            }
+            catch (IOException e)
+            {
+                // the rest of the data can't be trusted either
+                failed = true;
+                logger.warn("Closing connection from " + connection.remoteAddress + ": " + e.getMessage());
+                connection.closeLater();
+                return null;
+            }
+        }
+
+        @Override
+        protected void preRouteMuleMessage(MutableMuleMessage message) throws Exception
+        {
+            super.preRouteMuleMessage(message);
+
+            if (connection.remoteAddress != null)
+            {
+                message.setOutboundProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, connection.remoteAddress.toString());
+            }
+        }
+
+        @Override
+        protected void bindTransaction(Transaction tx) throws TransactionException
+        {
+            //nothing to do
+        }
+
+        @Override
+        protected void handleResults(List messages) throws Exception
+        {
+            //should send back only if remote synch is set or no outbound endpoints
+            if (endpoint.getExchangePattern().hasResponse() && !messages.isEmpty())
+            {
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                for (Object message : messages)
+                {
+                    protocol.write(data, message);
+                }
+                connection.send(ByteBuffer.wrap(data.toByteArray()));
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            connection.workDone();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * A {@link TcpProtocol} that can also be used by {@link NonBlockingTcpMessageReceiver}.
+ * The bytes read from a connection go through a {@link TcpFrameDecoder} that finds where
+ * each message ends without blocking, and each complete frame is then turned into a
+ * message with {@link #readFrame(byte[])} out of the I/O threads.
+ */
+public interface NonBlockingTcpProtocol extends TcpProtocol
+{
+
+    /**
+     * Creates the decoder that keeps the partial frame of a single connection.
+     */
+    TcpFrameDecoder createFrameDecoder();
+
+    /**
+     * Builds a message from the bytes of a complete frame, as {@link #read(java.io.InputStream)}
+     * would from a stream holding them.
+     *
+     * @param frame the bytes of the frame, as returned by the decoder
+     * @return the message, or null if the frame holds none
+     * @throws IOException if the frame is not valid
+     */
+    default Object readFrame(byte[] frame) throws IOException
+    {
+        return read(new ByteArrayInputStream(frame));
+    }
+}
@@ -7,8 +7,10 @@
 package org.mule.compatibility.transport.tcp;
 
 import org.mule.compatibility.core.api.endpoint.ImmutableEndpoint;
+import org.mule.compatibility.core.api.endpoint.InboundEndpoint;
 import org.mule.compatibility.core.api.transport.Connector;
 import org.mule.compatibility.core.api.transport.MessageDispatcherFactory;
+import org.mule.compatibility.core.api.transport.MessageReceiver;
 import org.mule.compatibility.core.config.i18n.TransportCoreMessages;
 import org.mule.compatibility.core.transport.AbstractConnector;
 import org.mule.compatibility.core.transport.ConfigurableKeyedObjectPool;
@@ -18,6 +20,7 @@ import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.MuleException;
 import org.mule.runtime.core.api.MuleMessage;
 import org.mule.runtime.core.api.config.MuleProperties;
+import org.mule.runtime.core.api.construct.FlowConstruct;
 import org.mule.runtime.core.api.lifecycle.InitialisationException;
 import org.mule.runtime.core.model.streaming.CallbackOutputStream;
 import org.mule.runtime.core.util.concurrent.ThreadNameHelper;
@@ -75,6 +78,8 @@ public class TcpConnector extends AbstractConnector
     private int keepAliveTimeout = 0;
     private ExpiryMonitor keepAliveMonitor;
     private Boolean failOnUnresolvedHost = Boolean.TRUE;
+    private boolean nonBlockingReceiver = false;
+    private int receiverIoThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
 
     /** 
      * If set, the socket is not closed after sending a message.  This attribute 
@@ -200,6 +205,28 @@ public class TcpConnector extends AbstractConnector
         keepAliveMonitor.dispose();
     }
 
+    @Override
+    protected MessageReceiver createReceiver(FlowConstruct flowConstruct, InboundEndpoint endpoint) throws Exception
+    {
+        if (isNonBlockingReceiver() && supportsNonBlockingReceiver())
+        {
+            return new NonBlockingTcpMessageReceiver(this, flowConstruct, endpoint);
+        }
+        return super.createReceiver(flowConstruct, endpoint);
+    }
+
+    /**
+     * The non-blocking receiver binds plain server socket channels, so it is not used when
+     * the server sockets come from another factory (as with SSL) or the receiver class
+     * is overridden (as with polling).
+     */
+    protected boolean supportsNonBlockingReceiver()
+    {
+        return getServerSocketFactory().getClass() == TcpServerSocketFactory.class
+               && (getServiceOverrides() == null
+                   || !getServiceOverrides().containsKey(MuleProperties.CONNECTOR_MESSAGE_RECEIVER_CLASS));
+    }
+
     /**
      * Lookup a socket in the list of dispatcher sockets but don't create a new
      * socket
@@ -586,6 +613,36 @@ public class TcpConnector extends AbstractConnector
         return socketsPool.getMaxWait();
     }
 
+    /**
+     * @return true if connections are received by {@link NonBlockingTcpMessageReceiver}
+     */
+    public boolean isNonBlockingReceiver()
+    {
+        return nonBlockingReceiver;
+    }
+
+    /**
+     * Multiplexes the received connections on a few threads instead of using a thread per
+     * connection. The protocol must implement {@link NonBlockingTcpProtocol}.
+     */
+    public void setNonBlockingReceiver(boolean nonBlockingReceiver)
+    {
+        this.nonBlockingReceiver = nonBlockingReceiver;
+    }
+
+    /**
+     * @return number of selector threads used by the non-blocking receivers
+     */
+    public int getReceiverIoThreads()
+    {
+        return receiverIoThreads;
+    }
+
+    public void setReceiverIoThreads(int receiverIoThreads)
+    {
+        this.receiverIoThreads = receiverIoThreads;
+    }
+
     public Boolean isFailOnUnresolvedHost() 
     {
         return failOnUnresolvedHost;
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Finds the frames of a {@link NonBlockingTcpProtocol} in the bytes read from a single
+ * connection, keeping whatever belongs to a frame that is not complete yet. Decoders are
+ * used by one thread at a time.
+ */
+public interface TcpFrameDecoder
+{
+
+    /**
+     * Consumes bytes from the buffer until a frame is complete.
+     *
+     * @param buffer the bytes read, ready to be read from
+     * @return the bytes of the complete frame, or null if more data is needed
+     * @throws IOException if the data does not follow the protocol
+     */
+    byte[] decode(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Called once there is nothing else to read from the connection for now, or ever if
+     * <code>closed</code> is true, for protocols whose frames end with the input.
+     *
+     * @return the bytes of a frame made of what was kept so far, or null
+     * @throws IOException if the data does not follow the protocol
+     */
+    byte[] flush(boolean closed) throws IOException;
+}
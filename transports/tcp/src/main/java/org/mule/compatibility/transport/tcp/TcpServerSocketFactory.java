@@ -15,6 +15,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,38 @@ public class TcpServerSocketFactory implements SimpleServerSocketFactory
 
     @Override
     public ServerSocket createServerSocket(URI uri, int backlog, Boolean reuse) throws IOException
+    {
+        InetSocketAddress address = getBindAddress(uri);
+        if (address.getAddress().isAnyLocalAddress())
+        {
+            return createServerSocket(address.getPort(), backlog, reuse);
+        }
+        else
+        {
+            return createServerSocket(address.getAddress(), address.getPort(), backlog, reuse);
+        }
+    }
+
+    /**
+     * Opens a server socket channel bound as {@link #createServerSocket(URI, int, Boolean)}
+     * would bind the server socket, for receivers that use non-blocking I/O.
+     */
+    public ServerSocketChannel createServerSocketChannel(URI uri, int backlog, Boolean reuse) throws IOException
+    {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try
+        {
+            configure(channel.socket(), reuse, getBindAddress(uri), backlog);
+            return channel;
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    protected InetSocketAddress getBindAddress(URI uri) throws IOException
     {
         String host = StringUtils.defaultIfEmpty(uri.getHost(), "localhost");
         InetAddress inetAddress = InetAddress.getByName(host);
@@ -32,11 +65,11 @@ public class TcpServerSocketFactory implements SimpleServerSocketFactory
         if ((inetAddress.equals(NetworkUtils.getLocalHost()) || host.trim().equals("localhost")) && TcpPropertyHelper.isBindingLocalhostToAllLocalInterfaces())
         {
             logger.warn(TcpMessages.localhostBoundToAllLocalInterfaces().toString());
-            return createServerSocket(uri.getPort(), backlog, reuse);
+            return new InetSocketAddress(uri.getPort());
         }
         else
         {
-            return createServerSocket(inetAddress, uri.getPort(), backlog, reuse);
+            return new InetSocketAddress(inetAddress, uri.getPort());
         }
     }
 
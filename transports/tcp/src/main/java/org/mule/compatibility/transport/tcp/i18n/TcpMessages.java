@@ -6,6 +6,7 @@
  */
 package org.mule.compatibility.transport.tcp.i18n;
 
+import org.mule.compatibility.transport.tcp.NonBlockingTcpProtocol;
 import org.mule.compatibility.transport.tcp.TcpConnector;
 import org.mule.compatibility.transport.tcp.TcpPropertyHelper;
 import org.mule.runtime.core.config.i18n.Message;
@@ -48,6 +49,9 @@ public class TcpMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 6, TcpPropertyHelper.MULE_TCP_BIND_LOCALHOST_TO_ALL_LOCAL_INTERFACES_PROPERTY);
     }
-}
-
 
+    public static Message protocolNotNonBlocking(Object protocol)
+    {
+        return factory.createMessage(BUNDLE_PATH, 7, protocol.getClass().getName(), NonBlockingTcpProtocol.class.getName());
+    }
+}
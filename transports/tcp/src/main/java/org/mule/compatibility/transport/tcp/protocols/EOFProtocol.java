@@ -6,11 +6,17 @@
  */
 package org.mule.compatibility.transport.tcp.protocols;
 
+import org.mule.compatibility.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.compatibility.transport.tcp.TcpFrameDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
 /**
  * The EOFProtocol class is an application level tcp protocol that does nothing.
  * Reading is terminated by the stream being closed by the client.
  */
-public class EOFProtocol extends DirectProtocol
+public class EOFProtocol extends DirectProtocol implements NonBlockingTcpProtocol
 {
 
     /**
@@ -26,4 +32,48 @@ public class EOFProtocol extends DirectProtocol
         return true;
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new EOFFrameDecoder();
+    }
+
+    /**
+     * Keeps everything that is read as a single frame until the input ends.
+     */
+    private static class EOFFrameDecoder implements TcpFrameDecoder
+    {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        @Override
+        public byte[] decode(ByteBuffer buffer)
+        {
+            if (buffer.hasArray())
+            {
+                data.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
+            else
+            {
+                while (buffer.hasRemaining())
+                {
+                    data.write(buffer.get());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public byte[] flush(boolean closed)
+        {
+            if (!closed || data.size() == 0)
+            {
+                return null;
+            }
+            byte[] frame = data.toByteArray();
+            data.reset();
+            return frame;
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp.protocols;
+
+import org.mule.compatibility.transport.tcp.TcpFrameDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link TcpFrameDecoder} for data prefixed with its length as a 4 byte integer, as written
+ * by {@link LengthProtocol}. Frames include the length, and those longer than the maximum
+ * fail as soon as it is read. Partial frames are dropped when the input ends.
+ */
+public class LengthFrameDecoder implements TcpFrameDecoder
+{
+
+    private static final int SIZE_INT = 4;
+
+    private final int maxMessageLength;
+    private final ByteBuffer header = ByteBuffer.allocate(SIZE_INT);
+    private byte[] frame;
+    private int position;
+
+    public LengthFrameDecoder(int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    @Override
+    public byte[] decode(ByteBuffer buffer) throws IOException
+    {
+        if (frame == null)
+        {
+            while (header.hasRemaining() && buffer.hasRemaining())
+            {
+                header.put(buffer.get());
+            }
+            if (header.hasRemaining())
+            {
+                return null;
+            }
+
+            int length = header.getInt(0);
+            if (length < 0 || (maxMessageLength > 0 && length > maxMessageLength))
+            {
+                throw new IOException("Length " + length + " exceeds limit: " + maxMessageLength);
+            }
+            frame = new byte[SIZE_INT + length];
+            System.arraycopy(header.array(), 0, frame, 0, SIZE_INT);
+            position = SIZE_INT;
+        }
+
+        int count = Math.min(buffer.remaining(), frame.length - position);
+        buffer.get(frame, position, count);
+        position += count;
+        if (position < frame.length)
+        {
+            return null;
+        }
+
+        byte[] complete = frame;
+        frame = null;
+        header.clear();
+        return complete;
+    }
+
+    @Override
+    public byte[] flush(boolean closed)
+    {
+        return null;
+    }
+}
@@ -6,6 +6,9 @@
  */
 package org.mule.compatibility.transport.tcp.protocols;
 
+import org.mule.compatibility.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.compatibility.transport.tcp.TcpFrameDecoder;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -24,7 +27,7 @@ import org.slf4j.LoggerFactory;
  * <p>Note that use of this protocol must be symmetric - both the sending and receiving
  * connectors must use the same protocol.</p>
  */
-public class LengthProtocol extends DirectProtocol
+public class LengthProtocol extends DirectProtocol implements NonBlockingTcpProtocol
 {
     
     private static final Logger logger = LoggerFactory.getLogger(LengthProtocol.class);
@@ -82,6 +85,12 @@ public class LengthProtocol extends DirectProtocol
         return buffer;
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new LengthFrameDecoder(getMaxMessageLength());
+    }
+
     @Override
     protected void writeByteArray(OutputStream os, byte[] data) throws IOException
     {
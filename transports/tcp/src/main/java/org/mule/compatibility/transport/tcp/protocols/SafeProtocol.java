@@ -6,6 +6,8 @@
  */
 package org.mule.compatibility.transport.tcp.protocols;
 
+import org.mule.compatibility.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.compatibility.transport.tcp.TcpFrameDecoder;
 import org.mule.compatibility.transport.tcp.TcpProtocol;
 import org.mule.runtime.core.ResponseOutputStream;
 import org.mule.runtime.core.api.serialization.DefaultObjectSerializer;
@@ -15,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 import javax.inject.Inject;
 
@@ -25,12 +28,12 @@ import javax.inject.Inject;
  * You should probably change to LengthProtocol.
  * Remember - both sender and receiver must use the same protocol.
  */
-public class SafeProtocol implements TcpProtocol
+public class SafeProtocol implements NonBlockingTcpProtocol
 {
 
     public static final String COOKIE = "You are using SafeProtocol";
-    private TcpProtocol delegate = new LengthProtocol();
-    private TcpProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
+    private LengthProtocol delegate = new LengthProtocol();
+    private LengthProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
 
     @Override
     public Object read(InputStream is) throws IOException
@@ -64,6 +67,12 @@ public class SafeProtocol implements TcpProtocol
         return new ResponseOutputStream(socket, new ProtocolStream(this, false, socket.getOutputStream()));
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new SafeFrameDecoder(cookieProtocol.createFrameDecoder(), delegate.createFrameDecoder());
+    }
+
     private void assureSibling(OutputStream os) throws IOException
     {
         cookieProtocol.write(os, COOKIE);
@@ -136,4 +145,60 @@ public class SafeProtocol implements TcpProtocol
             ((AbstractByteProtocol) protocol).setObjectSerializer(objectSerializer);
         }
     }
+
+    /**
+     * Frames made of the cookie followed by the data, both as read by {@link LengthProtocol}.
+     * The cookie itself is checked once the frame is read.
+     */
+    private class SafeFrameDecoder implements TcpFrameDecoder
+    {
+
+        private final TcpFrameDecoder cookieDecoder;
+        private final TcpFrameDecoder dataDecoder;
+        private byte[] cookie;
+
+        SafeFrameDecoder(TcpFrameDecoder cookieDecoder, TcpFrameDecoder dataDecoder)
+        {
+            this.cookieDecoder = cookieDecoder;
+            this.dataDecoder = dataDecoder;
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer buffer) throws IOException
+        {
+            if (cookie == null)
+            {
+                try
+                {
+                    cookie = cookieDecoder.decode(buffer);
+                }
+                catch (IOException e)
+                {
+                    helpUser(e);
+                }
+                if (cookie == null)
+                {
+                    return null;
+                }
+            }
+
+            byte[] data = dataDecoder.decode(buffer);
+            if (data == null)
+            {
+                return null;
+            }
+
+            byte[] frame = new byte[cookie.length + data.length];
+            System.arraycopy(cookie, 0, frame, 0, cookie.length);
+            System.arraycopy(data, 0, frame, cookie.length, data.length);
+            cookie = null;
+            return frame;
+        }
+
+        @Override
+        public byte[] flush(boolean closed)
+        {
+            return null;
+        }
+    }
 }
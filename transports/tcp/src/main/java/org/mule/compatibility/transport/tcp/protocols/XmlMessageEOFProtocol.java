@@ -27,4 +27,10 @@ public class XmlMessageEOFProtocol extends XmlMessageProtocol
         return patternIndex < 0;
     }
 
+    @Override
+    protected boolean isSplitOnIdle()
+    {
+        return false;
+    }
+
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.compatibility.core.api.transport.MessageReceiver;
+import org.mule.compatibility.transport.tcp.protocols.LengthProtocol;
+import org.mule.compatibility.transport.tcp.protocols.SafeProtocol;
+import org.mule.functional.junit4.FunctionalTestCase;
+import org.mule.runtime.core.api.MuleMessage;
+import org.mule.runtime.core.api.client.MuleClient;
+import org.mule.tck.junit4.rule.DynamicPort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Runs the request-response and one-way cases of the TCP transport against a
+ * {@link NonBlockingTcpMessageReceiver}, and writes raw frames to check how they are
+ * split and joined by the selector threads.
+ */
+@RunWith(Parameterized.class)
+public class NonBlockingTcpReceiverTestCase extends FunctionalTestCase
+{
+
+    private static final String TEST_MESSAGE = "Test TCP Request";
+
+    // more than the frames a connection may have pending before reading from it is suspended
+    private static final int MANY_MESSAGES = 200;
+
+    @Rule
+    public DynamicPort dynamicPort1 = new DynamicPort("port1");
+
+    @Rule
+    public DynamicPort dynamicPort2 = new DynamicPort("port2");
+
+    @Rule
+    public DynamicPort dynamicPort3 = new DynamicPort("port3");
+
+    @Rule
+    public DynamicPort dynamicPort4 = new DynamicPort("port4");
+
+    @Rule
+    public DynamicPort dynamicPort5 = new DynamicPort("port5");
+
+    @Rule
+    public DynamicPort dynamicPort6 = new DynamicPort("port6");
+
+    @Parameterized.Parameter(0)
+    public String protocolName;
+
+    @Parameterized.Parameter(1)
+    public TcpProtocol protocol;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data()
+    {
+        return Arrays.asList(new Object[][] {{"length", new LengthProtocol()}, {"safe", new SafeProtocol()}});
+    }
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "tcp-non-blocking-receiver-test-flow.xml";
+    }
+
+    @Test
+    public void usesNonBlockingReceiver() throws Exception
+    {
+        Collection<MessageReceiver> receivers = getConnector().getReceivers().values();
+        assertThat(receivers.size(), is(3));
+        for (MessageReceiver receiver : receivers)
+        {
+            assertThat(receiver, instanceOf(NonBlockingTcpMessageReceiver.class));
+        }
+    }
+
+    @Test
+    public void testSend() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        MuleMessage result = client.send(protocolName + "ClientEndpoint", TEST_MESSAGE, null);
+        assertThat(getPayloadAsString(result), is(TEST_MESSAGE + " Received"));
+    }
+
+    @Test
+    public void testDispatch() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        client.dispatch(protocolName + "AsyncEndpoint", TEST_MESSAGE, null);
+        MuleMessage result = client.request("test://" + protocolName + "Out", RECEIVE_TIMEOUT);
+        assertThat(result, is(notNullValue()));
+        assertThat(getPayloadAsString(result), is(TEST_MESSAGE));
+    }
+
+    @Test
+    public void severalMessagesInOnePacket() throws Exception
+    {
+        try (Socket socket = connect(false))
+        {
+            socket.getOutputStream().write(encode(0, 5));
+            assertResponses(socket, 0, 5);
+        }
+    }
+
+    @Test
+    public void messageSplitAcrossPackets() throws Exception
+    {
+        try (Socket socket = connect(false))
+        {
+            byte[] data = encode(0, 2);
+            int half = data.length / 2;
+            OutputStream output = socket.getOutputStream();
+
+            // the first packet ends in the middle of the frame of the first message
+            output.write(data, 0, 3);
+            output.flush();
+            Thread.sleep(200);
+            output.write(data, 3, half - 3);
+            output.flush();
+            Thread.sleep(200);
+            output.write(data, half, data.length - half);
+            output.flush();
+
+            assertResponses(socket, 0, 2);
+        }
+    }
+
+    @Test
+    public void moreMessagesThanPendingFramesLimit() throws Exception
+    {
+        try (Socket socket = connect(true))
+        {
+            // the rest of the messages arrive while the first one is processed
+            socket.getOutputStream().write(encode(0, 1));
+            Thread.sleep(5);
+            socket.getOutputStream().write(encode(1, MANY_MESSAGES - 1));
+            assertResponses(socket, 0, MANY_MESSAGES);
+
+            // reading from the connection is resumed once the pending frames are processed
+            socket.getOutputStream().write(encode(MANY_MESSAGES, 1));
+            assertResponses(socket, MANY_MESSAGES, 1);
+        }
+    }
+
+    @Test
+    public void closesIdleConnections() throws Exception
+    {
+        getConnector().setKeepAliveTimeout(500);
+
+        try (Socket socket = connect(false))
+        {
+            socket.getOutputStream().write(encode(0, 1));
+            assertResponses(socket, 0, 1);
+
+            assertThat(socket.getInputStream().read(), is(-1));
+        }
+    }
+
+    private TcpConnector getConnector()
+    {
+        return (TcpConnector) muleContext.getRegistry().lookupObject(protocolName);
+    }
+
+    private Socket connect(boolean slow) throws Exception
+    {
+        int port;
+        if ("length".equals(protocolName))
+        {
+            port = slow ? dynamicPort5.getNumber() : dynamicPort1.getNumber();
+        }
+        else
+        {
+            port = slow ? dynamicPort6.getNumber() : dynamicPort3.getNumber();
+        }
+        Socket socket = new Socket("localhost", port);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(RECEIVE_TIMEOUT);
+        return socket;
+    }
+
+    private byte[] encode(int first, int count) throws Exception
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int i = first; i < first + count; i++)
+        {
+            protocol.write(data, TEST_MESSAGE + " " + i);
+        }
+        return data.toByteArray();
+    }
+
+    private void assertResponses(Socket socket, int first, int count) throws Exception
+    {
+        InputStream input = socket.getInputStream();
+        for (int i = first; i < first + count; i++)
+        {
+            Object response = protocol.read(input);
+            assertThat(response, is(notNullValue()));
+            assertThat(new String((byte[]) response), is(TEST_MESSAGE + " " + i + " Received"));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.compatibility.transport.tcp.protocols;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.compatibility.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.compatibility.transport.tcp.TcpFrameDecoder;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Feeds the frame decoders one byte at a time, as the worst case of fragmentation.
+ */
+@SmallTest
+public class FrameDecoderTestCase extends AbstractMuleTestCase
+{
+
+    private static final String FIRST = "first message";
+    private static final String SECOND = "second message";
+
+    @Test
+    public void lengthProtocolFrames() throws Exception
+    {
+        assertFrames(new LengthProtocol(), FIRST, SECOND, "");
+    }
+
+    @Test(expected = IOException.class)
+    public void lengthProtocolRejectsLongMessages() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol(4);
+        decode(protocol.createFrameDecoder(), encode(new LengthProtocol(), FIRST), false);
+    }
+
+    @Test
+    public void safeProtocolFrames() throws Exception
+    {
+        assertFrames(new SafeProtocol(), FIRST, SECOND);
+    }
+
+    @Test(expected = IOException.class)
+    public void safeProtocolRejectsOtherProtocols() throws Exception
+    {
+        decode(new SafeProtocol().createFrameDecoder(), encode(new LengthProtocol(), "longer than the cookie of the safe protocol"), false);
+    }
+
+    @Test
+    public void eofProtocolFramesUntilClosed() throws Exception
+    {
+        EOFProtocol protocol = new EOFProtocol();
+        byte[] data = (FIRST + SECOND).getBytes();
+
+        assertThat(decode(protocol.createFrameDecoder(), data, false).size(), is(0));
+
+        List<byte[]> frames = decode(protocol.createFrameDecoder(), data, true);
+        assertThat(frames.size(), is(1));
+        assertThat(new String((byte[]) protocol.readFrame(frames.get(0))), equalTo(FIRST + SECOND));
+    }
+
+    @Test
+    public void xmlProtocolSplitsDocuments() throws Exception
+    {
+        String first = "<?xml version=\"1.0\"?><data>hello</data>";
+        String second = "<?xml version=\"1.0\"?><data>goodbye</data>";
+        XmlMessageProtocol protocol = new XmlMessageProtocol();
+
+        TcpFrameDecoder decoder = protocol.createFrameDecoder();
+        List<byte[]> frames = decode(decoder, (first + second).getBytes(), false);
+        assertThat(frames.size(), is(1));
+        assertThat(new String((byte[]) protocol.readFrame(frames.get(0))), equalTo(first));
+        assertThat(new String(decoder.flush(false)), equalTo(second));
+    }
+
+    @Test
+    public void xmlEofProtocolWaitsForEndOfInput() throws Exception
+    {
+        String document = "<?xml version=\"1.0\"?><data>hello</data>";
+        TcpFrameDecoder decoder = new XmlMessageEOFProtocol().createFrameDecoder();
+
+        assertThat(decode(decoder, document.getBytes(), false).size(), is(0));
+        assertThat(decoder.flush(false), is(nullValue()));
+        assertThat(new String(decoder.flush(true)), equalTo(document));
+    }
+
+    private void assertFrames(NonBlockingTcpProtocol protocol, String... messages) throws Exception
+    {
+        List<byte[]> frames = decode(protocol.createFrameDecoder(), encode(protocol, messages), false);
+
+        assertThat(frames.size(), is(messages.length));
+        for (int i = 0; i < messages.length; i++)
+        {
+            Object message = protocol.readFrame(frames.get(i));
+            assertThat(new String(message == null ? new byte[0] : (byte[]) message), equalTo(messages[i]));
+        }
+    }
+
+    private byte[] encode(NonBlockingTcpProtocol protocol, String... messages) throws IOException
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (String message : messages)
+        {
+            protocol.write(data, message.getBytes());
+        }
+        return data.toByteArray();
+    }
+
+    private List<byte[]> decode(TcpFrameDecoder decoder, byte[] data, boolean closed) throws IOException
+    {
+        List<byte[]> frames = new ArrayList<>();
+        for (byte b : data)
+        {
+            byte[] frame = decoder.decode(ByteBuffer.wrap(new byte[] {b}));
+            if (frame != null)
+            {
+                frames.add(frame);
+            }
+        }
+        if (closed)
+        {
+            byte[] frame = decoder.flush(true);
+            if (frame != null)
+            {
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+}
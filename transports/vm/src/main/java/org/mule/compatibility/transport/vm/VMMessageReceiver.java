@@ -213,14 +213,12 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
             }
             messages.add(message);
 
-            // keep batching if more events are available
-            for (int i = 0; i < batchSize && message != null; i++)
+            // keep batching with whatever events are already available
+            List<Serializable> batch = new ArrayList<Serializable>(batchSize);
+            queue.drainTo(batch, batchSize);
+            for (Serializable item : batch)
             {
-                message = getMessage(queue, 0);
-                if (message != null)
-                {
-                    messages.add(new DefaultMuleMessage(message, endpoint.getMuleContext()));
-                }
+                messages.add(new DefaultMuleMessage(toMessage(item), endpoint.getMuleContext()));
             }
         }
 
@@ -230,7 +228,11 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
 
     private MuleMessage getMessage(Queue queue, int timeout) throws InterruptedException
     {
-        Serializable polledItem = queue.poll(timeout);
+        return toMessage(queue.poll(timeout));
+    }
+
+    private MuleMessage toMessage(Serializable polledItem)
+    {
         if (polledItem instanceof MuleEvent)
         {
             return ((MuleEvent) polledItem).getMessage();